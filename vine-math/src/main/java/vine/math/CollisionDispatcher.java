@@ -0,0 +1,1348 @@
+package vine.math;
+
+
+import java.util.Arrays;
+
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.geometry.shape.Ellipsoid;
+import vine.math.geometry.shape.Polygon;
+import vine.math.geometry.shape.Rectangle;
+import vine.math.geometry.shape.Shape;
+import vine.math.geometry.shape.ShapeType;
+import vine.math.geometry.shape.Triangle;
+
+
+/**
+ * Selects the intersection test for a pair of shapes by their type ids.
+ * <p>
+ * Each ordered pair of shape types maps to one {@link PairTest} in a table, so a test is chosen by
+ * an array lookup instead of a cascade of instanceof checks. Each test casts to the concrete shape
+ * types and calls one method of {@link Intersection}. A test registered for the types (A,B) is
+ * also used for (B,A), with swapped arguments and the normal of the hit data flipped, so the
+ * normal always points from the first to the second shape.
+ * </p>
+ * <p>
+ * All pairs of the built in shape types have a test. Pairs of Aabbs, rectangles, triangles and
+ * polygons without a dedicated test are tested as polygons, ellipsoids against them in the frame,
+ * in which the ellipsoid is the unit circle. The corners of these shapes are stored in arrays of
+ * the tests, so a dispatcher must not be shared between threads.
+ * </p>
+ * <p>
+ * {@link #intersect(Shape[], long[], int, long[], HitData[])} sorts pairs by their pair type with a
+ * counting sort and hands each homogeneous batch to {@link PairTest#intersectBatch}, which loops
+ * over the pairs inside the test, so its call of the single pair test stays monomorphic.
+ * </p>
+ * <p>
+ * Ray casts are selected the same way by the type of the shape from a table of {@link RayTest}s.
+ * </p>
+ */
+public final class CollisionDispatcher
+{
+
+	/**
+	 * Number of pair types.
+	 */
+	public static final int		PAIR_TYPES	= ShapeType.COUNT * ShapeType.COUNT;
+
+	private final PairTest[]	tests		= new PairTest[PAIR_TYPES];
+	private final RayTest[]		rayTests	= new RayTest[ShapeType.COUNT];
+	private final int[]			typeStarts	= new int[PAIR_TYPES + 1];
+	private long[]				sortedPairs	= new long[16];
+	/**
+	 * Receives the hits of the nearest cast, if no data is given.
+	 */
+	private final HitData		castData	= new HitData();
+
+
+	/**
+	 * Creates a new dispatcher with the tests for all pairs of shapes and the ray tests for all
+	 * shapes.
+	 */
+	public CollisionDispatcher()
+	{
+		for (int typeA = 0; typeA < ShapeType.COUNT; typeA++)
+		{
+			for (int typeB = 0; typeB < ShapeType.COUNT; typeB++)
+			{
+				tests[getPairType(typeA, typeB)] = new Unsupported(typeA, typeB);
+			}
+		}
+		register(ShapeType.CIRCLE, ShapeType.CIRCLE, new CircleCircle());
+		register(ShapeType.AABB, ShapeType.AABB, new AabbAabb());
+		register(ShapeType.AABB, ShapeType.CIRCLE, new AabbCircle());
+		register(ShapeType.RECTANGLE, ShapeType.RECTANGLE, new RectangleRectangle());
+		register(ShapeType.AABB, ShapeType.RECTANGLE, new AabbRectangle());
+		register(ShapeType.RECTANGLE, ShapeType.CIRCLE, new RectangleCircle());
+		register(ShapeType.ELLIPSOID, ShapeType.CIRCLE, new EllipsoidCircle());
+		register(ShapeType.ELLIPSOID, ShapeType.ELLIPSOID, new EllipsoidEllipsoid());
+		register(ShapeType.TRIANGLE, ShapeType.CIRCLE, new TriangleCircle());
+		register(ShapeType.TRIANGLE, ShapeType.AABB, new TriangleAabb());
+		register(ShapeType.TRIANGLE, ShapeType.TRIANGLE, new TriangleTriangle());
+		register(ShapeType.TRIANGLE, ShapeType.RECTANGLE, new PolygonPolygon());
+		register(ShapeType.POLYGON, ShapeType.CIRCLE, new PolygonCircle());
+		register(ShapeType.POLYGON, ShapeType.AABB, new PolygonPolygon());
+		register(ShapeType.POLYGON, ShapeType.RECTANGLE, new PolygonPolygon());
+		register(ShapeType.POLYGON, ShapeType.TRIANGLE, new PolygonPolygon());
+		register(ShapeType.POLYGON, ShapeType.POLYGON, new PolygonPolygon());
+		register(ShapeType.ELLIPSOID, ShapeType.AABB, new EllipsoidPolygon());
+		register(ShapeType.ELLIPSOID, ShapeType.RECTANGLE, new EllipsoidPolygon());
+		register(ShapeType.ELLIPSOID, ShapeType.TRIANGLE, new EllipsoidPolygon());
+		register(ShapeType.ELLIPSOID, ShapeType.POLYGON, new EllipsoidPolygon());
+		registerRay(ShapeType.CIRCLE, new CircleRay());
+		registerRay(ShapeType.AABB, new AabbRay());
+		registerRay(ShapeType.RECTANGLE, new RectangleRay());
+		registerRay(ShapeType.ELLIPSOID, new EllipsoidRay());
+		registerRay(ShapeType.TRIANGLE, new TriangleRay());
+		registerRay(ShapeType.POLYGON, new PolygonRay());
+	}
+
+	/**
+	 * @return The index of the ordered pair of shape types.
+	 */
+	public static int getPairType(final int typeA, final int typeB)
+	{
+		return typeA * ShapeType.COUNT + typeB;
+	}
+
+	/**
+	 * Registers a test for the given pair of shape types and, with swapped arguments, for the
+	 * reversed pair, replacing the previous tests.
+	 *
+	 * @param typeA
+	 *            The type of the first shape, the test receives.
+	 * @param typeB
+	 *            The type of the second shape, the test receives.
+	 * @param test
+	 *            The test, which normal has to point from the first to the second shape.
+	 */
+	public void register(final int typeA, final int typeB, final PairTest test)
+	{
+		if (test == null)
+		{
+			throw new IllegalArgumentException("Tried to register a pair test that is null");
+		}
+		tests[getPairType(typeA, typeB)] = test;
+		if (typeA != typeB)
+		{
+			tests[getPairType(typeB, typeA)] = new Swapped(test);
+		}
+	}
+
+	/**
+	 * Registers the ray test for the given shape type, replacing the previous test.
+	 */
+	public void registerRay(final int type, final RayTest test)
+	{
+		if (test == null)
+		{
+			throw new IllegalArgumentException("Tried to register a ray test that is null");
+		}
+		rayTests[type] = test;
+	}
+
+	/**
+	 * @return True, if there is a test for the given pair of shape types.
+	 */
+	public boolean isSupported(final int typeA, final int typeB)
+	{
+		return !(tests[getPairType(typeA, typeB)] instanceof Unsupported);
+	}
+
+	/**
+	 * Checks, if the two shapes intersect each other.
+	 *
+	 * @param data
+	 *            Data, that will contain detailed intersection informations, if given.
+	 * @return True, if the shapes intersect.
+	 */
+	public boolean intersect(final Shape a, final Shape b, final HitData data)
+	{
+		return tests[getPairType(a.getTypeId(), b.getTypeId())].intersect(a, b, data);
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the shape.
+	 *
+	 * @param maxFraction
+	 *            The maximal fraction of the direction, that is the maximal distance for a
+	 *            normalized direction, {@link Float#POSITIVE_INFINITY} for a ray or 1 for a
+	 *            segment.
+	 * @param data
+	 *            Data, that will contain the fraction, point and normal of the hit, if given.
+	 * @return True, if the ray enters the shape within the maximal fraction.
+	 * @see Intersection#castCircle(float, float, float, float, float, float, float, float,
+	 *      HitData)
+	 */
+	public boolean cast(
+			final Shape shape,
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final HitData data)
+	{
+		final RayTest test = rayTests[shape.getTypeId()];
+		if (test == null)
+		{
+			throw new IllegalArgumentException("Tried to cast a ray against the unsupported shape "
+					+ ShapeType.getName(shape.getTypeId()));
+		}
+		return test.cast(shape, originX, originY, directionX, directionY, maxFraction, data);
+	}
+
+	/**
+	 * Finds the shape, that the ray enters first. Each hit shortens the ray, so all later shapes
+	 * are tested against the nearest hit so far and farther ones are rejected early.
+	 *
+	 * @param count
+	 *            The number of shapes.
+	 * @param data
+	 *            Data, that will contain the fraction, point and normal of the nearest hit, if
+	 *            given.
+	 * @return The index of the nearest hit shape or -1, if the ray hits none.
+	 */
+	public int castNearest(
+			final Shape[] shapes,
+			final int count,
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final HitData data)
+	{
+		final HitData hitData = data == null ? castData : data;
+		float nearest = maxFraction;
+		int nearestIndex = -1;
+		for (int i = 0; i < count; i++)
+		{
+			final Shape shape = shapes[i];
+			if (cast(shape, originX, originY, directionX, directionY, nearest, hitData))
+			{
+				nearest = hitData.getFraction();
+				nearestIndex = i;
+			}
+		}
+		return nearestIndex;
+	}
+
+	/**
+	 * Sorts the pairs by their pair type with a stable counting sort. Afterwards the pairs of each
+	 * type start at {@link #getTypeStart(int)}.
+	 *
+	 * @param shapes
+	 *            The shapes the pairs refer to.
+	 * @param pairs
+	 *            Pairs of indices into the shapes, encoded as {@code (long) a << 32 | b}.
+	 * @param count
+	 *            The number of pairs.
+	 */
+	public void sortByType(final Shape[] shapes, final long[] pairs, final int count)
+	{
+		if (sortedPairs.length < count)
+		{
+			sortedPairs = new long[GMath.max(count, sortedPairs.length * 2)];
+		}
+		final int[] starts = typeStarts;
+		Arrays.fill(starts, 0);
+		for (int i = 0; i < count; i++)
+		{
+			starts[getPairType(shapes, pairs[i]) + 1]++;
+		}
+		for (int type = 0; type < PAIR_TYPES; type++)
+		{
+			starts[type + 1] += starts[type];
+		}
+		for (int i = 0; i < count; i++)
+		{
+			sortedPairs[starts[getPairType(shapes, pairs[i])]++] = pairs[i];
+		}
+		for (int type = PAIR_TYPES; type > 0; type--)
+		{
+			starts[type] = starts[type - 1];
+		}
+		starts[0] = 0;
+		System.arraycopy(sortedPairs, 0, pairs, 0, count);
+	}
+
+	/**
+	 * @return The index of the first pair of the given pair type after the last sort.
+	 */
+	public int getTypeStart(final int pairType)
+	{
+		return typeStarts[pairType];
+	}
+
+	/**
+	 * Sorts the pairs by type and tests each batch of pairs of one type with its test.
+	 *
+	 * @param shapes
+	 *            The shapes the pairs refer to.
+	 * @param pairs
+	 *            Pairs of indices into the shapes, encoded as {@code (long) a << 32 | b}. They are
+	 *            reordered by type.
+	 * @param count
+	 *            The number of pairs.
+	 * @param hits
+	 *            Array, that receives the intersecting pairs, must be at least as long as the
+	 *            number of pairs.
+	 * @param data
+	 *            Array, that receives the hit data of each intersecting pair at the same index as
+	 *            in the hits or null, if no details are needed.
+	 * @return The number of intersecting pairs.
+	 */
+	public int intersect(
+			final Shape[] shapes,
+			final long[] pairs,
+			final int count,
+			final long[] hits,
+			final HitData[] data)
+	{
+		sortByType(shapes, pairs, count);
+		int hitCount = 0;
+		for (int type = 0; type < PAIR_TYPES; type++)
+		{
+			final int start = typeStarts[type];
+			final int end = typeStarts[type + 1];
+			if (start == end)
+			{
+				continue;
+			}
+			hitCount = tests[type].intersectBatch(shapes, pairs, start, end, hits, hitCount, data);
+		}
+		return hitCount;
+	}
+
+	private static int getPairType(final Shape[] shapes, final long pair)
+	{
+		return getPairType(shapes[(int) (pair >>> 32)].getTypeId(), shapes[(int) pair].getTypeId());
+	}
+
+	/**
+	 * @param corners
+	 *            Array of at least 8 floats, that receives the corners of an Aabb, rectangle or
+	 *            triangle.
+	 * @return The vertices of the polygon or the given array with the corners of the shape.
+	 */
+	private static float[] getVertices(final Shape shape, final float[] corners)
+	{
+		switch (shape.getTypeId())
+		{
+			case ShapeType.AABB:
+				final Aabb aabb = (Aabb) shape;
+				corners[0] = aabb.getX();
+				corners[1] = aabb.getY();
+				corners[2] = aabb.getX() + aabb.getWidth();
+				corners[3] = aabb.getY();
+				corners[4] = aabb.getX() + aabb.getWidth();
+				corners[5] = aabb.getY() + aabb.getHeight();
+				corners[6] = aabb.getX();
+				corners[7] = aabb.getY() + aabb.getHeight();
+				return corners;
+			case ShapeType.RECTANGLE:
+				final Rectangle rectangle = (Rectangle) shape;
+				corners[0] = rectangle.getLowerLeftX();
+				corners[1] = rectangle.getLowerLeftY();
+				corners[2] = rectangle.getLowerRightX();
+				corners[3] = rectangle.getLowerRightY();
+				corners[4] = rectangle.getLowerRightX() + rectangle.getUpperLeftX()
+						- rectangle.getLowerLeftX();
+				corners[5] = rectangle.getLowerRightY() + rectangle.getUpperLeftY()
+						- rectangle.getLowerLeftY();
+				corners[6] = rectangle.getUpperLeftX();
+				corners[7] = rectangle.getUpperLeftY();
+				return corners;
+			case ShapeType.TRIANGLE:
+				final Triangle triangle = (Triangle) shape;
+				corners[0] = triangle.getX1();
+				corners[1] = triangle.getY1();
+				corners[2] = triangle.getX2();
+				corners[3] = triangle.getY2();
+				corners[4] = triangle.getX3();
+				corners[5] = triangle.getY3();
+				return corners;
+			case ShapeType.POLYGON:
+				return ((Polygon) shape).getVertices();
+			default:
+				throw new IllegalArgumentException("Tried to get the vertices of the shape "
+						+ ShapeType.getName(shape.getTypeId()));
+		}
+	}
+
+	/**
+	 * @return The number of floats of the vertices of the shape.
+	 * @see #getVertices(Shape, float[])
+	 */
+	private static int getVertexLength(final Shape shape)
+	{
+		switch (shape.getTypeId())
+		{
+			case ShapeType.TRIANGLE:
+				return 6;
+			case ShapeType.POLYGON:
+				return ((Polygon) shape).getVertexCount() * 2;
+			default:
+				return 8;
+		}
+	}
+
+	/**
+	 * Intersection test for one ordered pair of shape types.
+	 */
+	public abstract static class PairTest
+	{
+
+		/**
+		 * Checks, if the two shapes intersect each other.
+		 *
+		 * @param a
+		 *            The first shape, which is of the first type of the pair.
+		 * @param b
+		 *            The second shape, which is of the second type of the pair.
+		 * @param data
+		 *            Data, that will contain detailed intersection informations, if given. Its
+		 *            normal points from the first to the second shape.
+		 * @return True, if the shapes intersect.
+		 */
+		public abstract boolean intersect(Shape a, Shape b, HitData data);
+
+		/**
+		 * Tests a batch of pairs of the types of the test. The built in tests override it with a
+		 * copy of this loop, so the call of {@link #intersect(Shape, Shape, HitData)} has a single
+		 * receiver type and can be inlined.
+		 *
+		 * @param start
+		 *            The index of the first pair.
+		 * @param end
+		 *            The index behind the last pair.
+		 * @param hitCount
+		 *            The number of hits before the batch.
+		 * @return The number of hits after the batch.
+		 * @see CollisionDispatcher#intersect(Shape[], long[], int, long[], HitData[])
+		 */
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Ray cast against one shape type.
+	 */
+	public abstract static class RayTest
+	{
+
+		/**
+		 * Casts the ray from the origin along the direction against the shape, which is of the
+		 * type of the test.
+		 *
+		 * @see CollisionDispatcher#cast(Shape, float, float, float, float, float, HitData)
+		 */
+		public abstract boolean cast(
+				Shape shape,
+				float originX,
+				float originY,
+				float directionX,
+				float directionY,
+				float maxFraction,
+				HitData data);
+	}
+
+	private static final class Swapped extends PairTest
+	{
+
+		private final PairTest test;
+
+
+		Swapped(final PairTest test)
+		{
+			this.test = test;
+		}
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final boolean hit = test.intersect(b, a, data);
+			if (data != null)
+			{
+				data.getNormal().rotate180();
+			}
+			return hit;
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			// Runs the loop of the wrapped test on the swapped pairs
+			swap(pairs, start, end);
+			final int count = test.intersectBatch(shapes, pairs, start, end, hits, hitCount, data);
+			swap(pairs, start, end);
+			swap(hits, hitCount, count);
+			if (data != null)
+			{
+				for (int i = hitCount; i < count; i++)
+				{
+					data[i].getNormal().rotate180();
+				}
+			}
+			return count;
+		}
+
+		private static void swap(final long[] pairs, final int start, final int end)
+		{
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				pairs[i] = pair << 32 | pair >>> 32;
+			}
+		}
+	}
+
+	private static final class Unsupported extends PairTest
+	{
+
+		private final int	typeA;
+		private final int	typeB;
+
+
+		Unsupported(final int typeA, final int typeB)
+		{
+			this.typeA = typeA;
+			this.typeB = typeB;
+		}
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			throw new IllegalArgumentException("Tried to intersect unsupported shapes "
+					+ ShapeType.getName(typeA) + " and " + ShapeType.getName(typeB));
+		}
+	}
+
+	private static final class CircleCircle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Circle circleA = (Circle) a;
+			final Circle circleB = (Circle) b;
+			return Intersection.intersectCircleCircle(
+					circleA.getX(),
+					circleA.getY(),
+					circleB.getX(),
+					circleB.getY(),
+					circleA.getRadius(),
+					circleB.getRadius(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class AabbAabb extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Aabb aabbA = (Aabb) a;
+			final Aabb aabbB = (Aabb) b;
+			return Intersection.intersectAabbAabb(
+					aabbA.getWidth(),
+					aabbA.getHeight(),
+					aabbB.getX() - aabbA.getX(),
+					aabbB.getY() - aabbA.getY(),
+					aabbB.getWidth(),
+					aabbB.getHeight(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class AabbCircle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Aabb aabb = (Aabb) a;
+			final Circle circle = (Circle) b;
+			return Intersection.intersectAabbCircle(
+					aabb.getX(),
+					aabb.getY(),
+					aabb.getWidth(),
+					aabb.getHeight(),
+					circle.getX(),
+					circle.getY(),
+					circle.getRadius(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class RectangleRectangle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Rectangle rectangleA = (Rectangle) a;
+			final Rectangle rectangleB = (Rectangle) b;
+			return Intersection.intersectCenteredObbObb(
+					rectangleA.getCenterX(),
+					rectangleA.getCenterY(),
+					rectangleA.getHalfWidth(),
+					rectangleA.getHalfHeight(),
+					rectangleA.getCos(),
+					rectangleA.getSin(),
+					rectangleB.getCenterX(),
+					rectangleB.getCenterY(),
+					rectangleB.getHalfWidth(),
+					rectangleB.getHalfHeight(),
+					rectangleB.getCos(),
+					rectangleB.getSin(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class AabbRectangle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Aabb aabb = (Aabb) a;
+			final Rectangle rectangle = (Rectangle) b;
+			return Intersection.intersectCenteredObbObb(
+					aabb.getX() + aabb.getWidth() * 0.5f,
+					aabb.getY() + aabb.getHeight() * 0.5f,
+					aabb.getWidth() * 0.5f,
+					aabb.getHeight() * 0.5f,
+					1,
+					0,
+					rectangle.getCenterX(),
+					rectangle.getCenterY(),
+					rectangle.getHalfWidth(),
+					rectangle.getHalfHeight(),
+					rectangle.getCos(),
+					rectangle.getSin(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class RectangleCircle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Rectangle rectangle = (Rectangle) a;
+			final Circle circle = (Circle) b;
+			return Intersection.intersectObbCircle(
+					rectangle.getLowerLeftX(),
+					rectangle.getLowerLeftY(),
+					rectangle.getUpperLeftX(),
+					rectangle.getUpperLeftY(),
+					rectangle.getLowerRightX(),
+					rectangle.getLowerRightY(),
+					circle.getX(),
+					circle.getY(),
+					circle.getRadius(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class EllipsoidCircle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Ellipsoid ellipsoid = (Ellipsoid) a;
+			final Circle circle = (Circle) b;
+			return Intersection.intersectEllipsoidCircle(
+					ellipsoid.getX(),
+					ellipsoid.getY(),
+					ellipsoid.getWidth(),
+					ellipsoid.getHeight(),
+					GMath.toRadians(ellipsoid.getRotation()),
+					circle.getX(),
+					circle.getY(),
+					circle.getRadius(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class EllipsoidEllipsoid extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Ellipsoid ellipsoidA = (Ellipsoid) a;
+			final Ellipsoid ellipsoidB = (Ellipsoid) b;
+			return Intersection.intersectEllipsoidEllipsoid(
+					ellipsoidA.getX(),
+					ellipsoidA.getY(),
+					ellipsoidA.getWidth(),
+					ellipsoidA.getHeight(),
+					GMath.toRadians(ellipsoidA.getRotation()),
+					ellipsoidB.getX(),
+					ellipsoidB.getY(),
+					ellipsoidB.getWidth(),
+					ellipsoidB.getHeight(),
+					GMath.toRadians(ellipsoidB.getRotation()),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class TriangleCircle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Triangle triangle = (Triangle) a;
+			final Circle circle = (Circle) b;
+			return Intersection.intersectTriangleCircle(
+					triangle.getX1(),
+					triangle.getY1(),
+					triangle.getX2(),
+					triangle.getY2(),
+					triangle.getX3(),
+					triangle.getY3(),
+					circle.getX(),
+					circle.getY(),
+					circle.getRadius(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class TriangleAabb extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Triangle triangle = (Triangle) a;
+			final Aabb aabb = (Aabb) b;
+			return Intersection.intersectTriangleAabb(
+					triangle.getX1(),
+					triangle.getY1(),
+					triangle.getX2(),
+					triangle.getY2(),
+					triangle.getX3(),
+					triangle.getY3(),
+					aabb.getX(),
+					aabb.getY(),
+					aabb.getWidth(),
+					aabb.getHeight(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class TriangleTriangle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Triangle triangleA = (Triangle) a;
+			final Triangle triangleB = (Triangle) b;
+			return Intersection.intersectTriangleTriangle(
+					triangleA.getX1(),
+					triangleA.getY1(),
+					triangleA.getX2(),
+					triangleA.getY2(),
+					triangleA.getX3(),
+					triangleA.getY3(),
+					triangleB.getX1(),
+					triangleB.getY1(),
+					triangleB.getX2(),
+					triangleB.getY2(),
+					triangleB.getX3(),
+					triangleB.getY3(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Tests any pair of Aabbs, rectangles, triangles and polygons as polygons.
+	 */
+	private static final class PolygonPolygon extends PairTest
+	{
+
+		private final float[]	cornersA	= new float[8];
+		private final float[]	cornersB	= new float[8];
+
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			return Intersection.intersectPolygonPolygon(
+					getVertices(a, cornersA),
+					getVertexLength(a),
+					getVertices(b, cornersB),
+					getVertexLength(b),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class PolygonCircle extends PairTest
+	{
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Polygon polygon = (Polygon) a;
+			final Circle circle = (Circle) b;
+			return Intersection.intersectPolygonCircle(
+					polygon.getVertices(),
+					polygon.getVertexCount() * 2,
+					circle.getX(),
+					circle.getY(),
+					circle.getRadius(),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * Tests an ellipsoid against an Aabb, rectangle, triangle or polygon as polygon.
+	 */
+	private static final class EllipsoidPolygon extends PairTest
+	{
+
+		private final float[] corners = new float[8];
+
+
+		@Override
+		public boolean intersect(final Shape a, final Shape b, final HitData data)
+		{
+			final Ellipsoid ellipsoid = (Ellipsoid) a;
+			return Intersection.intersectEllipsoidPolygon(
+					ellipsoid.getX(),
+					ellipsoid.getY(),
+					ellipsoid.getWidth(),
+					ellipsoid.getHeight(),
+					GMath.toRadians(ellipsoid.getRotation()),
+					getVertices(b, corners),
+					getVertexLength(b),
+					data);
+		}
+
+		@Override
+		public int intersectBatch(
+				final Shape[] shapes,
+				final long[] pairs,
+				final int start,
+				final int end,
+				final long[] hits,
+				final int hitCount,
+				final HitData[] data)
+		{
+			int count = hitCount;
+			for (int i = start; i < end; i++)
+			{
+				final long pair = pairs[i];
+				final HitData hitData = data == null ? null : data[count];
+				if (intersect(shapes[(int) (pair >>> 32)], shapes[(int) pair], hitData))
+				{
+					hits[count++] = pair;
+				}
+			}
+			return count;
+		}
+	}
+
+	private static final class CircleRay extends RayTest
+	{
+
+		@Override
+		public boolean cast(
+				final Shape shape,
+				final float originX,
+				final float originY,
+				final float directionX,
+				final float directionY,
+				final float maxFraction,
+				final HitData data)
+		{
+			final Circle circle = (Circle) shape;
+			return Intersection.castCircle(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					circle.getX(),
+					circle.getY(),
+					circle.getRadius(),
+					data);
+		}
+	}
+
+	private static final class AabbRay extends RayTest
+	{
+
+		@Override
+		public boolean cast(
+				final Shape shape,
+				final float originX,
+				final float originY,
+				final float directionX,
+				final float directionY,
+				final float maxFraction,
+				final HitData data)
+		{
+			final Aabb aabb = (Aabb) shape;
+			return Intersection.castAabb(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					aabb.getX(),
+					aabb.getY(),
+					aabb.getWidth(),
+					aabb.getHeight(),
+					data);
+		}
+	}
+
+	private static final class RectangleRay extends RayTest
+	{
+
+		@Override
+		public boolean cast(
+				final Shape shape,
+				final float originX,
+				final float originY,
+				final float directionX,
+				final float directionY,
+				final float maxFraction,
+				final HitData data)
+		{
+			final Rectangle rectangle = (Rectangle) shape;
+			return Intersection.castObb(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					rectangle.getCenterX(),
+					rectangle.getCenterY(),
+					rectangle.getHalfWidth(),
+					rectangle.getHalfHeight(),
+					rectangle.getCos(),
+					rectangle.getSin(),
+					data);
+		}
+	}
+
+	private static final class EllipsoidRay extends RayTest
+	{
+
+		@Override
+		public boolean cast(
+				final Shape shape,
+				final float originX,
+				final float originY,
+				final float directionX,
+				final float directionY,
+				final float maxFraction,
+				final HitData data)
+		{
+			final Ellipsoid ellipsoid = (Ellipsoid) shape;
+			return Intersection.castEllipsoid(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					ellipsoid.getX(),
+					ellipsoid.getY(),
+					ellipsoid.getWidth(),
+					ellipsoid.getHeight(),
+					GMath.toRadians(ellipsoid.getRotation()),
+					data);
+		}
+	}
+
+	private static final class TriangleRay extends RayTest
+	{
+
+		@Override
+		public boolean cast(
+				final Shape shape,
+				final float originX,
+				final float originY,
+				final float directionX,
+				final float directionY,
+				final float maxFraction,
+				final HitData data)
+		{
+			final Triangle triangle = (Triangle) shape;
+			return Intersection.castTriangle(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					triangle.getX1(),
+					triangle.getY1(),
+					triangle.getX2(),
+					triangle.getY2(),
+					triangle.getX3(),
+					triangle.getY3(),
+					data);
+		}
+	}
+
+	private static final class PolygonRay extends RayTest
+	{
+
+		@Override
+		public boolean cast(
+				final Shape shape,
+				final float originX,
+				final float originY,
+				final float directionX,
+				final float directionY,
+				final float maxFraction,
+				final HitData data)
+		{
+			final float[] vertices = ((Polygon) shape).getVertices();
+			return Intersection.castPolygon(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					vertices,
+					vertices.length,
+					data);
+		}
+	}
+}
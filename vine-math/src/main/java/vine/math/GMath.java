@@ -20,6 +20,12 @@ import vine.math.auxilliary.Xorshift128Plus;
  * Equivalents of Math functions may have a lower accuracy, too. But these accuracy errors should be
  * negligible due to floating-point errors and the speed-up.
  * </p>
+ * <p>
+ * If the system property {@code vine.math.strict} is true at startup, the equivalents of Math
+ * functions delegate to {@link StrictMath} instead of intrinsic Math functions and lookup tables,
+ * so their results are bit identical on every JVM, e.g. for reproducible replays. The "fast"
+ * functions are not affected.
+ * </p>
  *
  * @author Steffen Kromm, first created on 25.01.2016
  *
@@ -55,6 +61,13 @@ public final class GMath
 	 * Standard floating point error of 1e-6.
 	 */
 	public static final float				EPSILON				= 0.000001f;
+	/**
+	 * True, if the strict mode is enabled. The mode is chosen once, so the JIT can remove the branch
+	 * of the other mode. The package private overloads with a strict flag run either mode, so the
+	 * tests can check both modes in one JVM.
+	 */
+	public static final boolean				STRICT				= Boolean
+			.getBoolean("vine.math.strict");
 
 
 	private GMath()
@@ -103,7 +116,15 @@ public final class GMath
 	 */
 	public static float sqrt(final double value)
 	{
-		return (float) StrictMath.sqrt(value);
+		return sqrt(value, STRICT);
+	}
+
+	/**
+	 * {@link #sqrt(double)} in the strict mode or the fast mode.
+	 */
+	static float sqrt(final double value, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.sqrt(value) : Math.sqrt(value));
 	}
 
 	/**
@@ -129,7 +150,15 @@ public final class GMath
 	 */
 	public static float pow(final float a, final float b)
 	{
-		return (float) StrictMath.pow(a, b);
+		return pow(a, b, STRICT);
+	}
+
+	/**
+	 * {@link #pow(float, float)} in the strict mode or the fast mode.
+	 */
+	static float pow(final float a, final float b, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.pow(a, b) : Math.pow(a, b));
 	}
 
 	/**
@@ -186,7 +215,15 @@ public final class GMath
 	 */
 	public static float exp(final float value)
 	{
-		return (float) Math.exp(value);
+		return exp(value, STRICT);
+	}
+
+	/**
+	 * {@link #exp(float)} in the strict mode or the fast mode.
+	 */
+	static float exp(final float value, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.exp(value) : Math.exp(value));
 	}
 
 	/**
@@ -204,20 +241,44 @@ public final class GMath
 
 	public static float ln(final float value)
 	{
-		return (float) Math.log(value);
+		return ln(value, STRICT);
 	}
 
 	/**
-	 * Accuracy about 1e-4.
+	 * {@link #ln(float)} in the strict mode or the fast mode.
+	 */
+	static float ln(final float value, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.log(value) : Math.log(value));
+	}
+
+	/**
+	 * Accuracy about 1e-4 outside of the strict mode.
 	 */
 	public static float log(final float a, final float value)
 	{
-		return fastLn(value) / ln(a);
+		return log(a, value, STRICT);
+	}
+
+	/**
+	 * {@link #log(float, float)} in the strict mode or the fast mode.
+	 */
+	static float log(final float a, final float value, final boolean strict)
+	{
+		return (strict ? ln(value, true) : fastLn(value)) / ln(a, strict);
 	}
 
 	public static float log(final float value)
 	{
-		return (float) Math.log10(value);
+		return log(value, STRICT);
+	}
+
+	/**
+	 * {@link #log(float)} in the strict mode or the fast mode.
+	 */
+	static float log(final float value, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.log10(value) : Math.log10(value));
 	}
 
 	public static float fastLn(final float x)
@@ -682,7 +743,15 @@ public final class GMath
 	 */
 	public static float cos(final float rad)
 	{
-		return LookupSinCos.cos(rad);
+		return cos(rad, STRICT);
+	}
+
+	/**
+	 * {@link #cos(float)} in the strict mode or the fast mode.
+	 */
+	static float cos(final float rad, final boolean strict)
+	{
+		return strict ? (float) StrictMath.cos(rad) : LookupSinCos.cos(rad);
 	}
 
 	/**
@@ -694,7 +763,15 @@ public final class GMath
 	 */
 	public static float sin(final float rad)
 	{
-		return LookupSinCos.sin(rad);
+		return sin(rad, STRICT);
+	}
+
+	/**
+	 * {@link #sin(float)} in the strict mode or the fast mode.
+	 */
+	static float sin(final float rad, final boolean strict)
+	{
+		return strict ? (float) StrictMath.sin(rad) : LookupSinCos.sin(rad);
 	}
 
 	/**
@@ -735,7 +812,15 @@ public final class GMath
 	 */
 	public static float acos(final float value)
 	{
-		return (float) Math.acos(value);
+		return acos(value, STRICT);
+	}
+
+	/**
+	 * {@link #acos(float)} in the strict mode or the fast mode.
+	 */
+	static float acos(final float value, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.acos(value) : Math.acos(value));
 	}
 
 	/**
@@ -764,7 +849,15 @@ public final class GMath
 	 */
 	public static float asin(final float value)
 	{
-		return (float) Math.asin(value);
+		return asin(value, STRICT);
+	}
+
+	/**
+	 * {@link #asin(float)} in the strict mode or the fast mode.
+	 */
+	static float asin(final float value, final boolean strict)
+	{
+		return (float) (strict ? StrictMath.asin(value) : Math.asin(value));
 	}
 
 	/**
@@ -788,7 +881,15 @@ public final class GMath
 	 */
 	public static float atan2(final float y, final float x)
 	{
-		return Icecore.atan2(y, x);
+		return atan2(y, x, STRICT);
+	}
+
+	/**
+	 * {@link #atan2(float, float)} in the strict mode or the fast mode.
+	 */
+	static float atan2(final float y, final float x, final boolean strict)
+	{
+		return strict ? (float) StrictMath.atan2(y, x) : Icecore.atan2(y, x);
 	}
 
 	/**
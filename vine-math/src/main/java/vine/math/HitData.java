@@ -4,6 +4,12 @@ import vine.math.vector.MutableVec2f;
 
 /**
  * POJO for details of an intersection.
+ * <p>
+ * Overlap tests set the point, the normal and the penetration, which is the depth of the overlap.
+ * Casts of rays and segments set the point, the normal and the fraction, which is their time of
+ * impact as fraction of the cast direction. Each test only writes its own field, the other one
+ * keeps its previous value.
+ * </p>
  *
  * @author Steffen Kromm, first created on 29.05.2016
  *
@@ -19,9 +25,15 @@ public class HitData
      */
     private final MutableVec2f normal = new MutableVec2f();
     /**
-     * The maximum distance the two objects of the intersection are overlapping.
+     * The maximum distance the two objects of the intersection are overlapping, set by overlap
+     * tests.
      */
     private float              penetration;
+    /**
+     * Fraction of the direction of a ray or segment cast from its origin to the point, set by
+     * casts.
+     */
+    private float              fraction;
 
     public MutableVec2f getPoint()
     {
@@ -43,6 +55,16 @@ public class HitData
         penetration = v;
     }
 
+    public float getFraction()
+    {
+        return fraction;
+    }
+
+    public void setFraction(final float fraction)
+    {
+        this.fraction = fraction;
+    }
+
     /**
      * Sets the normal with the given vector and normalizes it.
      *
@@ -62,9 +84,21 @@ public class HitData
         point.set(x, y);
     }
 
+    /**
+     * Sets point, normal, penetration and fraction to zero.
+     */
+    public void reset()
+    {
+        point.set(0, 0);
+        normal.set(0, 0);
+        penetration = 0;
+        fraction = 0;
+    }
+
     @Override
     public String toString()
     {
-        return "HitData Penetration:" + penetration + " Normal:" + normal + " Point:" + point;
+        return "HitData Penetration:" + penetration + " Fraction:" + fraction + " Normal:" + normal
+                + " Point:" + point;
     }
 }
@@ -2,6 +2,7 @@ package vine.math;
 
 
 import vine.math.auxilliary.AxisProjection;
+import vine.math.geometry.shape.ShapeUtil;
 import vine.math.vector.Vec2f;
 import vine.math.vector.VectorUtils;
 
@@ -9,11 +10,32 @@ import vine.math.vector.VectorUtils;
 public final class Intersection
 {
 
+	/**
+	 * Number of floats of an ellipsoid in a packed array: the center, the radius along the local x
+	 * axis, the radius along the local y axis and the rotation in radians.
+	 */
+	public static final int		ELLIPSOID_STRIDE		= 5;
+	/**
+	 * Number of floats of a circle in a packed array: the center and the radius.
+	 */
+	public static final int		CIRCLE_STRIDE			= 3;
+	/**
+	 * Iterations of the nearest point search on an ellipsoid, three give float precision.
+	 */
+	private static final int	ELLIPSOID_ITERATIONS	= 3;
+
+
 	private Intersection()
 	{
 
 	}
 
+	/**
+	 * Checks, if the two given oriented boxes intersect each other.
+	 *
+	 * @see #intersectObbObb(float, float, float, float, float, float, float, float, float,
+	 *      float, float, float, HitData)
+	 */
 	public static boolean intersectObbObb(
 			final Vec2f origin1,
 			final Vec2f upperLeft1,
@@ -23,62 +45,350 @@ public final class Intersection
 			final Vec2f lowerRight2,
 			final HitData data)
 	{
-		float axisX;
-		float axisY;
-		for (int i = 0; i < 2; i++)
+		return intersectObbObb(
+				origin1.getX(),
+				origin1.getY(),
+				upperLeft1.getX(),
+				upperLeft1.getY(),
+				lowerRight1.getX(),
+				lowerRight1.getY(),
+				origin2.getX(),
+				origin2.getY(),
+				upperLeft2.getX(),
+				upperLeft2.getY(),
+				lowerRight2.getX(),
+				lowerRight2.getY(),
+				data);
+	}
+
+	/**
+	 * Checks, if the two given oriented boxes intersect each other with the separating axis test
+	 * on the edge normals of both boxes. Each box is given by its origin corner and the two
+	 * corners adjacent to it.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal is the axis of the smallest
+	 * overlap, pointing from the 1st to the 2nd box, the penetration is that overlap and the point
+	 * is the corner of the 2nd box, that lies deepest in the 1st box.
+	 * </p>
+	 *
+	 * @return True, if the two boxes intersect.
+	 */
+	public static boolean intersectObbObb(
+			final float originX1,
+			final float originY1,
+			final float upperLeftX1,
+			final float upperLeftY1,
+			final float lowerRightX1,
+			final float lowerRightY1,
+			final float originX2,
+			final float originY2,
+			final float upperLeftX2,
+			final float upperLeftY2,
+			final float lowerRightX2,
+			final float lowerRightY2,
+			final HitData data)
+	{
+		float minOverlap = Float.MAX_VALUE;
+		float normalX = 0;
+		float normalY = 0;
+		for (int i = 0; i < 4; i++)
 		{
+			float axisX;
+			float axisY;
 			if (i == 0)
 			{
-				axisX = lowerRight1.getX() - origin1.getX();
-				axisY = lowerRight1.getY() - origin1.getY();
+				axisX = lowerRightX1 - originX1;
+				axisY = lowerRightY1 - originY1;
+			}
+			else if (i == 1)
+			{
+				axisX = upperLeftX1 - originX1;
+				axisY = upperLeftY1 - originY1;
+			}
+			else if (i == 2)
+			{
+				axisX = lowerRightX2 - originX2;
+				axisY = lowerRightY2 - originY2;
 			}
 			else
 			{
-				axisX = upperLeft1.getX() - origin1.getX();
-				axisY = upperLeft1.getY() - origin1.getY();
+				axisX = upperLeftX2 - originX2;
+				axisY = upperLeftY2 - originY2;
+			}
+			final float squaredLength = VectorUtils.squaredLength(axisX, axisY);
+			if (squaredLength == 0)
+			{
+				continue;
 			}
-			if (!AxisProjection.obbOverlapsAxis(
-					origin1.getX(),
-					origin1.getY(),
+			final float inversedLength = 1 / GMath.sqrt(squaredLength);
+			axisX *= inversedLength;
+			axisY *= inversedLength;
+			final float min1 = projectObbMin(
+					axisX,
+					axisY,
+					originX1,
+					originY1,
+					upperLeftX1,
+					upperLeftY1,
+					lowerRightX1,
+					lowerRightY1);
+			final float max1 = -projectObbMin(
+					-axisX,
+					-axisY,
+					originX1,
+					originY1,
+					upperLeftX1,
+					upperLeftY1,
+					lowerRightX1,
+					lowerRightY1);
+			final float min2 = projectObbMin(
 					axisX,
 					axisY,
-					origin2.getX(),
-					origin2.getY(),
-					lowerRight2.getX(),
-					lowerRight2.getY(),
-					upperLeft2.getX(),
-					upperLeft2.getY()))
+					originX2,
+					originY2,
+					upperLeftX2,
+					upperLeftY2,
+					lowerRightX2,
+					lowerRightY2);
+			final float max2 = -projectObbMin(
+					-axisX,
+					-axisY,
+					originX2,
+					originY2,
+					upperLeftX2,
+					upperLeftY2,
+					lowerRightX2,
+					lowerRightY2);
+			final float overlap = GMath.min(max1, max2) - GMath.max(min1, min2);
+			if (overlap < 0)
 			{
 				return false;
 			}
+			if (overlap < minOverlap)
+			{
+				minOverlap = overlap;
+				final boolean flip = min2 + max2 < min1 + max1;
+				normalX = flip ? -axisX : axisX;
+				normalY = flip ? -axisY : axisY;
+			}
 		}
-		for (int i = 0; i < 2; i++)
+		if (data != null)
 		{
-			if (i == 0)
+			data.setNormal(normalX, normalY);
+			data.setPenetration(minOverlap);
+			final float diagonalX = upperLeftX2 + lowerRightX2 - originX2;
+			final float diagonalY = upperLeftY2 + lowerRightY2 - originY2;
+			float deepestX = originX2;
+			float deepestY = originY2;
+			float deepest = VectorUtils.dot(normalX, normalY, originX2, originY2);
+			for (int j = 0; j < 3; j++)
 			{
-				axisX = lowerRight2.getX() - origin2.getX();
-				axisY = lowerRight2.getY() - origin2.getY();
+				final float cornerX = j == 0 ? upperLeftX2 : j == 1 ? lowerRightX2 : diagonalX;
+				final float cornerY = j == 0 ? upperLeftY2 : j == 1 ? lowerRightY2 : diagonalY;
+				final float t = VectorUtils.dot(normalX, normalY, cornerX, cornerY);
+				if (t < deepest)
+				{
+					deepest = t;
+					deepestX = cornerX;
+					deepestY = cornerY;
+				}
 			}
-			else
+			data.setPoint(deepestX, deepestY);
+		}
+		return true;
+	}
+
+	/**
+	 * @return The smallest projection of the corners of the box onto the axis.
+	 */
+	private static float projectObbMin(
+			final float axisX,
+			final float axisY,
+			final float originX,
+			final float originY,
+			final float upperLeftX,
+			final float upperLeftY,
+			final float lowerRightX,
+			final float lowerRightY)
+	{
+		final float origin = VectorUtils.dot(axisX, axisY, originX, originY);
+		final float upperLeft = VectorUtils.dot(axisX, axisY, upperLeftX, upperLeftY) - origin;
+		final float lowerRight = VectorUtils.dot(axisX, axisY, lowerRightX, lowerRightY) - origin;
+		return origin + GMath.min(upperLeft, 0) + GMath.min(lowerRight, 0);
+	}
+
+	/**
+	 * Checks, if the two given oriented boxes intersect each other with the separating axis test.
+	 * Each box is given by its center, its half extends and the unit axis along its width as
+	 * cosine and sine, the axis along its height is perpendicular to it. Unlike the test on
+	 * corners this needs no square roots. The axes of the 1st box are tested first, because their
+	 * own projection is just the half extend, and the test returns at the first separating axis.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal is the axis of the smallest
+	 * overlap, pointing from the 1st to the 2nd box, the penetration is that overlap and the point
+	 * is the corner of the 2nd box, that lies deepest in the 1st box.
+	 * </p>
+	 *
+	 * @return True, if the two boxes intersect.
+	 */
+	public static boolean intersectCenteredObbObb(
+			final float centerX1,
+			final float centerY1,
+			final float halfWidth1,
+			final float halfHeight1,
+			final float cos1,
+			final float sin1,
+			final float centerX2,
+			final float centerY2,
+			final float halfWidth2,
+			final float halfHeight2,
+			final float cos2,
+			final float sin2,
+			final HitData data)
+	{
+		final float difX = centerX2 - centerX1;
+		final float difY = centerY2 - centerY1;
+		// Absolute cosines between the axes of both boxes, the 2x2 rotation matrix from 2 to 1
+		final float parallel = GMath.abs(cos1 * cos2 + sin1 * sin2);
+		final float crossed = GMath.abs(cos1 * sin2 - sin1 * cos2);
+		// Each overlap is the half extend plus the projected radius of the other box minus the
+		// distance of the centers along the axis
+		final float radiusX2 = halfWidth2 * parallel + halfHeight2 * crossed;
+		final float distanceX1 = cos1 * difX + sin1 * difY;
+		final float overlapX1 = halfWidth1 + radiusX2 - GMath.abs(distanceX1);
+		if (overlapX1 < 0)
+		{
+			return false;
+		}
+		final float radiusY2 = halfWidth2 * crossed + halfHeight2 * parallel;
+		final float distanceY1 = cos1 * difY - sin1 * difX;
+		final float overlapY1 = halfHeight1 + radiusY2 - GMath.abs(distanceY1);
+		if (overlapY1 < 0)
+		{
+			return false;
+		}
+		final float radiusX1 = halfWidth1 * parallel + halfHeight1 * crossed;
+		final float distanceX2 = cos2 * difX + sin2 * difY;
+		final float overlapX2 = halfWidth2 + radiusX1 - GMath.abs(distanceX2);
+		if (overlapX2 < 0)
+		{
+			return false;
+		}
+		final float radiusY1 = halfWidth1 * crossed + halfHeight1 * parallel;
+		final float distanceY2 = cos2 * difY - sin2 * difX;
+		final float overlapY2 = halfHeight2 + radiusY1 - GMath.abs(distanceY2);
+		if (overlapY2 < 0)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			// The overlap of the projections is at most the smaller projection
+			float penetration = GMath.min(overlapX1, 2 * GMath.min(halfWidth1, radiusX2));
+			float normalX = distanceX1 < 0 ? -cos1 : cos1;
+			float normalY = distanceX1 < 0 ? -sin1 : sin1;
+			final float penetrationY1 = GMath.min(overlapY1, 2 * GMath.min(halfHeight1, radiusY2));
+			if (penetrationY1 < penetration)
 			{
-				axisX = upperLeft2.getX() - origin2.getX();
-				axisY = upperLeft2.getY() - origin2.getY();
+				penetration = penetrationY1;
+				normalX = distanceY1 < 0 ? sin1 : -sin1;
+				normalY = distanceY1 < 0 ? -cos1 : cos1;
 			}
-			if (!AxisProjection.obbOverlapsAxis(
-					origin2.getX(),
-					origin2.getY(),
-					axisX,
-					axisY,
-					origin1.getX(),
-					origin1.getY(),
-					lowerRight1.getX(),
-					lowerRight1.getY(),
-					upperLeft1.getX(),
-					upperLeft1.getY()))
+			final float penetrationX2 = GMath.min(overlapX2, 2 * GMath.min(halfWidth2, radiusX1));
+			if (penetrationX2 < penetration)
 			{
-				return false;
+				penetration = penetrationX2;
+				normalX = distanceX2 < 0 ? -cos2 : cos2;
+				normalY = distanceX2 < 0 ? -sin2 : sin2;
 			}
+			final float penetrationY2 = GMath.min(overlapY2, 2 * GMath.min(halfHeight2, radiusY1));
+			if (penetrationY2 < penetration)
+			{
+				penetration = penetrationY2;
+				normalX = distanceY2 < 0 ? sin2 : -sin2;
+				normalY = distanceY2 < 0 ? -cos2 : cos2;
+			}
+			data.setNormal(normalX, normalY);
+			data.setPenetration(penetration);
+			// The deepest corner lies against the normal along both axes of the 2nd box
+			final float alongX = cos2 * normalX + sin2 * normalY < 0 ? halfWidth2 : -halfWidth2;
+			final float alongY = cos2 * normalY - sin2 * normalX < 0 ? halfHeight2 : -halfHeight2;
+			data.setPoint(
+					centerX2 + cos2 * alongX - sin2 * alongY,
+					centerY2 + sin2 * alongX + cos2 * alongY);
+		}
+		return true;
+	}
 
+	/**
+	 * Checks, if the given oriented box and circle intersect each other. The box is given by its
+	 * origin corner and the two corners adjacent to it.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal points from the box to the
+	 * circle, the penetration is the distance the circle has to move along it to stop overlapping
+	 * and the point is the point of the box nearest to the center of the circle.
+	 * </p>
+	 *
+	 * @return True, if the box and the circle intersect.
+	 */
+	public static boolean intersectObbCircle(
+			final float originX,
+			final float originY,
+			final float upperLeftX,
+			final float upperLeftY,
+			final float lowerRightX,
+			final float lowerRightY,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final HitData data)
+	{
+		final float width = VectorUtils.length(lowerRightX - originX, lowerRightY - originY);
+		final float height = VectorUtils.length(upperLeftX - originX, upperLeftY - originY);
+		if (width == 0 || height == 0)
+		{
+			return false;
+		}
+		final float uX = (lowerRightX - originX) / width;
+		final float uY = (lowerRightY - originY) / width;
+		final float vX = (upperLeftX - originX) / height;
+		final float vY = (upperLeftY - originY) / height;
+		final float localX = VectorUtils.dot(uX, uY, centerX - originX, centerY - originY);
+		final float localY = VectorUtils.dot(vX, vY, centerX - originX, centerY - originY);
+		final float nearestX = GMath.clamp(localX, 0, width);
+		final float nearestY = GMath.clamp(localY, 0, height);
+		final float difX = localX - nearestX;
+		final float difY = localY - nearestY;
+		final float squaredDistance = VectorUtils.squaredLength(difX, difY);
+		if (squaredDistance > radius * radius)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			float normalX = difX;
+			float normalY = difY;
+			float penetration;
+			if (squaredDistance > 0)
+			{
+				penetration = radius - GMath.sqrt(squaredDistance);
+			}
+			else
+			{
+				final float left = localX;
+				final float right = width - localX;
+				final float bottom = localY;
+				final float top = height - localY;
+				final float nearestFace = GMath.min(left, right, GMath.min(bottom, top));
+				penetration = radius + nearestFace;
+				normalX = nearestFace == left ? -1 : nearestFace == right ? 1 : 0;
+				normalY = normalX != 0 ? 0 : nearestFace == bottom ? -1 : 1;
+			}
+			data.setNormal(normalX * uX + normalY * vX, normalX * uY + normalY * vY);
+			data.setPenetration(penetration);
+			data.setPoint(
+					originX + nearestX * uX + nearestY * vX,
+					originY + nearestX * uY + nearestY * vY);
 		}
 		return true;
 	}
@@ -130,23 +440,28 @@ public final class Intersection
 
 		if (hit && data != null)
 		{
-			final float xOverlap = extBx / 2 + extAx / 2 - GMath.abs(difX);
-			final float yOverlap = extAy / 2 + extBy / 2 - GMath.abs(difY);
+			// The second Aabb leaves along each axis to the nearer side of the first one
+			final float left = difX + extBx;
+			final float right = extAx - difX;
+			final float down = difY + extBy;
+			final float up = extAy - difY;
+			final float xOverlap = GMath.min(left, right);
+			final float yOverlap = GMath.min(down, up);
 			if (yOverlap < xOverlap)
 			{
-				if (difY < 0)
+				if (down < up)
 				{
 					data.setNormal(0, -1);
 				}
+				else
 				{
 					data.setNormal(0, 1);
 				}
-				data.setPenetration(difY < 0 ? -yOverlap : yOverlap);
-
+				data.setPenetration(yOverlap);
 			}
 			else
 			{
-				if (difX < 0)
+				if (left < right)
 				{
 					data.setNormal(-1, 0);
 				}
@@ -519,11 +834,12 @@ public final class Intersection
 	}
 
 	/**
-	 * Calculates the length of the ray from the origin to the intersection.
-	 * <p>
-	 * The given direction has to be normalized or the behaviour is undefined.
-	 * </p>
-	 * If there is no intersection the yield result is Float.MAX_VALUE
+	 * Checks, if the ray from the origin hits the given Aabb. The direction is given by its
+	 * inverse, e.g. precomputed for many Aabbs, infinite components for axis parallel rays are
+	 * allowed.
+	 *
+	 * @see #castAabb(float, float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray hits the Aabb.
 	 */
 	public static boolean intersectRayAabb(
 			final float originX,
@@ -536,14 +852,17 @@ public final class Intersection
 			final float extendY,
 			final HitData data)
 	{
-		final float t1 = (positionX - originX) * iDirecX;
-		final float t2 = (positionX + extendX - originX) * iDirecX;
-		final float t3 = (positionY - originY) * iDirecY;
-		final float t4 = (positionY + extendY - originY) * iDirecY;
-
-		final float tmin = GMath.max(GMath.min(t1, t2), GMath.min(t3, t4));
-		final float tmax = GMath.min(GMath.max(t1, t2), GMath.max(t3, t4));
-		return Float.MAX_VALUE != (tmax < 0 || tmin > tmax ? Float.MAX_VALUE : tmin);
+		return castAabb(
+				originX,
+				originY,
+				1 / iDirecX,
+				1 / iDirecY,
+				Float.POSITIVE_INFINITY,
+				positionX,
+				positionY,
+				extendX,
+				extendY,
+				data);
 	}
 
 	/**
@@ -708,13 +1027,10 @@ public final class Intersection
 	}
 
 	/**
+	 * Checks, if the ray from the origin along the direction hits the given circle.
 	 *
-	 * @param origin
-	 * @param direction
-	 * @param point
-	 * @param radius
-	 * @param data
-	 * @return
+	 * @see #castCircle(float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray hits the circle.
 	 */
 	public static boolean intersectRayCircle(
 			final Vec2f origin,
@@ -723,27 +1039,29 @@ public final class Intersection
 			final float radius,
 			final HitData data)
 	{
-		final float a = direction.dot(direction);
-		final float c1 = origin.getX() - point.getX();
-		final float c2 = origin.getY() - point.getY();
-		final float b = VectorUtils.dot(direction.getX() * 2, direction.getY() * 2, c1, c2);
-		final float c = VectorUtils.dot(c1, c2, c1, c2) - radius * radius;
-		final float d = b * b - 4 * a * c;
-		return d >= 0;
+		return castCircle(
+				origin.getX(),
+				origin.getY(),
+				direction.getX(),
+				direction.getY(),
+				Float.POSITIVE_INFINITY,
+				point.getX(),
+				point.getY(),
+				radius,
+				data);
 	}
 
 	/**
+	 * Checks, if the segment from point 1 to point 2 and the segment from point 3 to point 4
+	 * intersect each other, touching end points count as intersection.
+	 * <p>
+	 * It sets the data object, if given, like a cast from point 1 along the 1st segment: The
+	 * fraction is the fraction of the 1st segment up to the intersection, the point is the
+	 * intersection and the normal is the normal of the 2nd segment facing point 1. Collinear
+	 * segments intersect at their first common point with the normal against the 1st segment.
+	 * </p>
 	 *
-	 * @param point1X
-	 * @param point1Y
-	 * @param point2X
-	 * @param point2Y
-	 * @param point3X
-	 * @param point3Y
-	 * @param point4X
-	 * @param point4Y
-	 * @param data
-	 * @return
+	 * @return True, if the segments intersect.
 	 */
 	public static boolean intersectSegmentSegment(
 			final float point1X,
@@ -756,16 +1074,1709 @@ public final class Intersection
 			final float point4Y,
 			final HitData data)
 	{
-		final float d = (point4Y - point3Y) * (point2X - point1X)
-				- (point4X - point3X) * (point2Y - point1Y);
+		final float directionX = point2X - point1X;
+		final float directionY = point2Y - point1Y;
+		final float edgeX = point4X - point3X;
+		final float edgeY = point4Y - point3Y;
+		float fraction = crossEdge(
+				point1X,
+				point1Y,
+				directionX,
+				directionY,
+				point3X,
+				point3Y,
+				point4X,
+				point4Y);
+		float normalX = edgeY;
+		float normalY = -edgeX;
+		if (VectorUtils.pseudoCross(directionX, directionY, edgeX, edgeY) == 0
+				&& VectorUtils.pseudoCross(
+						point3X - point1X,
+						point3Y - point1Y,
+						directionX,
+						directionY) == 0)
+		{
+			// Collinear segments overlap, if the projection of the 2nd one overlaps the 1st one
+			final float squaredLength = VectorUtils.squaredLength(directionX, directionY);
+			final float fraction3 = VectorUtils
+					.dot(point3X - point1X, point3Y - point1Y, directionX, directionY)
+					/ squaredLength;
+			final float fraction4 = VectorUtils
+					.dot(point4X - point1X, point4Y - point1Y, directionX, directionY)
+					/ squaredLength;
+			fraction = GMath.max(GMath.min(fraction3, fraction4), 0);
+			normalX = 0;
+			normalY = 0;
+			if (squaredLength == 0 || fraction > 1 || GMath.max(fraction3, fraction4) < 0)
+			{
+				return false;
+			}
+		}
+		if (fraction < 0 || fraction > 1)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			setCastData(
+					data,
+					point1X,
+					point1Y,
+					directionX,
+					directionY,
+					fraction,
+					normalX,
+					normalY);
+		}
+		return true;
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the given circle.
+	 * <p>
+	 * All casts set the data object, if given, alike: The fraction is the fraction of the
+	 * direction from the origin to the point, where the ray enters the shape, which is the
+	 * distance, if the direction is normalized. The normal is the outer surface normal at the
+	 * point. If the origin is inside of the shape, the fraction is zero, the point is the origin
+	 * and the normal is the reversed direction.
+	 * </p>
+	 *
+	 * @param maxFraction
+	 *            The maximal fraction of the direction, that is the maximal distance for a
+	 *            normalized direction, {@link Float#POSITIVE_INFINITY} for a ray or 1 for a
+	 *            segment from the origin to the origin plus the direction. Circles beyond it are
+	 *            rejected before any square root is taken.
+	 * @return True, if the ray enters the circle within the maximal fraction.
+	 */
+	public static boolean castCircle(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final HitData data)
+	{
+		final float difX = originX - centerX;
+		final float difY = originY - centerY;
+		final float fraction = enterFraction(
+				VectorUtils.squaredLength(directionX, directionY),
+				VectorUtils.dot(difX, difY, directionX, directionY),
+				VectorUtils.squaredLength(difX, difY) - radius * radius,
+				maxFraction);
+		if (fraction < 0)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			final float normalX = fraction == 0 ? 0 : difX + directionX * fraction;
+			final float normalY = fraction == 0 ? 0 : difY + directionY * fraction;
+			setCastData(
+					data,
+					originX,
+					originY,
+					directionX,
+					directionY,
+					fraction,
+					normalX,
+					normalY);
+		}
+		return true;
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the given Aabb.
+	 *
+	 * @see #castCircle(float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray enters the Aabb within the maximal fraction.
+	 */
+	public static boolean castAabb(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float x,
+			final float y,
+			final float width,
+			final float height,
+			final HitData data)
+	{
+		final float halfWidth = width * 0.5f;
+		final float halfHeight = height * 0.5f;
+		return castObb(
+				originX,
+				originY,
+				directionX,
+				directionY,
+				maxFraction,
+				x + halfWidth,
+				y + halfHeight,
+				halfWidth,
+				halfHeight,
+				1,
+				0,
+				data);
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the given oriented box, which is
+	 * given by its center, its half extends and the unit axis along its width as cosine and sine
+	 * like for the centered Obb test. The ray is transformed into the frame of the box and
+	 * clipped against its slabs, it is rejected as soon as the clipped interval is empty.
+	 *
+	 * @see #castCircle(float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray enters the box within the maximal fraction.
+	 */
+	public static boolean castObb(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float centerX,
+			final float centerY,
+			final float halfWidth,
+			final float halfHeight,
+			final float cos,
+			final float sin,
+			final HitData data)
+	{
+		final float difX = originX - centerX;
+		final float difY = originY - centerY;
+		final float localX = cos * difX + sin * difY;
+		final float localY = cos * difY - sin * difX;
+		final float localDirectionX = cos * directionX + sin * directionY;
+		final float localDirectionY = cos * directionY - sin * directionX;
+		float enter = 0;
+		float exit = maxFraction;
+		float normalX = 0;
+		float normalY = 0;
+		if (localDirectionX == 0)
+		{
+			if (GMath.abs(localX) > halfWidth)
+			{
+				return false;
+			}
+		}
+		else
+		{
+			// The ray enters through the face, that it moves towards
+			final float face = localDirectionX > 0 ? -halfWidth : halfWidth;
+			final float near = (face - localX) / localDirectionX;
+			if (near > enter)
+			{
+				enter = near;
+				normalX = localDirectionX > 0 ? -1 : 1;
+			}
+			exit = GMath.min(exit, (-face - localX) / localDirectionX);
+			if (enter > exit)
+			{
+				return false;
+			}
+		}
+		if (localDirectionY == 0)
+		{
+			if (GMath.abs(localY) > halfHeight)
+			{
+				return false;
+			}
+		}
+		else
+		{
+			final float face = localDirectionY > 0 ? -halfHeight : halfHeight;
+			final float near = (face - localY) / localDirectionY;
+			if (near > enter)
+			{
+				enter = near;
+				normalX = 0;
+				normalY = localDirectionY > 0 ? -1 : 1;
+			}
+			exit = GMath.min(exit, (-face - localY) / localDirectionY);
+			if (enter > exit)
+			{
+				return false;
+			}
+		}
+		if (data != null)
+		{
+			setCastData(
+					data,
+					originX,
+					originY,
+					directionX,
+					directionY,
+					enter,
+					cos * normalX - sin * normalY,
+					sin * normalX + cos * normalY);
+		}
+		return true;
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the given triangle, which points
+	 * may be in clockwise or counterclockwise order.
+	 *
+	 * @see #castCircle(float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray enters the triangle within the maximal fraction.
+	 */
+	public static boolean castTriangle(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final float x3,
+			final float y3,
+			final HitData data)
+	{
+		if (ShapeUtil.triangleContainsPoint(x1, y1, x2, y2, x3, y3, originX, originY))
+		{
+			if (data != null)
+			{
+				setCastData(data, originX, originY, directionX, directionY, 0, 0, 0);
+			}
+			return true;
+		}
+		float nearest = maxFraction;
+		int nearestEdge = -1;
+		for (int edge = 0; edge < 3; edge++)
+		{
+			final float fraction = crossEdge(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					edge == 0 ? x1 : edge == 1 ? x2 : x3,
+					edge == 0 ? y1 : edge == 1 ? y2 : y3,
+					edge == 0 ? x2 : edge == 1 ? x3 : x1,
+					edge == 0 ? y2 : edge == 1 ? y3 : y1);
+			if (fraction >= 0 && fraction <= nearest)
+			{
+				nearest = fraction;
+				nearestEdge = edge;
+			}
+		}
+		if (nearestEdge < 0)
+		{
+			return false;
+		}
 		if (data != null)
 		{
-			final float ua = ((point4X - point3X) * (point1Y - point3Y)
-					- (point4Y - point3Y) * (point1X - point3X)) / d;
-			data.setPoint(point1X + (point2X - point1X) * ua, point1Y + (point2Y - point1Y) * ua);
-			data.setPenetration(ua);
-			data.setNormal(point2X - point1X, point2Y - point1Y);
+			final float edgeX = nearestEdge == 0 ? x2 - x1 : nearestEdge == 1 ? x3 - x2 : x1 - x3;
+			final float edgeY = nearestEdge == 0 ? y2 - y1 : nearestEdge == 1 ? y3 - y2 : y1 - y3;
+			setCastData(data, originX, originY, directionX, directionY, nearest, edgeY, -edgeX);
 		}
-		return d == 0;
+		return true;
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the given simple polygon, which
+	 * may be concave and in clockwise or counterclockwise order. The ray is tested against all
+	 * edges and the nearest crossing within the maximal fraction wins.
+	 *
+	 * @param polygon
+	 *            The interleaved x,y coordinates of the vertices.
+	 * @param length
+	 *            The number of used floats of the polygon, which is twice the number of vertices.
+	 * @see #castCircle(float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray enters the polygon within the maximal fraction.
+	 */
+	public static boolean castPolygon(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float[] polygon,
+			final int length,
+			final HitData data)
+	{
+		if (ShapeUtil.polygonContainsPoint(polygon, length, originX, originY))
+		{
+			if (data != null)
+			{
+				setCastData(data, originX, originY, directionX, directionY, 0, 0, 0);
+			}
+			return true;
+		}
+		float nearest = maxFraction;
+		int nearestStart = -1;
+		for (int start = length - 2, end = 0; end < length; start = end, end += 2)
+		{
+			final float fraction = crossEdge(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					polygon[start],
+					polygon[start + 1],
+					polygon[end],
+					polygon[end + 1]);
+			if (fraction >= 0 && fraction <= nearest)
+			{
+				nearest = fraction;
+				nearestStart = start;
+			}
+		}
+		if (nearestStart < 0)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			final int end = (nearestStart + 2) % length;
+			final float edgeX = polygon[end] - polygon[nearestStart];
+			final float edgeY = polygon[end + 1] - polygon[nearestStart + 1];
+			setCastData(data, originX, originY, directionX, directionY, nearest, edgeY, -edgeX);
+		}
+		return true;
+	}
+
+	/**
+	 * @return The fraction of the direction, at which the ray crosses the segment from a to b, or
+	 *         -1, if it misses the segment or is parallel to it.
+	 */
+	private static float crossEdge(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float aX,
+			final float aY,
+			final float bX,
+			final float bY)
+	{
+		final float edgeX = bX - aX;
+		final float edgeY = bY - aY;
+		final float denominator = VectorUtils.pseudoCross(directionX, directionY, edgeX, edgeY);
+		if (denominator == 0)
+		{
+			return -1;
+		}
+		final float toStartX = aX - originX;
+		final float toStartY = aY - originY;
+		final float fraction = VectorUtils.pseudoCross(toStartX, toStartY, edgeX, edgeY)
+				/ denominator;
+		final float edgeFraction = VectorUtils
+				.pseudoCross(toStartX, toStartY, directionX, directionY) / denominator;
+		return fraction >= 0 && edgeFraction >= 0 && edgeFraction <= 1 ? fraction : -1;
+	}
+
+	/**
+	 * Solves the entry of a ray into the unit circle or a circle around the origin of the ray
+	 * frame, given a * t^2 + 2 * b * t + c = 0 with a as the squared length of the direction, b as
+	 * the dot product of the origin and the direction and c as the squared length of the origin
+	 * minus the squared radius.
+	 *
+	 * @return The fraction of the direction, at which the ray enters the circle, zero, if the
+	 *         origin is inside, or -1, if it misses the circle up to the maximal fraction.
+	 */
+	private static float enterFraction(
+			final float a,
+			final float b,
+			final float c,
+			final float maxFraction)
+	{
+		if (c <= 0)
+		{
+			return 0;
+		}
+		final float discriminant = b * b - a * c;
+		if (b >= 0 || discriminant < 0)
+		{
+			return -1;
+		}
+		// The entry is beyond the maximal fraction, if -b - a * max is positive and its square
+		// exceeds the discriminant, which rejects far circles without a square root
+		final float beyond = -b - a * maxFraction;
+		if (beyond > 0 && beyond * beyond > discriminant)
+		{
+			return -1;
+		}
+		return GMath.min((-b - GMath.sqrt(discriminant)) / a, maxFraction);
+	}
+
+	/**
+	 * Sets the data of a cast, a zero normal marks an origin inside of the shape and is replaced
+	 * by the reversed direction.
+	 */
+	private static void setCastData(
+			final HitData data,
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float fraction,
+			final float normalX,
+			final float normalY)
+	{
+		data.setPoint(originX + directionX * fraction, originY + directionY * fraction);
+		if (normalX == 0 && normalY == 0)
+		{
+			data.setNormal(-directionX, -directionY);
+		}
+		else if (VectorUtils.dot(normalX, normalY, directionX, directionY) > 0)
+		{
+			// Edge normals of crossed edges may face away from the origin
+			data.setNormal(-normalX, -normalY);
+		}
+		else
+		{
+			data.setNormal(normalX, normalY);
+		}
+		data.setFraction(fraction);
+	}
+
+	/**
+	 * Checks, if the given ellipsoid and circle intersect each other.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal points from the ellipsoid to the
+	 * circle, the penetration is the distance the circle has to move along it to stop overlapping
+	 * and the point is the point of the ellipsoid nearest to the center of the circle.
+	 * </p>
+	 *
+	 * @param radiusX
+	 *            The radius along the local x axis of the ellipsoid.
+	 * @param radiusY
+	 *            The radius along the local y axis of the ellipsoid.
+	 * @param rotation
+	 *            The counterclockwise rotation of the ellipsoid in radians.
+	 * @return True, if the ellipsoid and the circle intersect.
+	 */
+	public static boolean intersectEllipsoidCircle(
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float rotation,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final HitData data)
+	{
+		return intersectEllipsoidCircle(
+				x,
+				y,
+				radiusX,
+				radiusY,
+				GMath.cos(rotation),
+				GMath.sin(rotation),
+				centerX,
+				centerY,
+				radius,
+				data);
+	}
+
+	private static boolean intersectEllipsoidCircle(
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float cos,
+			final float sin,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final HitData data)
+	{
+		final float difX = centerX - x;
+		final float difY = centerY - y;
+		final float localX = cos * difX + sin * difY;
+		final float localY = cos * difY - sin * difX;
+		if (GMath.abs(localX) > radiusX + radius || GMath.abs(localY) > radiusY + radius)
+		{
+			return false;
+		}
+		final float scaledX = localX / radiusX;
+		final float scaledY = localY / radiusY;
+		final boolean inside = scaledX * scaledX + scaledY * scaledY <= 1;
+		if (inside && data == null)
+		{
+			return true;
+		}
+		final long nearest = nearestEllipsoidPoint(localX, localY, radiusX, radiusY);
+		final float nearestX = getPackedX(nearest);
+		final float nearestY = getPackedY(nearest);
+		final float distance = VectorUtils.length(localX - nearestX, localY - nearestY);
+		if (!inside && distance > radius)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			// The gradient is the outer normal, also if the center is inside
+			final float normalX = nearestX / (radiusX * radiusX);
+			final float normalY = nearestY / (radiusY * radiusY);
+			data.setNormal(cos * normalX - sin * normalY, sin * normalX + cos * normalY);
+			data.setPenetration(inside ? radius + distance : radius - distance);
+			data.setPoint(
+					x + cos * nearestX - sin * nearestY,
+					y + sin * nearestX + cos * nearestY);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the two given ellipsoids intersect each other.
+	 * <p>
+	 * Both ellipsoids are transformed, so the first one becomes the unit circle and the second
+	 * one another ellipsoid. They intersect, if the center of the unit circle is inside of the
+	 * ellipsoid or if the nearest point of the ellipsoid is inside of the unit circle, so the test
+	 * is exact up to the precision of the nearest point search.
+	 * </p>
+	 * <p>
+	 * It sets the data object, if given, accordingly: The point is the transformed nearest point
+	 * and the normal points from the first to the second ellipsoid through it. The penetration is
+	 * the overlap measured in the transformed space and scaled back along the normal, which is
+	 * exact, if the first ellipsoid is a circle, and an approximation otherwise.
+	 * </p>
+	 *
+	 * @see #intersectEllipsoidCircle(float, float, float, float, float, float, float, float,
+	 *      HitData)
+	 * @return True, if the ellipsoids intersect.
+	 */
+	public static boolean intersectEllipsoidEllipsoid(
+			final float x1,
+			final float y1,
+			final float radiusX1,
+			final float radiusY1,
+			final float rotation1,
+			final float x2,
+			final float y2,
+			final float radiusX2,
+			final float radiusY2,
+			final float rotation2,
+			final HitData data)
+	{
+		final float cos = GMath.cos(rotation1);
+		final float sin = GMath.sin(rotation1);
+		final float cosDif = GMath.cos(rotation2 - rotation1);
+		final float sinDif = GMath.sin(rotation2 - rotation1);
+		final float difX = x2 - x1;
+		final float difY = y2 - y1;
+		final float centerX = (cos * difX + sin * difY) / radiusX1;
+		final float centerY = (cos * difY - sin * difX) / radiusY1;
+		// The transformed axes of the second ellipsoid are not perpendicular anymore, the radii
+		// and axes are the eigenvalues and eigenvectors of u * u^T + v * v^T
+		final float uX = radiusX2 * cosDif / radiusX1;
+		final float uY = radiusX2 * sinDif / radiusY1;
+		final float vX = -radiusY2 * sinDif / radiusX1;
+		final float vY = radiusY2 * cosDif / radiusY1;
+		final float xx = uX * uX + vX * vX;
+		final float xy = uX * uY + vX * vY;
+		final float yy = uY * uY + vY * vY;
+		final float mean = (xx + yy) * 0.5f;
+		final float deviation = VectorUtils.length((xx - yy) * 0.5f, xy);
+		final float radiusX = GMath.sqrt(mean + deviation);
+		final float radiusY = GMath.sqrt(GMath.max(mean - deviation, 0));
+		float axisX = xx >= yy ? mean + deviation - yy : xy;
+		float axisY = xx >= yy ? xy : mean + deviation - xx;
+		final float axisLength = VectorUtils.length(axisX, axisY);
+		if (axisLength == 0)
+		{
+			axisX = 1;
+			axisY = 0;
+		}
+		else
+		{
+			axisX /= axisLength;
+			axisY /= axisLength;
+		}
+		// The center of the unit circle in the frame of the transformed ellipsoid
+		final float localX = -VectorUtils.dot(centerX, centerY, axisX, axisY);
+		final float localY = VectorUtils.pseudoCross(centerX, centerY, axisX, axisY);
+		final boolean inside = localX * localX * radiusY * radiusY
+				+ localY * localY * radiusX * radiusX <= radiusX * radiusX * radiusY * radiusY;
+		if (inside && data == null)
+		{
+			return true;
+		}
+		final long nearest = nearestEllipsoidPoint(localX, localY, radiusX, radiusY);
+		final float nearestX = centerX + getPackedX(nearest) * axisX - getPackedY(nearest) * axisY;
+		final float nearestY = centerY + getPackedX(nearest) * axisY + getPackedY(nearest) * axisX;
+		final float distance = VectorUtils.length(nearestX, nearestY);
+		if (!inside && distance > 1)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			float normalX = inside ? -nearestX : nearestX;
+			float normalY = inside ? -nearestY : nearestY;
+			if (distance == 0)
+			{
+				normalX = centerX;
+				normalY = centerY;
+			}
+			final float normalLength = VectorUtils.length(normalX, normalY);
+			if (normalLength == 0)
+			{
+				normalX = 1;
+				normalY = 0;
+			}
+			else
+			{
+				normalX /= normalLength;
+				normalY /= normalLength;
+			}
+			final float scale = VectorUtils.length(normalX * radiusX1, normalY * radiusY1);
+			data.setPenetration((inside ? 1 + distance : 1 - distance) * scale);
+			// Normals are transformed back by the inverse transposed transformation
+			normalX /= radiusX1;
+			normalY /= radiusY1;
+			data.setNormal(cos * normalX - sin * normalY, sin * normalX + cos * normalY);
+			final float pointX = nearestX * radiusX1;
+			final float pointY = nearestY * radiusY1;
+			data.setPoint(x1 + cos * pointX - sin * pointY, y1 + sin * pointX + cos * pointY);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the ray from the origin along the direction hits the given ellipsoid.
+	 *
+	 * @see #castEllipsoid(float, float, float, float, float, float, float, float, float, float,
+	 *      HitData)
+	 * @return True, if the ray hits the ellipsoid.
+	 */
+	public static boolean intersectRayEllipsoid(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float rotation,
+			final HitData data)
+	{
+		return castEllipsoid(
+				originX,
+				originY,
+				directionX,
+				directionY,
+				Float.POSITIVE_INFINITY,
+				x,
+				y,
+				radiusX,
+				radiusY,
+				rotation,
+				data);
+	}
+
+	/**
+	 * Checks, if the segment from point 1 to point 2 intersects the given ellipsoid. The data is
+	 * set like for a ray from point 1 along the segment.
+	 *
+	 * @see #intersectRayEllipsoid(float, float, float, float, float, float, float, float, float,
+	 *      HitData)
+	 * @return True, if the segment intersects the ellipsoid.
+	 */
+	public static boolean intersectSegmentEllipsoid(
+			final float point1X,
+			final float point1Y,
+			final float point2X,
+			final float point2Y,
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float rotation,
+			final HitData data)
+	{
+		return castEllipsoid(
+				point1X,
+				point1Y,
+				point2X - point1X,
+				point2Y - point1Y,
+				1,
+				x,
+				y,
+				radiusX,
+				radiusY,
+				rotation,
+				data);
+	}
+
+	/**
+	 * Casts the ray from the origin along the direction against the given ellipsoid.
+	 *
+	 * @param rotation
+	 *            The counterclockwise rotation of the ellipsoid in radians.
+	 * @see #castCircle(float, float, float, float, float, float, float, float, HitData)
+	 * @return True, if the ray enters the ellipsoid within the maximal fraction.
+	 */
+	public static boolean castEllipsoid(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float rotation,
+			final HitData data)
+	{
+		final float cos = GMath.cos(rotation);
+		final float sin = GMath.sin(rotation);
+		final float fraction = castEllipsoid(
+				originX,
+				originY,
+				directionX,
+				directionY,
+				maxFraction,
+				x,
+				y,
+				radiusX,
+				radiusY,
+				cos,
+				sin);
+		if (fraction < 0)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			final float pointX = originX + directionX * fraction - x;
+			final float pointY = originY + directionY * fraction - y;
+			// The gradient of the implicit function is the outer normal
+			final float localX = (cos * pointX + sin * pointY) / (radiusX * radiusX);
+			final float localY = (cos * pointY - sin * pointX) / (radiusY * radiusY);
+			final float normalX = fraction == 0 ? 0 : cos * localX - sin * localY;
+			final float normalY = fraction == 0 ? 0 : sin * localX + cos * localY;
+			setCastData(
+					data,
+					originX,
+					originY,
+					directionX,
+					directionY,
+					fraction,
+					normalX,
+					normalY);
+		}
+		return true;
+	}
+
+	/**
+	 * Transforms the ray, so the ellipsoid becomes the unit circle, which keeps the fractions of
+	 * the direction.
+	 *
+	 * @return The fraction of the direction, at which the ray enters the ellipsoid, zero, if the
+	 *         origin is inside, or -1, if it misses the ellipsoid up to the maximal fraction.
+	 */
+	private static float castEllipsoid(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float cos,
+			final float sin)
+	{
+		final float difX = originX - x;
+		final float difY = originY - y;
+		final float localX = (cos * difX + sin * difY) / radiusX;
+		final float localY = (cos * difY - sin * difX) / radiusY;
+		final float localDirectionX = (cos * directionX + sin * directionY) / radiusX;
+		final float localDirectionY = (cos * directionY - sin * directionX) / radiusY;
+		return enterFraction(
+				VectorUtils.squaredLength(localDirectionX, localDirectionY),
+				VectorUtils.dot(localX, localY, localDirectionX, localDirectionY),
+				VectorUtils.squaredLength(localX, localY) - 1,
+				maxFraction);
+	}
+
+	/**
+	 * Tests one ellipsoid against many circles, e.g. an area of effect against units. The rotation
+	 * of the ellipsoid is evaluated only once.
+	 *
+	 * @param circles
+	 *            The circles packed with {@link #CIRCLE_STRIDE} floats each.
+	 * @param count
+	 *            The number of circles.
+	 * @param hits
+	 *            Array, that receives the indices of the intersecting circles.
+	 * @return The number of intersecting circles.
+	 */
+	public static int intersectEllipsoidCircles(
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float rotation,
+			final float[] circles,
+			final int count,
+			final int[] hits)
+	{
+		final float cos = GMath.cos(rotation);
+		final float sin = GMath.sin(rotation);
+		int hitCount = 0;
+		for (int i = 0, offset = 0; i < count; i++, offset += CIRCLE_STRIDE)
+		{
+			if (intersectEllipsoidCircle(
+					x,
+					y,
+					radiusX,
+					radiusY,
+					cos,
+					sin,
+					circles[offset],
+					circles[offset + 1],
+					circles[offset + 2],
+					null))
+			{
+				hits[hitCount++] = i;
+			}
+		}
+		return hitCount;
+	}
+
+	/**
+	 * Tests many ellipsoids against one circle.
+	 *
+	 * @param ellipsoids
+	 *            The ellipsoids packed with {@link #ELLIPSOID_STRIDE} floats each.
+	 * @param count
+	 *            The number of ellipsoids.
+	 * @param hits
+	 *            Array, that receives the indices of the intersecting ellipsoids.
+	 * @return The number of intersecting ellipsoids.
+	 */
+	public static int intersectEllipsoidsCircle(
+			final float[] ellipsoids,
+			final int count,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final int[] hits)
+	{
+		int hitCount = 0;
+		for (int i = 0, offset = 0; i < count; i++, offset += ELLIPSOID_STRIDE)
+		{
+			final float rotation = ellipsoids[offset + 4];
+			if (intersectEllipsoidCircle(
+					ellipsoids[offset],
+					ellipsoids[offset + 1],
+					ellipsoids[offset + 2],
+					ellipsoids[offset + 3],
+					GMath.cos(rotation),
+					GMath.sin(rotation),
+					centerX,
+					centerY,
+					radius,
+					null))
+			{
+				hits[hitCount++] = i;
+			}
+		}
+		return hitCount;
+	}
+
+	/**
+	 * Tests the ray from the origin along the direction against many ellipsoids.
+	 *
+	 * @param ellipsoids
+	 *            The ellipsoids packed with {@link #ELLIPSOID_STRIDE} floats each.
+	 * @param count
+	 *            The number of ellipsoids.
+	 * @param hits
+	 *            Array, that receives the indices of the hit ellipsoids.
+	 * @param fractions
+	 *            Array, that receives the fraction of the direction, at which the ray enters each
+	 *            hit ellipsoid, at the same index as in the hits, or null.
+	 * @return The number of hit ellipsoids.
+	 */
+	public static int intersectRayEllipsoids(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float[] ellipsoids,
+			final int count,
+			final int[] hits,
+			final float[] fractions)
+	{
+		return castEllipsoids(
+				originX,
+				originY,
+				directionX,
+				directionY,
+				Float.POSITIVE_INFINITY,
+				ellipsoids,
+				count,
+				hits,
+				fractions);
+	}
+
+	/**
+	 * Tests the segment from point 1 to point 2 against many ellipsoids.
+	 *
+	 * @see #intersectRayEllipsoids(float, float, float, float, float[], int, int[], float[])
+	 * @return The number of intersected ellipsoids.
+	 */
+	public static int intersectSegmentEllipsoids(
+			final float point1X,
+			final float point1Y,
+			final float point2X,
+			final float point2Y,
+			final float[] ellipsoids,
+			final int count,
+			final int[] hits,
+			final float[] fractions)
+	{
+		return castEllipsoids(
+				point1X,
+				point1Y,
+				point2X - point1X,
+				point2Y - point1Y,
+				1,
+				ellipsoids,
+				count,
+				hits,
+				fractions);
+	}
+
+	private static int castEllipsoids(
+			final float originX,
+			final float originY,
+			final float directionX,
+			final float directionY,
+			final float maxFraction,
+			final float[] ellipsoids,
+			final int count,
+			final int[] hits,
+			final float[] fractions)
+	{
+		int hitCount = 0;
+		for (int i = 0, offset = 0; i < count; i++, offset += ELLIPSOID_STRIDE)
+		{
+			final float rotation = ellipsoids[offset + 4];
+			final float fraction = castEllipsoid(
+					originX,
+					originY,
+					directionX,
+					directionY,
+					maxFraction,
+					ellipsoids[offset],
+					ellipsoids[offset + 1],
+					ellipsoids[offset + 2],
+					ellipsoids[offset + 3],
+					GMath.cos(rotation),
+					GMath.sin(rotation));
+			if (fraction >= 0)
+			{
+				if (fractions != null)
+				{
+					fractions[hitCount] = fraction;
+				}
+				hits[hitCount++] = i;
+			}
+		}
+		return hitCount;
+	}
+
+	/**
+	 * Calculates the point of the axis aligned ellipsoid around the origin, that is nearest to the
+	 * given point, which may be inside of the ellipsoid.
+	 * <p>
+	 * The search runs in the first quadrant and mirrors the result. Each iteration replaces the
+	 * ellipsoid by the circle of curvature at the current guess, which center lies on the evolute,
+	 * and moves the guess to the point of that circle nearest to the given point.
+	 * </p>
+	 *
+	 * @return The nearest point packed into a long, so the search doesn't need a result vector.
+	 * @see #getPackedX(long)
+	 * @see #getPackedY(long)
+	 */
+	private static long nearestEllipsoidPoint(
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY)
+	{
+		final float pointX = GMath.abs(x);
+		final float pointY = GMath.abs(y);
+		final float difference = radiusX * radiusX - radiusY * radiusY;
+		float tX = 0.70710677f;
+		float tY = 0.70710677f;
+		for (int i = 0; i < ELLIPSOID_ITERATIONS; i++)
+		{
+			final float evoluteX = difference * tX * tX * tX / radiusX;
+			final float evoluteY = -difference * tY * tY * tY / radiusY;
+			final float curvatureRadius = VectorUtils
+					.length(radiusX * tX - evoluteX, radiusY * tY - evoluteY);
+			final float pointDistance = VectorUtils.length(pointX - evoluteX, pointY - evoluteY);
+			if (pointDistance == 0)
+			{
+				break;
+			}
+			final float scale = curvatureRadius / pointDistance;
+			tX = GMath.clamp(((pointX - evoluteX) * scale + evoluteX) / radiusX, 0, 1);
+			tY = GMath.clamp(((pointY - evoluteY) * scale + evoluteY) / radiusY, 0, 1);
+			final float length = VectorUtils.length(tX, tY);
+			tX /= length;
+			tY /= length;
+		}
+		return (long) Float.floatToRawIntBits(Math.copySign(radiusX * tX, x)) << 32
+				| Float.floatToRawIntBits(Math.copySign(radiusY * tY, y)) & 0xFFFFFFFFL;
+	}
+
+	/**
+	 * @return The x coordinate of a point packed by
+	 *         {@link #nearestEllipsoidPoint(float, float, float, float)}.
+	 */
+	private static float getPackedX(final long point)
+	{
+		return Float.intBitsToFloat((int) (point >>> 32));
+	}
+
+	/**
+	 * @return The y coordinate of a point packed by
+	 *         {@link #nearestEllipsoidPoint(float, float, float, float)}.
+	 */
+	private static float getPackedY(final long point)
+	{
+		return Float.intBitsToFloat((int) point);
+	}
+
+	/**
+	 * Checks, if the given triangle and Aabb intersect each other with the separating axis test on
+	 * the coordinate axes and the edge normals of the triangle.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal is the axis of the smallest
+	 * overlap, pointing from the triangle to the Aabb, the penetration is that overlap and the
+	 * point is the corner of the Aabb, that lies deepest in the triangle.
+	 * </p>
+	 *
+	 * @return True, if the triangle and the Aabb intersect.
+	 */
+	public static boolean intersectTriangleAabb(
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final float x3,
+			final float y3,
+			final float x,
+			final float y,
+			final float width,
+			final float height,
+			final HitData data)
+	{
+		float minOverlap = Float.MAX_VALUE;
+		float normalX = 0;
+		float normalY = 0;
+		for (int i = 0; i < 5; i++)
+		{
+			float axisX = i == 0 ? 1 : i == 1 ? 0 : triangleNormalX(i - 2, y1, y2, y3);
+			float axisY = i == 0 ? 0 : i == 1 ? 1 : triangleNormalY(i - 2, x1, x2, x3);
+			final float squaredLength = VectorUtils.squaredLength(axisX, axisY);
+			if (squaredLength == 0)
+			{
+				continue;
+			}
+			final float inversedLength = 1 / GMath.sqrt(squaredLength);
+			axisX *= inversedLength;
+			axisY *= inversedLength;
+			final float min1 = projectTriangleMin(axisX, axisY, x1, y1, x2, y2, x3, y3);
+			final float max1 = -projectTriangleMin(-axisX, -axisY, x1, y1, x2, y2, x3, y3);
+			// The Aabb projects to its center plus minus its projected half extends
+			final float center = VectorUtils.dot(axisX, axisY, x, y)
+					+ (axisX * width + axisY * height) * 0.5f;
+			final float extend = (GMath.abs(axisX) * width + GMath.abs(axisY) * height) * 0.5f;
+			final float min2 = center - extend;
+			final float max2 = center + extend;
+			final float overlap = GMath.min(max1, max2) - GMath.max(min1, min2);
+			if (overlap < 0)
+			{
+				return false;
+			}
+			if (overlap < minOverlap)
+			{
+				minOverlap = overlap;
+				final boolean flip = min2 + max2 < min1 + max1;
+				normalX = flip ? -axisX : axisX;
+				normalY = flip ? -axisY : axisY;
+			}
+		}
+		if (data != null)
+		{
+			data.setNormal(normalX, normalY);
+			data.setPenetration(minOverlap);
+			data.setPoint(normalX > 0 ? x : x + width, normalY > 0 ? y : y + height);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the given triangle and circle intersect each other.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal points from the triangle to the
+	 * circle, the penetration is the distance the circle has to move along it to stop overlapping
+	 * and the point is the point of the triangle nearest to the center of the circle.
+	 * </p>
+	 *
+	 * @return True, if the triangle and the circle intersect.
+	 */
+	public static boolean intersectTriangleCircle(
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final float x3,
+			final float y3,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final HitData data)
+	{
+		final boolean inside = ShapeUtil.triangleContainsPoint(x1, y1, x2, y2, x3, y3, centerX,
+				centerY);
+		if (inside && data == null)
+		{
+			return true;
+		}
+		float nearestX = 0;
+		float nearestY = 0;
+		float squaredDistance = Float.MAX_VALUE;
+		int nearestEdge = 0;
+		for (int i = 0; i < 3; i++)
+		{
+			final float startX = i == 0 ? x1 : i == 1 ? x2 : x3;
+			final float startY = i == 0 ? y1 : i == 1 ? y2 : y3;
+			final float edgeX = (i == 0 ? x2 : i == 1 ? x3 : x1) - startX;
+			final float edgeY = (i == 0 ? y2 : i == 1 ? y3 : y1) - startY;
+			final float squaredLength = VectorUtils.squaredLength(edgeX, edgeY);
+			final float t = squaredLength == 0 ? 0
+					: GMath.clamp(
+							VectorUtils.dot(edgeX, edgeY, centerX - startX, centerY - startY)
+									/ squaredLength,
+							0,
+							1);
+			final float edgeNearestX = startX + edgeX * t;
+			final float edgeNearestY = startY + edgeY * t;
+			final float edgeDistance = VectorUtils
+					.squaredLength(centerX - edgeNearestX, centerY - edgeNearestY);
+			if (edgeDistance < squaredDistance)
+			{
+				squaredDistance = edgeDistance;
+				nearestX = edgeNearestX;
+				nearestY = edgeNearestY;
+				nearestEdge = i;
+			}
+		}
+		if (!inside && squaredDistance > radius * radius)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			final float distance = GMath.sqrt(squaredDistance);
+			if (inside)
+			{
+				// The circle leaves the triangle through the nearest edge
+				final float normalX = triangleNormalX(nearestEdge, y1, y2, y3);
+				final float normalY = triangleNormalY(nearestEdge, x1, x2, x3);
+				final float area = VectorUtils.pseudoCross(x2 - x1, y2 - y1, x3 - x1, y3 - y1);
+				data.setNormal(area < 0 ? -normalX : normalX, area < 0 ? -normalY : normalY);
+				data.setPenetration(radius + distance);
+			}
+			else
+			{
+				data.setNormal(centerX - nearestX, centerY - nearestY);
+				data.setPenetration(radius - distance);
+			}
+			data.setPoint(nearestX, nearestY);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the two given triangles intersect each other with the separating axis test on
+	 * the edge normals of both triangles.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal is the axis of the smallest
+	 * overlap, pointing from the 1st to the 2nd triangle, the penetration is that overlap and the
+	 * point is the point of the 2nd triangle, that lies deepest in the 1st triangle.
+	 * </p>
+	 *
+	 * @return True, if the two triangles intersect.
+	 */
+	public static boolean intersectTriangleTriangle(
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final float x3,
+			final float y3,
+			final float x4,
+			final float y4,
+			final float x5,
+			final float y5,
+			final float x6,
+			final float y6,
+			final HitData data)
+	{
+		float minOverlap = Float.MAX_VALUE;
+		float normalX = 0;
+		float normalY = 0;
+		for (int i = 0; i < 6; i++)
+		{
+			float axisX;
+			float axisY;
+			if (i < 3)
+			{
+				axisX = triangleNormalX(i, y1, y2, y3);
+				axisY = triangleNormalY(i, x1, x2, x3);
+			}
+			else
+			{
+				axisX = triangleNormalX(i - 3, y4, y5, y6);
+				axisY = triangleNormalY(i - 3, x4, x5, x6);
+			}
+			final float squaredLength = VectorUtils.squaredLength(axisX, axisY);
+			if (squaredLength == 0)
+			{
+				continue;
+			}
+			final float inversedLength = 1 / GMath.sqrt(squaredLength);
+			axisX *= inversedLength;
+			axisY *= inversedLength;
+			final float min1 = projectTriangleMin(axisX, axisY, x1, y1, x2, y2, x3, y3);
+			final float max1 = -projectTriangleMin(-axisX, -axisY, x1, y1, x2, y2, x3, y3);
+			final float min2 = projectTriangleMin(axisX, axisY, x4, y4, x5, y5, x6, y6);
+			final float max2 = -projectTriangleMin(-axisX, -axisY, x4, y4, x5, y5, x6, y6);
+			final float overlap = GMath.min(max1, max2) - GMath.max(min1, min2);
+			if (overlap < 0)
+			{
+				return false;
+			}
+			if (overlap < minOverlap)
+			{
+				minOverlap = overlap;
+				final boolean flip = min2 + max2 < min1 + max1;
+				normalX = flip ? -axisX : axisX;
+				normalY = flip ? -axisY : axisY;
+			}
+		}
+		if (data != null)
+		{
+			data.setNormal(normalX, normalY);
+			data.setPenetration(minOverlap);
+			final float dot4 = VectorUtils.dot(normalX, normalY, x4, y4);
+			final float dot5 = VectorUtils.dot(normalX, normalY, x5, y5);
+			final float dot6 = VectorUtils.dot(normalX, normalY, x6, y6);
+			if (dot4 <= dot5 && dot4 <= dot6)
+			{
+				data.setPoint(x4, y4);
+			}
+			else if (dot5 <= dot6)
+			{
+				data.setPoint(x5, y5);
+			}
+			else
+			{
+				data.setPoint(x6, y6);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the two given simple polygons intersect each other. They may be concave and in
+	 * clockwise or counterclockwise order. The separating axis test on the edge normals of both
+	 * polygons rejects most pairs early, the pairs left intersect, if their edges cross or one
+	 * polygon contains the other one.
+	 * <p>
+	 * It sets the data object, if given, like {@link #intersectTriangleTriangle(float, float,
+	 * float, float, float, float, float, float, float, float, float, float, HitData)}: The normal
+	 * is the axis of the smallest overlap, pointing from the 1st to the 2nd polygon, the
+	 * penetration is that overlap and the point is the vertex of the 2nd polygon, that lies
+	 * deepest in the 1st polygon. The data is exact for convex polygons and only approximates the
+	 * separation of concave ones, as it is taken from their convex hulls.
+	 * </p>
+	 *
+	 * @param polygon1
+	 *            The interleaved x,y coordinates of the vertices of the 1st polygon.
+	 * @param length1
+	 *            The number of used floats of the 1st polygon, which is twice the number of
+	 *            vertices.
+	 * @param polygon2
+	 *            The interleaved x,y coordinates of the vertices of the 2nd polygon.
+	 * @param length2
+	 *            The number of used floats of the 2nd polygon.
+	 * @return True, if the polygons intersect.
+	 */
+	public static boolean intersectPolygonPolygon(
+			final float[] polygon1,
+			final int length1,
+			final float[] polygon2,
+			final int length2,
+			final HitData data)
+	{
+		float minOverlap = Float.MAX_VALUE;
+		float normalX = 0;
+		float normalY = 0;
+		for (int i = 0; i < length1 + length2; i += 2)
+		{
+			final float[] polygon = i < length1 ? polygon1 : polygon2;
+			final int end = i < length1 ? i : i - length1;
+			final int start = (end == 0 ? i < length1 ? length1 : length2 : end) - 2;
+			float axisX = polygon[end + 1] - polygon[start + 1];
+			float axisY = polygon[start] - polygon[end];
+			final float squaredLength = VectorUtils.squaredLength(axisX, axisY);
+			if (squaredLength == 0)
+			{
+				continue;
+			}
+			final float inversedLength = 1 / GMath.sqrt(squaredLength);
+			axisX *= inversedLength;
+			axisY *= inversedLength;
+			final float min1 = projectPolygonMin(axisX, axisY, polygon1, length1);
+			final float max1 = -projectPolygonMin(-axisX, -axisY, polygon1, length1);
+			final float min2 = projectPolygonMin(axisX, axisY, polygon2, length2);
+			final float max2 = -projectPolygonMin(-axisX, -axisY, polygon2, length2);
+			final float overlap = GMath.min(max1, max2) - GMath.max(min1, min2);
+			if (overlap < 0)
+			{
+				return false;
+			}
+			if (overlap < minOverlap)
+			{
+				minOverlap = overlap;
+				final boolean flip = min2 + max2 < min1 + max1;
+				normalX = flip ? -axisX : axisX;
+				normalY = flip ? -axisY : axisY;
+			}
+		}
+		if (!polygonsOverlap(polygon1, length1, polygon2, length2))
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			int deepest = 0;
+			for (int i = 2; i < length2; i += 2)
+			{
+				if (VectorUtils.dot(normalX, normalY, polygon2[i], polygon2[i + 1]) < VectorUtils
+						.dot(normalX, normalY, polygon2[deepest], polygon2[deepest + 1]))
+				{
+					deepest = i;
+				}
+			}
+			data.setNormal(normalX, normalY);
+			data.setPenetration(minOverlap);
+			data.setPoint(polygon2[deepest], polygon2[deepest + 1]);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the given simple polygon and circle intersect each other. The polygon may be
+	 * concave and in clockwise or counterclockwise order.
+	 * <p>
+	 * It sets the data object, if given, like {@link #intersectTriangleCircle(float, float, float,
+	 * float, float, float, float, float, float, HitData)}: The normal points from the polygon to
+	 * the circle, the penetration is the distance the circle has to move along it to stop
+	 * overlapping and the point is the point of the polygon nearest to the center of the circle.
+	 * </p>
+	 *
+	 * @param polygon
+	 *            The interleaved x,y coordinates of the vertices.
+	 * @param length
+	 *            The number of used floats of the polygon, which is twice the number of vertices.
+	 * @return True, if the polygon and the circle intersect.
+	 */
+	public static boolean intersectPolygonCircle(
+			final float[] polygon,
+			final int length,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final HitData data)
+	{
+		final boolean inside = ShapeUtil.polygonContainsPoint(polygon, length, centerX, centerY);
+		if (inside && data == null)
+		{
+			return true;
+		}
+		float nearestX = 0;
+		float nearestY = 0;
+		float squaredDistance = Float.MAX_VALUE;
+		float edgeNormalX = 0;
+		float edgeNormalY = 0;
+		float area = 0;
+		for (int start = length - 2, end = 0; end < length; start = end, end += 2)
+		{
+			final float startX = polygon[start];
+			final float startY = polygon[start + 1];
+			final float edgeX = polygon[end] - startX;
+			final float edgeY = polygon[end + 1] - startY;
+			area += VectorUtils.pseudoCross(startX, startY, polygon[end], polygon[end + 1]);
+			final float squaredLength = VectorUtils.squaredLength(edgeX, edgeY);
+			final float t = squaredLength == 0 ? 0
+					: GMath.clamp(
+							VectorUtils.dot(edgeX, edgeY, centerX - startX, centerY - startY)
+									/ squaredLength,
+							0,
+							1);
+			final float edgeNearestX = startX + edgeX * t;
+			final float edgeNearestY = startY + edgeY * t;
+			final float edgeDistance = VectorUtils
+					.squaredLength(centerX - edgeNearestX, centerY - edgeNearestY);
+			if (edgeDistance < squaredDistance)
+			{
+				squaredDistance = edgeDistance;
+				nearestX = edgeNearestX;
+				nearestY = edgeNearestY;
+				edgeNormalX = edgeY;
+				edgeNormalY = -edgeX;
+			}
+		}
+		if (!inside && squaredDistance > radius * radius)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			final float distance = GMath.sqrt(squaredDistance);
+			if (inside || distance == 0)
+			{
+				// The circle leaves the polygon through the nearest edge
+				data.setNormal(area < 0 ? -edgeNormalX : edgeNormalX,
+						area < 0 ? -edgeNormalY : edgeNormalY);
+				data.setPenetration(radius + (inside ? distance : 0));
+			}
+			else
+			{
+				data.setNormal(centerX - nearestX, centerY - nearestY);
+				data.setPenetration(radius - distance);
+			}
+			data.setPoint(nearestX, nearestY);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the given ellipsoid and simple polygon intersect each other. The polygon may be
+	 * concave and in clockwise or counterclockwise order. Each vertex is transformed into the
+	 * frame, in which the ellipsoid is the unit circle, and the polygon is tested against the unit
+	 * circle there, so the result is exact for any rotation.
+	 * <p>
+	 * It sets the data object, if given, accordingly: The normal points from the ellipsoid to the
+	 * polygon, the point is the point of the polygon nearest to the center of the ellipsoid in the
+	 * frame of the unit circle and the penetration is the overlap along the normal of the unit
+	 * circle frame, transformed back to world space.
+	 * </p>
+	 *
+	 * @param radiusX
+	 *            The radius of the ellipsoid along its local x axis.
+	 * @param radiusY
+	 *            The radius of the ellipsoid along its local y axis.
+	 * @param rotation
+	 *            The rotation of the ellipsoid in radians.
+	 * @param polygon
+	 *            The interleaved x,y coordinates of the vertices.
+	 * @param length
+	 *            The number of used floats of the polygon, which is twice the number of vertices.
+	 * @return True, if the ellipsoid and the polygon intersect.
+	 */
+	public static boolean intersectEllipsoidPolygon(
+			final float x,
+			final float y,
+			final float radiusX,
+			final float radiusY,
+			final float rotation,
+			final float[] polygon,
+			final int length,
+			final HitData data)
+	{
+		final float cos = GMath.cos(rotation);
+		final float sin = GMath.sin(rotation);
+		boolean inside = false;
+		float nearestX = 0;
+		float nearestY = 0;
+		float squaredDistance = Float.MAX_VALUE;
+		float edgeNormalX = 0;
+		float edgeNormalY = 0;
+		float area = 0;
+		float startX = (cos * (polygon[length - 2] - x) + sin * (polygon[length - 1] - y))
+				/ radiusX;
+		float startY = (cos * (polygon[length - 1] - y) - sin * (polygon[length - 2] - x))
+				/ radiusY;
+		for (int end = 0; end < length; end += 2)
+		{
+			final float difX = polygon[end] - x;
+			final float difY = polygon[end + 1] - y;
+			final float endX = (cos * difX + sin * difY) / radiusX;
+			final float endY = (cos * difY - sin * difX) / radiusY;
+			// Even odd test of the center, which is the origin of the frame
+			if (startY > 0 != endY > 0 && 0 < startX - startY / (endY - startY) * (endX - startX))
+			{
+				inside = !inside;
+			}
+			area += VectorUtils.pseudoCross(startX, startY, endX, endY);
+			final float edgeX = endX - startX;
+			final float edgeY = endY - startY;
+			final float squaredLength = VectorUtils.squaredLength(edgeX, edgeY);
+			final float t = squaredLength == 0 ? 0
+					: GMath.clamp(-VectorUtils.dot(edgeX, edgeY, startX, startY) / squaredLength,
+							0, 1);
+			final float edgeNearestX = startX + edgeX * t;
+			final float edgeNearestY = startY + edgeY * t;
+			final float edgeDistance = VectorUtils.squaredLength(edgeNearestX, edgeNearestY);
+			if (edgeDistance < squaredDistance)
+			{
+				squaredDistance = edgeDistance;
+				nearestX = edgeNearestX;
+				nearestY = edgeNearestY;
+				edgeNormalX = edgeY;
+				edgeNormalY = -edgeX;
+			}
+			startX = endX;
+			startY = endY;
+		}
+		if (!inside && squaredDistance > 1)
+		{
+			return false;
+		}
+		if (data != null)
+		{
+			final float distance = GMath.sqrt(squaredDistance);
+			float normalX;
+			float normalY;
+			float penetration;
+			if (inside || distance == 0)
+			{
+				// The ellipsoid leaves the polygon through the nearest edge
+				final float inversedLength = (area < 0 ? 1 : -1)
+						/ VectorUtils.length(edgeNormalX, edgeNormalY);
+				normalX = edgeNormalX * inversedLength;
+				normalY = edgeNormalY * inversedLength;
+				penetration = 1 + (inside ? distance : 0);
+			}
+			else
+			{
+				normalX = nearestX / distance;
+				normalY = nearestY / distance;
+				penetration = 1 - distance;
+			}
+			// Normals transform with the inverse transposed matrix of the frame
+			normalX /= radiusX;
+			normalY /= radiusY;
+			final float scale = VectorUtils.length(normalX, normalY);
+			data.setNormal(cos * normalX - sin * normalY, sin * normalX + cos * normalY);
+			data.setPenetration(penetration / scale);
+			nearestX *= radiusX;
+			nearestY *= radiusY;
+			data.setPoint(
+					x + cos * nearestX - sin * nearestY,
+					y + sin * nearestX + cos * nearestY);
+		}
+		return true;
+	}
+
+	/**
+	 * @return True, if the edges of the polygons cross or one polygon contains the other one.
+	 */
+	private static boolean polygonsOverlap(
+			final float[] polygon1,
+			final int length1,
+			final float[] polygon2,
+			final int length2)
+	{
+		for (int start1 = length1 - 2, end1 = 0; end1 < length1; start1 = end1, end1 += 2)
+		{
+			for (int start2 = length2 - 2, end2 = 0; end2 < length2; start2 = end2, end2 += 2)
+			{
+				if (intersectSegmentSegment(
+						polygon1[start1],
+						polygon1[start1 + 1],
+						polygon1[end1],
+						polygon1[end1 + 1],
+						polygon2[start2],
+						polygon2[start2 + 1],
+						polygon2[end2],
+						polygon2[end2 + 1],
+						null))
+				{
+					return true;
+				}
+			}
+		}
+		return ShapeUtil.polygonContainsPoint(polygon1, length1, polygon2[0], polygon2[1])
+				|| ShapeUtil.polygonContainsPoint(polygon2, length2, polygon1[0], polygon1[1]);
+	}
+
+	private static float projectPolygonMin(
+			final float axisX,
+			final float axisY,
+			final float[] polygon,
+			final int length)
+	{
+		float min = Float.MAX_VALUE;
+		for (int i = 0; i < length; i += 2)
+		{
+			min = GMath.min(min, VectorUtils.dot(axisX, axisY, polygon[i], polygon[i + 1]));
+		}
+		return min;
+	}
+
+	/**
+	 * @return The x coordinate of the unnormalized normal of the edge from the point with the
+	 *         index of the edge to the next point, which points outwards, if the triangle is
+	 *         counterclockwise.
+	 */
+	private static float triangleNormalX(
+			final int edge,
+			final float y1,
+			final float y2,
+			final float y3)
+	{
+		return edge == 0 ? y2 - y1 : edge == 1 ? y3 - y2 : y1 - y3;
+	}
+
+	/**
+	 * @return The y coordinate of the unnormalized normal of the edge.
+	 * @see #triangleNormalX(int, float, float, float)
+	 */
+	private static float triangleNormalY(
+			final int edge,
+			final float x1,
+			final float x2,
+			final float x3)
+	{
+		return edge == 0 ? x1 - x2 : edge == 1 ? x2 - x3 : x3 - x1;
+	}
+
+	private static float projectTriangleMin(
+			final float axisX,
+			final float axisY,
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final float x3,
+			final float y3)
+	{
+		return GMath.min(
+				VectorUtils.dot(axisX, axisY, x1, y1),
+				VectorUtils.dot(axisX, axisY, x2, y2),
+				VectorUtils.dot(axisX, axisY, x3, y3));
 	}
 }
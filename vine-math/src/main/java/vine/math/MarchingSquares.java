@@ -0,0 +1,817 @@
+package vine.math;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Extracts the contours of a scalar grid (e.g. the density of destructible terrain) with marching
+ * squares.
+ * <p>
+ * The grid is stored row by row like in {@link Convolution}, the sample (x, y) is
+ * values[x + y * width] and lies at the point (x, y). Samples greater or equal to the threshold
+ * are solid and the samples around the grid are empty, so all contours are closed. The crossings
+ * of the contours with the edges between two samples are linearly interpolated, the two contours
+ * of a saddle cell are connected, if the mean of its samples is solid. Results are written like
+ * the results of the {@link PolygonClipper}: outer contours are counterclockwise, holes clockwise,
+ * so they can be passed to the clipper directly and each contour on its own to the polygon
+ * functions of {@link vine.math.geometry.shape.ShapeUtil}.
+ * </p>
+ * <p>
+ * The cells are split into square chunks. Each chunk traces its part of the contours into chains,
+ * which are either closed or start and end at edges on the border of the chunk, afterwards the
+ * chains are stitched by those edges. Only the chunks, which contain samples marked dirty, are
+ * traced again, and they can be traced in parallel.
+ * </p>
+ */
+public final class MarchingSquares
+{
+
+	public static final int		DEFAULT_CHUNK_SIZE		= 64;
+
+	/**
+	 * Maximum number of chunks a parallel task traces.
+	 */
+	private static final int	PARALLEL_CHUNK_COUNT	= 2;
+	private static final int	NONE					= -1;
+	private static final int	BOTTOM					= 0;
+	private static final int	RIGHT					= 1;
+	private static final int	TOP						= 2;
+	private static final int	LEFT					= 3;
+	/**
+	 * Cases of saddle cells, where the contours are connected through the center of the cell.
+	 */
+	private static final int	CONNECTED_5				= 16;
+	private static final int	CONNECTED_10			= 17;
+	/**
+	 * The edge a contour leaves a cell and the case of the cell without that segment, indexed by
+	 * the case of the cell times four plus the edge the contour enters. Solid samples are on the
+	 * left of the segments.
+	 */
+	private static final byte[]	EXITS					= new byte[18 * 4];
+	private static final byte[]	REMAINING				= new byte[18 * 4];
+
+	static
+	{
+		Arrays.fill(EXITS, (byte) NONE);
+		addSegment(1, BOTTOM, LEFT, 0);
+		addSegment(2, RIGHT, BOTTOM, 0);
+		addSegment(3, RIGHT, LEFT, 0);
+		addSegment(4, TOP, RIGHT, 0);
+		addSegment(5, BOTTOM, LEFT, 4);
+		addSegment(5, TOP, RIGHT, 1);
+		addSegment(6, TOP, BOTTOM, 0);
+		addSegment(7, TOP, LEFT, 0);
+		addSegment(8, LEFT, TOP, 0);
+		addSegment(9, BOTTOM, TOP, 0);
+		addSegment(10, RIGHT, BOTTOM, 8);
+		addSegment(10, LEFT, TOP, 2);
+		addSegment(11, RIGHT, TOP, 0);
+		addSegment(12, LEFT, RIGHT, 0);
+		addSegment(13, BOTTOM, RIGHT, 0);
+		addSegment(14, LEFT, BOTTOM, 0);
+		addSegment(CONNECTED_5, BOTTOM, RIGHT, 7);
+		addSegment(CONNECTED_5, TOP, LEFT, 13);
+		addSegment(CONNECTED_10, LEFT, BOTTOM, 11);
+		addSegment(CONNECTED_10, RIGHT, TOP, 14);
+	}
+
+	private final int			width;
+	private final int			height;
+	private final int			chunkSize;
+	/**
+	 * The cells include a row and column of cells around the grid, so contours are closed on the
+	 * border of the grid.
+	 */
+	private final int			cellColumns;
+	private final int			sampleColumns;
+	private final Chunk[]		chunks;
+	private final int[]			dirtyChunks;
+	private final byte[]		cases;
+	private float[]				values;
+	private float				threshold				= Float.NaN;
+
+	/**
+	 * Chains open at the border of their chunk, sorted by the edge they enter the chunk and the
+	 * chunk and chain they belong to, by the index stored in the lower bits of the sort keys.
+	 */
+	private long[]				openKeys				= new long[16];
+	private int[]				openChunks				= new int[16];
+	private int[]				openChains				= new int[16];
+	private boolean[]			openUsed				= new boolean[16];
+
+	private float[]				vertices				= new float[32];
+	private int[]				contourStarts			= new int[16];
+	private int					contourCount;
+	private int					vertexCount;
+
+
+	/**
+	 * Creates marching squares with chunks of {@link #DEFAULT_CHUNK_SIZE} cells per side.
+	 *
+	 * @param width
+	 *            The number of samples per row of the grid.
+	 * @param height
+	 *            The number of rows of the grid.
+	 */
+	public MarchingSquares(final int width, final int height)
+	{
+		this(width, height, DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param width
+	 *            The number of samples per row of the grid.
+	 * @param height
+	 *            The number of rows of the grid.
+	 * @param chunkSize
+	 *            The number of cells per side of a chunk, which is traced as a whole.
+	 */
+	public MarchingSquares(final int width, final int height, final int chunkSize)
+	{
+		if (width < 1 || height < 1 || chunkSize < 1
+				|| (width + 2L) * (height + 2L) * 2 > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException(
+					"Tried to create marching squares for a grid of size " + width + "x" + height
+							+ " with chunks of size " + chunkSize);
+		}
+		this.width = width;
+		this.height = height;
+		this.chunkSize = chunkSize;
+		cellColumns = width + 1;
+		sampleColumns = width + 2;
+		final int chunkColumns = (cellColumns + chunkSize - 1) / chunkSize;
+		final int chunkRows = (height + chunkSize) / chunkSize;
+		chunks = new Chunk[chunkColumns * chunkRows];
+		for (int row = 0; row < chunkRows; row++)
+		{
+			for (int column = 0; column < chunkColumns; column++)
+			{
+				chunks[column + row * chunkColumns] = new Chunk(
+						column * chunkSize,
+						row * chunkSize,
+						GMath.min((column + 1) * chunkSize, cellColumns),
+						GMath.min((row + 1) * chunkSize, height + 1));
+			}
+		}
+		dirtyChunks = new int[chunks.length];
+		cases = new byte[cellColumns * (height + 1)];
+	}
+
+	private static void addSegment(
+			final int cellCase,
+			final int entry,
+			final int exit,
+			final int remaining)
+	{
+		EXITS[cellCase * 4 + entry] = (byte) exit;
+		REMAINING[cellCase * 4 + entry] = (byte) remaining;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * @return Interleaved x,y coordinates of the contours of the last extraction.
+	 */
+	public float[] getVertices()
+	{
+		return vertices;
+	}
+
+	/**
+	 * @return The index of the first vertex of each contour of the last extraction, followed by
+	 *         the end of the last contour.
+	 */
+	public int[] getContourStarts()
+	{
+		return contourStarts;
+	}
+
+	public int getContourCount()
+	{
+		return contourCount;
+	}
+
+	/**
+	 * @param contour
+	 *            The index of the contour.
+	 * @return Interleaved x,y coordinates of the contour as polygon.
+	 */
+	public float[] getContour(final int contour)
+	{
+		checkContour(contour);
+		return Arrays.copyOfRange(
+				vertices,
+				contourStarts[contour] * 2,
+				contourStarts[contour + 1] * 2);
+	}
+
+	/**
+	 * Copies a contour without allocating, the polygon functions of
+	 * {@link vine.math.geometry.shape.ShapeUtil}, which take a length, accept the result.
+	 *
+	 * @param contour
+	 *            The index of the contour.
+	 * @param result
+	 *            The array, that receives the interleaved x,y coordinates of the contour.
+	 * @return The number of floats written to the result.
+	 */
+	public int getContour(final int contour, final float[] result)
+	{
+		checkContour(contour);
+		final int length = (contourStarts[contour + 1] - contourStarts[contour]) * 2;
+		if (result == null || result.length < length)
+		{
+			throw new IllegalArgumentException(
+					"Tried to copy a contour of " + length + " floats into a too small array");
+		}
+		System.arraycopy(vertices, contourStarts[contour] * 2, result, 0, length);
+		return length;
+	}
+
+	private void checkContour(final int contour)
+	{
+		if (contour < 0 || contour >= contourCount)
+		{
+			throw new IllegalArgumentException("Tried to get the invalid contour " + contour);
+		}
+	}
+
+	/**
+	 * Marks all samples dirty, so the next extraction traces all chunks.
+	 */
+	public void markDirty()
+	{
+		for (final Chunk chunk : chunks)
+		{
+			chunk.dirty = true;
+		}
+	}
+
+	/**
+	 * Marks a rectangle of changed samples dirty, so the next extraction traces the chunks of all
+	 * cells, which contain one of the samples. Parts outside of the grid are ignored.
+	 *
+	 * @param x
+	 *            The column of the first changed sample.
+	 * @param y
+	 *            The row of the first changed sample.
+	 * @param w
+	 *            The number of changed columns.
+	 * @param h
+	 *            The number of changed rows.
+	 */
+	public void markDirty(final int x, final int y, final int w, final int h)
+	{
+		final int startX = GMath.max(x, 0);
+		final int startY = GMath.max(y, 0);
+		final int endX = GMath.min(x + w, width);
+		final int endY = GMath.min(y + h, height);
+		if (startX >= endX || startY >= endY)
+		{
+			return;
+		}
+		// The sample (x, y) is a corner of the cells x and x + 1 in both directions, as the cells
+		// start with a column and row left of and below the grid
+		final int chunkColumns = (cellColumns + chunkSize - 1) / chunkSize;
+		for (int row = startY / chunkSize; row <= endY / chunkSize; row++)
+		{
+			for (int column = startX / chunkSize; column <= endX / chunkSize; column++)
+			{
+				chunks[column + row * chunkColumns].dirty = true;
+			}
+		}
+	}
+
+	/**
+	 * Same as extract(values, threshold, null).
+	 */
+	public int extract(final float[] values, final float threshold)
+	{
+		return extract(values, threshold, null);
+	}
+
+	/**
+	 * Extracts the contours of the grid. Changing the threshold marks all samples dirty, other
+	 * changes of the samples since the last extraction have to be marked with
+	 * {@link #markDirty(int, int, int, int)}.
+	 *
+	 * @param values
+	 *            The samples of the grid row by row.
+	 * @param threshold
+	 *            The smallest value of a solid sample.
+	 * @param pool
+	 *            The pool, that traces the dirty chunks in parallel, or null to trace them on the
+	 *            calling thread.
+	 * @return The number of contours.
+	 */
+	public int extract(final float[] values, final float threshold, final ForkJoinPool pool)
+	{
+		if (values == null || values.length != width * height)
+		{
+			throw new IllegalArgumentException(
+					"Tried to extract the contours of a grid with "
+							+ (values == null ? 0 : values.length) + " instead of "
+							+ width * height + " samples");
+		}
+		if (Float.compare(threshold, this.threshold) != 0)
+		{
+			this.threshold = threshold;
+			markDirty();
+		}
+		this.values = values;
+		int dirtyCount = 0;
+		for (int i = 0; i < chunks.length; i++)
+		{
+			if (chunks[i].dirty)
+			{
+				dirtyChunks[dirtyCount++] = i;
+			}
+		}
+		if (pool == null || dirtyCount <= PARALLEL_CHUNK_COUNT)
+		{
+			traceChunks(0, dirtyCount);
+		}
+		else
+		{
+			pool.invoke(new ChunkTrace(0, dirtyCount));
+		}
+		this.values = null;
+		stitch();
+		return contourCount;
+	}
+
+	private void traceChunks(final int start, final int end)
+	{
+		for (int i = start; i < end; i++)
+		{
+			traceChunk(chunks[dirtyChunks[i]]);
+		}
+	}
+
+	private void traceChunk(final Chunk chunk)
+	{
+		chunk.clear();
+		classify(chunk);
+		// Chains entering the chunk are traced first, all remaining segments form closed chains
+		for (int x = chunk.startX; x < chunk.endX; x++)
+		{
+			traceOpen(chunk, x, chunk.startY, BOTTOM);
+			traceOpen(chunk, x, chunk.endY - 1, TOP);
+		}
+		for (int y = chunk.startY; y < chunk.endY; y++)
+		{
+			traceOpen(chunk, chunk.startX, y, LEFT);
+			traceOpen(chunk, chunk.endX - 1, y, RIGHT);
+		}
+		for (int y = chunk.startY; y < chunk.endY; y++)
+		{
+			for (int x = chunk.startX; x < chunk.endX; x++)
+			{
+				for (int entry = BOTTOM; entry <= LEFT; entry++)
+				{
+					if (EXITS[cases[x + y * cellColumns] * 4 + entry] != NONE)
+					{
+						traceClosed(chunk, x, y, entry);
+					}
+				}
+			}
+		}
+		chunk.dirty = false;
+	}
+
+	/**
+	 * Calculates the case of each cell of the chunk, which are set bits for the solid corners in
+	 * counterclockwise order starting at the lower left.
+	 */
+	private void classify(final Chunk chunk)
+	{
+		for (int y = chunk.startY; y < chunk.endY; y++)
+		{
+			for (int x = chunk.startX; x < chunk.endX; x++)
+			{
+				int cellCase = 0;
+				if (isSolid(x, y))
+				{
+					cellCase |= 1;
+				}
+				if (isSolid(x + 1, y))
+				{
+					cellCase |= 2;
+				}
+				if (isSolid(x + 1, y + 1))
+				{
+					cellCase |= 4;
+				}
+				if (isSolid(x, y + 1))
+				{
+					cellCase |= 8;
+				}
+				if (cellCase == 5 || cellCase == 10)
+				{
+					// Saddles lie inside of the grid
+					final int sample = x - 1 + (y - 1) * width;
+					final float mean = (values[sample] + values[sample + 1]
+							+ values[sample + width] + values[sample + width + 1]) * 0.25f;
+					if (mean >= threshold)
+					{
+						cellCase = cellCase == 5 ? CONNECTED_5 : CONNECTED_10;
+					}
+				}
+				cases[x + y * cellColumns] = (byte) cellCase;
+			}
+		}
+	}
+
+	/**
+	 * @param x
+	 *            The column of the sample shifted by one for the border around the grid.
+	 * @param y
+	 *            The row of the sample shifted by one for the border around the grid.
+	 */
+	private boolean isSolid(final int x, final int y)
+	{
+		return x > 0 && y > 0 && x <= width && y <= height
+				&& values[x - 1 + (y - 1) * width] >= threshold;
+	}
+
+	private void traceOpen(final Chunk chunk, final int startX, final int startY, final int entry)
+	{
+		if (EXITS[cases[startX + startY * cellColumns] * 4 + entry] == NONE)
+		{
+			return;
+		}
+		chunk.beginChain(edgeId(startX, startY, entry));
+		addCrossing(chunk, startX, startY, entry);
+		int x = startX;
+		int y = startY;
+		int edge = entry;
+		while (true)
+		{
+			final int cell = x + y * cellColumns;
+			final int index = cases[cell] * 4 + edge;
+			final int exit = EXITS[index];
+			cases[cell] = REMAINING[index];
+			addCrossing(chunk, x, y, exit);
+			final int exitId = edgeId(x, y, exit);
+			switch (exit)
+			{
+				case BOTTOM:
+					y--;
+					break;
+				case RIGHT:
+					x++;
+					break;
+				case TOP:
+					y++;
+					break;
+				default:
+					x--;
+					break;
+			}
+			if (x < chunk.startX || y < chunk.startY || x >= chunk.endX || y >= chunk.endY)
+			{
+				chunk.endChain(exitId);
+				return;
+			}
+			edge = exit + 2 & 3;
+		}
+	}
+
+	private void traceClosed(final Chunk chunk, final int startX, final int startY, final int entry)
+	{
+		chunk.beginChain(NONE);
+		int x = startX;
+		int y = startY;
+		int edge = entry;
+		do
+		{
+			final int cell = x + y * cellColumns;
+			final int index = cases[cell] * 4 + edge;
+			final int exit = EXITS[index];
+			cases[cell] = REMAINING[index];
+			addCrossing(chunk, x, y, exit);
+			switch (exit)
+			{
+				case BOTTOM:
+					y--;
+					break;
+				case RIGHT:
+					x++;
+					break;
+				case TOP:
+					y++;
+					break;
+				default:
+					x--;
+					break;
+			}
+			edge = exit + 2 & 3;
+		}
+		while (x != startX || y != startY || edge != entry);
+		chunk.endChain(NONE);
+	}
+
+	/**
+	 * Identifies an edge between two samples of the grid including the border, so the same edge
+	 * of neighbouring cells has the same id.
+	 */
+	private int edgeId(final int x, final int y, final int edge)
+	{
+		switch (edge)
+		{
+			case BOTTOM:
+				return (x + y * sampleColumns) * 2;
+			case RIGHT:
+				return (x + 1 + y * sampleColumns) * 2 + 1;
+			case TOP:
+				return (x + (y + 1) * sampleColumns) * 2;
+			default:
+				return (x + y * sampleColumns) * 2 + 1;
+		}
+	}
+
+	/**
+	 * Adds the crossing of the contour with an edge of a cell. The crossing is interpolated from
+	 * the lower to the higher sample, so neighbouring cells calculate the same crossing, and lies
+	 * on the solid sample, if the other one is outside of the grid.
+	 */
+	private void addCrossing(final Chunk chunk, final int x, final int y, final int edge)
+	{
+		final int startX = edge == RIGHT ? x + 1 : x;
+		final int startY = edge == TOP ? y + 1 : y;
+		if (edge == BOTTOM || edge == TOP)
+		{
+			final float crossing;
+			if (startX == 0)
+			{
+				crossing = 0;
+			}
+			else if (startX == width)
+			{
+				crossing = width - 1;
+			}
+			else
+			{
+				final int sample = startX - 1 + (startY - 1) * width;
+				crossing = startX - 1 + interpolate(values[sample], values[sample + 1]);
+			}
+			chunk.addVertex(crossing, startY - 1);
+		}
+		else
+		{
+			final float crossing;
+			if (startY == 0)
+			{
+				crossing = 0;
+			}
+			else if (startY == height)
+			{
+				crossing = height - 1;
+			}
+			else
+			{
+				final int sample = startX - 1 + (startY - 1) * width;
+				crossing = startY - 1 + interpolate(values[sample], values[sample + width]);
+			}
+			chunk.addVertex(startX - 1, crossing);
+		}
+	}
+
+	private float interpolate(final float start, final float end)
+	{
+		return (threshold - start) / (end - start);
+	}
+
+	/**
+	 * Copies the closed chains and links the open chains of all chunks into contours.
+	 */
+	private void stitch()
+	{
+		contourCount = 0;
+		vertexCount = 0;
+		int openCount = 0;
+		for (int i = 0; i < chunks.length; i++)
+		{
+			final Chunk chunk = chunks[i];
+			for (int chain = 0; chain < chunk.chainCount; chain++)
+			{
+				if (chunk.entries[chain] == NONE)
+				{
+					appendChain(chunk, chain);
+					endContour();
+					continue;
+				}
+				if (openCount == openKeys.length)
+				{
+					openKeys = Arrays.copyOf(openKeys, openCount * 2);
+					openChunks = Arrays.copyOf(openChunks, openCount * 2);
+					openChains = Arrays.copyOf(openChains, openCount * 2);
+					openUsed = new boolean[openCount * 2];
+				}
+				openKeys[openCount] = (long) chunk.entries[chain] << 32 | openCount;
+				openChunks[openCount] = i;
+				openChains[openCount] = chain;
+				openCount++;
+			}
+		}
+		Arrays.sort(openKeys, 0, openCount);
+		Arrays.fill(openUsed, 0, openCount, false);
+		for (int i = 0; i < openCount; i++)
+		{
+			final int first = (int) openKeys[i];
+			if (openUsed[first])
+			{
+				continue;
+			}
+			int open = first;
+			do
+			{
+				openUsed[open] = true;
+				final Chunk chunk = chunks[openChunks[open]];
+				appendChain(chunk, openChains[open]);
+				open = findOpen(chunk.exits[openChains[open]], openCount);
+			}
+			while (open != first);
+			endContour();
+		}
+	}
+
+	private int findOpen(final int entry, final int openCount)
+	{
+		int index = Arrays.binarySearch(openKeys, 0, openCount, (long) entry << 32);
+		if (index < 0)
+		{
+			index = -index - 1;
+		}
+		if (index == openCount || (int) (openKeys[index] >>> 32) != entry)
+		{
+			throw new IllegalStateException(
+					"Tried to stitch chunks traced from different samples, changed samples have "
+							+ "to be marked dirty");
+		}
+		return (int) openKeys[index];
+	}
+
+	/**
+	 * Appends the vertices of a chain to the current contour, skipping vertices equal to their
+	 * predecessor, like the shared vertex of two stitched chains.
+	 */
+	private void appendChain(final Chunk chunk, final int chain)
+	{
+		final int start = contourStarts[contourCount] * 2;
+		final int end = chunk.chainStarts[chain + 1];
+		final int required = vertexCount * 2 + end - chunk.chainStarts[chain];
+		if (required > vertices.length)
+		{
+			vertices = Arrays.copyOf(vertices, GMath.max(vertices.length * 2, required));
+		}
+		for (int i = chunk.chainStarts[chain]; i < end; i += 2)
+		{
+			final float x = chunk.vertices[i];
+			final float y = chunk.vertices[i + 1];
+			final int offset = vertexCount * 2;
+			if (offset == start || vertices[offset - 2] != x || vertices[offset - 1] != y)
+			{
+				vertices[offset] = x;
+				vertices[offset + 1] = y;
+				vertexCount++;
+			}
+		}
+	}
+
+	/**
+	 * Closes the current contour, contours collapsed to less than three vertices are dropped.
+	 */
+	private void endContour()
+	{
+		final int start = contourStarts[contourCount];
+		while (vertexCount > start + 1 && vertices[vertexCount * 2 - 2] == vertices[start * 2]
+				&& vertices[vertexCount * 2 - 1] == vertices[start * 2 + 1])
+		{
+			vertexCount--;
+		}
+		if (vertexCount - start < 3)
+		{
+			vertexCount = start;
+			return;
+		}
+		contourCount++;
+		if (contourCount + 1 == contourStarts.length)
+		{
+			contourStarts = Arrays.copyOf(contourStarts, contourStarts.length * 2);
+		}
+		contourStarts[contourCount] = vertexCount;
+	}
+
+	/**
+	 * Cells of a chunk including their lower and left edges and the chains traced in it. The
+	 * chains are stored as interleaved x,y coordinates, the index of the first float of each chain
+	 * followed by the end of the last chain and the ids of the edges, where they enter and leave
+	 * the chunk.
+	 */
+	private static final class Chunk
+	{
+
+		final int	startX;
+		final int	startY;
+		final int	endX;
+		final int	endY;
+		boolean		dirty		= true;
+		float[]		vertices	= new float[16];
+		int[]		chainStarts	= new int[4];
+		int[]		entries		= new int[4];
+		int[]		exits		= new int[4];
+		int			chainCount;
+
+
+		Chunk(final int startX, final int startY, final int endX, final int endY)
+		{
+			this.startX = startX;
+			this.startY = startY;
+			this.endX = endX;
+			this.endY = endY;
+		}
+
+		void clear()
+		{
+			chainCount = 0;
+		}
+
+		void beginChain(final int entry)
+		{
+			if (chainCount + 1 == chainStarts.length)
+			{
+				chainStarts = Arrays.copyOf(chainStarts, chainStarts.length * 2);
+				entries = Arrays.copyOf(entries, entries.length * 2);
+				exits = Arrays.copyOf(exits, exits.length * 2);
+			}
+			entries[chainCount] = entry;
+			chainStarts[chainCount + 1] = chainStarts[chainCount];
+		}
+
+		void addVertex(final float x, final float y)
+		{
+			final int end = chainStarts[chainCount + 1];
+			if (end + 2 > vertices.length)
+			{
+				vertices = Arrays.copyOf(vertices, vertices.length * 2);
+			}
+			vertices[end] = x;
+			vertices[end + 1] = y;
+			chainStarts[chainCount + 1] = end + 2;
+		}
+
+		void endChain(final int exit)
+		{
+			exits[chainCount] = exit;
+			chainCount++;
+		}
+	}
+
+	/**
+	 * Traces a range of dirty chunks, splitting it in halves until it is small enough.
+	 */
+	private final class ChunkTrace extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= 5179082326542618497L;
+		private final int			start;
+		private final int			end;
+
+
+		ChunkTrace(final int start, final int end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (end - start <= PARALLEL_CHUNK_COUNT)
+			{
+				traceChunks(start, end);
+				return;
+			}
+			final int middle = start + end >>> 1;
+			invokeAll(new ChunkTrace(start, middle), new ChunkTrace(middle, end));
+		}
+	}
+}
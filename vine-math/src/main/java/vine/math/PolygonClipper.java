@@ -0,0 +1,1571 @@
+package vine.math;
+
+
+import java.util.Arrays;
+
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.spatial.ParallelPairFinder;
+import vine.math.spatial.SegmentSweep;
+
+
+/**
+ * Boolean operations on polygons with holes.
+ * <p>
+ * Polygons are given as interleaved x,y coordinates of their rings and the index of the first
+ * vertex of each ring, followed by the end of the last ring. The rings are filled by the even-odd
+ * rule, so holes are rings inside of other rings and several polygons can be passed at once.
+ * Results are written in the same form into reused buffers: outer rings are counterclockwise and
+ * followed by their clockwise holes.
+ * </p>
+ * <p>
+ * The edges of both polygons are split at all their intersections, which are found by a
+ * {@link SegmentSweep}. A second sweep over the vertices of the split edges, which don't cross
+ * anymore, keeps the edges crossing the sweep line in a sorted array and derives from the edge
+ * below each new edge, whether the regions below and above it are inside of each polygon. The
+ * edges between the inside and the outside of the result are linked into rings, where rings
+ * touch, the ring turns into the first edge clockwise. Each hole belongs to the outer ring, that a
+ * ray downwards from its lowest vertex hits first. The lowest vertices are indexed in columns, so
+ * each edge only tests the holes above it.
+ * </p>
+ * <p>
+ * Clipping against a {@link Circle} or an {@link Aabb} takes a fast path: only the edges, whose x
+ * range overlaps the shape, are split and swept, all other edges are copied as chains. For them
+ * to be classified without the sweep, the polygon has to be oriented like the results and its
+ * rings must not cross, so repeatedly carving shapes out of a result costs little more than
+ * copying it. Other polygons can be prepared by a union with an empty polygon.
+ * </p>
+ */
+public final class PolygonClipper
+{
+
+	public static final int		UNION				= 0;
+	public static final int		INTERSECTION		= 1;
+	public static final int		DIFFERENCE			= 2;
+	public static final int		XOR					= 3;
+
+	private static final int	NONE				= -1;
+	private static final int	IN_SUBJECT			= 1;
+	private static final int	IN_CLIP				= 2;
+	private static final int	IN_BOTH				= 3;
+	/**
+	 * Marks subject edges of the fast path, whose region above is inside of the subject.
+	 */
+	private static final int	SUBJECT_ABOVE		= 4;
+	private static final int	MAX_SPLIT_PASSES	= 4;
+	/**
+	 * Maximum number of columns of the index of the holes.
+	 */
+	private static final int	MAX_COLUMNS			= 1024;
+
+	private final SegmentSweep	sweep				= new SegmentSweep();
+	private int					operation;
+	private boolean				fastPath;
+	private float[]				subject;
+	private int[]				subjectRings;
+
+	/**
+	 * Edges to split, with {@link SegmentSweep#STRIDE} floats and flags each, subject edges of the
+	 * fast path keep the direction of their ring.
+	 */
+	private float[]				segments			= new float[64];
+	private int[]				segmentFlags		= new int[16];
+	private int					segmentCount;
+	private float[]				spareSegments		= new float[64];
+	private int[]				spareFlags			= new int[16];
+	private int[]				splitSegments		= new int[16];
+	private float[]				splitPoints			= new float[32];
+	private int					splitCount;
+	private int[]				splitStarts			= new int[16];
+	private int[]				splitOrder			= new int[16];
+	private double[]			splitParameters		= new double[16];
+
+	/**
+	 * Runs of subject edges outside of the x range of the clip shape, as the first vertex in the
+	 * ring, the number of edges and the ring.
+	 */
+	private int[]				chainFirsts			= new int[16];
+	private int[]				chainLengths		= new int[16];
+	private int[]				chainRings			= new int[16];
+	private int					chainCount;
+	private int[]				farRings			= new int[16];
+	private int					farRingCount;
+
+	/**
+	 * The distinct vertices sorted by x and y, which is the order of the sweep.
+	 */
+	private long[]				vertexKeys			= new long[16];
+	private float[]				vertexX				= new float[16];
+	private float[]				vertexY				= new float[16];
+	private int					vertexCount;
+
+	/**
+	 * The edges grouped by their left vertex and ordered from bottom to top in each group.
+	 */
+	private int[]				edgeLefts			= new int[16];
+	private int[]				edgeRights			= new int[16];
+	private int[]				edgeFlags			= new int[16];
+	private int[]				edgeBelow			= new int[16];
+	private int					edgeCount;
+	private int[]				groupStarts			= new int[16];
+	private int[]				endCounts			= new int[16];
+	private int[]				status				= new int[16];
+
+	private int[]				resultFroms			= new int[16];
+	private int[]				resultTos			= new int[16];
+	private int[]				resultChains		= new int[16];
+	private boolean[]			used				= new boolean[16];
+	private int					resultCount;
+	private int[]				outStarts			= new int[16];
+	private int[]				outEdges			= new int[16];
+
+	/**
+	 * The traced rings before they are grouped into polygons.
+	 */
+	private float[]				ringVertices		= new float[32];
+	private int					ringVertexCount;
+	private int[]				traceStarts			= new int[16];
+	private double[]			ringAreas			= new double[16];
+	private int					traceCount;
+	private int[]				parents				= new int[16];
+	private int[]				holes				= new int[16];
+	private int[]				nearestRings		= new int[16];
+	private float[]				queryX				= new float[16];
+	private float[]				queryY				= new float[16];
+	private double[]			lowerX				= new double[16];
+	private double[]			lowerY				= new double[16];
+	private double[]			nearestY			= new double[16];
+	private double[]			nearestSlopes		= new double[16];
+	private double[]			touchingX			= new double[16];
+	private double[]			touchingY			= new double[16];
+	private int[]				columnStarts		= new int[16];
+	private int[]				columnHoles			= new int[16];
+	private int					columns;
+	private float				columnMinX;
+	private float				inversedColumnWidth;
+
+	private float[]				shape				= new float[16];
+	private final int[]			shapeRings			= new int[2];
+
+	private float[]				vertices			= new float[32];
+	private int[]				ringStarts			= new int[16];
+	private int					ringCount;
+	private int[]				polygonStarts		= new int[16];
+	private int					polygonCount;
+
+
+	/**
+	 * @return Interleaved x,y coordinates of the rings of the last result.
+	 */
+	public float[] getVertices()
+	{
+		return vertices;
+	}
+
+	/**
+	 * @return The index of the first vertex of each ring of the last result, followed by the end
+	 *         of the last ring.
+	 */
+	public int[] getRingStarts()
+	{
+		return ringStarts;
+	}
+
+	public int getRingCount()
+	{
+		return ringCount;
+	}
+
+	/**
+	 * @return The index of the first ring of each polygon of the last result, followed by the
+	 *         end of the last polygon. The first ring of a polygon is its outer ring.
+	 */
+	public int[] getPolygonStarts()
+	{
+		return polygonStarts;
+	}
+
+	public int getPolygonCount()
+	{
+		return polygonCount;
+	}
+
+	/**
+	 * Combines two polygons. The arrays of the previous result may be passed as input.
+	 *
+	 * @param operation
+	 *            {@link #UNION}, {@link #INTERSECTION}, {@link #DIFFERENCE} of the subject minus
+	 *            the clip polygon or {@link #XOR}.
+	 * @param subject
+	 *            Interleaved x,y coordinates of the rings of the subject.
+	 * @param subjectRings
+	 *            The first vertex of each ring of the subject, followed by the end of the last.
+	 * @param subjectRingCount
+	 *            The number of rings of the subject.
+	 * @param clip
+	 *            Interleaved x,y coordinates of the rings of the clip polygon.
+	 * @param clipRings
+	 *            The first vertex of each ring of the clip polygon, followed by the end of the
+	 *            last.
+	 * @param clipRingCount
+	 *            The number of rings of the clip polygon.
+	 * @return The number of polygons of the result.
+	 */
+	public int clip(
+			final int operation,
+			final float[] subject,
+			final int[] subjectRings,
+			final int subjectRingCount,
+			final float[] clip,
+			final int[] clipRings,
+			final int clipRingCount)
+	{
+		checkOperation(operation);
+		checkRings(subject, subjectRings, subjectRingCount);
+		checkRings(clip, clipRings, clipRingCount);
+		begin(operation, false, subject, subjectRings);
+		for (int ring = 0; ring < subjectRingCount; ring++)
+		{
+			addRing(subject, subjectRings[ring], subjectRings[ring + 1], IN_SUBJECT);
+		}
+		for (int ring = 0; ring < clipRingCount; ring++)
+		{
+			addRing(clip, clipRings[ring], clipRings[ring + 1], IN_CLIP);
+		}
+		return finish();
+	}
+
+	/**
+	 * Combines a polygon with a circle, that is approximated by a regular polygon with the given
+	 * number of vertices on its border.
+	 *
+	 * @see #clip(int, float[], int[], int, float[], int[], int)
+	 */
+	public int clip(
+			final int operation,
+			final float[] subject,
+			final int[] subjectRings,
+			final int subjectRingCount,
+			final Circle circle,
+			final int segments)
+	{
+		checkOperation(operation);
+		checkRings(subject, subjectRings, subjectRingCount);
+		if (circle == null || segments < 3)
+		{
+			throw new IllegalArgumentException("Tried to clip with an invalid circle");
+		}
+		if (shape.length < segments * 2)
+		{
+			shape = new float[segments * 2];
+		}
+		for (int i = 0; i < segments; i++)
+		{
+			final float angle = i * GMath.TWO_PIF / segments;
+			shape[i * 2] = circle.getX() + circle.getRadius() * GMath.cos(angle);
+			shape[i * 2 + 1] = circle.getY() + circle.getRadius() * GMath.sin(angle);
+		}
+		return clipShape(operation, subject, subjectRings, subjectRingCount, segments);
+	}
+
+	/**
+	 * Combines a polygon with an axis aligned box.
+	 *
+	 * @see #clip(int, float[], int[], int, float[], int[], int)
+	 */
+	public int clip(
+			final int operation,
+			final float[] subject,
+			final int[] subjectRings,
+			final int subjectRingCount,
+			final Aabb aabb)
+	{
+		checkOperation(operation);
+		checkRings(subject, subjectRings, subjectRingCount);
+		if (aabb == null)
+		{
+			throw new IllegalArgumentException("Tried to clip with an invalid aabb");
+		}
+		shape[0] = aabb.getX();
+		shape[1] = aabb.getY();
+		shape[2] = aabb.getX() + aabb.getWidth();
+		shape[3] = aabb.getY();
+		shape[4] = aabb.getX() + aabb.getWidth();
+		shape[5] = aabb.getY() + aabb.getHeight();
+		shape[6] = aabb.getX();
+		shape[7] = aabb.getY() + aabb.getHeight();
+		return clipShape(operation, subject, subjectRings, subjectRingCount, 4);
+	}
+
+	private static void checkOperation(final int operation)
+	{
+		if (operation < UNION || operation > XOR)
+		{
+			throw new IllegalArgumentException(
+					"Tried to clip with the invalid operation " + operation);
+		}
+	}
+
+	private static void checkRings(final float[] polygon, final int[] rings, final int ringCount)
+	{
+		if (polygon == null || rings == null || ringCount < 0 || rings.length <= ringCount
+				|| rings[0] < 0 || rings[ringCount] * 2 > polygon.length)
+		{
+			throw new IllegalArgumentException("Tried to clip an invalid polygon");
+		}
+		for (int ring = 0; ring < ringCount; ring++)
+		{
+			if (rings[ring] > rings[ring + 1])
+			{
+				throw new IllegalArgumentException("Tried to clip an invalid polygon");
+			}
+		}
+	}
+
+	/**
+	 * Splits the subject into edges near the convex shape and chains of edges, that can't touch
+	 * it, because they are outside of its x range.
+	 */
+	private int clipShape(
+			final int operation,
+			final float[] subject,
+			final int[] subjectRings,
+			final int subjectRingCount,
+			final int shapeVertexCount)
+	{
+		begin(operation, true, subject, subjectRings);
+		float lowX = Float.MAX_VALUE;
+		float highX = -Float.MAX_VALUE;
+		for (int i = 0; i < shapeVertexCount; i++)
+		{
+			lowX = GMath.min(lowX, shape[i * 2]);
+			highX = GMath.max(highX, shape[i * 2]);
+		}
+		shapeRings[1] = shapeVertexCount;
+		addRing(shape, 0, shapeVertexCount, IN_CLIP);
+		for (int ring = 0; ring < subjectRingCount; ring++)
+		{
+			final int start = subjectRings[ring];
+			final int count = subjectRings[ring + 1] - start;
+			// A run of far edges starts after the last near edge
+			int first = NONE;
+			for (int i = count - 1; i >= 0 && first == NONE; i--)
+			{
+				if (isNear(subject, start + i, start + (i + 1) % count, lowX, highX))
+				{
+					first = (i + 1) % count;
+				}
+			}
+			if (first == NONE)
+			{
+				if (count > 0)
+				{
+					farRings = ensure(farRings, farRingCount + 1);
+					farRings[farRingCount++] = ring;
+				}
+				continue;
+			}
+			int chainLength = 0;
+			for (int i = 0; i < count; i++)
+			{
+				final int from = start + (first + i) % count;
+				final int to = start + (first + i + 1) % count;
+				if (isNear(subject, from, to, lowX, highX))
+				{
+					if (chainLength > 0)
+					{
+						addChain(ring, (first + i - chainLength) % count, chainLength);
+						chainLength = 0;
+					}
+					addSegment(subject, from, to, IN_SUBJECT);
+				}
+				else
+				{
+					chainLength++;
+				}
+			}
+			if (chainLength > 0)
+			{
+				addChain(ring, (first + count - chainLength) % count, chainLength);
+			}
+		}
+		return finish();
+	}
+
+	private static boolean isNear(
+			final float[] polygon,
+			final int from,
+			final int to,
+			final float lowX,
+			final float highX)
+	{
+		return GMath.max(polygon[from * 2], polygon[to * 2]) >= lowX
+				&& GMath.min(polygon[from * 2], polygon[to * 2]) <= highX;
+	}
+
+	private void begin(
+			final int operation,
+			final boolean fastPath,
+			final float[] subject,
+			final int[] subjectRings)
+	{
+		this.operation = operation;
+		this.fastPath = fastPath;
+		this.subject = subject;
+		this.subjectRings = subjectRings;
+		segmentCount = 0;
+		chainCount = 0;
+		farRingCount = 0;
+	}
+
+	private void addRing(final float[] polygon, final int start, final int end, final int flags)
+	{
+		for (int i = start; i < end; i++)
+		{
+			addSegment(polygon, i, i + 1 < end ? i + 1 : start, flags);
+		}
+	}
+
+	private void addSegment(final float[] polygon, final int from, final int to, final int flags)
+	{
+		// Adding zero makes negative zeros positive, so equal points have equal keys
+		addSegment(
+				polygon[from * 2] + 0f,
+				polygon[from * 2 + 1] + 0f,
+				polygon[to * 2] + 0f,
+				polygon[to * 2 + 1] + 0f,
+				flags);
+	}
+
+	private void addSegment(
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final int flags)
+	{
+		if (x1 == x2 && y1 == y2)
+		{
+			return;
+		}
+		if (segmentFlags.length == segmentCount)
+		{
+			segmentFlags = Arrays.copyOf(segmentFlags, segmentCount * 2);
+			segments = Arrays.copyOf(segments, segmentCount * 2 * SegmentSweep.STRIDE);
+		}
+		final int offset = segmentCount * SegmentSweep.STRIDE;
+		segments[offset] = x1;
+		segments[offset + 1] = y1;
+		segments[offset + 2] = x2;
+		segments[offset + 3] = y2;
+		segmentFlags[segmentCount++] = flags;
+	}
+
+	private void addChain(final int ring, final int first, final int length)
+	{
+		if (chainFirsts.length == chainCount)
+		{
+			chainFirsts = Arrays.copyOf(chainFirsts, chainCount * 2);
+			chainLengths = Arrays.copyOf(chainLengths, chainCount * 2);
+			chainRings = Arrays.copyOf(chainRings, chainCount * 2);
+		}
+		chainFirsts[chainCount] = first;
+		chainLengths[chainCount] = length;
+		chainRings[chainCount++] = ring;
+	}
+
+	private int finish()
+	{
+		split();
+		buildGraph();
+		classify();
+		collectResult();
+		trace();
+		group();
+		subject = null;
+		subjectRings = null;
+		return polygonCount;
+	}
+
+	// Splitting
+
+	/**
+	 * Splits the segments at their intersections. Rounded crossings may cross other segments
+	 * again, so the split is repeated, until it is exact.
+	 */
+	private void split()
+	{
+		for (int pass = 0; pass < MAX_SPLIT_PASSES; pass++)
+		{
+			final int pairCount = sweep.findIntersections(segments, segmentCount);
+			final long[] pairs = sweep.getPairs();
+			final float[] points = sweep.getPoints();
+			splitCount = 0;
+			boolean exact = true;
+			for (int i = 0; i < pairCount; i++)
+			{
+				final int a = ParallelPairFinder.getFirst(pairs[i]);
+				final int b = ParallelPairFinder.getSecond(pairs[i]);
+				if (isCollinear(a, b))
+				{
+					addCollinearSplits(a, b);
+					addCollinearSplits(b, a);
+				}
+				else
+				{
+					exact &= addSplit(a, points[i * 2], points[i * 2 + 1]);
+					exact &= addSplit(b, points[i * 2], points[i * 2 + 1]);
+				}
+			}
+			if (splitCount == 0)
+			{
+				return;
+			}
+			applySplits();
+			if (exact)
+			{
+				return;
+			}
+		}
+	}
+
+	private boolean isCollinear(final int a, final int b)
+	{
+		final int offsetB = b * SegmentSweep.STRIDE;
+		return cross(a, segments[offsetB], segments[offsetB + 1]) == 0
+				&& cross(a, segments[offsetB + 2], segments[offsetB + 3]) == 0;
+	}
+
+	/**
+	 * @return The orientation of the point to the segment, which is exact for float coordinates.
+	 */
+	private double cross(final int segment, final float x, final float y)
+	{
+		final int offset = segment * SegmentSweep.STRIDE;
+		return ((double) segments[offset + 2] - segments[offset])
+				* ((double) y - segments[offset + 1])
+				- ((double) segments[offset + 3] - segments[offset + 1])
+						* ((double) x - segments[offset]);
+	}
+
+	/**
+	 * Splits segment a at the endpoints of the collinear segment b, that are inside of it.
+	 */
+	private void addCollinearSplits(final int a, final int b)
+	{
+		final int offsetA = a * SegmentSweep.STRIDE;
+		final int offsetB = b * SegmentSweep.STRIDE;
+		final double directionX = (double) segments[offsetA + 2] - segments[offsetA];
+		final double directionY = (double) segments[offsetA + 3] - segments[offsetA + 1];
+		for (int end = 0; end < 4; end += 2)
+		{
+			final float x = segments[offsetB + end];
+			final float y = segments[offsetB + end + 1];
+			if (directionX * ((double) x - segments[offsetA])
+					+ directionY * ((double) y - segments[offsetA + 1]) > 0
+					&& directionX * ((double) x - segments[offsetA + 2])
+							+ directionY * ((double) y - segments[offsetA + 3]) < 0)
+			{
+				addSplit(a, x, y);
+			}
+		}
+	}
+
+	/**
+	 * Adds the point as split of the segment, if it isn't one of its endpoints.
+	 *
+	 * @return False, if the point isn't exactly on the segment.
+	 */
+	private boolean addSplit(final int segment, final float x, final float y)
+	{
+		final int offset = segment * SegmentSweep.STRIDE;
+		if (x == segments[offset] && y == segments[offset + 1]
+				|| x == segments[offset + 2] && y == segments[offset + 3])
+		{
+			return true;
+		}
+		if (splitSegments.length == splitCount)
+		{
+			splitSegments = Arrays.copyOf(splitSegments, splitCount * 2);
+			splitPoints = Arrays.copyOf(splitPoints, splitCount * 4);
+		}
+		splitSegments[splitCount] = segment;
+		splitPoints[splitCount * 2] = x + 0f;
+		splitPoints[splitCount * 2 + 1] = y + 0f;
+		splitCount++;
+		return cross(segment, x, y) == 0;
+	}
+
+	/**
+	 * Replaces each split segment by its parts between the split points sorted along it.
+	 */
+	private void applySplits()
+	{
+		splitStarts = ensure(splitStarts, segmentCount + 1);
+		Arrays.fill(splitStarts, 0, segmentCount + 1, 0);
+		for (int i = 0; i < splitCount; i++)
+		{
+			splitStarts[splitSegments[i] + 1]++;
+		}
+		for (int segment = 0; segment < segmentCount; segment++)
+		{
+			splitStarts[segment + 1] += splitStarts[segment];
+		}
+		splitOrder = ensure(splitOrder, splitCount);
+		if (splitParameters.length < splitCount)
+		{
+			splitParameters = new double[GMath.max(splitCount, splitParameters.length * 2)];
+		}
+		for (int i = 0; i < splitCount; i++)
+		{
+			splitOrder[splitStarts[splitSegments[i]]++] = i;
+		}
+		// The starts were moved to the ends by filling
+		for (int segment = segmentCount; segment > 0; segment--)
+		{
+			splitStarts[segment] = splitStarts[segment - 1];
+		}
+		splitStarts[0] = 0;
+		final float[] source = segments;
+		final int[] sourceFlags = segmentFlags;
+		final int sourceCount = segmentCount;
+		if (spareFlags.length < sourceCount + splitCount)
+		{
+			spareFlags = new int[sourceCount + splitCount];
+			spareSegments = new float[(sourceCount + splitCount) * SegmentSweep.STRIDE];
+		}
+		segments = spareSegments;
+		segmentFlags = spareFlags;
+		spareSegments = source;
+		spareFlags = sourceFlags;
+		segmentCount = 0;
+		for (int segment = 0; segment < sourceCount; segment++)
+		{
+			final int offset = segment * SegmentSweep.STRIDE;
+			final double directionX = (double) source[offset + 2] - source[offset];
+			final double directionY = (double) source[offset + 3] - source[offset + 1];
+			final int start = splitStarts[segment];
+			final int end = splitStarts[segment + 1];
+			for (int i = start; i < end; i++)
+			{
+				final int split = splitOrder[i];
+				final double relativeX = (double) splitPoints[split * 2] - source[offset];
+				final double relativeY = (double) splitPoints[split * 2 + 1] - source[offset + 1];
+				final double parameter = directionX * relativeX + directionY * relativeY;
+				int j = i;
+				while (j > start && splitParameters[j - 1] > parameter)
+				{
+					splitParameters[j] = splitParameters[j - 1];
+					splitOrder[j] = splitOrder[j - 1];
+					j--;
+				}
+				splitParameters[j] = parameter;
+				splitOrder[j] = split;
+			}
+			float x = source[offset];
+			float y = source[offset + 1];
+			for (int i = start; i < end; i++)
+			{
+				final float splitX = splitPoints[splitOrder[i] * 2];
+				final float splitY = splitPoints[splitOrder[i] * 2 + 1];
+				addSegment(x, y, splitX, splitY, sourceFlags[segment]);
+				x = splitX;
+				y = splitY;
+			}
+			addSegment(x, y, source[offset + 2], source[offset + 3], sourceFlags[segment]);
+		}
+	}
+
+	// Graph
+
+	private static long toKey(final float x, final float y)
+	{
+		// Sortable bits of the coordinates, y is made unsigned, so the keys sort by x and y
+		final int bitsX = Float.floatToIntBits(x);
+		final int bitsY = Float.floatToIntBits(y);
+		final int sortableX = bitsX ^ bitsX >> 31 & Integer.MAX_VALUE;
+		final int sortableY = bitsY ^ bitsY >> 31 & Integer.MAX_VALUE;
+		return (long) sortableX << 32 | (sortableY ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+	}
+
+	private int getVertex(final float x, final float y)
+	{
+		return Arrays.binarySearch(vertexKeys, 0, vertexCount, toKey(x + 0f, y + 0f));
+	}
+
+	/**
+	 * Collects the distinct vertices and merges equal edges, whose flags cancel, if they belong
+	 * to the same polygon.
+	 */
+	private void buildGraph()
+	{
+		final int keyCount = segmentCount * 2 + chainCount * 2;
+		if (vertexKeys.length < keyCount)
+		{
+			vertexKeys = new long[keyCount];
+		}
+		int count = 0;
+		for (int segment = 0; segment < segmentCount; segment++)
+		{
+			final int offset = segment * SegmentSweep.STRIDE;
+			vertexKeys[count++] = toKey(segments[offset], segments[offset + 1]);
+			vertexKeys[count++] = toKey(segments[offset + 2], segments[offset + 3]);
+		}
+		for (int chain = 0; chain < chainCount; chain++)
+		{
+			final int first = getChainVertex(chain, 0);
+			final int last = getChainVertex(chain, chainLengths[chain]);
+			vertexKeys[count++] = toKey(subject[first * 2] + 0f, subject[first * 2 + 1] + 0f);
+			vertexKeys[count++] = toKey(subject[last * 2] + 0f, subject[last * 2 + 1] + 0f);
+		}
+		Arrays.sort(vertexKeys, 0, count);
+		vertexCount = 0;
+		for (int i = 0; i < count; i++)
+		{
+			if (i == 0 || vertexKeys[i] != vertexKeys[i - 1])
+			{
+				vertexKeys[vertexCount++] = vertexKeys[i];
+			}
+		}
+		if (vertexX.length < vertexCount)
+		{
+			vertexX = new float[vertexCount];
+			vertexY = new float[vertexCount];
+		}
+		for (int vertex = 0; vertex < vertexCount; vertex++)
+		{
+			final int sortableX = (int) (vertexKeys[vertex] >> 32);
+			final int sortableY = (int) vertexKeys[vertex] ^ Integer.MIN_VALUE;
+			vertexX[vertex] = Float.intBitsToFloat(sortableX ^ sortableX >> 31 & Integer.MAX_VALUE);
+			vertexY[vertex] = Float.intBitsToFloat(sortableY ^ sortableY >> 31 & Integer.MAX_VALUE);
+		}
+		// Edges are grouped by their left vertex with a counting sort
+		groupStarts = ensure(groupStarts, vertexCount + 1);
+		Arrays.fill(groupStarts, 0, vertexCount + 1, 0);
+		status = ensure(status, segmentCount);
+		splitOrder = ensure(splitOrder, segmentCount);
+		for (int segment = 0; segment < segmentCount; segment++)
+		{
+			final int offset = segment * SegmentSweep.STRIDE;
+			final int from = getVertex(segments[offset], segments[offset + 1]);
+			final int to = getVertex(segments[offset + 2], segments[offset + 3]);
+			groupStarts[GMath.min(from, to) + 1]++;
+			status[segment] = from;
+			splitOrder[segment] = to;
+		}
+		for (int vertex = 0; vertex < vertexCount; vertex++)
+		{
+			groupStarts[vertex + 1] += groupStarts[vertex];
+		}
+		edgeLefts = ensure(edgeLefts, segmentCount);
+		edgeRights = ensure(edgeRights, segmentCount);
+		edgeFlags = ensure(edgeFlags, segmentCount);
+		edgeBelow = ensure(edgeBelow, segmentCount);
+		for (int segment = 0; segment < segmentCount; segment++)
+		{
+			final int from = status[segment];
+			final int to = splitOrder[segment];
+			final int left = GMath.min(from, to);
+			final int edge = groupStarts[left]++;
+			int flags = segmentFlags[segment];
+			if (fastPath && (flags & IN_SUBJECT) != 0 && from < to)
+			{
+				// The inside is left of the subject edges, which is above, if they point right
+				flags |= SUBJECT_ABOVE;
+			}
+			edgeLefts[edge] = left;
+			edgeRights[edge] = GMath.max(from, to);
+			edgeFlags[edge] = flags;
+		}
+		for (int vertex = vertexCount; vertex > 0; vertex--)
+		{
+			groupStarts[vertex] = groupStarts[vertex - 1];
+		}
+		groupStarts[0] = 0;
+		mergeEdges();
+	}
+
+	/**
+	 * Merges equal edges of each group, removes edges, whose flags cancel, and sorts the
+	 * remaining edges of each group from bottom to top.
+	 */
+	private void mergeEdges()
+	{
+		endCounts = ensure(endCounts, vertexCount);
+		Arrays.fill(endCounts, 0, vertexCount, 0);
+		edgeCount = 0;
+		for (int vertex = 0; vertex < vertexCount; vertex++)
+		{
+			final int start = groupStarts[vertex];
+			final int end = groupStarts[vertex + 1];
+			groupStarts[vertex] = edgeCount;
+			for (int i = start; i < end; i++)
+			{
+				final int right = edgeRights[i];
+				final int flags = edgeFlags[i];
+				int j = groupStarts[vertex];
+				while (j < edgeCount && edgeRights[j] != right)
+				{
+					j++;
+				}
+				if (j < edgeCount)
+				{
+					edgeFlags[j] ^= flags;
+					continue;
+				}
+				edgeLefts[edgeCount] = vertex;
+				edgeRights[edgeCount] = right;
+				edgeFlags[edgeCount++] = flags;
+			}
+			int count = groupStarts[vertex];
+			for (int i = groupStarts[vertex]; i < edgeCount; i++)
+			{
+				if ((edgeFlags[i] & IN_BOTH) == 0)
+				{
+					continue;
+				}
+				final int right = edgeRights[i];
+				final int flags = edgeFlags[i];
+				int j = count++;
+				while (j > groupStarts[vertex] && isAbove(vertex, edgeRights[j - 1], right))
+				{
+					edgeRights[j] = edgeRights[j - 1];
+					edgeFlags[j] = edgeFlags[j - 1];
+					j--;
+				}
+				edgeLefts[j] = vertex;
+				edgeRights[j] = right;
+				edgeFlags[j] = flags;
+				endCounts[right]++;
+			}
+			edgeCount = count;
+		}
+		groupStarts[vertexCount] = edgeCount;
+	}
+
+	/**
+	 * @return True, if the edge from the vertex to the first right vertex is above the edge to the
+	 *         second one.
+	 */
+	private boolean isAbove(final int vertex, final int first, final int second)
+	{
+		return ((double) vertexX[first] - vertexX[vertex])
+				* ((double) vertexY[second] - vertexY[vertex])
+				- ((double) vertexY[first] - vertexY[vertex])
+						* ((double) vertexX[second] - vertexX[vertex]) < 0;
+	}
+
+	// Classification
+
+	/**
+	 * Sweeps over the vertices and derives the regions below and above each edge from the edge
+	 * below it. Subject edges of the fast path know their side of the subject from their
+	 * direction, because the edges below them may be missing.
+	 */
+	private void classify()
+	{
+		int statusSize = 0;
+		for (int vertex = 0; vertex < vertexCount; vertex++)
+		{
+			int position = findPosition(vertex, statusSize);
+			if (endCounts[vertex] > 0)
+			{
+				int run = 0;
+				while (position + run < statusSize && edgeRights[status[position + run]] == vertex)
+				{
+					run++;
+				}
+				if (run == endCounts[vertex])
+				{
+					System.arraycopy(
+							status,
+							position + run,
+							status,
+							position,
+							statusSize - position - run);
+					statusSize -= run;
+				}
+				else
+				{
+					// Only rounding can scatter the ending edges
+					int count = 0;
+					for (int i = 0; i < statusSize; i++)
+					{
+						if (edgeRights[status[i]] != vertex)
+						{
+							status[count++] = status[i];
+						}
+					}
+					statusSize = count;
+					position = findPosition(vertex, statusSize);
+				}
+			}
+			final int start = groupStarts[vertex];
+			final int length = groupStarts[vertex + 1] - start;
+			if (length == 0)
+			{
+				continue;
+			}
+			int state = 0;
+			if (position > 0)
+			{
+				final int below = status[position - 1];
+				state = edgeBelow[below] ^ edgeFlags[below] & IN_BOTH;
+			}
+			System.arraycopy(
+					status,
+					position,
+					status,
+					position + length,
+					statusSize - position);
+			statusSize += length;
+			for (int i = 0; i < length; i++)
+			{
+				final int edge = start + i;
+				status[position + i] = edge;
+				if (fastPath && (edgeFlags[edge] & IN_SUBJECT) != 0)
+				{
+					state = (edgeFlags[edge] & SUBJECT_ABOVE) != 0
+							? state & ~IN_SUBJECT
+							: state | IN_SUBJECT;
+				}
+				edgeBelow[edge] = state;
+				state ^= edgeFlags[edge] & IN_BOTH;
+			}
+		}
+	}
+
+	/**
+	 * @return The index of the first edge of the status, that the vertex is not above.
+	 */
+	private int findPosition(final int vertex, final int statusSize)
+	{
+		int low = 0;
+		int high = statusSize;
+		while (low < high)
+		{
+			final int middle = (low + high) >>> 1;
+			final int edge = status[middle];
+			final int left = edgeLefts[edge];
+			final int right = edgeRights[edge];
+			final double side = ((double) vertexX[right] - vertexX[left])
+					* ((double) vertexY[vertex] - vertexY[left])
+					- ((double) vertexY[right] - vertexY[left])
+							* ((double) vertexX[vertex] - vertexX[left]);
+			if (side > 0)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private boolean isInside(final int state)
+	{
+		switch (operation)
+		{
+			case UNION:
+				return state != 0;
+			case INTERSECTION:
+				return state == IN_BOTH;
+			case DIFFERENCE:
+				return state == IN_SUBJECT;
+			default:
+				return state == IN_SUBJECT || state == IN_CLIP;
+		}
+	}
+
+	/**
+	 * Collects the edges between the inside and the outside of the result, directed so that the
+	 * inside is on their left.
+	 */
+	private void collectResult()
+	{
+		resultCount = 0;
+		for (int edge = 0; edge < edgeCount; edge++)
+		{
+			final boolean below = isInside(edgeBelow[edge]);
+			final boolean above = isInside(edgeBelow[edge] ^ edgeFlags[edge] & IN_BOTH);
+			if (below != above)
+			{
+				addResult(
+						above ? edgeLefts[edge] : edgeRights[edge],
+						above ? edgeRights[edge] : edgeLefts[edge],
+						NONE);
+			}
+		}
+		// Chains are outside of the clip shape with the subject on their left
+		if (isInside(IN_SUBJECT))
+		{
+			for (int chain = 0; chain < chainCount; chain++)
+			{
+				final int first = getChainVertex(chain, 0);
+				final int last = getChainVertex(chain, chainLengths[chain]);
+				addResult(
+						getVertex(subject[first * 2], subject[first * 2 + 1]),
+						getVertex(subject[last * 2], subject[last * 2 + 1]),
+						chain);
+			}
+		}
+		outStarts = ensure(outStarts, vertexCount + 1);
+		Arrays.fill(outStarts, 0, vertexCount + 1, 0);
+		for (int result = 0; result < resultCount; result++)
+		{
+			outStarts[resultFroms[result] + 1]++;
+		}
+		for (int vertex = 0; vertex < vertexCount; vertex++)
+		{
+			outStarts[vertex + 1] += outStarts[vertex];
+		}
+		outEdges = ensure(outEdges, resultCount);
+		for (int result = 0; result < resultCount; result++)
+		{
+			outEdges[outStarts[resultFroms[result]]++] = result;
+		}
+		for (int vertex = vertexCount; vertex > 0; vertex--)
+		{
+			outStarts[vertex] = outStarts[vertex - 1];
+		}
+		outStarts[0] = 0;
+	}
+
+	private void addResult(final int from, final int to, final int chain)
+	{
+		if (resultFroms.length == resultCount)
+		{
+			resultFroms = Arrays.copyOf(resultFroms, resultCount * 2);
+			resultTos = Arrays.copyOf(resultTos, resultCount * 2);
+			resultChains = Arrays.copyOf(resultChains, resultCount * 2);
+			used = Arrays.copyOf(used, resultCount * 2);
+		}
+		resultFroms[resultCount] = from;
+		resultTos[resultCount] = to;
+		resultChains[resultCount] = chain;
+		used[resultCount++] = false;
+	}
+
+	/**
+	 * @return The subject vertex at the given step of the chain.
+	 */
+	private int getChainVertex(final int chain, final int step)
+	{
+		final int start = subjectRings[chainRings[chain]];
+		final int count = subjectRings[chainRings[chain] + 1] - start;
+		return start + (chainFirsts[chain] + step) % count;
+	}
+
+	// Rings
+
+	/**
+	 * Links the result edges into rings and copies the untouched rings of the fast path.
+	 */
+	private void trace()
+	{
+		ringVertexCount = 0;
+		traceCount = 0;
+		for (int first = 0; first < resultCount; first++)
+		{
+			if (used[first])
+			{
+				continue;
+			}
+			final int ringStart = ringVertexCount;
+			final int startVertex = resultFroms[first];
+			int result = first;
+			while (result != NONE)
+			{
+				used[result] = true;
+				final int chain = resultChains[result];
+				if (chain == NONE)
+				{
+					addRingVertex(vertexX[resultFroms[result]], vertexY[resultFroms[result]]);
+				}
+				else
+				{
+					for (int step = 0; step < chainLengths[chain]; step++)
+					{
+						final int vertex = getChainVertex(chain, step);
+						addRingVertex(subject[vertex * 2], subject[vertex * 2 + 1]);
+					}
+				}
+				final int vertex = resultTos[result];
+				if (vertex == startVertex)
+				{
+					break;
+				}
+				result = findNext(vertex);
+			}
+			addTracedRing(ringStart);
+		}
+		if (isInside(IN_SUBJECT))
+		{
+			for (int i = 0; i < farRingCount; i++)
+			{
+				final int ringStart = ringVertexCount;
+				for (int vertex = subjectRings[farRings[i]];
+						vertex < subjectRings[farRings[i] + 1]; vertex++)
+				{
+					addRingVertex(subject[vertex * 2], subject[vertex * 2 + 1]);
+				}
+				addTracedRing(ringStart);
+			}
+		}
+	}
+
+	/**
+	 * Finds the next unused edge from the vertex, which is the first clockwise from the reversed
+	 * direction of arrival, if rings touch at the vertex.
+	 */
+	private int findNext(final int vertex)
+	{
+		int next = NONE;
+		int count = 0;
+		for (int i = outStarts[vertex]; i < outStarts[vertex + 1]; i++)
+		{
+			if (!used[outEdges[i]])
+			{
+				next = outEdges[i];
+				count++;
+			}
+		}
+		if (count <= 1)
+		{
+			return next;
+		}
+		// The last two traced vertices give the direction of arrival
+		final float x = vertexX[vertex];
+		final float y = vertexY[vertex];
+		final double backX = ringVertices[ringVertexCount * 2 - 2] - (double) x;
+		final double backY = ringVertices[ringVertexCount * 2 - 1] - (double) y;
+		double minAngle = Double.POSITIVE_INFINITY;
+		for (int i = outStarts[vertex]; i < outStarts[vertex + 1]; i++)
+		{
+			final int result = outEdges[i];
+			if (used[result])
+			{
+				continue;
+			}
+			final double directionX;
+			final double directionY;
+			final int chain = resultChains[result];
+			if (chain == NONE)
+			{
+				directionX = vertexX[resultTos[result]] - (double) x;
+				directionY = vertexY[resultTos[result]] - (double) y;
+			}
+			else
+			{
+				final int second = getChainVertex(chain, 1);
+				directionX = subject[second * 2] - (double) x;
+				directionY = subject[second * 2 + 1] - (double) y;
+			}
+			double angle = Math.atan2(
+					directionX * backY - directionY * backX,
+					directionX * backX + directionY * backY);
+			if (angle <= 0)
+			{
+				angle += 2 * Math.PI;
+			}
+			if (angle < minAngle)
+			{
+				minAngle = angle;
+				next = result;
+			}
+		}
+		return next;
+	}
+
+	private void addRingVertex(final float x, final float y)
+	{
+		if (ringVertices.length < ringVertexCount * 2 + 2)
+		{
+			ringVertices = Arrays.copyOf(ringVertices, ringVertices.length * 2);
+		}
+		ringVertices[ringVertexCount * 2] = x;
+		ringVertices[ringVertexCount * 2 + 1] = y;
+		ringVertexCount++;
+	}
+
+	/**
+	 * Removes duplicate and straight vertices of the last ring and keeps it, if it has an area.
+	 */
+	private void addTracedRing(final int start)
+	{
+		final float[] ring = ringVertices;
+		int count = start;
+		for (int i = start; i < ringVertexCount; i++)
+		{
+			while (count - start >= 2 && isStraight(count - 2, count - 1, i))
+			{
+				count--;
+			}
+			ring[count * 2] = ring[i * 2];
+			ring[count * 2 + 1] = ring[i * 2 + 1];
+			count++;
+		}
+		int first = start;
+		while (count - first >= 3)
+		{
+			if (isStraight(count - 2, count - 1, first))
+			{
+				count--;
+			}
+			else if (isStraight(count - 1, first, first + 1))
+			{
+				first++;
+			}
+			else
+			{
+				break;
+			}
+		}
+		final int length = count - first;
+		System.arraycopy(ring, first * 2, ring, start * 2, length * 2);
+		ringVertexCount = start + length;
+		double area = 0;
+		for (int i = start, j = start + length - 1; i < start + length; j = i++)
+		{
+			area += ((double) ring[j * 2] - ring[i * 2])
+					* ((double) ring[i * 2 + 1] + ring[j * 2 + 1]);
+		}
+		if (length < 3 || area == 0)
+		{
+			ringVertexCount = start;
+			return;
+		}
+		if (traceStarts.length <= traceCount + 1)
+		{
+			traceStarts = Arrays.copyOf(traceStarts, traceStarts.length * 2);
+			ringAreas = Arrays.copyOf(ringAreas, ringAreas.length * 2);
+		}
+		traceStarts[traceCount] = start;
+		ringAreas[traceCount++] = area;
+		traceStarts[traceCount] = ringVertexCount;
+	}
+
+	/**
+	 * Checks, if the middle vertex is a duplicate or continues straight on.
+	 */
+	private boolean isStraight(final int a, final int b, final int c)
+	{
+		final float[] ring = ringVertices;
+		final double firstX = (double) ring[b * 2] - ring[a * 2];
+		final double firstY = (double) ring[b * 2 + 1] - ring[a * 2 + 1];
+		final double secondX = (double) ring[c * 2] - ring[b * 2];
+		final double secondY = (double) ring[c * 2 + 1] - ring[b * 2 + 1];
+		return firstX * secondY - firstY * secondX == 0 && firstX * secondX + firstY * secondY >= 0;
+	}
+
+	// Polygons
+
+	/**
+	 * Assigns each hole to its outer ring and writes the polygons.
+	 */
+	private void group()
+	{
+		parents = ensure(parents, traceCount);
+		int holeCount = 0;
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			parents[ring] = ringAreas[ring] > 0 ? NONE : NONE - 1;
+			if (ringAreas[ring] < 0)
+			{
+				holeCount++;
+			}
+		}
+		if (holeCount > 0)
+		{
+			findNearestRings(holeCount);
+			for (int ring = 0; ring < traceCount; ring++)
+			{
+				findParent(ring);
+			}
+		}
+		// Holes without outer ring are turned into outer rings
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			if (ringAreas[ring] < 0 && parents[ring] == NONE)
+			{
+				reverse(ring);
+			}
+		}
+		final int totalVertices = ringVertexCount;
+		if (vertices.length < totalVertices * 2)
+		{
+			vertices = new float[totalVertices * 2];
+		}
+		ringStarts = ensure(ringStarts, traceCount + 1);
+		polygonStarts = ensure(polygonStarts, traceCount + 1);
+		// The holes are grouped by their outer ring with a counting sort
+		outStarts = ensure(outStarts, traceCount + 1);
+		Arrays.fill(outStarts, 0, traceCount + 1, 0);
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			if (parents[ring] != NONE)
+			{
+				outStarts[parents[ring] + 1]++;
+			}
+		}
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			outStarts[ring + 1] += outStarts[ring];
+		}
+		outEdges = ensure(outEdges, traceCount);
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			if (parents[ring] != NONE)
+			{
+				outEdges[outStarts[parents[ring]]++] = ring;
+			}
+		}
+		ringCount = 0;
+		polygonCount = 0;
+		int count = 0;
+		int hole = 0;
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			if (parents[ring] != NONE)
+			{
+				continue;
+			}
+			polygonStarts[polygonCount++] = ringCount;
+			count = writeRing(ring, count);
+			// The filled starts point to the end of the holes of each ring
+			final int end = outStarts[ring];
+			for (; hole < end; hole++)
+			{
+				count = writeRing(outEdges[hole], count);
+			}
+		}
+		ringStarts[ringCount] = count;
+		polygonStarts[polygonCount] = ringCount;
+	}
+
+	private int writeRing(final int ring, final int offset)
+	{
+		final int start = traceStarts[ring];
+		final int length = traceStarts[ring + 1] - start;
+		System.arraycopy(ringVertices, start * 2, vertices, offset * 2, length * 2);
+		ringStarts[ringCount++] = offset;
+		return offset + length;
+	}
+
+	private void reverse(final int ring)
+	{
+		for (int i = traceStarts[ring], j = traceStarts[ring + 1] - 1; i < j; i++, j--)
+		{
+			final float x = ringVertices[i * 2];
+			final float y = ringVertices[i * 2 + 1];
+			ringVertices[i * 2] = ringVertices[j * 2];
+			ringVertices[i * 2 + 1] = ringVertices[j * 2 + 1];
+			ringVertices[j * 2] = x;
+			ringVertices[j * 2 + 1] = y;
+		}
+		ringAreas[ring] = -ringAreas[ring];
+	}
+
+	/**
+	 * Finds for each hole the nearest edge of another ring below its lowest vertex. The lowest
+	 * vertices are indexed in columns, so each edge only visits the holes, that may be above it.
+	 */
+	private void findNearestRings(final int holeCount)
+	{
+		holes = ensure(holes, holeCount);
+		nearestRings = ensure(nearestRings, traceCount);
+		if (queryX.length < traceCount)
+		{
+			queryX = new float[traceCount];
+			queryY = new float[traceCount];
+			lowerX = new double[traceCount];
+			lowerY = new double[traceCount];
+			nearestY = new double[traceCount];
+			nearestSlopes = new double[traceCount];
+			touchingX = new double[traceCount];
+			touchingY = new double[traceCount];
+		}
+		float lowX = Float.MAX_VALUE;
+		float highX = -Float.MAX_VALUE;
+		int count = 0;
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			nearestRings[ring] = NONE;
+			if (ringAreas[ring] < 0)
+			{
+				holes[count++] = ring;
+				prepareQuery(ring);
+				lowX = GMath.min(lowX, queryX[ring]);
+				highX = GMath.max(highX, queryX[ring]);
+			}
+		}
+		final float width = highX - lowX;
+		columns = width == 0 ? 1 : GMath.clamp(holeCount, 1, MAX_COLUMNS);
+		columnMinX = lowX;
+		inversedColumnWidth = width == 0 ? 0 : columns / width;
+		columnStarts = ensure(columnStarts, columns + 1);
+		Arrays.fill(columnStarts, 0, columns + 1, 0);
+		for (int i = 0; i < holeCount; i++)
+		{
+			columnStarts[getColumn(queryX[holes[i]]) + 1]++;
+		}
+		for (int column = 0; column < columns; column++)
+		{
+			columnStarts[column + 1] += columnStarts[column];
+		}
+		columnHoles = ensure(columnHoles, holeCount);
+		for (int i = 0; i < holeCount; i++)
+		{
+			columnHoles[columnStarts[getColumn(queryX[holes[i]])]++] = holes[i];
+		}
+		for (int column = columns; column > 0; column--)
+		{
+			columnStarts[column] = columnStarts[column - 1];
+		}
+		columnStarts[0] = 0;
+		for (int ring = 0; ring < traceCount; ring++)
+		{
+			final int end = traceStarts[ring + 1];
+			for (int i = traceStarts[ring], j = end - 1; i < end; j = i++)
+			{
+				final float edgeLowX = GMath.min(ringVertices[j * 2], ringVertices[i * 2]);
+				final float edgeHighX = GMath.max(ringVertices[j * 2], ringVertices[i * 2]);
+				if (edgeHighX < lowX || edgeLowX > highX)
+				{
+					continue;
+				}
+				final int high = getColumn(edgeHighX);
+				for (int column = getColumn(edgeLowX); column <= high; column++)
+				{
+					for (int k = columnStarts[column]; k < columnStarts[column + 1]; k++)
+					{
+						if (columnHoles[k] != ring)
+						{
+							offer(columnHoles[k], ring, j, i);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private int getColumn(final float x)
+	{
+		return GMath.clamp((int) ((x - columnMinX) * inversedColumnWidth), 0, columns - 1);
+	}
+
+	/**
+	 * Stores the lowest vertex of the hole and the direction of its lower edge from it, which
+	 * orders rings touching the vertex.
+	 */
+	private void prepareQuery(final int ring)
+	{
+		final int start = traceStarts[ring];
+		final int end = traceStarts[ring + 1];
+		int lowest = start;
+		for (int i = start + 1; i < end; i++)
+		{
+			if (ringVertices[i * 2 + 1] < ringVertices[lowest * 2 + 1]
+					|| ringVertices[i * 2 + 1] == ringVertices[lowest * 2 + 1]
+							&& ringVertices[i * 2] < ringVertices[lowest * 2])
+			{
+				lowest = i;
+			}
+		}
+		final float x = ringVertices[lowest * 2];
+		final float y = ringVertices[lowest * 2 + 1];
+		final int previous = lowest > start ? lowest - 1 : end - 1;
+		final int following = lowest + 1 < end ? lowest + 1 : start;
+		final double previousX = ringVertices[previous * 2] - (double) x;
+		final double previousY = ringVertices[previous * 2 + 1] - (double) y;
+		final double followingX = ringVertices[following * 2] - (double) x;
+		final double followingY = ringVertices[following * 2 + 1] - (double) y;
+		final boolean followingLower = followingX * previousY - followingY * previousX > 0;
+		queryX[ring] = x;
+		queryY[ring] = y;
+		lowerX[ring] = followingLower ? followingX : previousX;
+		lowerY[ring] = followingLower ? followingY : previousY;
+		nearestY[ring] = Double.NEGATIVE_INFINITY;
+		nearestSlopes[ring] = 0;
+		touchingX[ring] = 0;
+		touchingY[ring] = 0;
+	}
+
+	/**
+	 * Keeps the edge of the other ring as nearest edge of the hole, if it is below its lowest
+	 * vertex and above the nearest edge so far.
+	 */
+	private void offer(final int hole, final int ring, final int from, final int to)
+	{
+		final float x = queryX[hole];
+		final float y = queryY[hole];
+		final float x1 = ringVertices[from * 2];
+		final float x2 = ringVertices[to * 2];
+		// Half open ranges count vertices on the ray once
+		if (!(GMath.min(x1, x2) <= x && x < GMath.max(x1, x2)))
+		{
+			return;
+		}
+		final double y1 = ringVertices[from * 2 + 1];
+		final double y2 = ringVertices[to * 2 + 1];
+		final boolean touching = touchingX[hole] != 0 || touchingY[hole] != 0;
+		if (x1 == x && y1 == y || x2 == x && y2 == y)
+		{
+			// The edge leaves the vertex to the right and is below the hole, if it is clockwise
+			// from its lower edge
+			final boolean starts = x1 == x && y1 == y;
+			final double directionX = (starts ? x2 : x1) - (double) x;
+			final double directionY = (starts ? y2 : y1) - (double) y;
+			if (directionX * lowerY[hole] - directionY * lowerX[hole] > 0 && (!touching
+					|| touchingX[hole] * directionY - touchingY[hole] * directionX > 0))
+			{
+				touchingX[hole] = directionX;
+				touchingY[hole] = directionY;
+				nearestRings[hole] = ring;
+			}
+			return;
+		}
+		final double slope = (y2 - y1) / ((double) x2 - x1);
+		final double edgeY = y1 + (x - x1) * slope;
+		// Edges meeting below the vertex are ordered by their slope to the right of it
+		final double tolerance = 8 * Math.ulp(Math.max(Math.abs(y1), Math.abs(y2)));
+		if (!touching && edgeY <= y && (edgeY > nearestY[hole] + tolerance
+				|| edgeY >= nearestY[hole] - tolerance && slope > nearestSlopes[hole]))
+		{
+			nearestY[hole] = edgeY;
+			nearestSlopes[hole] = slope;
+			nearestRings[hole] = ring;
+		}
+	}
+
+	/**
+	 * Finds the outer ring of the hole from the ring of its nearest edge, which is either the
+	 * outer ring or another hole of it.
+	 *
+	 * @return The outer ring or -1, if the ring is outer.
+	 */
+	private int findParent(final int ring)
+	{
+		if (parents[ring] != NONE - 1)
+		{
+			return parents[ring];
+		}
+		// Rings are only visited once, even if the input is inconsistent
+		parents[ring] = NONE;
+		final int other = nearestRings[ring];
+		if (other != NONE)
+		{
+			parents[ring] = ringAreas[other] > 0 ? other : findParent(other);
+		}
+		return parents[ring];
+	}
+
+	private static int[] ensure(final int[] array, final int length)
+	{
+		return array.length >= length
+				? array
+				: Arrays.copyOf(array, GMath.max(length, array.length * 2));
+	}
+}
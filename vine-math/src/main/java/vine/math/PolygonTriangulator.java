@@ -0,0 +1,823 @@
+package vine.math;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Triangulates polygons with holes by ear clipping.
+ * <p>
+ * The rings are kept as a doubly linked list of nodes in int arrays. Each hole is merged into the
+ * outer ring by a bridge from its leftmost vertex to a visible vertex of the ring, which
+ * duplicates both vertices, so the result is one ring, that touches itself along the bridges. An
+ * ear is a convex vertex, whose triangle contains no reflex vertex. The reflex vertices are stored
+ * in a uniform grid, so an ear test only visits the reflex vertices near the triangle instead of
+ * the whole ring. Clipping an ear only changes the angles of its neighbours, which are added to
+ * the grid, if they become reflex.
+ * </p>
+ * <p>
+ * Degenerated and self intersecting input is handled like in the earcut library: duplicate and
+ * collinear vertices are removed, if no ear is left, local self intersections are cut off and as
+ * last resort the ring is split along a valid diagonal. The orientation tests are exact for float
+ * coordinates, because the products of their differences fit into doubles.
+ * </p>
+ * <p>
+ * All buffers are reused, so triangulating only allocates, while the buffers grow.
+ * </p>
+ */
+public final class PolygonTriangulator
+{
+
+	private static final int	NONE		= -1;
+	/**
+	 * Maximum number of grid cells along each axis.
+	 */
+	private static final int	MAX_CELLS	= 1024;
+
+	private float[]				vertices;
+	private int[]				triangles;
+	private int					indexCount;
+
+	private int[]				previous	= new int[16];
+	private int[]				next		= new int[16];
+	private int[]				vertexOf	= new int[16];
+	private boolean[]			removed		= new boolean[16];
+	private boolean[]			inGrid		= new boolean[16];
+	private int					nodeCount;
+	private int[]				holeNodes	= new int[16];
+	private long[]				holeKeys	= new long[16];
+
+	private boolean				gridBuilt;
+	private int[]				cellHeads	= new int[16];
+	private int[]				gridNext	= new int[16];
+	private double				minX;
+	private double				minY;
+	private double				inversedCellWidth;
+	private double				inversedCellHeight;
+	private int					columns;
+	private int					rows;
+
+
+	/**
+	 * @return The number of indices, that a triangulation of a polygon with the given number of
+	 *         vertices and holes writes at most.
+	 */
+	public static int getMaxIndexCount(final int vertexCount, final int holeCount)
+	{
+		return GMath.max(vertexCount + 2 * holeCount - 2, 0) * 3;
+	}
+
+	/**
+	 * Triangulates a polygon without holes.
+	 *
+	 * @see #triangulate(float[], int, int[], int, int[])
+	 */
+	public int triangulate(final float[] polygon, final int length, final int[] triangles)
+	{
+		return triangulate(polygon, length, null, 0, triangles);
+	}
+
+	/**
+	 * Triangulates a polygon with holes. The orientation of the rings doesn't matter, the
+	 * triangles are counterclockwise.
+	 *
+	 * @param polygon
+	 *            Interleaved x,y coordinates of the outer ring followed by the rings of the holes,
+	 *            like in {@link vine.math.geometry.shape.ShapeUtil#polygonArea(float[], int)}.
+	 * @param length
+	 *            The number of used floats of the polygon.
+	 * @param holeStarts
+	 *            The index of the first vertex of each hole in ascending order, may be null
+	 *            without holes.
+	 * @param holeCount
+	 *            The number of holes.
+	 * @param triangles
+	 *            Array, that receives three vertex indices per triangle, its length has to be at
+	 *            least {@link #getMaxIndexCount(int, int)}.
+	 * @return The number of triangles.
+	 */
+	public int triangulate(
+			final float[] polygon,
+			final int length,
+			final int[] holeStarts,
+			final int holeCount,
+			final int[] triangles)
+	{
+		final int vertexCount = length / 2;
+		if (polygon == null || length < 0 || GMath.isOdd(length) || length > polygon.length
+				|| holeCount < 0 || holeCount > 0 && (holeStarts == null
+						|| holeStarts.length < holeCount)
+				|| triangles == null
+				|| triangles.length < getMaxIndexCount(vertexCount, holeCount))
+		{
+			throw new IllegalArgumentException("Tried to triangulate an invalid polygon");
+		}
+		for (int i = 0; i < holeCount; i++)
+		{
+			if (holeStarts[i] <= (i == 0 ? 0 : holeStarts[i - 1]) || holeStarts[i] >= vertexCount)
+			{
+				throw new IllegalArgumentException(
+						"Tried to triangulate a polygon with the invalid hole start "
+								+ holeStarts[i]);
+			}
+		}
+		vertices = polygon;
+		this.triangles = triangles;
+		indexCount = 0;
+		nodeCount = 0;
+		gridBuilt = false;
+		int outer = linkRing(0, holeCount > 0 ? holeStarts[0] : vertexCount, true);
+		if (outer != NONE && next[outer] != previous[outer])
+		{
+			if (holeCount > 0)
+			{
+				outer = eliminateHoles(holeStarts, holeCount, vertexCount, outer);
+			}
+			buildGrid(outer);
+			clipEars(outer, 0);
+		}
+		vertices = null;
+		this.triangles = null;
+		return indexCount / 3;
+	}
+
+	// Rings
+
+	/**
+	 * Links the vertices of a ring in the given orientation.
+	 *
+	 * @return The last node of the ring or -1, if it is empty.
+	 */
+	private int linkRing(final int start, final int end, final boolean counterClockwise)
+	{
+		double area = 0;
+		for (int i = start, j = end - 1; i < end; j = i++)
+		{
+			area += ((double) vertices[j * 2] - vertices[i * 2])
+					* ((double) vertices[i * 2 + 1] + vertices[j * 2 + 1]);
+		}
+		int last = NONE;
+		if (counterClockwise == area > 0)
+		{
+			for (int i = start; i < end; i++)
+			{
+				last = insertNode(i, last);
+			}
+		}
+		else
+		{
+			for (int i = end - 1; i >= start; i--)
+			{
+				last = insertNode(i, last);
+			}
+		}
+		if (last != NONE && isEqual(last, next[last]))
+		{
+			removeNode(last);
+			last = next[last];
+		}
+		return last;
+	}
+
+	/**
+	 * Merges the holes from left to right into the outer ring.
+	 *
+	 * @return A node of the merged ring.
+	 */
+	private int eliminateHoles(
+			final int[] holeStarts,
+			final int holeCount,
+			final int vertexCount,
+			final int outerNode)
+	{
+		if (holeNodes.length < holeCount)
+		{
+			holeNodes = new int[holeCount];
+			holeKeys = new long[holeCount];
+		}
+		int count = 0;
+		for (int i = 0; i < holeCount; i++)
+		{
+			final int end = i + 1 < holeCount ? holeStarts[i + 1] : vertexCount;
+			final int hole = linkRing(holeStarts[i], end, false);
+			if (hole == NONE)
+			{
+				continue;
+			}
+			// The key sorts by the x coordinate of the leftmost vertex, which is a float
+			final int leftmost = getLeftmost(hole);
+			final int bits = Float.floatToIntBits(getX(leftmost));
+			holeKeys[count] = (long) (bits ^ bits >> 31 & Integer.MAX_VALUE) << 32 | count;
+			holeNodes[count++] = leftmost;
+		}
+		Arrays.sort(holeKeys, 0, count);
+		int outer = outerNode;
+		for (int i = 0; i < count; i++)
+		{
+			outer = eliminateHole(holeNodes[(int) holeKeys[i]], outer);
+		}
+		return outer;
+	}
+
+	private int eliminateHole(final int hole, final int outerNode)
+	{
+		final int bridge = findHoleBridge(hole, outerNode);
+		if (bridge == NONE)
+		{
+			return outerNode;
+		}
+		final int bridgeReverse = splitPolygon(bridge, hole);
+		// Removes collinear vertices around the cuts
+		filterPoints(bridgeReverse, next[bridgeReverse]);
+		return filterPoints(bridge, next[bridge]);
+	}
+
+	/**
+	 * Finds a vertex of the outer ring, that is visible from the leftmost vertex of the hole, by
+	 * casting a ray to the left.
+	 */
+	private int findHoleBridge(final int hole, final int outerNode)
+	{
+		final float holeX = getX(hole);
+		final float holeY = getY(hole);
+		double nearestX = Double.NEGATIVE_INFINITY;
+		int bridge = NONE;
+		int node = outerNode;
+		if (isEqual(hole, node))
+		{
+			return node;
+		}
+		// The nearest edge hit by the ray, whose endpoint with the smaller x is a candidate
+		do
+		{
+			final int following = next[node];
+			if (isEqual(hole, following))
+			{
+				return following;
+			}
+			if (holeY <= getY(node) && holeY >= getY(following) && getY(following) != getY(node))
+			{
+				final double x = getX(node) + ((double) holeY - getY(node))
+						* ((double) getX(following) - getX(node))
+						/ ((double) getY(following) - getY(node));
+				if (x <= holeX && x > nearestX)
+				{
+					nearestX = x;
+					bridge = getX(node) < getX(following) ? node : following;
+					if (x == holeX)
+					{
+						// The hole touches the edge
+						return bridge;
+					}
+				}
+			}
+			node = following;
+		}
+		while (node != outerNode);
+		if (bridge == NONE)
+		{
+			return NONE;
+		}
+		// Vertices in the triangle of the hole vertex, the hit and the candidate may hide the
+		// candidate, the one with the smallest angle to the ray is visible
+		final int stop = bridge;
+		final float bridgeX = getX(bridge);
+		final float bridgeY = getY(bridge);
+		final double x1 = holeY < bridgeY ? holeX : nearestX;
+		final double x3 = holeY < bridgeY ? nearestX : holeX;
+		double minTangent = Double.POSITIVE_INFINITY;
+		node = bridge;
+		do
+		{
+			final float x = getX(node);
+			final float y = getY(node);
+			if (holeX >= x && x >= bridgeX && holeX != x
+					&& isInTriangle(x1, holeY, bridgeX, bridgeY, x3, holeY, x, y))
+			{
+				final double tangent = Math.abs((double) holeY - y) / ((double) holeX - x);
+				if (isLocallyInside(node, hole) && (tangent < minTangent || tangent == minTangent
+						&& (x > getX(bridge) || x == getX(bridge)
+								&& isSectorInSector(bridge, node))))
+				{
+					bridge = node;
+					minTangent = tangent;
+				}
+			}
+			node = next[node];
+		}
+		while (node != stop);
+		return bridge;
+	}
+
+	/**
+	 * Connects the two nodes by duplicating them, so the ring is split into two or two rings are
+	 * merged.
+	 *
+	 * @return The duplicate of the second node.
+	 */
+	private int splitPolygon(final int a, final int b)
+	{
+		final int a2 = createNode(vertexOf[a]);
+		final int b2 = createNode(vertexOf[b]);
+		final int afterA = next[a];
+		final int beforeB = previous[b];
+		next[a] = b;
+		previous[b] = a;
+		next[a2] = afterA;
+		previous[afterA] = a2;
+		next[b2] = a2;
+		previous[a2] = b2;
+		next[beforeB] = b2;
+		previous[b2] = beforeB;
+		updateGrid(a);
+		updateGrid(b);
+		updateGrid(a2);
+		updateGrid(b2);
+		updateGrid(afterA);
+		updateGrid(beforeB);
+		return b2;
+	}
+
+	/**
+	 * Removes duplicate and collinear vertices between the two nodes.
+	 *
+	 * @return A node of the remaining ring.
+	 */
+	private int filterPoints(final int start, final int end)
+	{
+		if (start == NONE)
+		{
+			return NONE;
+		}
+		int last = end == NONE ? start : end;
+		int node = start;
+		boolean again;
+		do
+		{
+			again = false;
+			if (isEqual(node, next[node]) || turn(previous[node], node, next[node]) == 0)
+			{
+				removeNode(node);
+				node = previous[node];
+				last = node;
+				if (node == next[node])
+				{
+					break;
+				}
+				again = true;
+			}
+			else
+			{
+				node = next[node];
+			}
+		}
+		while (again || node != last);
+		return last;
+	}
+
+	private int getLeftmost(final int start)
+	{
+		int leftmost = start;
+		int node = start;
+		do
+		{
+			if (getX(node) < getX(leftmost)
+					|| getX(node) == getX(leftmost) && getY(node) < getY(leftmost))
+			{
+				leftmost = node;
+			}
+			node = next[node];
+		}
+		while (node != start);
+		return leftmost;
+	}
+
+	private int insertNode(final int vertex, final int last)
+	{
+		final int node = createNode(vertex);
+		if (last == NONE)
+		{
+			previous[node] = node;
+			next[node] = node;
+		}
+		else
+		{
+			next[node] = next[last];
+			previous[node] = last;
+			previous[next[last]] = node;
+			next[last] = node;
+		}
+		return node;
+	}
+
+	private int createNode(final int vertex)
+	{
+		if (nodeCount == next.length)
+		{
+			final int capacity = nodeCount * 2;
+			previous = Arrays.copyOf(previous, capacity);
+			next = Arrays.copyOf(next, capacity);
+			vertexOf = Arrays.copyOf(vertexOf, capacity);
+			removed = Arrays.copyOf(removed, capacity);
+			inGrid = Arrays.copyOf(inGrid, capacity);
+			gridNext = Arrays.copyOf(gridNext, capacity);
+		}
+		vertexOf[nodeCount] = vertex;
+		removed[nodeCount] = false;
+		inGrid[nodeCount] = false;
+		return nodeCount++;
+	}
+
+	/**
+	 * Unlinks the node, its links stay valid, so iterations can continue from it.
+	 */
+	private void removeNode(final int node)
+	{
+		next[previous[node]] = next[node];
+		previous[next[node]] = previous[node];
+		removed[node] = true;
+		updateGrid(previous[node]);
+		updateGrid(next[node]);
+	}
+
+	// Ear clipping
+
+	private void clipEars(final int start, final int pass)
+	{
+		if (start == NONE)
+		{
+			return;
+		}
+		int ear = start;
+		int stop = start;
+		while (previous[ear] != next[ear])
+		{
+			final int before = previous[ear];
+			final int after = next[ear];
+			if (isEar(ear))
+			{
+				triangles[indexCount++] = vertexOf[before];
+				triangles[indexCount++] = vertexOf[ear];
+				triangles[indexCount++] = vertexOf[after];
+				removeNode(ear);
+				// Skipping the next vertex leads to fewer sliver triangles
+				ear = next[after];
+				stop = ear;
+				continue;
+			}
+			ear = after;
+			if (ear == stop)
+			{
+				if (pass == 0)
+				{
+					clipEars(filterPoints(ear, NONE), 1);
+				}
+				else if (pass == 1)
+				{
+					clipEars(cureLocalIntersections(filterPoints(ear, NONE)), 2);
+				}
+				else
+				{
+					splitAndClip(ear);
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Checks, if the node is convex and no reflex vertex is inside of its triangle.
+	 */
+	private boolean isEar(final int ear)
+	{
+		final int a = previous[ear];
+		final int c = next[ear];
+		if (turn(a, ear, c) <= 0)
+		{
+			return false;
+		}
+		final float ax = getX(a);
+		final float ay = getY(a);
+		final float bx = getX(ear);
+		final float by = getY(ear);
+		final float cx = getX(c);
+		final float cy = getY(c);
+		final float lowX = GMath.min(ax, bx, cx);
+		final float lowY = GMath.min(ay, by, cy);
+		final float highX = GMath.max(ax, bx, cx);
+		final float highY = GMath.max(ay, by, cy);
+		final int highColumn = getColumn(highX);
+		final int highRow = getRow(highY);
+		for (int row = getRow(lowY); row <= highRow; row++)
+		{
+			for (int column = getColumn(lowX); column <= highColumn; column++)
+			{
+				for (int node = cellHeads[row * columns + column]; node != NONE;
+						node = gridNext[node])
+				{
+					if (removed[node] || node == a || node == c)
+					{
+						continue;
+					}
+					final float x = getX(node);
+					final float y = getY(node);
+					if (x >= lowX && x <= highX && y >= lowY && y <= highY
+							&& (x != ax || y != ay)
+							&& isInTriangle(ax, ay, bx, by, cx, cy, x, y)
+							&& turn(previous[node], node, next[node]) <= 0)
+					{
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cuts off the triangles of self intersections, where the edges before and after a vertex
+	 * cross.
+	 */
+	private int cureLocalIntersections(final int start)
+	{
+		if (start == NONE)
+		{
+			return NONE;
+		}
+		int first = start;
+		int node = start;
+		do
+		{
+			final int a = previous[node];
+			final int b = next[next[node]];
+			if (!isEqual(a, b) && intersects(a, node, next[node], b) && isLocallyInside(a, b)
+					&& isLocallyInside(b, a))
+			{
+				triangles[indexCount++] = vertexOf[a];
+				triangles[indexCount++] = vertexOf[node];
+				triangles[indexCount++] = vertexOf[b];
+				removeNode(node);
+				removeNode(next[node]);
+				node = b;
+				first = b;
+			}
+			node = next[node];
+		}
+		while (node != first);
+		return filterPoints(node, NONE);
+	}
+
+	/**
+	 * Splits the ring along a valid diagonal and triangulates both parts.
+	 */
+	private void splitAndClip(final int start)
+	{
+		int a = start;
+		do
+		{
+			int b = next[next[a]];
+			while (b != previous[a])
+			{
+				if (vertexOf[a] != vertexOf[b] && isValidDiagonal(a, b))
+				{
+					final int c = splitPolygon(a, b);
+					clipEars(filterPoints(a, next[a]), 0);
+					clipEars(filterPoints(c, next[c]), 0);
+					return;
+				}
+				b = next[b];
+			}
+			a = next[a];
+		}
+		while (a != start);
+	}
+
+	// Grid of reflex vertices
+
+	private void buildGrid(final int start)
+	{
+		float lowX = Float.MAX_VALUE;
+		float lowY = Float.MAX_VALUE;
+		float highX = -Float.MAX_VALUE;
+		float highY = -Float.MAX_VALUE;
+		int reflexCount = 0;
+		int node = start;
+		do
+		{
+			lowX = GMath.min(lowX, getX(node));
+			lowY = GMath.min(lowY, getY(node));
+			highX = GMath.max(highX, getX(node));
+			highY = GMath.max(highY, getY(node));
+			if (turn(previous[node], node, next[node]) <= 0)
+			{
+				reflexCount++;
+			}
+			node = next[node];
+		}
+		while (node != start);
+		final double width = (double) highX - lowX;
+		final double height = (double) highY - lowY;
+		// About one cell per reflex vertex
+		final double cellSize = Math.max(
+				Math.sqrt(width * height / GMath.max(reflexCount, 1)),
+				Math.max(width, height) / MAX_CELLS);
+		columns = cellSize == 0 ? 1 : GMath.clamp((int) Math.ceil(width / cellSize), 1, MAX_CELLS);
+		rows = cellSize == 0 ? 1 : GMath.clamp((int) Math.ceil(height / cellSize), 1, MAX_CELLS);
+		minX = lowX;
+		minY = lowY;
+		inversedCellWidth = width == 0 ? 0 : columns / width;
+		inversedCellHeight = height == 0 ? 0 : rows / height;
+		if (cellHeads.length < columns * rows)
+		{
+			cellHeads = new int[columns * rows];
+		}
+		Arrays.fill(cellHeads, 0, columns * rows, NONE);
+		gridBuilt = true;
+		node = start;
+		do
+		{
+			updateGrid(node);
+			node = next[node];
+		}
+		while (node != start);
+	}
+
+	/**
+	 * Adds the node to the grid, if it became reflex. Nodes, that became convex, stay in it and
+	 * are skipped by the ear tests.
+	 */
+	private void updateGrid(final int node)
+	{
+		if (!gridBuilt || inGrid[node] || turn(previous[node], node, next[node]) > 0)
+		{
+			return;
+		}
+		final int cell = getRow(getY(node)) * columns + getColumn(getX(node));
+		gridNext[node] = cellHeads[cell];
+		cellHeads[cell] = node;
+		inGrid[node] = true;
+	}
+
+	private int getColumn(final float x)
+	{
+		return GMath.clamp((int) ((x - minX) * inversedCellWidth), 0, columns - 1);
+	}
+
+	private int getRow(final float y)
+	{
+		return GMath.clamp((int) ((y - minY) * inversedCellHeight), 0, rows - 1);
+	}
+
+	// Predicates
+
+	private float getX(final int node)
+	{
+		return vertices[vertexOf[node] * 2];
+	}
+
+	private float getY(final int node)
+	{
+		return vertices[vertexOf[node] * 2 + 1];
+	}
+
+	private boolean isEqual(final int a, final int b)
+	{
+		return getX(a) == getX(b) && getY(a) == getY(b);
+	}
+
+	/**
+	 * @return Positive, if the path from a over b to c turns left, negative for right turns and
+	 *         zero, if the nodes are collinear.
+	 */
+	private double turn(final int a, final int b, final int c)
+	{
+		return ((double) getX(b) - getX(a)) * ((double) getY(c) - getY(b))
+				- ((double) getY(b) - getY(a)) * ((double) getX(c) - getX(b));
+	}
+
+	/**
+	 * Checks, if the point is inside or on the border of the counterclockwise triangle.
+	 */
+	private static boolean isInTriangle(
+			final double ax,
+			final double ay,
+			final double bx,
+			final double by,
+			final double cx,
+			final double cy,
+			final double x,
+			final double y)
+	{
+		return (ax - x) * (by - y) >= (bx - x) * (ay - y)
+				&& (bx - x) * (cy - y) >= (cx - x) * (by - y)
+				&& (cx - x) * (ay - y) >= (ax - x) * (cy - y);
+	}
+
+	/**
+	 * Checks, if the diagonal from a to b starts inside of the ring at a.
+	 */
+	private boolean isLocallyInside(final int a, final int b)
+	{
+		if (turn(previous[a], a, next[a]) > 0)
+		{
+			return turn(a, b, next[a]) <= 0 && turn(a, previous[a], b) <= 0;
+		}
+		return turn(a, b, previous[a]) > 0 || turn(a, next[a], b) > 0;
+	}
+
+	/**
+	 * Checks, if the sector of p is inside of the sector of m, which share their position.
+	 */
+	private boolean isSectorInSector(final int m, final int p)
+	{
+		return turn(previous[m], m, previous[p]) > 0 && turn(next[p], m, next[m]) > 0;
+	}
+
+	/**
+	 * Checks, if the middle of the diagonal from a to b is inside of the ring.
+	 */
+	private boolean isMiddleInside(final int a, final int b)
+	{
+		final double x = ((double) getX(a) + getX(b)) / 2;
+		final double y = ((double) getY(a) + getY(b)) / 2;
+		boolean inside = false;
+		int node = a;
+		do
+		{
+			final int following = next[node];
+			if (getY(node) > y != getY(following) > y && getY(following) != getY(node)
+					&& x < ((double) getX(following) - getX(node)) * (y - getY(node))
+							/ ((double) getY(following) - getY(node)) + getX(node))
+			{
+				inside = !inside;
+			}
+			node = following;
+		}
+		while (node != a);
+		return inside;
+	}
+
+	private boolean isValidDiagonal(final int a, final int b)
+	{
+		if (vertexOf[next[a]] == vertexOf[b] || vertexOf[previous[a]] == vertexOf[b]
+				|| intersectsRing(a, b))
+		{
+			return false;
+		}
+		if (isLocallyInside(a, b) && isLocallyInside(b, a) && isMiddleInside(a, b)
+				&& (turn(previous[a], a, previous[b]) != 0 || turn(a, previous[b], b) != 0))
+		{
+			return true;
+		}
+		// A diagonal of zero length between two convex vertices
+		return isEqual(a, b) && turn(previous[a], a, next[a]) < 0
+				&& turn(previous[b], b, next[b]) < 0;
+	}
+
+	/**
+	 * Checks, if the diagonal from a to b crosses an edge of the ring, that doesn't touch it.
+	 */
+	private boolean intersectsRing(final int a, final int b)
+	{
+		int node = a;
+		do
+		{
+			final int following = next[node];
+			if (vertexOf[node] != vertexOf[a] && vertexOf[following] != vertexOf[a]
+					&& vertexOf[node] != vertexOf[b] && vertexOf[following] != vertexOf[b]
+					&& intersects(node, following, a, b))
+			{
+				return true;
+			}
+			node = following;
+		}
+		while (node != a);
+		return false;
+	}
+
+	/**
+	 * Checks, if the segment from p1 to q1 intersects the segment from p2 to q2.
+	 */
+	private boolean intersects(final int p1, final int q1, final int p2, final int q2)
+	{
+		final double o1 = Math.signum(turn(p1, q1, p2));
+		final double o2 = Math.signum(turn(p1, q1, q2));
+		final double o3 = Math.signum(turn(p2, q2, p1));
+		final double o4 = Math.signum(turn(p2, q2, q1));
+		return o1 != o2 && o3 != o4
+				|| o1 == 0 && isOnSegment(p1, p2, q1)
+				|| o2 == 0 && isOnSegment(p1, q2, q1)
+				|| o3 == 0 && isOnSegment(p2, p1, q2)
+				|| o4 == 0 && isOnSegment(p2, q1, q2);
+	}
+
+	/**
+	 * Checks, if q is in the bounds of the collinear segment from p to r.
+	 */
+	private boolean isOnSegment(final int p, final int q, final int r)
+	{
+		return getX(q) <= GMath.max(getX(p), getX(r)) && getX(q) >= GMath.min(getX(p), getX(r))
+				&& getY(q) <= GMath.max(getY(p), getY(r))
+				&& getY(q) >= GMath.min(getY(p), getY(r));
+	}
+}
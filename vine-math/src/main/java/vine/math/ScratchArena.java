@@ -0,0 +1,275 @@
+package vine.math;
+
+
+import java.util.Arrays;
+
+import vine.math.matrix.MutableMat3f;
+import vine.math.vector.MutableVec2f;
+import vine.math.vector.MutableVec3f;
+
+
+/**
+ * Frame scoped pool of temporary vectors, matrices and hit data.
+ * <p>
+ * Instances handed out by the obtain methods are zeroed and stay valid until the next
+ * {@link #reset()}, which returns all of them to the arena at once. The arena only allocates while
+ * it grows to the highest number of instances used in a frame, after that a simulation loop, which
+ * takes its temporaries from the arena, produces no garbage.
+ * </p>
+ * <p>
+ * In debug mode {@link #reset()} fills every handed out instance with NaN, so reads after the
+ * reset are poisoned, and the next obtain of an instance throws an {@link IllegalStateException},
+ * if it was written to after the reset.
+ * </p>
+ * <p>
+ * An arena is not thread safe, use {@link #local()} to get an arena per thread.
+ * </p>
+ */
+public final class ScratchArena
+{
+
+	private static final int						INITIAL_CAPACITY	= 16;
+	private static final ThreadLocal<ScratchArena>	LOCAL_ARENAS		= new LocalArena();
+
+	private final boolean							debug;
+	private MutableVec2f[]							vectors2;
+	private MutableVec3f[]							vectors3;
+	private MutableMat3f[]							matrices;
+	private HitData[]								hits;
+	private int										usedVectors2;
+	private int										usedVectors3;
+	private int										usedMatrices;
+	private int										usedHits;
+
+
+	/**
+	 * Creates a new arena without debug checks.
+	 */
+	public ScratchArena()
+	{
+		this(false);
+	}
+
+	/**
+	 * Creates a new arena.
+	 *
+	 * @param debug
+	 *            If true, handed out instances are poisoned on reset and checked for writes after
+	 *            the reset.
+	 */
+	public ScratchArena(final boolean debug)
+	{
+		this.debug = debug;
+		vectors2 = new MutableVec2f[INITIAL_CAPACITY];
+		vectors3 = new MutableVec3f[INITIAL_CAPACITY];
+		matrices = new MutableMat3f[INITIAL_CAPACITY];
+		hits = new HitData[INITIAL_CAPACITY];
+	}
+
+	/**
+	 * Returns the arena of the calling thread. The arena runs in debug mode, if the system property
+	 * {@code vine.math.scratch.debug} is true.
+	 *
+	 * @return The arena of the current thread.
+	 */
+	public static ScratchArena local()
+	{
+		return LOCAL_ARENAS.get();
+	}
+
+	/**
+	 * @return True, if this arena checks for uses after reset.
+	 */
+	public boolean isDebug()
+	{
+		return debug;
+	}
+
+	/**
+	 * @return A zero vector, that is valid until the next reset.
+	 */
+	public MutableVec2f obtainVec2f()
+	{
+		if (usedVectors2 == vectors2.length)
+		{
+			vectors2 = Arrays.copyOf(vectors2, vectors2.length * 2);
+		}
+		MutableVec2f vector = vectors2[usedVectors2];
+		if (vector == null)
+		{
+			vector = new MutableVec2f();
+			vectors2[usedVectors2] = vector;
+		}
+		else
+		{
+			if (debug && !(Float.isNaN(vector.getX()) && Float.isNaN(vector.getY())))
+			{
+				throw usedAfterReset(vector);
+			}
+			vector.set(0, 0);
+		}
+		usedVectors2++;
+		return vector;
+	}
+
+	/**
+	 * @return A zero vector, that is valid until the next reset.
+	 */
+	public MutableVec3f obtainVec3f()
+	{
+		if (usedVectors3 == vectors3.length)
+		{
+			vectors3 = Arrays.copyOf(vectors3, vectors3.length * 2);
+		}
+		MutableVec3f vector = vectors3[usedVectors3];
+		if (vector == null)
+		{
+			vector = new MutableVec3f(0, 0, 0);
+			vectors3[usedVectors3] = vector;
+		}
+		else
+		{
+			if (debug && !(Float.isNaN(vector.getX()) && Float.isNaN(vector.getY())
+					&& Float.isNaN(vector.getZ())))
+			{
+				throw usedAfterReset(vector);
+			}
+			vector.set(0, 0, 0);
+		}
+		usedVectors3++;
+		return vector;
+	}
+
+	/**
+	 * @return A null matrix, that is valid until the next reset.
+	 */
+	public MutableMat3f obtainMat3f()
+	{
+		if (usedMatrices == matrices.length)
+		{
+			matrices = Arrays.copyOf(matrices, matrices.length * 2);
+		}
+		MutableMat3f matrix = matrices[usedMatrices];
+		if (matrix == null)
+		{
+			matrix = new MutableMat3f();
+			matrices[usedMatrices] = matrix;
+		}
+		else
+		{
+			if (debug && !isPoisoned(matrix))
+			{
+				throw usedAfterReset(matrix);
+			}
+			fill(matrix, 0);
+		}
+		usedMatrices++;
+		return matrix;
+	}
+
+	/**
+	 * @return A hit data with all values set to zero, that is valid until the next reset.
+	 */
+	public HitData obtainHitData()
+	{
+		if (usedHits == hits.length)
+		{
+			hits = Arrays.copyOf(hits, hits.length * 2);
+		}
+		HitData hit = hits[usedHits];
+		if (hit == null)
+		{
+			hit = new HitData();
+			hits[usedHits] = hit;
+		}
+		else
+		{
+			if (debug && !(Float.isNaN(hit.getPenetration())
+					&& Float.isNaN(hit.getFraction())
+					&& Float.isNaN(hit.getPoint().getX())
+					&& Float.isNaN(hit.getNormal().getX())))
+			{
+				throw usedAfterReset(hit);
+			}
+			hit.reset();
+		}
+		usedHits++;
+		return hit;
+	}
+
+	/**
+	 * Returns all handed out instances to the arena. They must not be used afterwards.
+	 */
+	public void reset()
+	{
+		if (debug)
+		{
+			for (int i = 0; i < usedVectors2; i++)
+			{
+				vectors2[i].set(Float.NaN, Float.NaN);
+			}
+			for (int i = 0; i < usedVectors3; i++)
+			{
+				vectors3[i].set(Float.NaN, Float.NaN, Float.NaN);
+			}
+			for (int i = 0; i < usedMatrices; i++)
+			{
+				fill(matrices[i], Float.NaN);
+			}
+			for (int i = 0; i < usedHits; i++)
+			{
+				hits[i].setPenetration(Float.NaN);
+				hits[i].setFraction(Float.NaN);
+				hits[i].getPoint().set(Float.NaN, Float.NaN);
+				hits[i].getNormal().set(Float.NaN, Float.NaN);
+			}
+		}
+		usedVectors2 = 0;
+		usedVectors3 = 0;
+		usedMatrices = 0;
+		usedHits = 0;
+	}
+
+	/**
+	 * @return The number of instances handed out since the last reset.
+	 */
+	public int getUsedCount()
+	{
+		return usedVectors2 + usedVectors3 + usedMatrices + usedHits;
+	}
+
+	private static void fill(final MutableMat3f matrix, final float value)
+	{
+		matrix.setRow(0, value, value, value);
+		matrix.setRow(1, value, value, value);
+		matrix.setRow(2, value, value, value);
+	}
+
+	private static boolean isPoisoned(final MutableMat3f matrix)
+	{
+		return Float.isNaN(matrix.getA11()) && Float.isNaN(matrix.getA12())
+				&& Float.isNaN(matrix.getA13()) && Float.isNaN(matrix.getA21())
+				&& Float.isNaN(matrix.getA22()) && Float.isNaN(matrix.getA23())
+				&& Float.isNaN(matrix.getA31()) && Float.isNaN(matrix.getA32())
+				&& Float.isNaN(matrix.getA33());
+	}
+
+	private static IllegalStateException usedAfterReset(final Object instance)
+	{
+		return new IllegalStateException(
+				instance.getClass().getSimpleName() + " of a ScratchArena was written after reset");
+	}
+
+	/**
+	 * Creates the arena of each thread.
+	 */
+	private static final class LocalArena extends ThreadLocal<ScratchArena>
+	{
+
+		@Override
+		protected ScratchArena initialValue()
+		{
+			return new ScratchArena(Boolean.getBoolean("vine.math.scratch.debug"));
+		}
+	}
+}
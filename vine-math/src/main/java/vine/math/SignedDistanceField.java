@@ -0,0 +1,679 @@
+package vine.math;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vine.math.vector.MutableVec2f;
+import vine.math.vector.VectorUtils;
+
+
+/**
+ * Signed distance field of an occupancy grid (e.g. terrain for clearance queries and smooth
+ * collision normals).
+ * <p>
+ * The grid is stored row by row like in {@link Convolution}, the sample (x, y) is
+ * values[x + y * width] and lies at the point (x, y). A float grid is solid, where its values are
+ * greater or equal to the threshold, like in {@link MarchingSquares}. The surface lies halfway
+ * between solid and empty samples, so the distance of a sample is the Euclidean distance to the
+ * nearest sample of the other kind minus a half, positive for empty and negative for solid
+ * samples. Without any sample of the other kind the distance is the length of the diagonal of the
+ * grid.
+ * </p>
+ * <p>
+ * {@link #generate(boolean[], ForkJoinPool)} calculates the exact distances with the separable
+ * transformation of Felzenszwalb and Huttenlocher: the distances along the columns are found by a
+ * sweep down and up the rows, then the squared distances of each row are the lower envelope of the
+ * parabolas rooted at the column distances. {@link #generateJumpFlooding(boolean[], ForkJoinPool)}
+ * approximates them by jump flooding, which propagates the nearest sample of the other kind to the
+ * neighbours at halving steps and has an error of rarely more than a fraction of a sample. Both
+ * split the grid into ranges of rows or columns, which are processed in parallel on a pool.
+ * </p>
+ */
+public final class SignedDistanceField
+{
+
+	/**
+	 * Maximum number of samples per side of grids generated by jump flooding.
+	 */
+	public static final int			MAX_FLOODED_SIZE	= 65535;
+	/**
+	 * Minimum number of rows or columns a parallel task processes.
+	 */
+	private static final int		PARALLEL_LINE_COUNT	= 64;
+	private static final int		NONE				= -1;
+	private static final int		SWEEP_COLUMNS		= 0;
+	private static final int		TRANSFORM_ROWS		= 1;
+	private static final int		JUMP				= 2;
+	private static final int		RESOLVE_SEEDS		= 3;
+	/**
+	 * Seeds of jump flooding store the column of a sample in the lower and the row in the upper
+	 * bits.
+	 */
+	private static final int		SEED_SHIFT			= 16;
+	private static final int		SEED_MASK			= (1 << SEED_SHIFT) - 1;
+
+	private final int				width;
+	private final int				height;
+	private final float				diagonal;
+	private final float[]			distances;
+	private boolean[]				solid;
+	/**
+	 * Mask of the last float grid.
+	 */
+	private boolean[]				mask;
+	/**
+	 * The nearest sample of the other kind found by jump flooding for each sample, as column and
+	 * row packed into one int.
+	 */
+	private int[]					seeds;
+	private int[]					nextSeeds;
+
+
+	/**
+	 * @param width
+	 *            The number of samples per row of the grid.
+	 * @param height
+	 *            The number of rows of the grid.
+	 */
+	public SignedDistanceField(final int width, final int height)
+	{
+		if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException(
+					"Tried to create a distance field of size " + width + "x" + height);
+		}
+		this.width = width;
+		this.height = height;
+		diagonal = VectorUtils.length(width, height);
+		distances = new float[width * height];
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * @return The distances of the samples row by row.
+	 */
+	public float[] getDistances()
+	{
+		return distances;
+	}
+
+	/**
+	 * @return The distance of the sample (x, y).
+	 */
+	public float getDistance(final int x, final int y)
+	{
+		return distances[x + y * width];
+	}
+
+	/**
+	 * Same as generate(solid, null).
+	 */
+	public void generate(final boolean[] solid)
+	{
+		generate(solid, null);
+	}
+
+	/**
+	 * Calculates the exact distances of an occupancy grid.
+	 *
+	 * @param solid
+	 *            The occupancy of the samples row by row.
+	 * @param pool
+	 *            The pool, that processes the rows and columns in parallel, or null to process
+	 *            them on the calling thread.
+	 */
+	public void generate(final boolean[] solid, final ForkJoinPool pool)
+	{
+		checkGrid(solid == null ? NONE : solid.length);
+		this.solid = solid;
+		run(SWEEP_COLUMNS, 0, width, pool);
+		run(TRANSFORM_ROWS, 0, height, pool);
+		this.solid = null;
+	}
+
+	/**
+	 * Calculates the exact distances of a float grid.
+	 *
+	 * @param values
+	 *            The samples row by row.
+	 * @param threshold
+	 *            The smallest value of a solid sample.
+	 * @param pool
+	 *            The pool, that processes the rows and columns in parallel, or null to process
+	 *            them on the calling thread.
+	 */
+	public void generate(final float[] values, final float threshold, final ForkJoinPool pool)
+	{
+		generate(createMask(values, threshold), pool);
+	}
+
+	/**
+	 * Same as generateJumpFlooding(solid, null).
+	 */
+	public void generateJumpFlooding(final boolean[] solid)
+	{
+		generateJumpFlooding(solid, null);
+	}
+
+	/**
+	 * Approximates the distances of an occupancy grid by jump flooding with an additional step of
+	 * one sample before and steps of two samples and one sample after the halving steps, which
+	 * keep small isolated regions from being lost. The grid must not have more than
+	 * {@link #MAX_FLOODED_SIZE} samples per side.
+	 *
+	 * @param solid
+	 *            The occupancy of the samples row by row.
+	 * @param pool
+	 *            The pool, that processes the rows in parallel, or null to process them on the
+	 *            calling thread.
+	 */
+	public void generateJumpFlooding(final boolean[] solid, final ForkJoinPool pool)
+	{
+		checkGrid(solid == null ? NONE : solid.length);
+		if (width > MAX_FLOODED_SIZE || height > MAX_FLOODED_SIZE)
+		{
+			throw new IllegalArgumentException(
+					"Tried to jump flood a grid of size " + width + "x" + height);
+		}
+		if (seeds == null)
+		{
+			seeds = new int[distances.length];
+			nextSeeds = new int[distances.length];
+		}
+		this.solid = solid;
+		Arrays.fill(seeds, NONE);
+		jump(1, pool);
+		int step = Integer.highestOneBit(GMath.max(width, height) - 1);
+		while (step > 0)
+		{
+			jump(step, pool);
+			step /= 2;
+		}
+		jump(2, pool);
+		jump(1, pool);
+		run(RESOLVE_SEEDS, 0, height, pool);
+		this.solid = null;
+	}
+
+	/**
+	 * Approximates the distances of a float grid by jump flooding.
+	 *
+	 * @param values
+	 *            The samples row by row.
+	 * @param threshold
+	 *            The smallest value of a solid sample.
+	 * @param pool
+	 *            The pool, that processes the rows in parallel, or null to process them on the
+	 *            calling thread.
+	 */
+	public void generateJumpFlooding(
+			final float[] values,
+			final float threshold,
+			final ForkJoinPool pool)
+	{
+		generateJumpFlooding(createMask(values, threshold), pool);
+	}
+
+	private void checkGrid(final int length)
+	{
+		if (length != distances.length)
+		{
+			throw new IllegalArgumentException(
+					"Tried to generate a distance field from a grid with " + length
+							+ " instead of " + distances.length + " samples");
+		}
+	}
+
+	private boolean[] createMask(final float[] values, final float threshold)
+	{
+		checkGrid(values == null ? NONE : values.length);
+		if (mask == null)
+		{
+			mask = new boolean[distances.length];
+		}
+		for (int i = 0; i < values.length; i++)
+		{
+			mask[i] = values[i] >= threshold;
+		}
+		return mask;
+	}
+
+	private void jump(final int step, final ForkJoinPool pool)
+	{
+		run(JUMP, 0, height, pool, step);
+		final int[] swap = seeds;
+		seeds = nextSeeds;
+		nextSeeds = swap;
+	}
+
+	private void run(final int pass, final int start, final int end, final ForkJoinPool pool)
+	{
+		run(pass, start, end, pool, 0);
+	}
+
+	private void run(
+			final int pass,
+			final int start,
+			final int end,
+			final ForkJoinPool pool,
+			final int step)
+	{
+		if (pool == null || end - start <= PARALLEL_LINE_COUNT)
+		{
+			runRange(pass, start, end, step);
+		}
+		else
+		{
+			pool.invoke(new RangeTask(pass, start, end, step));
+		}
+	}
+
+	private void runRange(final int pass, final int start, final int end, final int step)
+	{
+		switch (pass)
+		{
+			case SWEEP_COLUMNS:
+				sweepColumns(start, end);
+				break;
+			case TRANSFORM_ROWS:
+				transformRows(start, end);
+				break;
+			case JUMP:
+				jumpRows(start, end, step);
+				break;
+			default:
+				resolveSeeds(start, end);
+				break;
+		}
+	}
+
+	/**
+	 * Stores the squared distance of each sample of the columns to the nearest sample of the other
+	 * kind in the same column, sweeping the rows down and up, so the grid is read row by row.
+	 */
+	private void sweepColumns(final int startX, final int endX)
+	{
+		final int count = endX - startX;
+		final int[] lastSolid = new int[count];
+		final int[] lastEmpty = new int[count];
+		// Distances over the height of the grid mean, that the column has no sample of that kind
+		Arrays.fill(lastSolid, -height);
+		Arrays.fill(lastEmpty, -height);
+		for (int y = 0; y < height; y++)
+		{
+			final int row = y * width;
+			for (int x = startX; x < endX; x++)
+			{
+				final int i = row + x;
+				if (solid[i])
+				{
+					lastSolid[x - startX] = y;
+					distances[i] = y - lastEmpty[x - startX];
+				}
+				else
+				{
+					lastEmpty[x - startX] = y;
+					distances[i] = y - lastSolid[x - startX];
+				}
+			}
+		}
+		Arrays.fill(lastSolid, height * 2);
+		Arrays.fill(lastEmpty, height * 2);
+		for (int y = height - 1; y >= 0; y--)
+		{
+			final int row = y * width;
+			for (int x = startX; x < endX; x++)
+			{
+				final int i = row + x;
+				final float distance;
+				if (solid[i])
+				{
+					lastSolid[x - startX] = y;
+					distance = GMath.min(distances[i], lastEmpty[x - startX] - y);
+				}
+				else
+				{
+					lastEmpty[x - startX] = y;
+					distance = GMath.min(distances[i], lastSolid[x - startX] - y);
+				}
+				distances[i] = distance < height ? distance * distance : Float.POSITIVE_INFINITY;
+			}
+		}
+	}
+
+	/**
+	 * Combines the squared column distances of each row into the distances of the samples.
+	 */
+	private void transformRows(final int startY, final int endY)
+	{
+		final double[] toSolid = new double[width];
+		final double[] toEmpty = new double[width];
+		final double[] squared = new double[width];
+		final int[] parabolas = new int[width];
+		final double[] bounds = new double[width + 1];
+		for (int y = startY; y < endY; y++)
+		{
+			final int row = y * width;
+			for (int x = 0; x < width; x++)
+			{
+				final boolean isSolid = solid[row + x];
+				toSolid[x] = isSolid ? 0 : distances[row + x];
+				toEmpty[x] = isSolid ? distances[row + x] : 0;
+			}
+			transform(toSolid, squared, parabolas, bounds);
+			System.arraycopy(squared, 0, toSolid, 0, width);
+			transform(toEmpty, squared, parabolas, bounds);
+			for (int x = 0; x < width; x++)
+			{
+				distances[row + x] = solid[row + x]
+						? -toDistance(squared[x])
+						: toDistance(toSolid[x]);
+			}
+		}
+	}
+
+	/**
+	 * One dimensional squared distance transformation, which takes the lower envelope of the
+	 * parabolas rooted at the finite values of the function.
+	 *
+	 * @param function
+	 *            The squared distances along the other dimension.
+	 * @param result
+	 *            Receives the squared distances.
+	 * @param parabolas
+	 *            Receives the roots of the parabolas of the envelope.
+	 * @param bounds
+	 *            Receives the ranges of the parabolas of the envelope.
+	 */
+	private void transform(
+			final double[] function,
+			final double[] result,
+			final int[] parabolas,
+			final double[] bounds)
+	{
+		int count = 0;
+		for (int q = 0; q < width; q++)
+		{
+			final double value = function[q];
+			if (value == Double.POSITIVE_INFINITY)
+			{
+				continue;
+			}
+			double intersection = Double.NEGATIVE_INFINITY;
+			while (count > 0)
+			{
+				final int p = parabolas[count - 1];
+				intersection = (value + q * q - function[p] - p * p) / (2 * (q - p));
+				if (intersection > bounds[count - 1])
+				{
+					break;
+				}
+				count--;
+				intersection = Double.NEGATIVE_INFINITY;
+			}
+			parabolas[count] = q;
+			bounds[count] = intersection;
+			count++;
+		}
+		if (count == 0)
+		{
+			Arrays.fill(result, Double.POSITIVE_INFINITY);
+			return;
+		}
+		bounds[count] = Double.POSITIVE_INFINITY;
+		for (int q = 0, k = 0; q < width; q++)
+		{
+			while (bounds[k + 1] < q)
+			{
+				k++;
+			}
+			final int p = parabolas[k];
+			result[q] = (q - p) * (q - p) + function[p];
+		}
+	}
+
+	private float toDistance(final double squared)
+	{
+		return squared == Double.POSITIVE_INFINITY
+				? diagonal
+				: (float) Math.sqrt(squared) - 0.5f;
+	}
+
+	/**
+	 * Lets each sample of the rows take the nearest sample of the other kind of its neighbours at
+	 * the given step, neighbours of the other kind are candidates themselves. The neighbours are
+	 * visited offset by offset for a whole row.
+	 */
+	private void jumpRows(final int startY, final int endY, final int step)
+	{
+		final int[] bestDistances = new int[width];
+		for (int y = startY; y < endY; y++)
+		{
+			final int row = y * width;
+			System.arraycopy(seeds, row, nextSeeds, row, width);
+			for (int x = 0; x < width; x++)
+			{
+				final int seed = seeds[row + x];
+				bestDistances[x] = seed == NONE ? Integer.MAX_VALUE : squaredDistance(x, y, seed);
+			}
+			for (int neighbourY = y - step; neighbourY <= y + step; neighbourY += step)
+			{
+				if (neighbourY < 0 || neighbourY >= height)
+				{
+					continue;
+				}
+				for (int offset = -step; offset <= step; offset += step)
+				{
+					if (neighbourY != y || offset != 0)
+					{
+						jumpRow(y, neighbourY, offset, bestDistances);
+					}
+				}
+			}
+		}
+	}
+
+	private void jumpRow(
+			final int y,
+			final int neighbourY,
+			final int offset,
+			final int[] bestDistances)
+	{
+		final int row = y * width;
+		final int neighbourRow = neighbourY * width + offset;
+		final int packedY = neighbourY << SEED_SHIFT;
+		for (int x = GMath.max(-offset, 0), end = GMath.min(width - offset, width); x < end; x++)
+		{
+			final int neighbour = neighbourRow + x;
+			final int candidate = solid[neighbour] != solid[row + x]
+					? x + offset | packedY
+					: seeds[neighbour];
+			if (candidate != NONE)
+			{
+				final int distance = squaredDistance(x, y, candidate);
+				if (distance < bestDistances[x])
+				{
+					bestDistances[x] = distance;
+					nextSeeds[row + x] = candidate;
+				}
+			}
+		}
+	}
+
+	private static int squaredDistance(final int x, final int y, final int seed)
+	{
+		final int dx = (seed & SEED_MASK) - x;
+		final int dy = (seed >>> SEED_SHIFT) - y;
+		return dx * dx + dy * dy;
+	}
+
+	private void resolveSeeds(final int startY, final int endY)
+	{
+		for (int y = startY; y < endY; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				final int i = x + y * width;
+				final float distance = seeds[i] == NONE
+						? diagonal
+						: (float) Math.sqrt(squaredDistance(x, y, seeds[i])) - 0.5f;
+				distances[i] = solid[i] ? -distance : distance;
+			}
+		}
+	}
+
+	/**
+	 * Interpolates the distance at a point bilinearly, points outside of the grid are clamped to
+	 * the grid.
+	 *
+	 * @param x
+	 *            x Coordinate of the point.
+	 * @param y
+	 *            y Coordinate of the point.
+	 * @return The signed distance of the point.
+	 */
+	public float sample(final float x, final float y)
+	{
+		final float clampedX = GMath.clamp(x, 0, width - 1);
+		final float clampedY = GMath.clamp(y, 0, height - 1);
+		final int column = GMath.min((int) clampedX, GMath.max(width - 2, 0));
+		final int row = GMath.min((int) clampedY, GMath.max(height - 2, 0));
+		final float alphaX = clampedX - column;
+		final float alphaY = clampedY - row;
+		final int i = column + row * width;
+		final int right = column + 1 < width ? 1 : 0;
+		final int up = row + 1 < height ? width : 0;
+		final float bottom = distances[i] + (distances[i + right] - distances[i]) * alphaX;
+		final float top = distances[i + up]
+				+ (distances[i + up + right] - distances[i + up]) * alphaX;
+		return bottom + (top - bottom) * alphaY;
+	}
+
+	/**
+	 * Calculates the gradient of the bilinear interpolation at a point, which points away from
+	 * the nearest surface and has roughly unit length.
+	 *
+	 * @param x
+	 *            x Coordinate of the point.
+	 * @param y
+	 *            y Coordinate of the point.
+	 * @param result
+	 *            The vector, that receives the gradient.
+	 */
+	public void sampleGradient(final float x, final float y, final MutableVec2f result)
+	{
+		final float clampedX = GMath.clamp(x, 0, width - 1);
+		final float clampedY = GMath.clamp(y, 0, height - 1);
+		final int column = GMath.min((int) clampedX, GMath.max(width - 2, 0));
+		final int row = GMath.min((int) clampedY, GMath.max(height - 2, 0));
+		final float alphaX = clampedX - column;
+		final float alphaY = clampedY - row;
+		final int i = column + row * width;
+		final int right = column + 1 < width ? 1 : 0;
+		final int up = row + 1 < height ? width : 0;
+		final float bottomSlope = distances[i + right] - distances[i];
+		final float topSlope = distances[i + up + right] - distances[i + up];
+		final float leftSlope = distances[i + up] - distances[i];
+		final float rightSlope = distances[i + up + right] - distances[i + right];
+		result.set(
+				bottomSlope + (topSlope - bottomSlope) * alphaY,
+				leftSlope + (rightSlope - leftSlope) * alphaX);
+	}
+
+	/**
+	 * Checks, if a circle overlaps the solid samples of the field.
+	 *
+	 * @param x
+	 *            x Coordinate of the center of the circle.
+	 * @param y
+	 *            y Coordinate of the center of the circle.
+	 * @param radius
+	 *            The radius of the circle, zero for points.
+	 * @param hit
+	 *            Receives the normal of the surface away from the solid samples, the penetration
+	 *            and the nearest point on the surface, if given and the circle overlaps.
+	 * @return True, if the circle overlaps.
+	 */
+	public boolean collide(final float x, final float y, final float radius, final HitData hit)
+	{
+		final float distance = sample(x, y);
+		if (distance >= radius)
+		{
+			return false;
+		}
+		if (hit != null)
+		{
+			final MutableVec2f normal = hit.getNormal();
+			sampleNormal(x, y, normal);
+			hit.setPenetration(radius - distance);
+			hit.setPoint(x - normal.getX() * distance, y - normal.getY() * distance);
+		}
+		return true;
+	}
+
+	/**
+	 * Samples the normalized gradient. Where the bilinear gradient vanishes, like in the middle of
+	 * a square of equal samples, it falls back to central differences over one sample and then to
+	 * the y axis.
+	 */
+	private void sampleNormal(final float x, final float y, final MutableVec2f result)
+	{
+		sampleGradient(x, y, result);
+		if (result.isNearlyZero())
+		{
+			result.set(sample(x + 1, y) - sample(x - 1, y), sample(x, y + 1) - sample(x, y - 1));
+		}
+		if (result.isNearlyZero())
+		{
+			result.set(0, 1);
+		}
+		result.normalize();
+	}
+
+	/**
+	 * Processes a range of rows or columns, splitting it in halves until it is small enough.
+	 */
+	private final class RangeTask extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= -4183046720151987362L;
+		private final int			pass;
+		private final int			start;
+		private final int			end;
+		private final int			step;
+
+
+		RangeTask(final int pass, final int start, final int end, final int step)
+		{
+			this.pass = pass;
+			this.start = start;
+			this.end = end;
+			this.step = step;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (end - start <= PARALLEL_LINE_COUNT)
+			{
+				runRange(pass, start, end, step);
+				return;
+			}
+			final int middle = start + end >>> 1;
+			invokeAll(
+					new RangeTask(pass, start, middle, step),
+					new RangeTask(pass, middle, end, step));
+		}
+	}
+}
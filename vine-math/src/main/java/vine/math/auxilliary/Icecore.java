@@ -63,7 +63,7 @@ public final class Icecore
                 }
             } else
             {
-                if (y > x)
+                if (-y > x)
                 {
                     return ATAN2_RMP[(int) (x / -y * SIZE_ACC)];
                 } else
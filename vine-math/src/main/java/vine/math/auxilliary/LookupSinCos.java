@@ -31,13 +31,13 @@ public final class LookupSinCos
 
 		for (int i = 0; i < SIN_COUNT; i++)
 		{
-			SIN_VALUES[i] = (float) Math.sin((i + 0.5f) / SIN_COUNT * RAD_FULL);
+			SIN_VALUES[i] = (float) Math.sin((float) i / SIN_COUNT * RAD_FULL);
 		}
 
 		// Four cardinal directions (credits: Nate)
 		for (int i = 0; i < 360; i += 90)
 		{
-			SIN_VALUES[i * Float.floatToIntBits(DEG_TO_INDEX) & SIN_MASK] = (float) Math
+			SIN_VALUES[(int) (i * DEG_TO_INDEX) & SIN_MASK] = (float) Math
 					.sin(i * Math.PI / 180.0);
 		}
 	}
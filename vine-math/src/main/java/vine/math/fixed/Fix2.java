@@ -0,0 +1,200 @@
+package vine.math.fixed;
+
+
+/**
+ * Mutable two dimensional vector with Q16.16 fixed point elements.
+ *
+ * @see FixedMath
+ */
+public class Fix2
+{
+
+	private int	x;
+	private int	y;
+
+
+	/**
+	 * Creates a zero vector.
+	 */
+	public Fix2()
+	{
+		// Zero vector
+	}
+
+	/**
+	 * Creates a vector with the given fixed point elements.
+	 */
+	public Fix2(final int x, final int y)
+	{
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Creates a copy of the given vector.
+	 */
+	public Fix2(final Fix2 vector)
+	{
+		x = vector.x;
+		y = vector.y;
+	}
+
+	public int getX()
+	{
+		return x;
+	}
+
+	public int getY()
+	{
+		return y;
+	}
+
+	public void set(final int x, final int y)
+	{
+		this.x = x;
+		this.y = y;
+	}
+
+	public void set(final Fix2 vector)
+	{
+		x = vector.x;
+		y = vector.y;
+	}
+
+	public void add(final int x, final int y)
+	{
+		this.x += x;
+		this.y += y;
+	}
+
+	public void add(final Fix2 vector)
+	{
+		x += vector.x;
+		y += vector.y;
+	}
+
+	public void sub(final Fix2 vector)
+	{
+		x -= vector.x;
+		y -= vector.y;
+	}
+
+	/**
+	 * Adds the vector scaled by the fixed point factor.
+	 */
+	public void addScaled(final int factor, final Fix2 vector)
+	{
+		x += FixedMath.mul(vector.x, factor);
+		y += FixedMath.mul(vector.y, factor);
+	}
+
+	/**
+	 * Scales the vector by the fixed point factor.
+	 */
+	public void scale(final int factor)
+	{
+		x = FixedMath.mul(x, factor);
+		y = FixedMath.mul(y, factor);
+	}
+
+	public void negate()
+	{
+		x = -x;
+		y = -y;
+	}
+
+	/**
+	 * Rotates the vector counterclockwise by 90 degrees.
+	 */
+	public void rotate90()
+	{
+		final int oldX = x;
+		x = -y;
+		y = oldX;
+	}
+
+	/**
+	 * Rotates the vector counterclockwise by the angle in radians.
+	 */
+	public void rotate(final int rad)
+	{
+		final long cos = FixedMath.cos(rad);
+		final long sin = FixedMath.sin(rad);
+		final int oldX = x;
+		x = (int) (oldX * cos - y * sin >> FixedMath.FRACTION_BITS);
+		y = (int) (oldX * sin + y * cos >> FixedMath.FRACTION_BITS);
+	}
+
+	/**
+	 * @return The dot product of both vectors as fixed point value.
+	 */
+	public int dot(final Fix2 vector)
+	{
+		return (int) ((long) x * vector.x + (long) y * vector.y >> FixedMath.FRACTION_BITS);
+	}
+
+	/**
+	 * @return The z coordinate of the cross product of both vectors extended to 3d as fixed point
+	 *         value.
+	 */
+	public int cross(final Fix2 vector)
+	{
+		return (int) ((long) x * vector.y - (long) y * vector.x >> FixedMath.FRACTION_BITS);
+	}
+
+	/**
+	 * @return The squared length as a Q32.32 value, which can not overflow.
+	 */
+	public long squaredLengthWide()
+	{
+		return (long) x * x + (long) y * y;
+	}
+
+	/**
+	 * @return The length as fixed point value.
+	 */
+	public int length()
+	{
+		return FixedMath.sqrtWide(squaredLengthWide());
+	}
+
+	/**
+	 * Scales the vector to unit length, the zero vector is not changed.
+	 */
+	public void normalize()
+	{
+		final int length = length();
+		if (length != 0)
+		{
+			x = FixedMath.div(x, length);
+			y = FixedMath.div(y, length);
+		}
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * x + y;
+	}
+
+	@Override
+	public boolean equals(final Object obj)
+	{
+		if (this == obj)
+		{
+			return true;
+		}
+		if (!(obj instanceof Fix2))
+		{
+			return false;
+		}
+		final Fix2 other = (Fix2) obj;
+		return x == other.x && y == other.y;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Fix2(" + FixedMath.toDouble(x) + ", " + FixedMath.toDouble(y) + ")";
+	}
+}
@@ -0,0 +1,75 @@
+package vine.math.fixed;
+
+
+/**
+ * Details of an intersection in Q16.16 fixed point, the counterpart of {@link vine.math.HitData}.
+ */
+public class FixedHitData
+{
+
+	/**
+	 * Contact point of the intersection.
+	 */
+	private final Fix2	point	= new Fix2();
+	/**
+	 * Normal of the intersection with unit length, which points from the first to the second
+	 * object.
+	 */
+	private final Fix2	normal	= new Fix2();
+	/**
+	 * The maximum distance the two objects of the intersection are overlapping.
+	 */
+	private int			penetration;
+
+
+	public Fix2 getPoint()
+	{
+		return point;
+	}
+
+	public Fix2 getNormal()
+	{
+		return normal;
+	}
+
+	public int getPenetration()
+	{
+		return penetration;
+	}
+
+	public void setPenetration(final int penetration)
+	{
+		this.penetration = penetration;
+	}
+
+	/**
+	 * Sets the normal with the given vector and normalizes it.
+	 */
+	public void setNormal(final int x, final int y)
+	{
+		normal.set(x, y);
+		normal.normalize();
+	}
+
+	public void setPoint(final int x, final int y)
+	{
+		point.set(x, y);
+	}
+
+	/**
+	 * Sets point, normal and penetration to zero.
+	 */
+	public void reset()
+	{
+		point.set(0, 0);
+		normal.set(0, 0);
+		penetration = 0;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "FixedHitData Penetration:" + FixedMath.toDouble(penetration) + " Normal:" + normal
+				+ " Point:" + point;
+	}
+}
@@ -0,0 +1,236 @@
+package vine.math.fixed;
+
+
+/**
+ * Intersection tests of Aabbs, circles and segments in Q16.16 fixed point, the deterministic
+ * counterparts of the tests in {@link vine.math.Intersection}.
+ * <p>
+ * Products are calculated as Q32.32 longs, so the tests are exact for coordinates within -8192 to
+ * 8192.
+ * </p>
+ */
+public final class FixedIntersection
+{
+
+	private FixedIntersection()
+	{
+		// Utility class
+	}
+
+	/**
+	 * Checks, if the two Aabbs intersect each other.
+	 *
+	 * @param data
+	 *            Data, that will contain detailed intersection informations, if given. The normal
+	 *            is the axis of the smaller overlap pointing from the first to the second Aabb.
+	 * @return True, if the Aabbs intersect.
+	 */
+	public static boolean intersectAabbAabb(
+			final int x1,
+			final int y1,
+			final int width1,
+			final int height1,
+			final int x2,
+			final int y2,
+			final int width2,
+			final int height2,
+			final FixedHitData data)
+	{
+		final int overlapX = FixedMath.min(x1 + width1, x2 + width2) - FixedMath.max(x1, x2);
+		final int overlapY = FixedMath.min(y1 + height1, y2 + height2) - FixedMath.max(y1, y2);
+		final boolean hit = overlapX >= 0 && overlapY >= 0;
+		if (hit && data != null)
+		{
+			// Doubled centers avoid rounding
+			final int centerDifX = x2 * 2 + width2 - x1 * 2 - width1;
+			final int centerDifY = y2 * 2 + height2 - y1 * 2 - height1;
+			if (overlapX < overlapY)
+			{
+				data.setNormal(centerDifX < 0 ? -FixedMath.ONE : FixedMath.ONE, 0);
+				data.setPenetration(overlapX);
+			}
+			else
+			{
+				data.setNormal(0, centerDifY < 0 ? -FixedMath.ONE : FixedMath.ONE);
+				data.setPenetration(overlapY);
+			}
+			data.setPoint(FixedMath.max(x1, x2), FixedMath.max(y1, y2));
+		}
+		return hit;
+	}
+
+	/**
+	 * Checks, if the two circles intersect each other.
+	 *
+	 * @param data
+	 *            Data, that will contain detailed intersection informations, if given. The normal
+	 *            points from the first to the second circle, the point is the point of the second
+	 *            circle nearest to the first one.
+	 * @return True, if the circles intersect.
+	 */
+	public static boolean intersectCircleCircle(
+			final int x1,
+			final int y1,
+			final int radius1,
+			final int x2,
+			final int y2,
+			final int radius2,
+			final FixedHitData data)
+	{
+		final long difX = (long) x2 - x1;
+		final long difY = (long) y2 - y1;
+		final long radiusSum = (long) radius1 + radius2;
+		final long squaredDistance = difX * difX + difY * difY;
+		final boolean hit = squaredDistance <= radiusSum * radiusSum;
+		if (hit && data != null)
+		{
+			final int distance = FixedMath.sqrtWide(squaredDistance);
+			if (distance == 0)
+			{
+				data.setNormal(FixedMath.ONE, 0);
+			}
+			else
+			{
+				data.setNormal((int) difX, (int) difY);
+			}
+			data.setPenetration((int) (radiusSum - distance));
+			data.setPoint(
+					x2 - FixedMath.mul(data.getNormal().getX(), radius2),
+					y2 - FixedMath.mul(data.getNormal().getY(), radius2));
+		}
+		return hit;
+	}
+
+	/**
+	 * Checks, if the Aabb and the circle intersect each other.
+	 *
+	 * @param data
+	 *            Data, that will contain detailed intersection informations, if given. The normal
+	 *            points from the Aabb to the circle, also if the center is inside of the Aabb, the
+	 *            point is the point of the Aabb nearest to the center.
+	 * @return True, if the Aabb and the circle intersect.
+	 */
+	public static boolean intersectAabbCircle(
+			final int x,
+			final int y,
+			final int width,
+			final int height,
+			final int centerX,
+			final int centerY,
+			final int radius,
+			final FixedHitData data)
+	{
+		final int nearestX = FixedMath.clamp(centerX, x, x + width);
+		final int nearestY = FixedMath.clamp(centerY, y, y + height);
+		final long difX = (long) centerX - nearestX;
+		final long difY = (long) centerY - nearestY;
+		final long squaredDistance = difX * difX + difY * difY;
+		final boolean hit = squaredDistance <= (long) radius * radius;
+		if (!hit || data == null)
+		{
+			return hit;
+		}
+		if (squaredDistance != 0)
+		{
+			data.setNormal((int) difX, (int) difY);
+			data.setPenetration(radius - FixedMath.sqrtWide(squaredDistance));
+			data.setPoint(nearestX, nearestY);
+			return true;
+		}
+		// The center is inside, so the circle leaves through the nearest face
+		final int left = centerX - x;
+		final int right = x + width - centerX;
+		final int bottom = centerY - y;
+		final int top = y + height - centerY;
+		final int minX = FixedMath.min(left, right);
+		final int minY = FixedMath.min(bottom, top);
+		if (minX < minY)
+		{
+			data.setNormal(left < right ? -FixedMath.ONE : FixedMath.ONE, 0);
+			data.setPenetration(radius + minX);
+			data.setPoint(left < right ? x : x + width, centerY);
+		}
+		else
+		{
+			data.setNormal(0, bottom < top ? -FixedMath.ONE : FixedMath.ONE);
+			data.setPenetration(radius + minY);
+			data.setPoint(centerX, bottom < top ? y : y + height);
+		}
+		return true;
+	}
+
+	/**
+	 * Checks, if the segment from point 1 to point 2 and the segment from point 3 to point 4
+	 * intersect each other, touching end points count as intersection.
+	 *
+	 * @param intersection
+	 *            Vector, that receives the intersection point, if given and the segments are not
+	 *            collinear.
+	 * @return True, if the segments intersect.
+	 */
+	public static boolean intersectSegmentSegment(
+			final int point1X,
+			final int point1Y,
+			final int point2X,
+			final int point2Y,
+			final int point3X,
+			final int point3Y,
+			final int point4X,
+			final int point4Y,
+			final Fix2 intersection)
+	{
+		final long orientation1 = orientation(point3X, point3Y, point4X, point4Y, point1X, point1Y);
+		final long orientation2 = orientation(point3X, point3Y, point4X, point4Y, point2X, point2Y);
+		final long orientation3 = orientation(point1X, point1Y, point2X, point2Y, point3X, point3Y);
+		final long orientation4 = orientation(point1X, point1Y, point2X, point2Y, point4X, point4Y);
+		if (orientation1 == 0 && orientation2 == 0)
+		{
+			// Collinear segments intersect, if their projections overlap
+			return overlaps(point1X, point2X, point3X, point4X)
+					&& overlaps(point1Y, point2Y, point3Y, point4Y);
+		}
+		if (Long.signum(orientation1) * Long.signum(orientation2) > 0
+				|| Long.signum(orientation3) * Long.signum(orientation4) > 0)
+		{
+			return false;
+		}
+		if (intersection != null)
+		{
+			// The intersection divides the first segment in the ratio of the orientations
+			long numerator = orientation1;
+			long denominator = orientation1 - orientation2;
+			final int excess = 64 - Long.numberOfLeadingZeros(Math.abs(denominator)) - 46;
+			if (excess > 0)
+			{
+				numerator >>= excess;
+				denominator >>= excess;
+			}
+			final int alpha = (int) ((numerator << FixedMath.FRACTION_BITS) / denominator);
+			intersection.set(
+					FixedMath.lerp(point1X, point2X, alpha),
+					FixedMath.lerp(point1Y, point2Y, alpha));
+		}
+		return true;
+	}
+
+	/**
+	 * @return Twice the signed area of the triangle a, b, c as Q32.32 value, which is positive, if
+	 *         c is left of the line from a to b.
+	 */
+	private static long orientation(
+			final int aX,
+			final int aY,
+			final int bX,
+			final int bY,
+			final int cX,
+			final int cY)
+	{
+		return ((long) bX - aX) * ((long) cY - aY) - ((long) bY - aY) * ((long) cX - aX);
+	}
+
+	private static boolean overlaps(final int a1, final int a2, final int b1, final int b2)
+	{
+		return FixedMath.max(a1, a2) >= FixedMath.min(b1, b2)
+				&& FixedMath.max(b1, b2) >= FixedMath.min(a1, a2);
+	}
+}
@@ -0,0 +1,269 @@
+package vine.math.fixed;
+
+
+/**
+ * A fixed point math function collection, which mirrors {@link vine.math.GMath} for values in the
+ * Q16.16 format.
+ * <p>
+ * A Q16.16 value is an int, whose upper 16 bits hold the integer part and whose lower 16 bits hold
+ * the fraction, so {@link #ONE} is 65536. Products are widened to Q32.32 longs before they are
+ * shifted back. All functions only use integer arithmetic and tables, that are computed with
+ * {@link StrictMath}, so their results are bit identical on every JVM, which is needed for lockstep
+ * simulations. Overflows wrap around like int arithmetic.
+ * </p>
+ */
+public final class FixedMath
+{
+
+	/**
+	 * Number of bits of the fraction.
+	 */
+	public static final int		FRACTION_BITS	= 16;
+	public static final int		ONE				= 1 << FRACTION_BITS;
+	public static final int		HALF			= ONE >> 1;
+	public static final int		PI				= 205887;
+	public static final int		TWO_PI			= 411775;
+	public static final int		HALF_PI			= 102944;
+	/**
+	 * Smallest positive value.
+	 */
+	public static final int		EPSILON			= 1;
+
+	/**
+	 * Largest long, whose square does not overflow.
+	 */
+	private static final long	MAX_SQRT		= 3037000499L;
+	private static final int	SIN_BITS		= 12;
+	private static final int	SIN_COUNT		= 1 << SIN_BITS;
+	/**
+	 * Sine of SIN_COUNT steps of a full circle with one extra entry for interpolation.
+	 */
+	private static final int[]	SIN_VALUES		= new int[SIN_COUNT + 1];
+	private static final int	ATAN_BITS		= 10;
+	private static final int	ATAN_COUNT		= 1 << ATAN_BITS;
+	/**
+	 * Arc tangent of ATAN_COUNT steps from zero to one with one extra entry for interpolation.
+	 */
+	private static final int[]	ATAN_VALUES		= new int[ATAN_COUNT + 1];
+
+	static
+	{
+		for (int i = 0; i <= SIN_COUNT; i++)
+		{
+			SIN_VALUES[i] = (int) StrictMath.round(StrictMath.sin(i * StrictMath.PI * 2 / SIN_COUNT)
+					* ONE);
+		}
+		for (int i = 0; i <= ATAN_COUNT; i++)
+		{
+			ATAN_VALUES[i] = (int) StrictMath.round(StrictMath.atan((double) i / ATAN_COUNT) * ONE);
+		}
+	}
+
+
+	private FixedMath()
+	{
+		// Utility class
+	}
+
+	/**
+	 * @return The fixed point value of the integer.
+	 */
+	public static int fromInt(final int value)
+	{
+		return value << FRACTION_BITS;
+	}
+
+	/**
+	 * @return The nearest fixed point value of the float.
+	 */
+	public static int fromFloat(final float value)
+	{
+		return (int) StrictMath.floor(value * (double) ONE + 0.5);
+	}
+
+	public static float toFloat(final int value)
+	{
+		return value / (float) ONE;
+	}
+
+	public static double toDouble(final int value)
+	{
+		return value / (double) ONE;
+	}
+
+	/**
+	 * @return The largest integer, that is not greater than the value.
+	 */
+	public static int floor(final int value)
+	{
+		return value >> FRACTION_BITS;
+	}
+
+	/**
+	 * @return The nearest integer to the value, halves are rounded up.
+	 */
+	public static int round(final int value)
+	{
+		return value + HALF >> FRACTION_BITS;
+	}
+
+	/**
+	 * @return The fraction of the value, which is always positive.
+	 */
+	public static int fraction(final int value)
+	{
+		return value & ONE - 1;
+	}
+
+	public static int mul(final int a, final int b)
+	{
+		return (int) ((long) a * b >> FRACTION_BITS);
+	}
+
+	/**
+	 * Divides a by b, the result is rounded towards zero.
+	 *
+	 * @throws ArithmeticException
+	 *             If b is zero.
+	 */
+	public static int div(final int a, final int b)
+	{
+		return (int) (((long) a << FRACTION_BITS) / b);
+	}
+
+	/**
+	 * @return The square root of the value rounded down.
+	 * @throws IllegalArgumentException
+	 *             If the value is negative.
+	 */
+	public static int sqrt(final int value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("Tried to calculate the square root of " + value);
+		}
+		return (int) sqrt((long) value << FRACTION_BITS);
+	}
+
+	/**
+	 * Calculates the square root of a Q32.32 value, e.g. a squared length, as a Q16.16 value.
+	 *
+	 * @return The square root rounded down, values, that exceed the range of an int, are clamped.
+	 * @throws IllegalArgumentException
+	 *             If the value is negative.
+	 */
+	public static int sqrtWide(final long value)
+	{
+		if (value < 0)
+		{
+			throw new IllegalArgumentException("Tried to calculate the square root of " + value);
+		}
+		return (int) Math.min(sqrt(value), Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Calculates the integer square root rounded down.
+	 * <p>
+	 * The double square root is only an estimate, because large longs lose bits as doubles. The
+	 * estimate is corrected with exact integer arithmetic, so the result does not depend on it.
+	 * </p>
+	 */
+	private static long sqrt(final long value)
+	{
+		long result = Math.min((long) Math.sqrt(value), MAX_SQRT);
+		while (result * result > value)
+		{
+			result--;
+		}
+		while (result < MAX_SQRT && (result + 1) * (result + 1) <= value)
+		{
+			result++;
+		}
+		return result;
+	}
+
+	public static int abs(final int value)
+	{
+		return value < 0 ? -value : value;
+	}
+
+	public static int min(final int a, final int b)
+	{
+		return a < b ? a : b;
+	}
+
+	public static int max(final int a, final int b)
+	{
+		return a > b ? a : b;
+	}
+
+	public static int clamp(final int value, final int min, final int max)
+	{
+		return value < min ? min : value > max ? max : value;
+	}
+
+	/**
+	 * Interpolates linearly between a and b.
+	 *
+	 * @param alpha
+	 *            The weight of b, zero yields a and {@link #ONE} yields b.
+	 */
+	public static int lerp(final int a, final int b, final int alpha)
+	{
+		return a + mul(b - a, alpha);
+	}
+
+	/**
+	 * Calculates the sine of the given radian value from a table with linear interpolation.
+	 */
+	public static int sin(final int rad)
+	{
+		int angle = rad % TWO_PI;
+		if (angle < 0)
+		{
+			angle += TWO_PI;
+		}
+		final long position = ((long) angle * SIN_COUNT << FRACTION_BITS) / TWO_PI;
+		final int index = (int) (position >> FRACTION_BITS);
+		final int alpha = (int) position & ONE - 1;
+		return lerp(SIN_VALUES[index], SIN_VALUES[index + 1], alpha);
+	}
+
+	/**
+	 * Calculates the cosine of the given radian value from a table with linear interpolation.
+	 */
+	public static int cos(final int rad)
+	{
+		return sin(rad + HALF_PI);
+	}
+
+	/**
+	 * Calculates the angle of the vector from the positive x axis.
+	 *
+	 * @return The angle in radians from -{@link #PI} to {@link #PI}.
+	 */
+	public static int atan2(final int y, final int x)
+	{
+		if (x == 0 && y == 0)
+		{
+			return 0;
+		}
+		final long absX = Math.abs((long) x);
+		final long absY = Math.abs((long) y);
+		final boolean steep = absY > absX;
+		final long ratio = steep ? (absX << FRACTION_BITS) / absY : (absY << FRACTION_BITS) / absX;
+		final long position = ratio * ATAN_COUNT;
+		final int index = (int) (position >> FRACTION_BITS);
+		int angle = index == ATAN_COUNT ? ATAN_VALUES[ATAN_COUNT]
+				: lerp(ATAN_VALUES[index], ATAN_VALUES[index + 1], (int) position & ONE - 1);
+		if (steep)
+		{
+			angle = HALF_PI - angle;
+		}
+		if (x < 0)
+		{
+			angle = PI - angle;
+		}
+		return y < 0 ? -angle : angle;
+	}
+}
@@ -1,6 +1,590 @@
 package vine.math.geometry;
 
-public class PolyLine
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import vine.math.GMath;
+import vine.math.geometry.shape.Aabb;
+import vine.math.vector.MutableVec2f;
+
+
+/**
+ * Open path through a sequence of vertices, which are stored interleaved in one array like the
+ * vertices of a {@link vine.math.geometry.shape.Polygon}.
+ * <p>
+ * The distance along the path to each vertex is stored in a table, so the point at a distance is
+ * found by a binary search in O(log n). Objects moving along the path can pass the segment of
+ * their last position as hint, which finds the new segment in O(1), if they moved only a few
+ * segments. The bounds are calculated once, because the vertices can't change.
+ * </p>
+ * <p>
+ * Dense paths, like recorded movements or traces of positions, can be reduced by the algorithm of
+ * Ramer, Douglas and Peucker, which keeps the vertices farther away than a tolerance from the
+ * simplified path, or by the algorithm of Visvalingam and Whyatt, which removes the vertices,
+ * whose triangle with their neighbours has the smallest area, and keeps the shape smoother.
+ * </p>
+ */
+public class PolyLine implements Serializable
 {
 
+	private static final long	serialVersionUID	= 6514862519237441853L;
+
+	private final float[]		vertices;
+	/**
+	 * The distance along the path from the first vertex to each vertex.
+	 */
+	private final float[]		distances;
+	private final Aabb			bounds;
+
+
+	/**
+	 * Creates a new path from a copy of the given vertices.
+	 *
+	 * @param vertices
+	 *            The interleaved x,y coordinates of at least two vertices.
+	 */
+	public PolyLine(final float[] vertices)
+	{
+		this(vertices, vertices == null ? 0 : vertices.length);
+	}
+
+	/**
+	 * Creates a new path from a copy of the first vertices of the array.
+	 *
+	 * @param vertices
+	 *            The interleaved x,y coordinates.
+	 * @param length
+	 *            The number of coordinates to use, which is twice the number of vertices and at
+	 *            least four.
+	 */
+	public PolyLine(final float[] vertices, final int length)
+	{
+		if (vertices == null || length < 4 || GMath.isOdd(length) || length > vertices.length)
+		{
+			throw new IllegalArgumentException("Tried to create a polyline with invalid vertices");
+		}
+		this.vertices = Arrays.copyOf(vertices, length);
+		final int vertexCount = length / 2;
+		distances = new float[vertexCount];
+		// The sum is kept in double, so long paths don't accumulate rounding errors
+		double distance = 0;
+		float minX = vertices[0];
+		float minY = vertices[1];
+		float maxX = minX;
+		float maxY = minY;
+		for (int vertex = 1; vertex < vertexCount; vertex++)
+		{
+			final float x = vertices[vertex * 2];
+			final float y = vertices[vertex * 2 + 1];
+			distance += Math.sqrt(
+					squaredDistance(vertices[vertex * 2 - 2], vertices[vertex * 2 - 1], x, y));
+			distances[vertex] = (float) distance;
+			minX = GMath.min(minX, x);
+			minY = GMath.min(minY, y);
+			maxX = GMath.max(maxX, x);
+			maxY = GMath.max(maxY, y);
+		}
+		bounds = new Aabb(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	/**
+	 * @return The number of vertices.
+	 */
+	public int getVertexCount()
+	{
+		return distances.length;
+	}
+
+	/**
+	 * @return The number of segments, which is one less than the number of vertices.
+	 */
+	public int getSegmentCount()
+	{
+		return distances.length - 1;
+	}
+
+	public float getX(final int vertex)
+	{
+		return vertices[vertex * 2];
+	}
+
+	public float getY(final int vertex)
+	{
+		return vertices[vertex * 2 + 1];
+	}
+
+	/**
+	 * @return The interleaved x,y coordinates of the vertices, which is the internal array, that
+	 *         must not be changed.
+	 */
+	public float[] getVertices()
+	{
+		return vertices;
+	}
+
+	/**
+	 * @return The distance along the path from the first vertex to the given vertex.
+	 */
+	public float getDistance(final int vertex)
+	{
+		return distances[vertex];
+	}
+
+	/**
+	 * @return The length of the whole path.
+	 */
+	public float getLength()
+	{
+		return distances[distances.length - 1];
+	}
+
+	/**
+	 * @return The axis aligned bounding box of the vertices.
+	 */
+	public Aabb getBounds()
+	{
+		return bounds;
+	}
+
+	/**
+	 * Finds the segment at the distance along the path by a binary search.
+	 *
+	 * @param distance
+	 *            The distance along the path, which is clamped to the path.
+	 * @return The index of the segment, which is also the index of its first vertex.
+	 */
+	public int findSegment(final float distance)
+	{
+		// The last segment, that starts before the distance
+		int low = 0;
+		int high = distances.length - 2;
+		while (low < high)
+		{
+			final int middle = (low + high + 1) >>> 1;
+			if (distances[middle] <= distance)
+			{
+				low = middle;
+			}
+			else
+			{
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the segment at the distance along the path, starting at the given segment. Objects,
+	 * which move along the path, find their new segment in constant time, if they pass their
+	 * previous segment.
+	 *
+	 * @param distance
+	 *            The distance along the path, which is clamped to the path.
+	 * @param hint
+	 *            A segment near the distance, e.g. the segment of the last position.
+	 * @return The index of the segment, which is also the index of its first vertex.
+	 */
+	public int findSegment(final float distance, final int hint)
+	{
+		final int last = distances.length - 2;
+		int segment = GMath.clamp(hint, 0, last);
+		// A few steps in each direction, before the search falls back to the binary search
+		for (int step = 0; step < 4; step++)
+		{
+			if (segment < last && distances[segment + 1] <= distance)
+			{
+				segment++;
+			}
+			else if (segment > 0 && distances[segment] > distance)
+			{
+				segment--;
+			}
+			else
+			{
+				return segment;
+			}
+		}
+		return findSegment(distance);
+	}
+
+	/**
+	 * Calculates the point at the distance along the path.
+	 *
+	 * @param distance
+	 *            The distance along the path, which is clamped to the path.
+	 * @param result
+	 *            The vector, that is set to the point.
+	 */
+	public void getPointAt(final float distance, final MutableVec2f result)
+	{
+		getPointAt(distance, findSegment(distance), result);
+	}
+
+	/**
+	 * Calculates the point at the distance along the path, starting the search at the given
+	 * segment.
+	 *
+	 * @see #findSegment(float, int)
+	 * @return The segment of the point, which is the hint for the next search.
+	 */
+	public int getPointAt(final float distance, final int hint, final MutableVec2f result)
+	{
+		final int segment = findSegment(distance, hint);
+		final float t = getFraction(segment, distance);
+		final int offset = segment * 2;
+		result.set(
+				vertices[offset] + (vertices[offset + 2] - vertices[offset]) * t,
+				vertices[offset + 1] + (vertices[offset + 3] - vertices[offset + 1]) * t);
+		return segment;
+	}
+
+	/**
+	 * Calculates the points at many distances along the path. Sorted distances are found faster,
+	 * because each search starts at the segment of the previous distance.
+	 *
+	 * @param samples
+	 *            The distances along the path, which are clamped to the path.
+	 * @param count
+	 *            The number of distances.
+	 * @param points
+	 *            The array for the interleaved x,y coordinates of the points.
+	 */
+	public void getPointsAt(final float[] samples, final int count, final float[] points)
+	{
+		if (count < 0 || count > samples.length || count * 2 > points.length)
+		{
+			throw new IllegalArgumentException("Tried to sample a polyline with invalid arrays");
+		}
+		int segment = 0;
+		for (int i = 0; i < count; i++)
+		{
+			segment = findSegment(samples[i], segment);
+			final float t = getFraction(segment, samples[i]);
+			final int offset = segment * 2;
+			points[i * 2] = vertices[offset] + (vertices[offset + 2] - vertices[offset]) * t;
+			points[i * 2 + 1] = vertices[offset + 1]
+					+ (vertices[offset + 3] - vertices[offset + 1]) * t;
+		}
+	}
+
+	/**
+	 * Calculates the direction of the path at the distance along it.
+	 *
+	 * @param distance
+	 *            The distance along the path, which is clamped to the path.
+	 * @param result
+	 *            The vector, that is set to the normalized direction or to zero, if the segment
+	 *            has no length.
+	 */
+	public void getDirectionAt(final float distance, final MutableVec2f result)
+	{
+		final int offset = findSegment(distance) * 2;
+		final float x = vertices[offset + 2] - vertices[offset];
+		final float y = vertices[offset + 3] - vertices[offset + 1];
+		final float length = (float) Math.sqrt(x * x + y * y);
+		if (length == 0)
+		{
+			result.set(0, 0);
+		}
+		else
+		{
+			result.set(x / length, y / length);
+		}
+	}
+
+	private float getFraction(final int segment, final float distance)
+	{
+		final float length = distances[segment + 1] - distances[segment];
+		return length > 0 ? GMath.clamp((distance - distances[segment]) / length, 0, 1) : 0;
+	}
+
+	/**
+	 * Simplifies the path by the algorithm of Ramer, Douglas and Peucker: the vertex farthest
+	 * from the segment between the kept vertices is kept, until no vertex is farther away than
+	 * the tolerance. The first and the last vertex are always kept.
+	 *
+	 * @param tolerance
+	 *            The maximum distance of removed vertices to the simplified path.
+	 * @return A new path with the kept vertices.
+	 */
+	public PolyLine simplifyDouglasPeucker(final float tolerance)
+	{
+		if (tolerance < 0)
+		{
+			throw new IllegalArgumentException("Tried to simplify with a negative tolerance");
+		}
+		final int vertexCount = distances.length;
+		final boolean[] kept = new boolean[vertexCount];
+		kept[0] = true;
+		kept[vertexCount - 1] = true;
+		final float squaredTolerance = tolerance * tolerance;
+		// The ranges still to split are kept on a stack instead of recursing
+		int[] ranges = new int[64];
+		int size = 0;
+		ranges[size++] = 0;
+		ranges[size++] = vertexCount - 1;
+		while (size > 0)
+		{
+			final int last = ranges[--size];
+			final int first = ranges[--size];
+			int farthest = -1;
+			float maxDistance = squaredTolerance;
+			for (int vertex = first + 1; vertex < last; vertex++)
+			{
+				final float squaredDistance = squaredSegmentDistance(vertex, first, last);
+				if (squaredDistance > maxDistance)
+				{
+					maxDistance = squaredDistance;
+					farthest = vertex;
+				}
+			}
+			if (farthest < 0)
+			{
+				continue;
+			}
+			kept[farthest] = true;
+			if (ranges.length < size + 4)
+			{
+				ranges = Arrays.copyOf(ranges, ranges.length * 2);
+			}
+			ranges[size++] = first;
+			ranges[size++] = farthest;
+			ranges[size++] = farthest;
+			ranges[size++] = last;
+		}
+		return copyKept(kept);
+	}
+
+	/**
+	 * Simplifies the path by the algorithm of Visvalingam and Whyatt: the vertex with the
+	 * smallest effective area, which is the area of the triangle with its neighbours, is removed,
+	 * until all remaining vertices have an effective area of at least the given area. The area of
+	 * a vertex is never smaller than the area of a vertex removed before it, so the order of
+	 * removal stays consistent. The first and the last vertex are always kept.
+	 *
+	 * @param minArea
+	 *            The smallest effective area of the kept vertices.
+	 * @return A new path with the kept vertices.
+	 */
+	public PolyLine simplifyVisvalingamWhyatt(final float minArea)
+	{
+		if (minArea < 0)
+		{
+			throw new IllegalArgumentException("Tried to simplify with a negative area");
+		}
+		final int vertexCount = distances.length;
+		final int[] previous = new int[vertexCount];
+		final int[] next = new int[vertexCount];
+		final float[] areas = new float[vertexCount];
+		// The inner vertices in a binary min heap of their areas with their positions in it
+		final int[] heap = new int[vertexCount];
+		final int[] positions = new int[vertexCount];
+		int heapSize = 0;
+		for (int vertex = 0; vertex < vertexCount; vertex++)
+		{
+			previous[vertex] = vertex - 1;
+			next[vertex] = vertex + 1;
+			if (vertex > 0 && vertex < vertexCount - 1)
+			{
+				areas[vertex] = triangleArea(vertex - 1, vertex, vertex + 1);
+				heap[heapSize] = vertex;
+				positions[vertex] = heapSize++;
+			}
+		}
+		for (int i = heapSize / 2 - 1; i >= 0; i--)
+		{
+			siftDown(heap, positions, areas, heapSize, i);
+		}
+		final boolean[] kept = new boolean[vertexCount];
+		Arrays.fill(kept, true);
+		while (heapSize > 0 && areas[heap[0]] < minArea)
+		{
+			final int vertex = heap[0];
+			final float area = areas[vertex];
+			heap[0] = heap[--heapSize];
+			positions[heap[0]] = 0;
+			siftDown(heap, positions, areas, heapSize, 0);
+			kept[vertex] = false;
+			final int before = previous[vertex];
+			final int after = next[vertex];
+			next[before] = after;
+			previous[after] = before;
+			if (before > 0)
+			{
+				updateArea(heap, positions, areas, heapSize, previous[before], before, after, area);
+			}
+			if (after < vertexCount - 1)
+			{
+				updateArea(heap, positions, areas, heapSize, before, after, next[after], area);
+			}
+		}
+		return copyKept(kept);
+	}
+
+	/**
+	 * Recalculates the area of the middle vertex after a neighbour was removed and restores the
+	 * heap order.
+	 */
+	private void updateArea(
+			final int[] heap,
+			final int[] positions,
+			final float[] areas,
+			final int heapSize,
+			final int before,
+			final int vertex,
+			final int after,
+			final float removedArea)
+	{
+		final float oldArea = areas[vertex];
+		areas[vertex] = GMath.max(triangleArea(before, vertex, after), removedArea);
+		if (areas[vertex] < oldArea)
+		{
+			siftUp(heap, positions, areas, positions[vertex]);
+		}
+		else
+		{
+			siftDown(heap, positions, areas, heapSize, positions[vertex]);
+		}
+	}
+
+	private static void siftUp(
+			final int[] heap,
+			final int[] positions,
+			final float[] areas,
+			final int start)
+	{
+		final int vertex = heap[start];
+		int index = start;
+		while (index > 0)
+		{
+			final int parent = (index - 1) / 2;
+			if (areas[heap[parent]] <= areas[vertex])
+			{
+				break;
+			}
+			heap[index] = heap[parent];
+			positions[heap[index]] = index;
+			index = parent;
+		}
+		heap[index] = vertex;
+		positions[vertex] = index;
+	}
+
+	private static void siftDown(
+			final int[] heap,
+			final int[] positions,
+			final float[] areas,
+			final int heapSize,
+			final int start)
+	{
+		if (start >= heapSize)
+		{
+			return;
+		}
+		final int vertex = heap[start];
+		int index = start;
+		while (true)
+		{
+			int child = index * 2 + 1;
+			if (child >= heapSize)
+			{
+				break;
+			}
+			if (child + 1 < heapSize && areas[heap[child + 1]] < areas[heap[child]])
+			{
+				child++;
+			}
+			if (areas[vertex] <= areas[heap[child]])
+			{
+				break;
+			}
+			heap[index] = heap[child];
+			positions[heap[index]] = index;
+			index = child;
+		}
+		heap[index] = vertex;
+		positions[vertex] = index;
+	}
+
+	private float triangleArea(final int a, final int b, final int c)
+	{
+		final float ax = vertices[a * 2];
+		final float ay = vertices[a * 2 + 1];
+		return Math.abs((vertices[b * 2] - ax) * (vertices[c * 2 + 1] - ay)
+				- (vertices[b * 2 + 1] - ay) * (vertices[c * 2] - ax)) * 0.5f;
+	}
+
+	/**
+	 * @return The squared distance of the vertex to the segment between the other vertices.
+	 */
+	private float squaredSegmentDistance(final int vertex, final int first, final int last)
+	{
+		final float x = vertices[vertex * 2];
+		final float y = vertices[vertex * 2 + 1];
+		final float startX = vertices[first * 2];
+		final float startY = vertices[first * 2 + 1];
+		final float directionX = vertices[last * 2] - startX;
+		final float directionY = vertices[last * 2 + 1] - startY;
+		final float squaredLength = directionX * directionX + directionY * directionY;
+		float t = 0;
+		if (squaredLength > 0)
+		{
+			t = GMath.clamp(
+					((x - startX) * directionX + (y - startY) * directionY) / squaredLength,
+					0,
+					1);
+		}
+		return squaredDistance(startX + directionX * t, startY + directionY * t, x, y);
+	}
+
+	private static float squaredDistance(
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2)
+	{
+		return (x2 - x1) * (x2 - x1) + (y2 - y1) * (y2 - y1);
+	}
+
+	private PolyLine copyKept(final boolean[] kept)
+	{
+		final float[] result = new float[vertices.length];
+		int length = 0;
+		for (int vertex = 0; vertex < kept.length; vertex++)
+		{
+			if (kept[vertex])
+			{
+				result[length++] = vertices[vertex * 2];
+				result[length++] = vertices[vertex * 2 + 1];
+			}
+		}
+		return new PolyLine(result, length);
+	}
+
+	@Override
+	public String toString()
+	{
+		return super.toString() + " vertices:" + Arrays.toString(vertices);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(vertices);
+	}
+
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (object == this)
+		{
+			return true;
+		}
+		if (!(object instanceof PolyLine))
+		{
+			return false;
+		}
+		return Arrays.equals(((PolyLine) object).vertices, vertices);
+	}
 }
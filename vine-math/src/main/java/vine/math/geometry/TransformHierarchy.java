@@ -0,0 +1,641 @@
+package vine.math.geometry;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vine.math.GMath;
+import vine.math.matrix.Mat3f;
+import vine.math.matrix.MutableMat3f;
+
+
+/**
+ * Flat, index based hierarchy of 2d affine transformations (e.g. for sprites and bones).
+ * <p>
+ * Each node stores its local and world transformation as the upper two rows of a {@link Mat3f}
+ * (a11, a12, a13, a21, a22, a23) packed into one {@code float[]}, the third row is always (0,0,1).
+ * A node can only be attached to a parent that already exists, so the node indices are a
+ * topological order of the hierarchy and the world matrices can be calculated with a single pass
+ * over the arrays.
+ * </p>
+ * <p>
+ * Changing the local transformation of a node marks it dirty. {@link #update()} only recalculates
+ * the world matrices of dirty nodes and their descendants. The nodes are also kept in depth first
+ * order, in which each subtree is a contiguous range, so an update only walks the ranges of the
+ * dirty subtrees and its cost scales with their size instead of the size of the hierarchy.
+ * {@link #update(ForkJoinPool)} distributes the disjoint dirty subtrees, and the subtrees of the
+ * children of large ones, over tasks, that are processed in parallel.
+ * </p>
+ */
+public class TransformHierarchy
+{
+
+	/**
+	 * Number of floats used to store one affine transformation.
+	 */
+	public static final int		STRIDE				= 6;
+	/**
+	 * Index of the root nodes parent.
+	 */
+	public static final int		NO_PARENT			= -1;
+	/**
+	 * Minimum number of nodes a parallel task processes.
+	 */
+	private static final int	PARALLEL_CHUNK_SIZE	= 2048;
+
+	private int					size;
+	private int[]				parents;
+	private int[]				depths;
+	private float[]				locals;
+	private float[]				worlds;
+	/**
+	 * Nodes, which local transformation changed since the last update, as flags and as list.
+	 */
+	private boolean[]			dirty;
+	private int[]				dirtyNodes;
+	private int					dirtyCount;
+	/**
+	 * The number of the update, that last recalculated the world transformation of each node.
+	 */
+	private int[]				updateStamps;
+	private int					updateStamp			= 1;
+	/**
+	 * Node indices in depth first order, the position of each node in that order and the end of
+	 * the range of its subtree. Rebuilt, when nodes were added.
+	 */
+	private int[]				order;
+	private int[]				positions;
+	private int[]				subtreeEnds;
+	private boolean				orderValid;
+	/**
+	 * Positions of the roots of the dirty subtrees of the current update in ascending order and
+	 * the number of nodes of all subtrees before each root.
+	 */
+	private int[]				rootStarts;
+	private int[]				rootTotals;
+
+
+	/**
+	 * Creates a new empty hierarchy.
+	 *
+	 * @param capacity
+	 *            The number of nodes the hierarchy can hold without growing its arrays.
+	 */
+	public TransformHierarchy(final int capacity)
+	{
+		final int initialCapacity = GMath.max(capacity, 1);
+		parents = new int[initialCapacity];
+		depths = new int[initialCapacity];
+		locals = new float[initialCapacity * STRIDE];
+		worlds = new float[initialCapacity * STRIDE];
+		dirty = new boolean[initialCapacity];
+		dirtyNodes = new int[initialCapacity];
+		updateStamps = new int[initialCapacity];
+	}
+
+	/**
+	 * Adds a new node with an identity local transformation.
+	 *
+	 * @param parent
+	 *            Index of the parent node or {@link #NO_PARENT} for a root node.
+	 * @return The index of the new node, which is always greater than the index of its parent.
+	 */
+	public int addNode(final int parent)
+	{
+		if (parent < NO_PARENT || parent >= size)
+		{
+			throw new IllegalArgumentException("Tried to attach a node to invalid parent " + parent);
+		}
+		ensureCapacity(size + 1);
+		final int node = size++;
+		parents[node] = parent;
+		depths[node] = parent == NO_PARENT ? 0 : depths[parent] + 1;
+		setLocal(node, 1, 0, 0, 0, 1, 0);
+		orderValid = false;
+		return node;
+	}
+
+	private void ensureCapacity(final int capacity)
+	{
+		if (capacity <= parents.length)
+		{
+			return;
+		}
+		final int newCapacity = GMath.max(capacity, parents.length * 2);
+		parents = Arrays.copyOf(parents, newCapacity);
+		depths = Arrays.copyOf(depths, newCapacity);
+		locals = Arrays.copyOf(locals, newCapacity * STRIDE);
+		worlds = Arrays.copyOf(worlds, newCapacity * STRIDE);
+		dirty = Arrays.copyOf(dirty, newCapacity);
+		dirtyNodes = Arrays.copyOf(dirtyNodes, newCapacity);
+		updateStamps = Arrays.copyOf(updateStamps, newCapacity);
+	}
+
+	/**
+	 * @return The number of nodes in the hierarchy.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @param node
+	 *            Index of the node.
+	 * @return The index of the parent of the node or {@link #NO_PARENT}.
+	 */
+	public int getParent(final int node)
+	{
+		return parents[node];
+	}
+
+	/**
+	 * @param node
+	 *            Index of the node.
+	 * @return The number of ancestors of the node.
+	 */
+	public int getDepth(final int node)
+	{
+		return depths[node];
+	}
+
+	/**
+	 * Sets the upper two rows of the local transformation of the given node and marks it dirty.
+	 */
+	public void setLocal(
+			final int node,
+			final float a11,
+			final float a12,
+			final float a13,
+			final float a21,
+			final float a22,
+			final float a23)
+	{
+		final int offset = node * STRIDE;
+		locals[offset] = a11;
+		locals[offset + 1] = a12;
+		locals[offset + 2] = a13;
+		locals[offset + 3] = a21;
+		locals[offset + 4] = a22;
+		locals[offset + 5] = a23;
+		markDirty(node);
+	}
+
+	/**
+	 * Sets the local transformation of the given node to the affine part of the given matrix.
+	 */
+	public void setLocal(final int node, final Mat3f matrix)
+	{
+		setLocal(
+				node,
+				matrix.getA11(),
+				matrix.getA12(),
+				matrix.getA13(),
+				matrix.getA21(),
+				matrix.getA22(),
+				matrix.getA23());
+	}
+
+	/**
+	 * Sets the local transformation of the given node composed of a scale, followed by a rotation
+	 * and a translation.
+	 *
+	 * @param node
+	 *            Index of the node.
+	 * @param x
+	 *            Translation in the x dimension.
+	 * @param y
+	 *            Translation in the y dimension.
+	 * @param radians
+	 *            Counterclockwise rotation in radians.
+	 * @param scaleX
+	 *            Scale of the x dimension.
+	 * @param scaleY
+	 *            Scale of the y dimension.
+	 */
+	public void setLocal(
+			final int node,
+			final float x,
+			final float y,
+			final float radians,
+			final float scaleX,
+			final float scaleY)
+	{
+		final float cos = GMath.cos(radians);
+		final float sin = GMath.sin(radians);
+		setLocal(node, cos * scaleX, -sin * scaleY, x, sin * scaleX, cos * scaleY, y);
+	}
+
+	/**
+	 * Adds the given translation to the local transformation of the node.
+	 */
+	public void translateLocal(final int node, final float x, final float y)
+	{
+		locals[node * STRIDE + 2] += x;
+		locals[node * STRIDE + 5] += y;
+		markDirty(node);
+	}
+
+	/**
+	 * Marks the given node dirty, so its world transformation and the world transformations of its
+	 * descendants get recalculated with the next update. Only needed if the local array was changed
+	 * directly.
+	 *
+	 * @see #getLocalElements()
+	 */
+	public void markDirty(final int node)
+	{
+		if (!dirty[node])
+		{
+			dirty[node] = true;
+			dirtyNodes[dirtyCount++] = node;
+		}
+	}
+
+	/**
+	 * @return The backing array of the local transformations, each one is {@link #STRIDE} floats
+	 *         long and starts at {@code node * STRIDE}. Changes have to be signaled by
+	 *         {@link #markDirty(int)}.
+	 */
+	public float[] getLocalElements()
+	{
+		return locals;
+	}
+
+	/**
+	 * @return The backing array of the world transformations, each one is {@link #STRIDE} floats
+	 *         long and starts at {@code node * STRIDE}. Only valid after an update.
+	 */
+	public float[] getWorldElements()
+	{
+		return worlds;
+	}
+
+	/**
+	 * Copies the world transformation of the given node into the given matrix.
+	 */
+	public void getWorld(final int node, final MutableMat3f dest)
+	{
+		final int offset = node * STRIDE;
+		dest.setRow(0, worlds[offset], worlds[offset + 1], worlds[offset + 2]);
+		dest.setRow(1, worlds[offset + 3], worlds[offset + 4], worlds[offset + 5]);
+		dest.setRow(2, 0, 0, 1);
+	}
+
+	/**
+	 * @param node
+	 *            Index of the node.
+	 * @return True, if the world transformation of the node got recalculated by the last update.
+	 */
+	public boolean isChanged(final int node)
+	{
+		return updateStamps[node] == updateStamp;
+	}
+
+	/**
+	 * Recalculates the world transformations of all dirty nodes and their descendants.
+	 */
+	public void update()
+	{
+		final int rootCount = beginUpdate();
+		if (rootCount > 0 && rootTotals[rootCount] > size >> 1)
+		{
+			// Most nodes are dirty, the index order reads the arrays sequentially
+			for (int root = 0; root < rootCount; root++)
+			{
+				updateStamps[order[rootStarts[root]]] = updateStamp;
+			}
+			for (int node = 0; node < size; node++)
+			{
+				final int parent = parents[node];
+				if (updateStamps[node] == updateStamp
+						|| parent != NO_PARENT && updateStamps[parent] == updateStamp)
+				{
+					updateNode(node);
+				}
+			}
+		}
+		else
+		{
+			updateRoots(0, rootCount);
+		}
+	}
+
+	/**
+	 * Recalculates the world transformations of all dirty nodes and their descendants. The dirty
+	 * subtrees are split into tasks of similar size, which are updated in parallel on the given
+	 * pool. A large subtree is split into the subtrees of the children of its root. A pool with a
+	 * parallelism of one just runs {@link #update()}.
+	 *
+	 * @param pool
+	 *            The pool, that executes the update.
+	 */
+	public void update(final ForkJoinPool pool)
+	{
+		if (pool.getParallelism() == 1)
+		{
+			update();
+			return;
+		}
+		final int rootCount = beginUpdate();
+		if (rootCount == 0 || rootTotals[rootCount] <= PARALLEL_CHUNK_SIZE)
+		{
+			updateRoots(0, rootCount);
+		}
+		else
+		{
+			pool.invoke(new RootsUpdate(0, rootCount));
+		}
+	}
+
+	/**
+	 * Starts the next update, clears the dirty nodes and collects the roots of the dirty subtrees,
+	 * which are the dirty nodes without dirty ancestors.
+	 *
+	 * @return The number of dirty subtrees.
+	 */
+	private int beginUpdate()
+	{
+		if (updateStamp == Integer.MAX_VALUE)
+		{
+			Arrays.fill(updateStamps, 0);
+			updateStamp = 0;
+		}
+		updateStamp++;
+		if (dirtyCount == 0)
+		{
+			return 0;
+		}
+		if (!orderValid)
+		{
+			buildOrder();
+		}
+		int candidateCount = 0;
+		if (dirtyCount > size >> 4)
+		{
+			// Sorting many dirty nodes is slower than one pass, that skips the dirty subtrees
+			for (int position = 0; position < size; position++)
+			{
+				final int node = order[position];
+				if (dirty[node])
+				{
+					rootStarts[candidateCount++] = position;
+					position = subtreeEnds[node] - 1;
+				}
+			}
+		}
+		else
+		{
+			for (int i = 0; i < dirtyCount; i++)
+			{
+				rootStarts[i] = positions[dirtyNodes[i]];
+			}
+			candidateCount = dirtyCount;
+			Arrays.sort(rootStarts, 0, candidateCount);
+		}
+		for (int i = 0; i < dirtyCount; i++)
+		{
+			dirty[dirtyNodes[i]] = false;
+		}
+		dirtyCount = 0;
+		// Dirty nodes in the range of the previous root are part of its subtree
+		int rootCount = 0;
+		int coveredEnd = 0;
+		for (int i = 0; i < candidateCount; i++)
+		{
+			final int start = rootStarts[i];
+			if (start >= coveredEnd)
+			{
+				coveredEnd = subtreeEnds[order[start]];
+				rootStarts[rootCount++] = start;
+				rootTotals[rootCount] = rootTotals[rootCount - 1] + coveredEnd - start;
+			}
+		}
+		return rootCount;
+	}
+
+	/**
+	 * Updates the subtrees of the given range of dirty roots.
+	 */
+	private void updateRoots(final int firstRoot, final int lastRoot)
+	{
+		for (int root = firstRoot; root < lastRoot; root++)
+		{
+			final int start = rootStarts[root];
+			updateRange(start, subtreeEnds[order[start]]);
+		}
+	}
+
+	/**
+	 * Updates a range of positions of the depth first order, the parents of the subtrees in the
+	 * range have to be up to date.
+	 */
+	private void updateRange(final int start, final int end)
+	{
+		for (int position = start; position < end; position++)
+		{
+			updateNode(order[position]);
+		}
+	}
+
+	private void updateNode(final int node)
+	{
+		updateStamps[node] = updateStamp;
+		final int offset = node * STRIDE;
+		final int parent = parents[node];
+		if (parent == NO_PARENT)
+		{
+			System.arraycopy(locals, offset, worlds, offset, STRIDE);
+			return;
+		}
+		final int parentOffset = parent * STRIDE;
+		final float p11 = worlds[parentOffset];
+		final float p12 = worlds[parentOffset + 1];
+		final float p13 = worlds[parentOffset + 2];
+		final float p21 = worlds[parentOffset + 3];
+		final float p22 = worlds[parentOffset + 4];
+		final float p23 = worlds[parentOffset + 5];
+		final float l11 = locals[offset];
+		final float l12 = locals[offset + 1];
+		final float l13 = locals[offset + 2];
+		final float l21 = locals[offset + 3];
+		final float l22 = locals[offset + 4];
+		final float l23 = locals[offset + 5];
+		worlds[offset] = p11 * l11 + p12 * l21;
+		worlds[offset + 1] = p11 * l12 + p12 * l22;
+		worlds[offset + 2] = p11 * l13 + p12 * l23 + p13;
+		worlds[offset + 3] = p21 * l11 + p22 * l21;
+		worlds[offset + 4] = p21 * l12 + p22 * l22;
+		worlds[offset + 5] = p21 * l13 + p22 * l23 + p23;
+	}
+
+	/**
+	 * Orders the nodes depth first in a single pass, as the index order is a topological order
+	 * already: The subtree sizes are summed up backwards and each node gets the next free position
+	 * behind its parent.
+	 */
+	private void buildOrder()
+	{
+		if (order == null || order.length < size)
+		{
+			final int capacity = parents.length;
+			order = new int[capacity];
+			positions = new int[capacity];
+			subtreeEnds = new int[capacity];
+			rootStarts = new int[capacity];
+			rootTotals = new int[capacity + 1];
+		}
+		// The subtree sizes are stored in the ends and the next free child positions in the order
+		Arrays.fill(subtreeEnds, 0, size, 1);
+		for (int node = size - 1; node > 0; node--)
+		{
+			final int parent = parents[node];
+			if (parent != NO_PARENT)
+			{
+				subtreeEnds[parent] += subtreeEnds[node];
+			}
+		}
+		final int[] nextChild = order;
+		int nextRoot = 0;
+		for (int node = 0; node < size; node++)
+		{
+			final int parent = parents[node];
+			final int position;
+			if (parent == NO_PARENT)
+			{
+				position = nextRoot;
+				nextRoot += subtreeEnds[node];
+			}
+			else
+			{
+				position = nextChild[parent];
+				nextChild[parent] += subtreeEnds[node];
+			}
+			positions[node] = position;
+			subtreeEnds[node] += position;
+			nextChild[node] = position + 1;
+		}
+		for (int node = 0; node < size; node++)
+		{
+			order[positions[node]] = node;
+		}
+		orderValid = true;
+	}
+
+	/**
+	 * Updates a range of dirty subtrees, splitting it in two ranges with about the same number of
+	 * nodes until it is small enough.
+	 */
+	private final class RootsUpdate extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= -5107358419032461367L;
+		private final int			firstRoot;
+		private final int			lastRoot;
+
+
+		RootsUpdate(final int firstRoot, final int lastRoot)
+		{
+			this.firstRoot = firstRoot;
+			this.lastRoot = lastRoot;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (lastRoot - firstRoot == 1)
+			{
+				final int start = rootStarts[firstRoot];
+				new ForestUpdate(start, subtreeEnds[order[start]]).invoke();
+				return;
+			}
+			final int total = rootTotals[lastRoot] - rootTotals[firstRoot];
+			if (total <= PARALLEL_CHUNK_SIZE)
+			{
+				updateRoots(firstRoot, lastRoot);
+				return;
+			}
+			final int half = rootTotals[firstRoot] + total / 2;
+			int low = firstRoot + 1;
+			int high = lastRoot - 1;
+			while (low < high)
+			{
+				final int middle = low + high >>> 1;
+				if (rootTotals[middle] < half)
+				{
+					low = middle + 1;
+				}
+				else
+				{
+					high = middle;
+				}
+			}
+			invokeAll(new RootsUpdate(firstRoot, low), new RootsUpdate(low, lastRoot));
+		}
+	}
+
+	/**
+	 * Updates a range of the depth first order, that consists of whole subtrees with up to date
+	 * parents. The range is split at the subtree containing its middle until it is small enough, a
+	 * single subtree continues with the subtrees of the children of its root. Small parts split
+	 * off are updated directly, so deep hierarchies don't nest a task per level.
+	 */
+	private final class ForestUpdate extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= 2853375120935312113L;
+		private final int			start;
+		private final int			end;
+
+
+		ForestUpdate(final int start, final int end)
+		{
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute()
+		{
+			int first = start;
+			int last = end;
+			while (last - first > PARALLEL_CHUNK_SIZE)
+			{
+				final int node = order[first];
+				if (subtreeEnds[node] == last)
+				{
+					updateNode(node);
+					first++;
+					continue;
+				}
+				// Walks the top level subtrees up to the one containing the middle
+				final int middle = first + last >>> 1;
+				int middleStart = first;
+				int middleEnd = subtreeEnds[node];
+				while (middleEnd <= middle)
+				{
+					middleStart = middleEnd;
+					middleEnd = subtreeEnds[order[middleEnd]];
+				}
+				final int split = middleEnd == last ? middleStart : middleEnd;
+				if (split - first <= PARALLEL_CHUNK_SIZE)
+				{
+					updateRange(first, split);
+					first = split;
+				}
+				else if (last - split <= PARALLEL_CHUNK_SIZE)
+				{
+					updateRange(split, last);
+					last = split;
+				}
+				else
+				{
+					invokeAll(new ForestUpdate(first, split), new ForestUpdate(split, last));
+					return;
+				}
+			}
+			updateRange(first, last);
+		}
+	}
+}
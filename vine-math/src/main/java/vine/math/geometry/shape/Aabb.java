@@ -125,6 +125,12 @@ public class Aabb implements Shape, Serializable
 		return 2 * width + 2 * height;
 	}
 
+	@Override
+	public int getTypeId()
+	{
+		return ShapeType.AABB;
+	}
+
 	@Override
 	public int hashCode()
 	{
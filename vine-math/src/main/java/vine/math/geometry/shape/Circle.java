@@ -128,6 +128,12 @@ public class Circle implements Shape, Serializable
 		return circleCircumference(radius);
 	}
 
+	@Override
+	public final int getTypeId()
+	{
+		return ShapeType.CIRCLE;
+	}
+
 	@Override
 	public final String toString()
 	{
@@ -3,6 +3,7 @@ package vine.math.geometry.shape;
 
 import java.io.Serializable;
 
+import vine.math.GMath;
 import vine.math.vector.Vec2f;
 import vine.math.vector.VectorUtils;
 
@@ -61,6 +62,14 @@ public class Ellipsoid implements Shape, Serializable
 		return radius;
 	}
 
+	/**
+	 * @return The counterclockwise rotation in degrees.
+	 */
+	public float getRotation()
+	{
+		return rotation;
+	}
+
 	@Override
 	public boolean contains(final Vec2f point)
 	{
@@ -70,8 +79,14 @@ public class Ellipsoid implements Shape, Serializable
 	@Override
 	public boolean contains(final float pointX, final float pointY)
 	{
-		final double length = VectorUtils.length(x - pointX, y - pointY * scale);
-		return length <= radius;
+		final float rad = GMath.toRadians(rotation);
+		final float cos = GMath.cos(rad);
+		final float sin = GMath.sin(rad);
+		final float difX = pointX - x;
+		final float difY = pointY - y;
+		final float localX = cos * difX + sin * difY;
+		final float localY = (cos * difY - sin * difX) / scale;
+		return VectorUtils.squaredLength(localX, localY) <= radius * radius;
 	}
 
 	@Override
@@ -85,4 +100,10 @@ public class Ellipsoid implements Shape, Serializable
 	{
 		return ShapeUtil.ellipsoidCircumference(radius, radius * scale);
 	}
+
+	@Override
+	public int getTypeId()
+	{
+		return ShapeType.ELLIPSOID;
+	}
 }
@@ -1,20 +1,14 @@
 package vine.math.geometry.shape;
 
 
+import vine.math.GMath;
 import vine.math.geometry.Transformable;
-import vine.math.vector.MutableVec2f;
-import vine.math.vector.VectorUtils;
 
 
 public class MutableRectangle extends Rectangle implements Transformable
 {
 
 	private static final long	serialVersionUID	= -8791611325962605241L;
-	/**
-	 * Temporary vector to avoid unnecessary allocations when performing transformations on the
-	 * rectangle.
-	 */
-	private final MutableVec2f	tmp					= new MutableVec2f();
 
 
 	public MutableRectangle(
@@ -28,24 +22,32 @@ public class MutableRectangle extends Rectangle implements Transformable
 		super(x1, y1, x2, y2, x3, y3);
 	}
 
+	/**
+	 * Moves the rectangle, so the lower left corner is at the given x coordinate.
+	 */
 	public final void setX(final float x)
 	{
-		lowerLeftX = x;
+		translate(x - lowerLeftX, 0);
 	}
 
+	/**
+	 * Moves the rectangle, so the lower left corner is at the given y coordinate.
+	 */
 	public final void setY(final float y)
 	{
-		lowerLeftY = y;
+		translate(0, y - lowerLeftY);
 	}
 
 	public final void setWidth(final float width)
 	{
 		this.width = width;
+		updateCorners();
 	}
 
 	public final void setHeight(final float height)
 	{
 		this.height = height;
+		updateCorners();
 	}
 
 	@Override
@@ -53,43 +55,43 @@ public class MutableRectangle extends Rectangle implements Transformable
 	{
 		lowerLeftX += x;
 		lowerLeftY += y;
+		lowerRightX += x;
+		lowerRightY += y;
+		upperLeftX += x;
+		upperLeftY += y;
+		centerX += x;
+		centerY += y;
 	}
 
+	/**
+	 * Rotates the rectangle around its lower left corner. The rotation is accumulated into the
+	 * axis, so it is calculated exactly instead of with the lookup table of
+	 * {@link GMath#cos(float)}, whose steps would drop or distort small rotations.
+	 */
 	@Override
 	public final void rotate(final float degree)
 	{
-		tmp.set(lowerRightX - lowerLeftX, lowerRightY - lowerLeftY);
-		tmp.rotate(degree);
-		lowerRightX = lowerLeftX + tmp.getX();
-		lowerRightY = lowerLeftY + tmp.getY();
-
-		tmp.set(upperLeftX - lowerLeftX, upperLeftY - lowerLeftY);
-		tmp.rotate(degree);
-		upperLeftX = lowerLeftX + tmp.getX();
-		upperLeftY = lowerLeftY + tmp.getY();
+		final double radians = Math.toRadians(degree);
+		final double rotationCos = GMath.STRICT ? StrictMath.cos(radians) : Math.cos(radians);
+		final double rotationSin = GMath.STRICT ? StrictMath.sin(radians) : Math.sin(radians);
+		final float newCos = (float) (cos * rotationCos - sin * rotationSin);
+		final float newSin = (float) (sin * rotationCos + cos * rotationSin);
+		// One newton step towards unit length keeps repeated rotations from drifting
+		final float correction = (3 - newCos * newCos - newSin * newSin) * 0.5f;
+		cos = newCos * correction;
+		sin = newSin * correction;
+		updateCorners();
 	}
 
+	/**
+	 * Scales the width by x and the height by y, the lower left corner stays in place.
+	 */
 	@Override
 	public final void scale(final float x, final float y)
 	{
-		tmp.set(lowerRightX - lowerLeftX, lowerRightY - lowerLeftY);
-		float tmpX = lowerRightX - lowerLeftX;
-		float tmpY = lowerRightY - lowerLeftY;
-		double previousLength = VectorUtils.length(tmpX, tmpY);
-		tmpX /= previousLength;
-		tmpY /= previousLength;
-		width = (float) previousLength * x;
-		tmpX *= width;
-		tmpY *= width;
-		lowerRightX = lowerLeftX + tmpX;
-		lowerRightY = lowerLeftY + tmpY;
-		tmp.set(upperLeftX - lowerLeftX, upperLeftY - lowerLeftY);
-		previousLength = tmp.length();
-		tmp.normalize();
-		height = (float) (previousLength * x);
-		tmp.uniformScale(height);
-		upperLeftX = lowerLeftX + tmp.getX();
-		upperLeftY = lowerLeftY + tmp.getY();
+		width *= x;
+		height *= y;
+		updateCorners();
 	}
 
 	@Override
@@ -97,4 +99,22 @@ public class MutableRectangle extends Rectangle implements Transformable
 	{
 		this.scale(factor, factor);
 	}
+
+	/**
+	 * Derives the other corners and the center from the lower left corner, the extends and the
+	 * axis.
+	 */
+	private void updateCorners()
+	{
+		final float widthX = cos * width;
+		final float widthY = sin * width;
+		final float heightX = -sin * handedness * height;
+		final float heightY = cos * handedness * height;
+		lowerRightX = lowerLeftX + widthX;
+		lowerRightY = lowerLeftY + widthY;
+		upperLeftX = lowerLeftX + heightX;
+		upperLeftY = lowerLeftY + heightY;
+		centerX = lowerLeftX + (widthX + heightX) * 0.5f;
+		centerY = lowerLeftY + (widthY + heightY) * 0.5f;
+	}
 }
@@ -2,21 +2,69 @@ package vine.math.geometry.shape;
 
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 import vine.math.vector.Vec2f;
 
 
+/**
+ * Simple polygon, which may be concave and in clockwise or counterclockwise order. The vertices
+ * are stored interleaved in one array, like for the polygon functions of {@link ShapeUtil}.
+ */
 public class Polygon implements Shape, Serializable
 {
 
-	private static final long serialVersionUID = -4142622807950600590L;
+	private static final long	serialVersionUID	= -4142622807950600590L;
 
+	private final float[]		vertices;
+
+
+	/**
+	 * Creates a new polygon from a copy of the given vertices.
+	 *
+	 * @param vertices
+	 *            The interleaved x,y coordinates of at least three vertices.
+	 */
+	public Polygon(final float[] vertices)
+	{
+		if (!ShapeUtil.isValidPolygon(vertices))
+		{
+			throw new IllegalArgumentException("Tried to create a polygon with invalid vertices");
+		}
+		this.vertices = vertices.clone();
+	}
+
+	/**
+	 * @return The number of vertices.
+	 */
+	public int getVertexCount()
+	{
+		return vertices.length / 2;
+	}
+
+	public float getX(final int vertex)
+	{
+		return vertices[vertex * 2];
+	}
+
+	public float getY(final int vertex)
+	{
+		return vertices[vertex * 2 + 1];
+	}
+
+	/**
+	 * @return The interleaved x,y coordinates of the vertices, which is the internal array, that
+	 *         must not be changed.
+	 */
+	public float[] getVertices()
+	{
+		return vertices;
+	}
 
 	@Override
 	public boolean contains(final float x, final float y)
 	{
-		// TODO Auto-generated method stub
-		return false;
+		return ShapeUtil.polygonContainsPoint(vertices, vertices.length, x, y);
 	}
 
 	@Override
@@ -28,15 +76,44 @@ public class Polygon implements Shape, Serializable
 	@Override
 	public float getArea()
 	{
-		// TODO Auto-generated method stub
-		return 0;
+		return ShapeUtil.polygonArea(vertices);
 	}
 
 	@Override
 	public float getCircumference()
 	{
-		// TODO Auto-generated method stub
-		return 0;
+		return ShapeUtil.polygonCircumference(vertices);
 	}
 
+	@Override
+	public int getTypeId()
+	{
+		return ShapeType.POLYGON;
+	}
+
+	@Override
+	public String toString()
+	{
+		return super.toString() + " vertices:" + Arrays.toString(vertices);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(vertices);
+	}
+
+	@Override
+	public boolean equals(final Object object)
+	{
+		if (object == this)
+		{
+			return true;
+		}
+		if (!(object instanceof Polygon))
+		{
+			return false;
+		}
+		return Arrays.equals(((Polygon) object).vertices, vertices);
+	}
 }
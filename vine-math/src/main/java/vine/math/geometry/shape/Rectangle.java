@@ -3,10 +3,18 @@ package vine.math.geometry.shape;
 
 import java.io.Serializable;
 
+import vine.math.GMath;
 import vine.math.vector.Vec2f;
 import vine.math.vector.VectorUtils;
 
 
+/**
+ * Oriented rectangle defined by its lower left, lower right and upper left corner.
+ * <p>
+ * Besides the corners it keeps the oriented box form of center, extends and the unit axis along
+ * the width as cosine and sine, so intersection tests can use the axes without normalizing edges.
+ * </p>
+ */
 public class Rectangle implements Shape, Serializable
 {
 
@@ -43,6 +51,26 @@ public class Rectangle implements Shape, Serializable
 	 * Height of the rectangle.
 	 */
 	float						height;
+	/**
+	 * Center x coordinate.
+	 */
+	float						centerX;
+	/**
+	 * Center y coordinate.
+	 */
+	float						centerY;
+	/**
+	 * Cosine of the angle of the lower edge, the x coordinate of the unit axis along the width.
+	 */
+	float						cos;
+	/**
+	 * Sine of the angle of the lower edge, the y coordinate of the unit axis along the width.
+	 */
+	float						sin;
+	/**
+	 * 1, if the upper left corner is counterclockwise of the lower right one, -1 otherwise.
+	 */
+	float						handedness;
 
 
 	/**
@@ -56,7 +84,6 @@ public class Rectangle implements Shape, Serializable
 			final float x3,
 			final float y3)
 	{
-		// TODO Check if the points are in valid order and - reorder ?
 		lowerLeftX = x1;
 		lowerLeftY = y1;
 		lowerRightX = x2;
@@ -65,6 +92,11 @@ public class Rectangle implements Shape, Serializable
 		upperLeftY = y3;
 		height = VectorUtils.length(x3 - x1, y3 - y1);
 		width = VectorUtils.length(x2 - x1, y2 - y1);
+		cos = width == 0 ? 1 : (x2 - x1) / width;
+		sin = width == 0 ? 0 : (y2 - y1) / width;
+		handedness = VectorUtils.pseudoCross(x2 - x1, y2 - y1, x3 - x1, y3 - y1) < 0 ? -1 : 1;
+		centerX = (x2 + x3) * 0.5f;
+		centerY = (y2 + y3) * 0.5f;
 	}
 
 	/**
@@ -147,11 +179,75 @@ public class Rectangle implements Shape, Serializable
 		return height;
 	}
 
+	/**
+	 * Getter.
+	 *
+	 * @return the x coordinate of the center of the rectangle.
+	 */
+	public final float getCenterX()
+	{
+		return centerX;
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return the y coordinate of the center of the rectangle.
+	 */
+	public final float getCenterY()
+	{
+		return centerY;
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return half of the width of the rectangle.
+	 */
+	public final float getHalfWidth()
+	{
+		return width * 0.5f;
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return half of the height of the rectangle.
+	 */
+	public final float getHalfHeight()
+	{
+		return height * 0.5f;
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return the cosine of the angle of the lower edge, which is the x coordinate of the unit
+	 *         axis along the width. The unit axis along the height is perpendicular to it.
+	 */
+	public final float getCos()
+	{
+		return cos;
+	}
+
+	/**
+	 * Getter.
+	 *
+	 * @return the sine of the angle of the lower edge, which is the y coordinate of the unit axis
+	 *         along the width.
+	 */
+	public final float getSin()
+	{
+		return sin;
+	}
+
 	@Override
 	public final boolean contains(final float x, final float y)
 	{
-		return x >= lowerLeftX && x <= lowerLeftX + width && y >= lowerLeftY
-				&& y <= lowerLeftY + height;
+		final float difX = x - centerX;
+		final float difY = y - centerY;
+		return GMath.abs(cos * difX + sin * difY) <= width * 0.5f
+				&& GMath.abs(cos * difY - sin * difX) <= height * 0.5f;
 	}
 
 	@Override
@@ -172,12 +268,18 @@ public class Rectangle implements Shape, Serializable
 		return 2 * height + 2 * width;
 	}
 
+	@Override
+	public final int getTypeId()
+	{
+		return ShapeType.RECTANGLE;
+	}
+
 	@Override
 	public final String toString()
 	{
 		return super.toString() + " lowerLeftCorner:(" + lowerLeftX + "," + lowerLeftY
 				+ "),lowerRightCorner:(" + lowerRightX + "," + lowerRightY + "),upperLeftCorner:("
-				+ upperLeftX + upperLeftY + ")";
+				+ upperLeftX + "," + upperLeftY + ")";
 	}
 
 	@Override
@@ -40,4 +40,9 @@ public interface Shape
 	 *         that was used to define the points and geometry of the shape.
 	 */
 	float getCircumference();
+
+	/**
+	 * @return The type of the shape, one of the constants of {@link ShapeType}.
+	 */
+	int getTypeId();
 }
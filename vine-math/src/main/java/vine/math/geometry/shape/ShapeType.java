@@ -0,0 +1,51 @@
+package vine.math.geometry.shape;
+
+
+/**
+ * Type ids of the shapes, returned by {@link Shape#getTypeId()}. The ids are consecutive and start
+ * at zero, so they can be used as indices of lookup tables.
+ */
+public final class ShapeType
+{
+
+	public static final int	CIRCLE		= 0;
+	public static final int	AABB		= 1;
+	public static final int	RECTANGLE	= 2;
+	public static final int	ELLIPSOID	= 3;
+	public static final int	TRIANGLE	= 4;
+	public static final int	POLYGON		= 5;
+	/**
+	 * Number of shape types.
+	 */
+	public static final int	COUNT		= 6;
+
+
+	private ShapeType()
+	{
+		// Utility class
+	}
+
+	/**
+	 * @return The name of the given type id.
+	 */
+	public static String getName(final int typeId)
+	{
+		switch (typeId)
+		{
+			case CIRCLE:
+				return "Circle";
+			case AABB:
+				return "Aabb";
+			case RECTANGLE:
+				return "Rectangle";
+			case ELLIPSOID:
+				return "Ellipsoid";
+			case TRIANGLE:
+				return "Triangle";
+			case POLYGON:
+				return "Polygon";
+			default:
+				throw new IllegalArgumentException("Tried to get the name of invalid type " + typeId);
+		}
+	}
+}
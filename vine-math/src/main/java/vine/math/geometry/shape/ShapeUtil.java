@@ -149,13 +149,12 @@ public final class ShapeUtil
 			final float x3,
 			final float y3)
 	{
-		final double a = VectorUtils.length(x1, y1);
-		final double b = VectorUtils.length(x2, y2);
-		final double c = VectorUtils.length(x3, y3);
-		final double s = a + b + c;
-		return GMath.sqrt(s * (s - a) * (s - b) * (s - c));
+		return GMath.abs(VectorUtils.pseudoCross(x2 - x1, y2 - y1, x3 - x1, y3 - y1)) * 0.5f;
 	}
 
+	/**
+	 * Calculates the perimeter of the triangle defined by the three given points.
+	 */
 	public static float triangleCircumference(
 			final float x1,
 			final float y1,
@@ -164,10 +163,17 @@ public final class ShapeUtil
 			final float x3,
 			final float y3)
 	{
-		return VectorUtils.length(x1, y1) + VectorUtils.length(x2, y2) + VectorUtils.length(x3, y3);
+		return VectorUtils.length(x2 - x1, y2 - y1) + VectorUtils.length(x3 - x2, y3 - y2)
+				+ VectorUtils.length(x1 - x3, y1 - y3);
 	}
 
-	public static float triangleContainsPoint(
+	/**
+	 * Checks, if the triangle defined by the three given points contains the point (pointX,
+	 * pointY). The points of the triangle may be in clockwise or counterclockwise order.
+	 *
+	 * @return True, if the point is contained in the triangle (or lays on its border).
+	 */
+	public static boolean triangleContainsPoint(
 			final float x1,
 			final float y1,
 			final float x2,
@@ -177,7 +183,14 @@ public final class ShapeUtil
 			final float pointX,
 			final float pointY)
 	{
-		return 0;
+		// The point is on the same side of all edges, if the signs of the edge functions agree, all
+		// of them are only zero for degenerated triangles
+		final float edge1 = VectorUtils.pseudoCross(x2 - x1, y2 - y1, pointX - x1, pointY - y1);
+		final float edge2 = VectorUtils.pseudoCross(x3 - x2, y3 - y2, pointX - x2, pointY - y2);
+		final float edge3 = VectorUtils.pseudoCross(x1 - x3, y1 - y3, pointX - x3, pointY - y3);
+		final boolean negative = edge1 < 0 || edge2 < 0 || edge3 < 0;
+		final boolean positive = edge1 > 0 || edge2 > 0 || edge3 > 0;
+		return negative != positive;
 	}
 
 	public static float rectangleArea(final float width, final float height)
@@ -301,17 +314,54 @@ public final class ShapeUtil
 	 */
 	public static float polygonCircumference(final float[] polygon, final int length)
 	{
-		if (!isValidPolygon(polygon))
+		if (!isValidPolygon(polygon) || length > polygon.length || length < 6
+				|| GMath.isOdd(length))
 		{
 			return -1;
 		}
 		float perimeter = 0;
-		for (int i = length - 3; i >= 0; i -= 2)
+		for (int start = length - 2, end = 0; end < length; start = end, end += 2)
 		{
-			final float x = polygon[i + 1] - polygon[i - 1];
-			final float y = polygon[i] - polygon[i + 2];
-			perimeter += VectorUtils.length(x, y);
+			perimeter += VectorUtils.length(
+					polygon[end] - polygon[start],
+					polygon[end + 1] - polygon[start + 1]);
 		}
 		return perimeter;
 	}
+
+	/**
+	 * Checks, if the polygon contains the point (pointX, pointY) by the even-odd rule, so the
+	 * polygon may be concave and in clockwise or counterclockwise order.
+	 *
+	 * @param polygon
+	 *            2 values of the array will be used as 1 vertex with the x coordinate followed by
+	 *            the y coordinate.
+	 * @param length
+	 *            The number of used floats of the polygon, which is twice the number of vertices.
+	 * @return True, if a ray from the point to the right crosses the edges an odd number of times.
+	 */
+	public static boolean polygonContainsPoint(
+			final float[] polygon,
+			final int length,
+			final float pointX,
+			final float pointY)
+	{
+		boolean inside = false;
+		for (int start = length - 2, end = 0; end < length; start = end, end += 2)
+		{
+			final float startY = polygon[start + 1];
+			final float endY = polygon[end + 1];
+			// Half open in y, so a vertex on the ray is counted for one of its edges only
+			if (startY > pointY != endY > pointY)
+			{
+				final float crossingX = polygon[start] + (pointY - startY)
+						/ (endY - startY) * (polygon[end] - polygon[start]);
+				if (pointX < crossingX)
+				{
+					inside = !inside;
+				}
+			}
+		}
+		return inside;
+	}
 }
@@ -3,6 +3,7 @@ package vine.math.geometry.shape;
 
 import static vine.math.geometry.shape.ShapeUtil.triangleArea;
 import static vine.math.geometry.shape.ShapeUtil.triangleCircumference;
+import static vine.math.geometry.shape.ShapeUtil.triangleContainsPoint;
 
 import java.io.Serializable;
 
@@ -22,6 +23,72 @@ public class Triangle implements Shape, Serializable
 	float						y3;
 
 
+	/**
+	 * Creates a degenerated triangle, which points are all at the origin.
+	 */
+	public Triangle()
+	{
+		// All points at the origin
+	}
+
+	/**
+	 * Creates a new triangle from the given points, which may be in clockwise or counterclockwise
+	 * order.
+	 */
+	public Triangle(
+			final float x1,
+			final float y1,
+			final float x2,
+			final float y2,
+			final float x3,
+			final float y3)
+	{
+		this.x1 = x1;
+		this.y1 = y1;
+		this.x2 = x2;
+		this.y2 = y2;
+		this.x3 = x3;
+		this.y3 = y3;
+	}
+
+	/**
+	 * Creates a copy of the given triangle.
+	 */
+	public Triangle(final Triangle triangle)
+	{
+		this(triangle.x1, triangle.y1, triangle.x2, triangle.y2, triangle.x3, triangle.y3);
+	}
+
+	public float getX1()
+	{
+		return x1;
+	}
+
+	public float getY1()
+	{
+		return y1;
+	}
+
+	public float getX2()
+	{
+		return x2;
+	}
+
+	public float getY2()
+	{
+		return y2;
+	}
+
+	public float getX3()
+	{
+		return x3;
+	}
+
+	public float getY3()
+	{
+		return y3;
+	}
+
 	@Override
 	public boolean contains(final Vec2f point)
 	{
@@ -31,7 +98,7 @@ public class Triangle implements Shape, Serializable
 	@Override
 	public boolean contains(final float x, final float y)
 	{
-		return false;
+		return triangleContainsPoint(x1, y1, x2, y2, x3, y3, x, y);
 	}
 
 	@Override
@@ -46,11 +113,17 @@ public class Triangle implements Shape, Serializable
 		return triangleCircumference(x1, y1, x2, y2, x3, y3);
 	}
 
+	@Override
+	public int getTypeId()
+	{
+		return ShapeType.TRIANGLE;
+	}
+
 	@Override
 	public String toString()
 	{
-		return super.toString() + " center:[(" + x1 + "," + y1 + "),(" + x2 + y2 + "),(" + x3 + ","
-				+ y3 + ")";
+		return super.toString() + " points:[(" + x1 + "," + y1 + "),(" + x2 + "," + y2 + "),(" + x3
+				+ "," + y3 + ")]";
 	}
 
 	@Override
@@ -0,0 +1,231 @@
+package vine.math.matrix;
+
+
+import java.nio.FloatBuffer;
+
+import vine.math.GMath;
+import vine.math.vector.MutableVec2f;
+
+
+/**
+ * Stack of 2d affine transformations for hierarchical rendering.
+ * <p>
+ * Each transformation is stored as the upper two rows of a {@link Mat3f} (a11, a12, a13, a21, a22,
+ * a23) in one preallocated {@code float[]}, the third row is always (0,0,1). Push, pop and all
+ * transformations operate in place on the top transformation, so the stack doesn't create any
+ * garbage once it is constructed.
+ * </p>
+ *
+ * @see MatrixStack
+ */
+public final class AffineMatrixStack
+{
+
+	/**
+	 * Number of floats used to store one transformation.
+	 */
+	public static final int	STRIDE	= 6;
+
+	private final float[]	elements;
+	private final int		maxDepth;
+	/**
+	 * Offset of the first element of the top transformation.
+	 */
+	private int				top;
+
+
+	/**
+	 * Creates a new stack, which only contains the identity transformation.
+	 *
+	 * @param maxDepth
+	 *            The maximal number of transformations on the stack.
+	 */
+	public AffineMatrixStack(final int maxDepth)
+	{
+		if (maxDepth <= 0)
+		{
+			throw new IllegalArgumentException(
+					"Tried to create a AffineMatrixStack of depth " + maxDepth);
+		}
+		this.maxDepth = maxDepth;
+		elements = new float[maxDepth * STRIDE];
+		loadIdentity();
+	}
+
+	/**
+	 * @return The number of transformations on the stack, at least 1.
+	 */
+	public int depth()
+	{
+		return top / STRIDE + 1;
+	}
+
+	/**
+	 * Pushes a copy of the top transformation on the stack.
+	 */
+	public void push()
+	{
+		if (depth() == maxDepth)
+		{
+			throw new IllegalStateException(
+					"AffineMatrixStack overflow, maximum depth " + maxDepth);
+		}
+		System.arraycopy(elements, top, elements, top + STRIDE, STRIDE);
+		top += STRIDE;
+	}
+
+	/**
+	 * Removes the top transformation from the stack.
+	 */
+	public void pop()
+	{
+		if (top == 0)
+		{
+			throw new IllegalStateException("Tried to pop the last matrix of a AffineMatrixStack");
+		}
+		top -= STRIDE;
+	}
+
+	/**
+	 * Pops all transformations and sets the remaining one to the identity.
+	 */
+	public void reset()
+	{
+		top = 0;
+		loadIdentity();
+	}
+
+	/**
+	 * Sets the top transformation to the identity.
+	 */
+	public void loadIdentity()
+	{
+		elements[top] = 1;
+		elements[top + 1] = 0;
+		elements[top + 2] = 0;
+		elements[top + 3] = 0;
+		elements[top + 4] = 1;
+		elements[top + 5] = 0;
+	}
+
+	/**
+	 * Sets the top transformation to the affine part of the given matrix.
+	 */
+	public void load(final Mat3f matrix)
+	{
+		elements[top] = matrix.a11;
+		elements[top + 1] = matrix.a12;
+		elements[top + 2] = matrix.a13;
+		elements[top + 3] = matrix.a21;
+		elements[top + 4] = matrix.a22;
+		elements[top + 5] = matrix.a23;
+	}
+
+	/**
+	 * Multiplies the affine part of the given matrix from the right with the top transformation.
+	 */
+	public void multiply(final Mat3f matrix)
+	{
+		final float a11 = elements[top];
+		final float a12 = elements[top + 1];
+		final float a21 = elements[top + 3];
+		final float a22 = elements[top + 4];
+		elements[top] = a11 * matrix.a11 + a12 * matrix.a21;
+		elements[top + 1] = a11 * matrix.a12 + a12 * matrix.a22;
+		elements[top + 2] += a11 * matrix.a13 + a12 * matrix.a23;
+		elements[top + 3] = a21 * matrix.a11 + a22 * matrix.a21;
+		elements[top + 4] = a21 * matrix.a12 + a22 * matrix.a22;
+		elements[top + 5] += a21 * matrix.a13 + a22 * matrix.a23;
+	}
+
+	/**
+	 * Multiplies a translation by the given vector from the right with the top transformation.
+	 */
+	public void translate(final float x, final float y)
+	{
+		elements[top + 2] += elements[top] * x + elements[top + 1] * y;
+		elements[top + 5] += elements[top + 3] * x + elements[top + 4] * y;
+	}
+
+	/**
+	 * Multiplies a rotation from the right with the top transformation.
+	 *
+	 * @param angle
+	 *            The counterclockwise rotation angle in degrees.
+	 */
+	public void rotate(final float angle)
+	{
+		final float radians = GMath.toRadians(angle);
+		final float cos = GMath.cos(radians);
+		final float sin = GMath.sin(radians);
+		final float a11 = elements[top];
+		final float a12 = elements[top + 1];
+		final float a21 = elements[top + 3];
+		final float a22 = elements[top + 4];
+		elements[top] = a11 * cos + a12 * sin;
+		elements[top + 1] = a12 * cos - a11 * sin;
+		elements[top + 3] = a21 * cos + a22 * sin;
+		elements[top + 4] = a22 * cos - a21 * sin;
+	}
+
+	/**
+	 * Multiplies a scale transformation from the right with the top transformation.
+	 */
+	public void scale(final float x, final float y)
+	{
+		elements[top] *= x;
+		elements[top + 3] *= x;
+		elements[top + 1] *= y;
+		elements[top + 4] *= y;
+	}
+
+	/**
+	 * Transforms the given point with the top transformation.
+	 */
+	public void transform(final MutableVec2f point)
+	{
+		final float x = point.getX();
+		final float y = point.getY();
+		point.set(
+				elements[top] * x + elements[top + 1] * y + elements[top + 2],
+				elements[top + 3] * x + elements[top + 4] * y + elements[top + 5]);
+	}
+
+	/**
+	 * @return The backing array of the stack. The top transformation starts at
+	 *         {@link #getTopOffset()}.
+	 */
+	public float[] getElements()
+	{
+		return elements;
+	}
+
+	/**
+	 * @return The index of the first element of the top transformation in {@link #getElements()}.
+	 */
+	public int getTopOffset()
+	{
+		return top;
+	}
+
+	/**
+	 * Copies the top transformation into the given matrix.
+	 */
+	public void getTop(final MutableMat3f dest)
+	{
+		dest.setRow(0, elements[top], elements[top + 1], elements[top + 2]);
+		dest.setRow(1, elements[top + 3], elements[top + 4], elements[top + 5]);
+		dest.setRow(2, 0, 0, 1);
+	}
+
+	/**
+	 * Writes the top transformation as 3x3 matrix in column-major order to the given buffer,
+	 * starting at its current position.
+	 */
+	public void store(final FloatBuffer buffer)
+	{
+		buffer.put(elements[top]).put(elements[top + 3]).put(0);
+		buffer.put(elements[top + 1]).put(elements[top + 4]).put(0);
+		buffer.put(elements[top + 2]).put(elements[top + 5]).put(1);
+	}
+}
@@ -2,6 +2,7 @@ package vine.math.matrix;
 
 
 import java.io.Serializable;
+import java.nio.FloatBuffer;
 
 import vine.math.GMath;
 
@@ -221,6 +222,20 @@ public class Mat3f implements Serializable
 				- a13 * a22 * a13 - a11 * a23 * a32;
 	}
 
+	/**
+	 * Writes the elements of this matrix in column-major order to the given buffer, starting at its
+	 * current position.
+	 *
+	 * @param buffer
+	 *            The buffer, which position is advanced by 9.
+	 */
+	public final void store(final FloatBuffer buffer)
+	{
+		buffer.put(a11).put(a21).put(a31);
+		buffer.put(a12).put(a22).put(a32);
+		buffer.put(a13).put(a23).put(a33);
+	}
+
 	@Override
 	public final boolean equals(final Object object)
 	{
@@ -1,6 +1,8 @@
 package vine.math.matrix;
 
 
+import java.nio.FloatBuffer;
+
 import vine.math.GMath;
 import vine.math.vector.Vec3f;
 
@@ -8,7 +10,10 @@ import vine.math.vector.Vec3f;
 public class Mat4f
 {
 
-	private static final int	SIZE	= 4 * 4;
+	/**
+	 * Number of elements of a 4x4 matrix.
+	 */
+	public static final int		SIZE	= 4 * 4;
 	protected final float[]		elements;
 
 
@@ -117,16 +122,85 @@ public class Mat4f
 	public Mat4f multiply(final Mat4f matrix)
 	{
 		final Mat4f result = new Mat4f();
-		for (int y = 0; y < 4; y++)
+		multiply(this, matrix, result);
+		return result;
+	}
+
+	/**
+	 * Calculates the matrix product left * right and stores it in the given destination matrix. The
+	 * destination may be one of the factors.
+	 */
+	public static void multiply(final Mat4f left, final Mat4f right, final Mat4f dest)
+	{
+		multiply(left.elements, 0, right.elements, 0, dest.elements, 0);
+	}
+
+	/**
+	 * Calculates the matrix product of two column-major 4x4 matrices stored in arrays and writes it
+	 * to the destination array. The destination may overlap a factor, if it starts at the same
+	 * offset.
+	 *
+	 * @param left
+	 *            Array containing the left factor.
+	 * @param leftOffset
+	 *            Index of the first element of the left factor.
+	 * @param right
+	 *            Array containing the right factor.
+	 * @param rightOffset
+	 *            Index of the first element of the right factor.
+	 * @param dest
+	 *            Array the product is written to.
+	 * @param destOffset
+	 *            Index of the first element of the product.
+	 */
+	public static void multiply(
+			final float[] left,
+			final int leftOffset,
+			final float[] right,
+			final int rightOffset,
+			final float[] dest,
+			final int destOffset)
+	{
+		final float l00 = left[leftOffset];
+		final float l10 = left[leftOffset + 1];
+		final float l20 = left[leftOffset + 2];
+		final float l30 = left[leftOffset + 3];
+		final float l01 = left[leftOffset + 4];
+		final float l11 = left[leftOffset + 5];
+		final float l21 = left[leftOffset + 6];
+		final float l31 = left[leftOffset + 7];
+		final float l02 = left[leftOffset + 8];
+		final float l12 = left[leftOffset + 9];
+		final float l22 = left[leftOffset + 10];
+		final float l32 = left[leftOffset + 11];
+		final float l03 = left[leftOffset + 12];
+		final float l13 = left[leftOffset + 13];
+		final float l23 = left[leftOffset + 14];
+		final float l33 = left[leftOffset + 15];
+		for (int column = 0; column < 4; column++)
 		{
-			for (int x = 0; x < 4; x++)
-			{
-				result.elements[x + y * 4] = elements[x] * matrix.elements[y * 4];
-				result.elements[x + y * 4] += elements[x + 4] * matrix.elements[1 + y * 4];
-				result.elements[x + y * 4] += elements[x + 2 * 4] * matrix.elements[2 + y * 4];
-				result.elements[x + y * 4] += elements[x + 3 * 4] * matrix.elements[3 + y * 4];
-			}
+			final int r = rightOffset + column * 4;
+			final float r0 = right[r];
+			final float r1 = right[r + 1];
+			final float r2 = right[r + 2];
+			final float r3 = right[r + 3];
+			final int d = destOffset + column * 4;
+			dest[d] = l00 * r0 + l01 * r1 + l02 * r2 + l03 * r3;
+			dest[d + 1] = l10 * r0 + l11 * r1 + l12 * r2 + l13 * r3;
+			dest[d + 2] = l20 * r0 + l21 * r1 + l22 * r2 + l23 * r3;
+			dest[d + 3] = l30 * r0 + l31 * r1 + l32 * r2 + l33 * r3;
 		}
-		return result;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Writes the elements of this matrix in column-major order to the given buffer, starting at its
+	 * current position.
+	 *
+	 * @param buffer
+	 *            The buffer, which position is advanced by 16.
+	 */
+	public void store(final FloatBuffer buffer)
+	{
+		buffer.put(elements);
+	}
+}
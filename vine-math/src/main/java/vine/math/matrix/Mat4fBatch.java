@@ -0,0 +1,212 @@
+package vine.math.matrix;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+
+/**
+ * A fixed size batch of 4x4 matrices, that are stored in column-major order in a direct
+ * {@link ByteBuffer} with native byte order.
+ * <p>
+ * The matrices are written straight into the off-heap memory, so the buffer can be handed to
+ * native code (e.g. uploaded as instance data to the graphics card) without copying each matrix
+ * into an intermediate buffer.
+ * </p>
+ */
+public final class Mat4fBatch
+{
+
+	private static final int	BYTES_PER_MATRIX	= Mat4f.SIZE * Float.BYTES;
+
+	private final ByteBuffer	bytes;
+	private final FloatBuffer	floats;
+	/**
+	 * Second view of the same memory, which limit is adjusted for reading. Keeps the limit of the
+	 * written view at the capacity.
+	 */
+	private final FloatBuffer	floatView;
+	private final int			capacity;
+	private int					size;
+
+
+	/**
+	 * Creates a new batch.
+	 *
+	 * @param capacity
+	 *            The maximum number of matrices the batch can hold.
+	 */
+	public Mat4fBatch(final int capacity)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException(
+					"Tried to create a Mat4fBatch with capacity " + capacity);
+		}
+		this.capacity = capacity;
+		bytes = ByteBuffer.allocateDirect(capacity * BYTES_PER_MATRIX)
+				.order(ByteOrder.nativeOrder());
+		floats = bytes.asFloatBuffer();
+		floatView = floats.duplicate();
+	}
+
+	/**
+	 * @return The maximum number of matrices the batch can hold.
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * @return The number of matrices added since the last {@link #clear()}.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Removes all matrices from the batch. The memory is reused by the following additions.
+	 */
+	public void clear()
+	{
+		size = 0;
+	}
+
+	/**
+	 * Reserves the next matrix slot of the batch without writing to it.
+	 *
+	 * @return The index of the reserved slot.
+	 */
+	public int add()
+	{
+		if (size == capacity)
+		{
+			throw new IllegalStateException("Mat4fBatch is full, capacity " + capacity);
+		}
+		return size++;
+	}
+
+	/**
+	 * Appends a copy of the given matrix to the batch.
+	 *
+	 * @return The index of the matrix in the batch.
+	 */
+	public int add(final Mat4f matrix)
+	{
+		final int index = add();
+		set(index, matrix);
+		return index;
+	}
+
+	/**
+	 * Appends the product left * right to the batch, without creating a temporary matrix.
+	 *
+	 * @return The index of the matrix in the batch.
+	 */
+	public int addProduct(final Mat4f left, final Mat4f right)
+	{
+		final int index = add();
+		setProduct(index, left, right);
+		return index;
+	}
+
+	/**
+	 * Overrides the matrix at the given index with the given matrix.
+	 */
+	public void set(final int index, final Mat4f matrix)
+	{
+		final int offset = index * Mat4f.SIZE;
+		final float[] elements = matrix.elements;
+		for (int i = 0; i < Mat4f.SIZE; i++)
+		{
+			floats.put(offset + i, elements[i]);
+		}
+	}
+
+	/**
+	 * Overrides the matrix at the given index with the 2d transformation of the given matrix. The
+	 * z axis is left untransformed.
+	 */
+	public void set(final int index, final Mat3f matrix)
+	{
+		final int offset = index * Mat4f.SIZE;
+		putColumn(offset, matrix.a11, matrix.a21, 0, matrix.a31);
+		putColumn(offset + 4, matrix.a12, matrix.a22, 0, matrix.a32);
+		putColumn(offset + 8, 0, 0, 1, 0);
+		putColumn(offset + 12, matrix.a13, matrix.a23, 0, matrix.a33);
+	}
+
+	/**
+	 * Overrides the matrix at the given index with the product left * right.
+	 */
+	public void setProduct(final int index, final Mat4f left, final Mat4f right)
+	{
+		final float[] l = left.elements;
+		final float[] r = right.elements;
+		final int offset = index * Mat4f.SIZE;
+		for (int column = 0; column < 4; column++)
+		{
+			final int c = column * 4;
+			final float r0 = r[c];
+			final float r1 = r[c + 1];
+			final float r2 = r[c + 2];
+			final float r3 = r[c + 3];
+			putColumn(
+					offset + c,
+					l[0] * r0 + l[4] * r1 + l[8] * r2 + l[12] * r3,
+					l[1] * r0 + l[5] * r1 + l[9] * r2 + l[13] * r3,
+					l[2] * r0 + l[6] * r1 + l[10] * r2 + l[14] * r3,
+					l[3] * r0 + l[7] * r1 + l[11] * r2 + l[15] * r3);
+		}
+	}
+
+	private void putColumn(
+			final int offset,
+			final float e0,
+			final float e1,
+			final float e2,
+			final float e3)
+	{
+		floats.put(offset, e0);
+		floats.put(offset + 1, e1);
+		floats.put(offset + 2, e2);
+		floats.put(offset + 3, e3);
+	}
+
+	/**
+	 * Reads one element of a matrix of the batch.
+	 *
+	 * @param index
+	 *            Index of the matrix.
+	 * @param element
+	 *            Column-major index of the element in [0,15].
+	 * @return The value of the element.
+	 */
+	public float get(final int index, final int element)
+	{
+		return floats.get(index * Mat4f.SIZE + element);
+	}
+
+	/**
+	 * @return The backing direct buffer, with position 0 and the limit set to the end of the last
+	 *         added matrix.
+	 */
+	public ByteBuffer getByteBuffer()
+	{
+		bytes.limit(size * BYTES_PER_MATRIX).position(0);
+		return bytes;
+	}
+
+	/**
+	 * @return A float view of the backing direct buffer, with position 0 and the limit set to the
+	 *         end of the last added matrix.
+	 */
+	public FloatBuffer getFloatBuffer()
+	{
+		floatView.limit(size * Mat4f.SIZE).position(0);
+		return floatView;
+	}
+}
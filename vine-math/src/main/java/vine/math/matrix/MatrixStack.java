@@ -0,0 +1,198 @@
+package vine.math.matrix;
+
+
+import java.nio.FloatBuffer;
+
+import vine.math.GMath;
+
+
+/**
+ * Stack of 4x4 transformation matrices for hierarchical rendering.
+ * <p>
+ * All matrices are stored in column-major order in one preallocated {@code float[]} of
+ * {@code maxDepth * 16} elements. Push, pop and all transformations operate in place on the top
+ * matrix, so the stack doesn't create any garbage once it is constructed.
+ * </p>
+ *
+ * @see AffineMatrixStack
+ */
+public final class MatrixStack
+{
+
+	private final float[]	elements;
+	private final int		maxDepth;
+	/**
+	 * Offset of the first element of the top matrix.
+	 */
+	private int				top;
+
+
+	/**
+	 * Creates a new stack, which only contains the identity matrix.
+	 *
+	 * @param maxDepth
+	 *            The maximal number of matrices on the stack.
+	 */
+	public MatrixStack(final int maxDepth)
+	{
+		if (maxDepth <= 0)
+		{
+			throw new IllegalArgumentException(
+					"Tried to create a MatrixStack of depth " + maxDepth);
+		}
+		this.maxDepth = maxDepth;
+		elements = new float[maxDepth * Mat4f.SIZE];
+		loadIdentity();
+	}
+
+	/**
+	 * @return The number of matrices on the stack, at least 1.
+	 */
+	public int depth()
+	{
+		return top / Mat4f.SIZE + 1;
+	}
+
+	/**
+	 * Pushes a copy of the top matrix on the stack.
+	 */
+	public void push()
+	{
+		if (depth() == maxDepth)
+		{
+			throw new IllegalStateException("MatrixStack overflow, maximum depth " + maxDepth);
+		}
+		System.arraycopy(elements, top, elements, top + Mat4f.SIZE, Mat4f.SIZE);
+		top += Mat4f.SIZE;
+	}
+
+	/**
+	 * Removes the top matrix from the stack.
+	 */
+	public void pop()
+	{
+		if (top == 0)
+		{
+			throw new IllegalStateException("Tried to pop the last matrix of a MatrixStack");
+		}
+		top -= Mat4f.SIZE;
+	}
+
+	/**
+	 * Pops all matrices and sets the remaining matrix to the identity.
+	 */
+	public void reset()
+	{
+		top = 0;
+		loadIdentity();
+	}
+
+	/**
+	 * Sets the top matrix to the identity matrix.
+	 */
+	public void loadIdentity()
+	{
+		for (int i = 0; i < Mat4f.SIZE; i++)
+		{
+			elements[top + i] = 0;
+		}
+		elements[top] = 1;
+		elements[top + 5] = 1;
+		elements[top + 10] = 1;
+		elements[top + 15] = 1;
+	}
+
+	/**
+	 * Sets the top matrix to the given matrix.
+	 */
+	public void load(final Mat4f matrix)
+	{
+		System.arraycopy(matrix.elements, 0, elements, top, Mat4f.SIZE);
+	}
+
+	/**
+	 * Multiplies the given matrix from the right with the top matrix.
+	 */
+	public void multiply(final Mat4f matrix)
+	{
+		Mat4f.multiply(elements, top, matrix.elements, 0, elements, top);
+	}
+
+	/**
+	 * Multiplies a translation by the given vector from the right with the top matrix.
+	 */
+	public void translate(final float x, final float y, final float z)
+	{
+		for (int row = 0; row < 4; row++)
+		{
+			elements[top + 12 + row] += elements[top + row] * x + elements[top + 4 + row] * y
+					+ elements[top + 8 + row] * z;
+		}
+	}
+
+	/**
+	 * Multiplies a rotation around the z axis from the right with the top matrix.
+	 *
+	 * @param angle
+	 *            The counterclockwise rotation angle in degrees.
+	 */
+	public void rotate(final float angle)
+	{
+		final float radians = GMath.toRadians(angle);
+		final float cos = GMath.cos(radians);
+		final float sin = GMath.sin(radians);
+		for (int row = 0; row < 4; row++)
+		{
+			final float column0 = elements[top + row];
+			final float column1 = elements[top + 4 + row];
+			elements[top + row] = column0 * cos + column1 * sin;
+			elements[top + 4 + row] = column1 * cos - column0 * sin;
+		}
+	}
+
+	/**
+	 * Multiplies a scale matrix from the right with the top matrix.
+	 */
+	public void scale(final float x, final float y, final float z)
+	{
+		for (int row = 0; row < 4; row++)
+		{
+			elements[top + row] *= x;
+			elements[top + 4 + row] *= y;
+			elements[top + 8 + row] *= z;
+		}
+	}
+
+	/**
+	 * @return The backing array of the stack. The top matrix starts at {@link #getTopOffset()}.
+	 */
+	public float[] getElements()
+	{
+		return elements;
+	}
+
+	/**
+	 * @return The index of the first element of the top matrix in {@link #getElements()}.
+	 */
+	public int getTopOffset()
+	{
+		return top;
+	}
+
+	/**
+	 * Copies the top matrix into the given matrix.
+	 */
+	public void getTop(final Mat4f dest)
+	{
+		System.arraycopy(elements, top, dest.elements, 0, Mat4f.SIZE);
+	}
+
+	/**
+	 * Writes the top matrix in column-major order to the given buffer, starting at its current
+	 * position.
+	 */
+	public void store(final FloatBuffer buffer)
+	{
+		buffer.put(elements, top, Mat4f.SIZE);
+	}
+}
@@ -0,0 +1,343 @@
+package vine.math.physics;
+
+
+import java.util.Arrays;
+
+
+/**
+ * Persistent contacts of body pairs, which carry the accumulated solver impulses from one frame to
+ * the next.
+ * <p>
+ * The cache is an open addressing hash table with linear probing on a packed long pair key, e.g.
+ * the keys of {@link vine.math.spatial.ParallelPairFinder}. Each entry stores the feature ids and
+ * the accumulated normal and tangent impulses of up to {@link ContactManifold#MAX_POINTS} points.
+ * {@link #warmStart(long, ContactManifold)} copies the impulses of points with matching feature ids
+ * into a new manifold, {@link #store(long, ContactManifold)} writes the impulses back after the
+ * solver ran. Entries, that were not used in a frame, are removed by {@link #removeStale()}.
+ * </p>
+ * <p>
+ * All entry data lives in parallel primitive arrays, the cache only allocates, when it grows.
+ * </p>
+ */
+public class ContactCache
+{
+
+	private static final long	EMPTY		= -1;
+	private static final int	POINTS		= ContactManifold.MAX_POINTS;
+
+	private long[]				keys;
+	/**
+	 * The frame, in which each entry was used last.
+	 */
+	private int[]				frames;
+	private int[]				pointCounts;
+	private int[]				featureIds;
+	private float[]				normalImpulses;
+	private float[]				tangentImpulses;
+	private int					mask;
+	private int					size;
+	private int					frame;
+
+
+	/**
+	 * Creates a new cache.
+	 *
+	 * @param expectedPairs
+	 *            The number of pairs, the cache can hold without growing.
+	 */
+	public ContactCache(final int expectedPairs)
+	{
+		int capacity = 16;
+		while (capacity < expectedPairs * 2)
+		{
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(final int capacity)
+	{
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		frames = new int[capacity];
+		pointCounts = new int[capacity];
+		featureIds = new int[capacity * POINTS];
+		normalImpulses = new float[capacity * POINTS];
+		tangentImpulses = new float[capacity * POINTS];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * @return The number of cached pairs.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Starts a new frame. Entries, that are not used until the next call of {@link #removeStale()},
+	 * are removed by it.
+	 */
+	public void beginFrame()
+	{
+		frame++;
+	}
+
+	/**
+	 * @return True, if the cache has an entry for the pair.
+	 */
+	public boolean contains(final long key)
+	{
+		return find(key) >= 0;
+	}
+
+	/**
+	 * Marks the pair as used in the current frame without changing it, e.g. while its bodies are
+	 * sleeping.
+	 *
+	 * @return True, if the cache has an entry for the pair.
+	 */
+	public boolean keep(final long key)
+	{
+		final int slot = find(key);
+		if (slot < 0)
+		{
+			return false;
+		}
+		frames[slot] = frame;
+		return true;
+	}
+
+	/**
+	 * Copies the accumulated impulses of the cached points into the points of the manifold with the
+	 * same feature ids. Points without a match start with zero impulses. Marks the pair as used in
+	 * the current frame.
+	 *
+	 * @param key
+	 *            The key of the pair.
+	 * @param manifold
+	 *            The new manifold of the pair.
+	 * @return The number of points, that got warm started.
+	 */
+	public int warmStart(final long key, final ContactManifold manifold)
+	{
+		final int slot = find(key);
+		if (slot < 0)
+		{
+			return 0;
+		}
+		frames[slot] = frame;
+		int matched = 0;
+		for (int i = 0; i < manifold.getPointCount(); i++)
+		{
+			final int featureId = manifold.getFeatureId(i);
+			for (int j = 0; j < pointCounts[slot]; j++)
+			{
+				final int index = slot * POINTS + j;
+				if (featureIds[index] == featureId)
+				{
+					manifold.setNormalImpulse(i, normalImpulses[index]);
+					manifold.setTangentImpulse(i, tangentImpulses[index]);
+					matched++;
+					break;
+				}
+			}
+		}
+		return matched;
+	}
+
+	/**
+	 * Stores the feature ids and accumulated impulses of the manifold for the pair and marks it as
+	 * used in the current frame.
+	 *
+	 * @param key
+	 *            The key of the pair, which must not be negative.
+	 * @param manifold
+	 *            The solved manifold of the pair.
+	 */
+	public void store(final long key, final ContactManifold manifold)
+	{
+		if (key < 0)
+		{
+			throw new IllegalArgumentException("Tried to store a contact with negative key " + key);
+		}
+		int slot = find(key);
+		if (slot < 0)
+		{
+			if ((size + 1) * 2 > keys.length)
+			{
+				rehash(keys.length * 2);
+			}
+			slot = insertSlot(key);
+			keys[slot] = key;
+			size++;
+		}
+		frames[slot] = frame;
+		pointCounts[slot] = manifold.getPointCount();
+		for (int i = 0; i < manifold.getPointCount(); i++)
+		{
+			final int index = slot * POINTS + i;
+			featureIds[index] = manifold.getFeatureId(i);
+			normalImpulses[index] = manifold.getNormalImpulse(i);
+			tangentImpulses[index] = manifold.getTangentImpulse(i);
+		}
+	}
+
+	/**
+	 * Removes the entry of the pair.
+	 *
+	 * @return True, if there was an entry.
+	 */
+	public boolean remove(final long key)
+	{
+		final int slot = find(key);
+		if (slot < 0)
+		{
+			return false;
+		}
+		removeSlot(slot);
+		return true;
+	}
+
+	/**
+	 * Removes all entries, that were not used since the last {@link #beginFrame()}.
+	 *
+	 * @return The number of removed entries.
+	 */
+	public int removeStale()
+	{
+		// The scan starts behind an empty slot, which the table always has as it is at most half
+		// full. So no probe sequence wraps around the start of the scan and the backward shifts
+		// only move entries into the current slot or slots, that are still to be scanned.
+		int empty = 0;
+		while (keys[empty] != EMPTY)
+		{
+			empty++;
+		}
+		int removed = 0;
+		int scanned = 0;
+		while (scanned < keys.length)
+		{
+			final int slot = empty + 1 + scanned & mask;
+			if (keys[slot] != EMPTY && frames[slot] != frame)
+			{
+				removeSlot(slot);
+				removed++;
+				// A later entry may have been shifted into this slot
+				continue;
+			}
+			scanned++;
+		}
+		return removed;
+	}
+
+	/**
+	 * Removes all entries.
+	 */
+	public void clear()
+	{
+		Arrays.fill(keys, EMPTY);
+		size = 0;
+	}
+
+	private static int hash(final long key)
+	{
+		long hash = key * 0x9E3779B97F4A7C15L;
+		hash ^= hash >>> 32;
+		return (int) hash;
+	}
+
+	private int find(final long key)
+	{
+		for (int slot = hash(key) & mask;; slot = slot + 1 & mask)
+		{
+			if (keys[slot] == key)
+			{
+				return slot;
+			}
+			if (keys[slot] == EMPTY)
+			{
+				return -1;
+			}
+		}
+	}
+
+	private int insertSlot(final long key)
+	{
+		int slot = hash(key) & mask;
+		while (keys[slot] != EMPTY)
+		{
+			slot = slot + 1 & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Removes the entry and moves later entries of the probe sequence back, so no tombstones are
+	 * needed.
+	 */
+	private void removeSlot(final int removedSlot)
+	{
+		int hole = removedSlot;
+		keys[hole] = EMPTY;
+		size--;
+		for (int slot = hole + 1 & mask; keys[slot] != EMPTY; slot = slot + 1 & mask)
+		{
+			final int home = hash(keys[slot]) & mask;
+			final boolean movable = hole <= slot ? home <= hole || home > slot
+					: home <= hole && home > slot;
+			if (movable)
+			{
+				moveEntry(slot, hole);
+				hole = slot;
+			}
+		}
+	}
+
+	private void moveEntry(final int from, final int to)
+	{
+		keys[to] = keys[from];
+		keys[from] = EMPTY;
+		frames[to] = frames[from];
+		pointCounts[to] = pointCounts[from];
+		System.arraycopy(featureIds, from * POINTS, featureIds, to * POINTS, POINTS);
+		System.arraycopy(normalImpulses, from * POINTS, normalImpulses, to * POINTS, POINTS);
+		System.arraycopy(tangentImpulses, from * POINTS, tangentImpulses, to * POINTS, POINTS);
+	}
+
+	private void rehash(final int capacity)
+	{
+		final long[] oldKeys = keys;
+		final int[] oldFrames = frames;
+		final int[] oldPointCounts = pointCounts;
+		final int[] oldFeatureIds = featureIds;
+		final float[] oldNormalImpulses = normalImpulses;
+		final float[] oldTangentImpulses = tangentImpulses;
+		allocate(capacity);
+		for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++)
+		{
+			if (oldKeys[oldSlot] == EMPTY)
+			{
+				continue;
+			}
+			final int slot = insertSlot(oldKeys[oldSlot]);
+			keys[slot] = oldKeys[oldSlot];
+			frames[slot] = oldFrames[oldSlot];
+			pointCounts[slot] = oldPointCounts[oldSlot];
+			System.arraycopy(oldFeatureIds, oldSlot * POINTS, featureIds, slot * POINTS, POINTS);
+			System.arraycopy(
+					oldNormalImpulses,
+					oldSlot * POINTS,
+					normalImpulses,
+					slot * POINTS,
+					POINTS);
+			System.arraycopy(
+					oldTangentImpulses,
+					oldSlot * POINTS,
+					tangentImpulses,
+					slot * POINTS,
+					POINTS);
+		}
+	}
+}
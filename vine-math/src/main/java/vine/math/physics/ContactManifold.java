@@ -0,0 +1,163 @@
+package vine.math.physics;
+
+
+/**
+ * Contact points of two touching shapes, that share one normal.
+ * <p>
+ * Unlike {@link vine.math.HitData} a manifold holds up to {@link #MAX_POINTS} points, e.g. the two
+ * corners of a box resting on another box. Each point has a feature id, which identifies the edges
+ * and vertices it was created from, so a {@link ContactCache} can match the points of consecutive
+ * frames and carry the accumulated impulses of the solver over for warm starting.
+ * </p>
+ */
+public class ContactManifold
+{
+
+	/**
+	 * Maximum number of points of a manifold.
+	 */
+	public static final int	MAX_POINTS		= 2;
+
+	private int				pointCount;
+	private float			normalX;
+	private float			normalY;
+	private final float[]	pointX			= new float[MAX_POINTS];
+	private final float[]	pointY			= new float[MAX_POINTS];
+	private final float[]	penetration		= new float[MAX_POINTS];
+	private final int[]		featureIds		= new int[MAX_POINTS];
+	private final float[]	normalImpulse	= new float[MAX_POINTS];
+	private final float[]	tangentImpulse	= new float[MAX_POINTS];
+
+
+	/**
+	 * Removes all points.
+	 */
+	public void clear()
+	{
+		pointCount = 0;
+		normalX = 0;
+		normalY = 0;
+	}
+
+	/**
+	 * @return The number of contact points.
+	 */
+	public int getPointCount()
+	{
+		return pointCount;
+	}
+
+	/**
+	 * Sets the normal, which points from the first to the second shape and has unit length.
+	 */
+	public void setNormal(final float x, final float y)
+	{
+		normalX = x;
+		normalY = y;
+	}
+
+	public float getNormalX()
+	{
+		return normalX;
+	}
+
+	public float getNormalY()
+	{
+		return normalY;
+	}
+
+	/**
+	 * Adds a contact point with zero accumulated impulses.
+	 *
+	 * @param x
+	 *            x Coordinate of the point in world space.
+	 * @param y
+	 *            y Coordinate of the point in world space.
+	 * @param depth
+	 *            The distance the shapes overlap at the point along the normal.
+	 * @param featureId
+	 *            Id of the features the point was created from.
+	 */
+	public void addPoint(final float x, final float y, final float depth, final int featureId)
+	{
+		if (pointCount == MAX_POINTS)
+		{
+			throw new IllegalStateException("Tried to add more than " + MAX_POINTS + " points");
+		}
+		pointX[pointCount] = x;
+		pointY[pointCount] = y;
+		penetration[pointCount] = depth;
+		featureIds[pointCount] = featureId;
+		normalImpulse[pointCount] = 0;
+		tangentImpulse[pointCount] = 0;
+		pointCount++;
+	}
+
+	public float getPointX(final int point)
+	{
+		return pointX[point];
+	}
+
+	public float getPointY(final int point)
+	{
+		return pointY[point];
+	}
+
+	public float getPenetration(final int point)
+	{
+		return penetration[point];
+	}
+
+	public int getFeatureId(final int point)
+	{
+		return featureIds[point];
+	}
+
+	/**
+	 * @return The impulse along the normal, the solver accumulated for the point.
+	 */
+	public float getNormalImpulse(final int point)
+	{
+		return normalImpulse[point];
+	}
+
+	public void setNormalImpulse(final int point, final float impulse)
+	{
+		normalImpulse[point] = impulse;
+	}
+
+	/**
+	 * @return The friction impulse along the tangent, the solver accumulated for the point.
+	 */
+	public float getTangentImpulse(final int point)
+	{
+		return tangentImpulse[point];
+	}
+
+	public void setTangentImpulse(final int point, final float impulse)
+	{
+		tangentImpulse[point] = impulse;
+	}
+
+	/**
+	 * Flips the normal, so it points from the second to the first shape.
+	 */
+	public void flip()
+	{
+		normalX = -normalX;
+		normalY = -normalY;
+	}
+
+	@Override
+	public String toString()
+	{
+		final StringBuilder builder = new StringBuilder("ContactManifold Normal:(");
+		builder.append(normalX).append(',').append(normalY).append(')');
+		for (int i = 0; i < pointCount; i++)
+		{
+			builder.append(" Point:(").append(pointX[i]).append(',').append(pointY[i]);
+			builder.append(") Penetration:").append(penetration[i]);
+		}
+		return builder.toString();
+	}
+}
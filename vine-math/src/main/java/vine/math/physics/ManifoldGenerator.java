@@ -0,0 +1,460 @@
+package vine.math.physics;
+
+
+import vine.math.GMath;
+import vine.math.HitData;
+import vine.math.Intersection;
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.geometry.shape.Rectangle;
+import vine.math.vector.VectorUtils;
+
+
+/**
+ * Creates contact manifolds for pairs of boxes and circles.
+ * <p>
+ * Boxes are clipped against each other: the face with the largest separation is the reference
+ * face, the face of the other box, which is most anti parallel to it, is the incident face. The
+ * incident face is clipped against the side planes of the reference face and all clipped points
+ * below the reference face become contact points. Resting boxes get two points this way, so the
+ * solver does not need many iterations to stop them from rocking.
+ * </p>
+ * <p>
+ * Boxes are given by their origin corner and the two corners adjacent to it, like in the box tests
+ * of {@link Intersection}. The generator reuses internal buffers, so it doesn't allocate, but is
+ * not thread safe.
+ * </p>
+ */
+public final class ManifoldGenerator
+{
+
+	/**
+	 * Tolerance by which the second box has to separate more, to become the reference, so the
+	 * reference face does not alternate between frames.
+	 */
+	private static final float	REFERENCE_TOLERANCE	= 0.0005f;
+
+	private final float[]		verticesA			= new float[8];
+	private final float[]		normalsA			= new float[8];
+	private final float[]		verticesB			= new float[8];
+	private final float[]		normalsB			= new float[8];
+	/**
+	 * Points and feature codes of the incident face during the two clipping steps.
+	 */
+	private final float[]		clipIn				= new float[4];
+	private final int[]			clipInIds			= new int[2];
+	private final float[]		clipOut				= new float[4];
+	private final int[]			clipOutIds			= new int[2];
+	private final HitData		hitData				= new HitData();
+	private float				separation;
+
+
+	/**
+	 * Creates the manifold of two Aabbs.
+	 *
+	 * @return True, if the Aabbs touch.
+	 */
+	public boolean collide(final Aabb a, final Aabb b, final ContactManifold manifold)
+	{
+		return collideBoxes(
+				a.getX(),
+				a.getY(),
+				a.getX(),
+				a.getY() + a.getHeight(),
+				a.getX() + a.getWidth(),
+				a.getY(),
+				b.getX(),
+				b.getY(),
+				b.getX(),
+				b.getY() + b.getHeight(),
+				b.getX() + b.getWidth(),
+				b.getY(),
+				manifold);
+	}
+
+	/**
+	 * Creates the manifold of an Aabb and a rectangle.
+	 *
+	 * @return True, if the shapes touch.
+	 */
+	public boolean collide(final Aabb a, final Rectangle b, final ContactManifold manifold)
+	{
+		return collideBoxes(
+				a.getX(),
+				a.getY(),
+				a.getX(),
+				a.getY() + a.getHeight(),
+				a.getX() + a.getWidth(),
+				a.getY(),
+				b.getLowerLeftX(),
+				b.getLowerLeftY(),
+				b.getUpperLeftX(),
+				b.getUpperLeftY(),
+				b.getLowerRightX(),
+				b.getLowerRightY(),
+				manifold);
+	}
+
+	/**
+	 * Creates the manifold of two rectangles.
+	 *
+	 * @return True, if the rectangles touch.
+	 */
+	public boolean collide(final Rectangle a, final Rectangle b, final ContactManifold manifold)
+	{
+		return collideBoxes(
+				a.getLowerLeftX(),
+				a.getLowerLeftY(),
+				a.getUpperLeftX(),
+				a.getUpperLeftY(),
+				a.getLowerRightX(),
+				a.getLowerRightY(),
+				b.getLowerLeftX(),
+				b.getLowerLeftY(),
+				b.getUpperLeftX(),
+				b.getUpperLeftY(),
+				b.getLowerRightX(),
+				b.getLowerRightY(),
+				manifold);
+	}
+
+	/**
+	 * Creates the manifold of two circles.
+	 *
+	 * @return True, if the circles touch.
+	 */
+	public boolean collide(final Circle a, final Circle b, final ContactManifold manifold)
+	{
+		return collideCircles(
+				a.getX(),
+				a.getY(),
+				a.getRadius(),
+				b.getX(),
+				b.getY(),
+				b.getRadius(),
+				manifold);
+	}
+
+	/**
+	 * Creates the manifold of two boxes by reference face clipping.
+	 *
+	 * @param manifold
+	 *            The manifold, that receives the contact points. Its normal points from the first
+	 *            to the second box.
+	 * @return True, if the boxes touch.
+	 */
+	public boolean collideBoxes(
+			final float originX1,
+			final float originY1,
+			final float upperLeftX1,
+			final float upperLeftY1,
+			final float lowerRightX1,
+			final float lowerRightY1,
+			final float originX2,
+			final float originY2,
+			final float upperLeftX2,
+			final float upperLeftY2,
+			final float lowerRightX2,
+			final float lowerRightY2,
+			final ContactManifold manifold)
+	{
+		manifold.clear();
+		if (!setBox(
+				verticesA,
+				normalsA,
+				originX1,
+				originY1,
+				upperLeftX1,
+				upperLeftY1,
+				lowerRightX1,
+				lowerRightY1)
+				|| !setBox(
+						verticesB,
+						normalsB,
+						originX2,
+						originY2,
+						upperLeftX2,
+						upperLeftY2,
+						lowerRightX2,
+						lowerRightY2))
+		{
+			return false;
+		}
+		final int faceA = findMaxSeparation(verticesA, normalsA, verticesB);
+		final float separationA = separation;
+		if (separationA > 0)
+		{
+			return false;
+		}
+		final int faceB = findMaxSeparation(verticesB, normalsB, verticesA);
+		final float separationB = separation;
+		if (separationB > 0)
+		{
+			return false;
+		}
+		final boolean flip = separationB > separationA + REFERENCE_TOLERANCE;
+		final float[] reference = flip ? verticesB : verticesA;
+		final float[] referenceNormals = flip ? normalsB : normalsA;
+		final float[] incident = flip ? verticesA : verticesB;
+		final float[] incidentNormals = flip ? normalsA : normalsB;
+		final int referenceFace = flip ? faceB : faceA;
+		final float normalX = referenceNormals[referenceFace * 2];
+		final float normalY = referenceNormals[referenceFace * 2 + 1];
+
+		int incidentFace = 0;
+		float minDot = Float.MAX_VALUE;
+		for (int i = 0; i < 4; i++)
+		{
+			final float dot = VectorUtils.dot(
+					normalX,
+					normalY,
+					incidentNormals[i * 2],
+					incidentNormals[i * 2 + 1]);
+			if (dot < minDot)
+			{
+				minDot = dot;
+				incidentFace = i;
+			}
+		}
+		final int next = (incidentFace + 1) % 4;
+		final int baseId = (flip ? 1 : 0) << 8 | referenceFace << 4 | incidentFace << 2;
+		clipIn[0] = incident[incidentFace * 2];
+		clipIn[1] = incident[incidentFace * 2 + 1];
+		clipIn[2] = incident[next * 2];
+		clipIn[3] = incident[next * 2 + 1];
+		clipInIds[0] = baseId;
+		clipInIds[1] = baseId | 1;
+
+		final float startX = reference[referenceFace * 2];
+		final float startY = reference[referenceFace * 2 + 1];
+		final int referenceNext = (referenceFace + 1) % 4;
+		final float endX = reference[referenceNext * 2];
+		final float endY = reference[referenceNext * 2 + 1];
+		final float tangentX = (endX - startX) / VectorUtils.length(endX - startX, endY - startY);
+		final float tangentY = (endY - startY) / VectorUtils.length(endX - startX, endY - startY);
+		final float startOffset = -VectorUtils.dot(tangentX, tangentY, startX, startY);
+		final float endOffset = VectorUtils.dot(tangentX, tangentY, endX, endY);
+		if (clip(clipIn, clipInIds, clipOut, clipOutIds, -tangentX, -tangentY, startOffset, 2) < 2)
+		{
+			return false;
+		}
+		if (clip(clipOut, clipOutIds, clipIn, clipInIds, tangentX, tangentY, endOffset, 3) < 2)
+		{
+			return false;
+		}
+
+		final float frontOffset = VectorUtils.dot(normalX, normalY, startX, startY);
+		for (int i = 0; i < 2; i++)
+		{
+			final float pointX = clipIn[i * 2];
+			final float pointY = clipIn[i * 2 + 1];
+			final float depth = frontOffset - VectorUtils.dot(normalX, normalY, pointX, pointY);
+			if (depth >= 0)
+			{
+				manifold.addPoint(pointX, pointY, depth, clipInIds[i]);
+			}
+		}
+		manifold.setNormal(flip ? -normalX : normalX, flip ? -normalY : normalY);
+		return manifold.getPointCount() > 0;
+	}
+
+	/**
+	 * Creates the manifold of two circles with a single point halfway between both surfaces.
+	 *
+	 * @return True, if the circles touch.
+	 */
+	public boolean collideCircles(
+			final float x1,
+			final float y1,
+			final float radius1,
+			final float x2,
+			final float y2,
+			final float radius2,
+			final ContactManifold manifold)
+	{
+		manifold.clear();
+		final float difX = x2 - x1;
+		final float difY = y2 - y1;
+		final float radiusSum = radius1 + radius2;
+		final float squaredDistance = VectorUtils.squaredLength(difX, difY);
+		if (squaredDistance > radiusSum * radiusSum)
+		{
+			return false;
+		}
+		final float distance = GMath.sqrt(squaredDistance);
+		final float normalX = distance == 0 ? 1 : difX / distance;
+		final float normalY = distance == 0 ? 0 : difY / distance;
+		final float depth = radiusSum - distance;
+		final float offset = radius1 - depth / 2;
+		manifold.setNormal(normalX, normalY);
+		manifold.addPoint(x1 + normalX * offset, y1 + normalY * offset, depth, 0);
+		return true;
+	}
+
+	/**
+	 * Creates the manifold of a box and a circle with a single point on the surface of the box.
+	 *
+	 * @return True, if the shapes touch.
+	 */
+	public boolean collideBoxCircle(
+			final float originX,
+			final float originY,
+			final float upperLeftX,
+			final float upperLeftY,
+			final float lowerRightX,
+			final float lowerRightY,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final ContactManifold manifold)
+	{
+		manifold.clear();
+		if (!Intersection.intersectObbCircle(
+				originX,
+				originY,
+				upperLeftX,
+				upperLeftY,
+				lowerRightX,
+				lowerRightY,
+				centerX,
+				centerY,
+				radius,
+				hitData))
+		{
+			return false;
+		}
+		manifold.setNormal(hitData.getNormal().getX(), hitData.getNormal().getY());
+		manifold.addPoint(
+				hitData.getPoint().getX(),
+				hitData.getPoint().getY(),
+				hitData.getPenetration(),
+				0);
+		return true;
+	}
+
+	/**
+	 * Writes the corners of the box in counterclockwise order and the outward normal of the edge
+	 * starting at each corner.
+	 *
+	 * @return False, if the box is degenerated.
+	 */
+	private static boolean setBox(
+			final float[] vertices,
+			final float[] normals,
+			final float originX,
+			final float originY,
+			final float upperLeftX,
+			final float upperLeftY,
+			final float lowerRightX,
+			final float lowerRightY)
+	{
+		final float uX = lowerRightX - originX;
+		final float uY = lowerRightY - originY;
+		final float vX = upperLeftX - originX;
+		final float vY = upperLeftY - originY;
+		final boolean counterclockwise = VectorUtils.pseudoCross(uX, uY, vX, vY) >= 0;
+		vertices[0] = originX;
+		vertices[1] = originY;
+		vertices[2] = counterclockwise ? lowerRightX : upperLeftX;
+		vertices[3] = counterclockwise ? lowerRightY : upperLeftY;
+		vertices[4] = originX + uX + vX;
+		vertices[5] = originY + uY + vY;
+		vertices[6] = counterclockwise ? upperLeftX : lowerRightX;
+		vertices[7] = counterclockwise ? upperLeftY : lowerRightY;
+		for (int i = 0; i < 4; i++)
+		{
+			final int next = (i + 1) % 4;
+			final float edgeX = vertices[next * 2] - vertices[i * 2];
+			final float edgeY = vertices[next * 2 + 1] - vertices[i * 2 + 1];
+			final float length = VectorUtils.length(edgeX, edgeY);
+			if (GMath.isNearlyZero(length))
+			{
+				return false;
+			}
+			normals[i * 2] = edgeY / length;
+			normals[i * 2 + 1] = -edgeX / length;
+		}
+		return true;
+	}
+
+	/**
+	 * Finds the face of the first box, along which normal the second box is separated most.
+	 *
+	 * @return The index of the face, the separation is stored in {@link #separation}.
+	 */
+	private int findMaxSeparation(
+			final float[] vertices,
+			final float[] normals,
+			final float[] other)
+	{
+		int bestFace = 0;
+		float maxSeparation = -Float.MAX_VALUE;
+		for (int i = 0; i < 4; i++)
+		{
+			final float normalX = normals[i * 2];
+			final float normalY = normals[i * 2 + 1];
+			final float offset = VectorUtils
+					.dot(normalX, normalY, vertices[i * 2], vertices[i * 2 + 1]);
+			float minSeparation = Float.MAX_VALUE;
+			for (int j = 0; j < 4; j++)
+			{
+				final float value = VectorUtils
+						.dot(normalX, normalY, other[j * 2], other[j * 2 + 1]);
+				minSeparation = GMath.min(minSeparation, value - offset);
+			}
+			if (minSeparation > maxSeparation)
+			{
+				maxSeparation = minSeparation;
+				bestFace = i;
+			}
+		}
+		separation = maxSeparation;
+		return bestFace;
+	}
+
+	/**
+	 * Clips the segment against the half plane, where the dot product with the normal is at most
+	 * the offset.
+	 *
+	 * @param clipCode
+	 *            Feature code of a point created by clipping on this plane.
+	 * @return The number of points of the clipped segment.
+	 */
+	private static int clip(
+			final float[] in,
+			final int[] inIds,
+			final float[] out,
+			final int[] outIds,
+			final float normalX,
+			final float normalY,
+			final float offset,
+			final int clipCode)
+	{
+		int count = 0;
+		final float distance0 = VectorUtils.dot(normalX, normalY, in[0], in[1]) - offset;
+		final float distance1 = VectorUtils.dot(normalX, normalY, in[2], in[3]) - offset;
+		if (distance0 <= 0)
+		{
+			out[0] = in[0];
+			out[1] = in[1];
+			outIds[0] = inIds[0];
+			count++;
+		}
+		if (distance1 <= 0)
+		{
+			out[count * 2] = in[2];
+			out[count * 2 + 1] = in[3];
+			outIds[count] = inIds[1];
+			count++;
+		}
+		if (distance0 * distance1 < 0)
+		{
+			final float alpha = distance0 / (distance0 - distance1);
+			out[count * 2] = in[0] + alpha * (in[2] - in[0]);
+			out[count * 2 + 1] = in[1] + alpha * (in[3] - in[1]);
+			outIds[count] = inIds[0] & ~3 | clipCode;
+			count++;
+		}
+		return count;
+	}
+}
@@ -0,0 +1,1235 @@
+package vine.math.physics;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vine.math.GMath;
+import vine.math.geometry.shape.ShapeType;
+import vine.math.spatial.ParallelPairFinder;
+import vine.math.vector.VectorUtils;
+
+
+/**
+ * Two dimensional rigid bodies, that collide with each other and are solved with sequential
+ * impulses.
+ * <p>
+ * Positions, velocities, masses and inertias of all bodies live in parallel float arrays indexed by
+ * the body id, the contacts of a step live in parallel arrays indexed by the contact. Bodies are
+ * boxes or circles. A step integrates the velocities, finds overlapping pairs with a
+ * {@link ParallelPairFinder}, creates a {@link ContactManifold} for each of them with the
+ * {@link ManifoldGenerator} and warm starts it from the {@link ContactCache}. Then the contact
+ * constraints are solved with accumulated and clamped impulses including friction and restitution,
+ * penetration is removed with a velocity bias and the positions are integrated.
+ * </p>
+ * <p>
+ * Arrays only grow, when bodies are added or more contacts than ever before are found, so a step
+ * does not allocate in a steady scene.
+ * </p>
+ * <p>
+ * Bodies connected by contacts form islands, which are found with a {@link UnionFind}. Islands do
+ * not share dynamic bodies, so they are solved in parallel, if a pool is set. An island, whose
+ * bodies were all nearly at rest for {@link #TIME_TO_SLEEP} seconds, falls asleep: its bodies are
+ * neither integrated nor collided with each other or static bodies, until an awake body overlaps
+ * one of them or they are changed, which wakes the whole island.
+ * </p>
+ */
+public class RigidBodyWorld
+{
+
+	/**
+	 * Fraction of the penetration, that is removed in each step.
+	 */
+	private static final float			BAUMGARTE				= 0.2f;
+	/**
+	 * Penetration, that is allowed to keep contacts stable.
+	 */
+	private static final float			LINEAR_SLOP				= 0.01f;
+	/**
+	 * Relative normal velocity, below which no restitution is applied.
+	 */
+	private static final float			RESTITUTION_THRESHOLD	= 1;
+	private static final int			POINTS					= ContactManifold.MAX_POINTS;
+	/**
+	 * Linear velocity, below which a body is at rest.
+	 */
+	private static final float			LINEAR_SLEEP_TOLERANCE	= 0.01f;
+	/**
+	 * Angular velocity, below which a body is at rest.
+	 */
+	private static final float			ANGULAR_SLEEP_TOLERANCE	= 0.035f;
+	/**
+	 * Seconds all bodies of an island have to be at rest, before it falls asleep.
+	 */
+	public static final float			TIME_TO_SLEEP			= 0.5f;
+	/**
+	 * Number of contacts, below which islands are solved on the calling thread.
+	 */
+	private static final int			PARALLEL_THRESHOLD		= 512;
+
+	private final ParallelPairFinder	pairFinder;
+	private final ContactCache			cache;
+	private final ManifoldGenerator		generator				= new ManifoldGenerator();
+	private final ContactManifold		manifold				= new ContactManifold();
+	private final float[]				cornersA				= new float[6];
+	private final float[]				cornersB				= new float[6];
+	private float						gravityX;
+	private float						gravityY				= -9.81f;
+	private int							iterations				= 8;
+	private boolean						sleepingEnabled			= true;
+	private ForkJoinPool				pool;
+
+	private int							bodyCount;
+	private int[]						shapeTypes;
+	private float[]						positionX;
+	private float[]						positionY;
+	/**
+	 * Cosine and sine of the rotation of each body, which are integrated directly, so a step needs
+	 * no trigonometric functions.
+	 */
+	private float[]						cosines;
+	private float[]						sines;
+	private float[]						velocityX;
+	private float[]						velocityY;
+	private float[]						angularVelocity;
+	private float[]						inverseMass;
+	private float[]						inverseInertia;
+	/**
+	 * Half extents of boxes, circles store their radius in both.
+	 */
+	private float[]						halfWidth;
+	private float[]						halfHeight;
+	private float[]						friction;
+	private float[]						restitution;
+	private float[]						bounds;
+	private boolean[]					awake;
+	/**
+	 * Seconds each body has been at rest.
+	 */
+	private float[]						sleepTimes;
+	/**
+	 * Next body of the island, a sleeping body fell asleep with, so each sleeping island forms a
+	 * ring.
+	 */
+	private int[]						sleepRings;
+	/**
+	 * Static bodies moved since the last step. Sleeping islands touching their old or new position
+	 * are woken by the next step.
+	 */
+	private boolean[]					movedStatics;
+	private int							movedStaticCount;
+
+	private final UnionFind				islandSets				= new UnionFind();
+	private int							islandCount;
+	/**
+	 * Island of each awake dynamic body, -1 for all other bodies.
+	 */
+	private int[]						bodyIslands;
+	/**
+	 * Island of each representative of a set of the union find.
+	 */
+	private int[]						rootIslands;
+	private int[]						islandBodyStarts		= new int[1];
+	private int[]						islandBodies			= new int[0];
+	private int[]						islandContactStarts		= new int[1];
+	/**
+	 * The contacts sorted by island.
+	 */
+	private int[]						islandContacts			= new int[0];
+
+	private int							contactCount;
+	private long[]						contactKeys				= new long[0];
+	private int[]						contactBodyA			= new int[0];
+	private int[]						contactBodyB			= new int[0];
+	private int[]						contactPointCounts		= new int[0];
+	private float[]						contactNormalX			= new float[0];
+	private float[]						contactNormalY			= new float[0];
+	private float[]						contactFriction			= new float[0];
+	/**
+	 * Data of the contact points, {@link ContactManifold#MAX_POINTS} entries per contact.
+	 */
+	private int[]						pointFeatureIds			= new int[0];
+	private float[]						pointRelativeAX			= new float[0];
+	private float[]						pointRelativeAY			= new float[0];
+	private float[]						pointRelativeBX			= new float[0];
+	private float[]						pointRelativeBY			= new float[0];
+	private float[]						pointNormalMass			= new float[0];
+	private float[]						pointTangentMass		= new float[0];
+	private float[]						pointBias				= new float[0];
+	private float[]						pointNormalImpulse		= new float[0];
+	private float[]						pointTangentImpulse		= new float[0];
+
+
+	/**
+	 * Creates a new world.
+	 *
+	 * @param expectedBodies
+	 *            The number of bodies, the world can hold without growing.
+	 * @param cellSize
+	 *            The size of the cells of the broadphase grid, which should be about the size of
+	 *            the typical body.
+	 */
+	public RigidBodyWorld(final int expectedBodies, final float cellSize)
+	{
+		final int capacity = GMath.max(expectedBodies, 16);
+		shapeTypes = new int[capacity];
+		positionX = new float[capacity];
+		positionY = new float[capacity];
+		cosines = new float[capacity];
+		sines = new float[capacity];
+		velocityX = new float[capacity];
+		velocityY = new float[capacity];
+		angularVelocity = new float[capacity];
+		inverseMass = new float[capacity];
+		inverseInertia = new float[capacity];
+		halfWidth = new float[capacity];
+		halfHeight = new float[capacity];
+		friction = new float[capacity];
+		restitution = new float[capacity];
+		bounds = new float[capacity * ParallelPairFinder.STRIDE];
+		awake = new boolean[capacity];
+		sleepTimes = new float[capacity];
+		sleepRings = new int[capacity];
+		movedStatics = new boolean[capacity];
+		bodyIslands = new int[capacity];
+		rootIslands = new int[capacity];
+		islandBodies = new int[capacity];
+		pairFinder = new ParallelPairFinder(cellSize);
+		cache = new ContactCache(capacity * 2);
+	}
+
+	/**
+	 * Sets the acceleration applied to all dynamic bodies.
+	 */
+	public void setGravity(final float x, final float y)
+	{
+		gravityX = x;
+		gravityY = y;
+	}
+
+	/**
+	 * Sets the number of velocity iterations of each step.
+	 */
+	public void setIterations(final int iterations)
+	{
+		if (iterations < 1)
+		{
+			throw new IllegalArgumentException("Tried to set iterations to " + iterations);
+		}
+		this.iterations = iterations;
+	}
+
+	public int getIterations()
+	{
+		return iterations;
+	}
+
+	/**
+	 * Sets the pool, that finds pairs and solves islands in parallel, or null to step on the
+	 * calling thread.
+	 */
+	public void setPool(final ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Enables or disables sleeping, disabling wakes all bodies.
+	 */
+	public void setSleepingEnabled(final boolean enabled)
+	{
+		sleepingEnabled = enabled;
+		if (!enabled)
+		{
+			for (int body = 0; body < bodyCount; body++)
+			{
+				wake(body);
+			}
+		}
+	}
+
+	/**
+	 * Adds a box.
+	 *
+	 * @param x
+	 *            x Coordinate of the center.
+	 * @param y
+	 *            y Coordinate of the center.
+	 * @param halfWidth
+	 *            Half of the width of the box.
+	 * @param halfHeight
+	 *            Half of the height of the box.
+	 * @param angle
+	 *            Rotation of the box in radians.
+	 * @param density
+	 *            Mass per area, zero creates a static box.
+	 * @return The id of the body.
+	 */
+	public int addBox(
+			final float x,
+			final float y,
+			final float halfWidth,
+			final float halfHeight,
+			final float angle,
+			final float density)
+	{
+		if (halfWidth <= 0 || halfHeight <= 0)
+		{
+			throw new IllegalArgumentException("Tried to add a box with invalid extents");
+		}
+		final float mass = density * 4 * halfWidth * halfHeight;
+		final float inertia = mass * (halfWidth * halfWidth + halfHeight * halfHeight) / 3;
+		return addBody(ShapeType.RECTANGLE, x, y, halfWidth, halfHeight, angle, mass, inertia);
+	}
+
+	/**
+	 * Adds a circle.
+	 *
+	 * @param x
+	 *            x Coordinate of the center.
+	 * @param y
+	 *            y Coordinate of the center.
+	 * @param radius
+	 *            Radius of the circle.
+	 * @param density
+	 *            Mass per area, zero creates a static circle.
+	 * @return The id of the body.
+	 */
+	public int addCircle(final float x, final float y, final float radius, final float density)
+	{
+		if (radius <= 0)
+		{
+			throw new IllegalArgumentException("Tried to add a circle with invalid radius");
+		}
+		final float mass = density * GMath.PIF * radius * radius;
+		final float inertia = mass * radius * radius / 2;
+		return addBody(ShapeType.CIRCLE, x, y, radius, radius, 0, mass, inertia);
+	}
+
+	private int addBody(
+			final int type,
+			final float x,
+			final float y,
+			final float extentX,
+			final float extentY,
+			final float angle,
+			final float mass,
+			final float inertia)
+	{
+		if (mass < 0)
+		{
+			throw new IllegalArgumentException("Tried to add a body with negative density");
+		}
+		if (bodyCount == positionX.length)
+		{
+			growBodies(bodyCount * 2);
+		}
+		final int body = bodyCount++;
+		shapeTypes[body] = type;
+		positionX[body] = x;
+		positionY[body] = y;
+		cosines[body] = (float) Math.cos(angle);
+		sines[body] = (float) Math.sin(angle);
+		velocityX[body] = 0;
+		velocityY[body] = 0;
+		angularVelocity[body] = 0;
+		inverseMass[body] = mass == 0 ? 0 : 1 / mass;
+		inverseInertia[body] = inertia == 0 ? 0 : 1 / inertia;
+		halfWidth[body] = extentX;
+		halfHeight[body] = extentY;
+		friction[body] = 0.5f;
+		restitution[body] = 0;
+		awake[body] = true;
+		sleepTimes[body] = 0;
+		sleepRings[body] = body;
+		return body;
+	}
+
+	private void growBodies(final int capacity)
+	{
+		shapeTypes = Arrays.copyOf(shapeTypes, capacity);
+		positionX = Arrays.copyOf(positionX, capacity);
+		positionY = Arrays.copyOf(positionY, capacity);
+		cosines = Arrays.copyOf(cosines, capacity);
+		sines = Arrays.copyOf(sines, capacity);
+		velocityX = Arrays.copyOf(velocityX, capacity);
+		velocityY = Arrays.copyOf(velocityY, capacity);
+		angularVelocity = Arrays.copyOf(angularVelocity, capacity);
+		inverseMass = Arrays.copyOf(inverseMass, capacity);
+		inverseInertia = Arrays.copyOf(inverseInertia, capacity);
+		halfWidth = Arrays.copyOf(halfWidth, capacity);
+		halfHeight = Arrays.copyOf(halfHeight, capacity);
+		friction = Arrays.copyOf(friction, capacity);
+		restitution = Arrays.copyOf(restitution, capacity);
+		bounds = Arrays.copyOf(bounds, capacity * ParallelPairFinder.STRIDE);
+		awake = Arrays.copyOf(awake, capacity);
+		sleepTimes = Arrays.copyOf(sleepTimes, capacity);
+		sleepRings = Arrays.copyOf(sleepRings, capacity);
+		movedStatics = Arrays.copyOf(movedStatics, capacity);
+		bodyIslands = Arrays.copyOf(bodyIslands, capacity);
+		rootIslands = Arrays.copyOf(rootIslands, capacity);
+		islandBodies = Arrays.copyOf(islandBodies, capacity);
+	}
+
+	/**
+	 * @return The number of bodies.
+	 */
+	public int getBodyCount()
+	{
+		return bodyCount;
+	}
+
+	/**
+	 * @return The number of touching pairs of the last step.
+	 */
+	public int getContactCount()
+	{
+		return contactCount;
+	}
+
+	/**
+	 * @return The number of awake islands of the last step.
+	 */
+	public int getIslandCount()
+	{
+		return islandCount;
+	}
+
+	/**
+	 * @return True, if the body is simulated, static bodies are always awake.
+	 */
+	public boolean isAwake(final int body)
+	{
+		return awake[body];
+	}
+
+	/**
+	 * Wakes the body and all bodies of the island, it fell asleep with.
+	 */
+	public void wake(final int body)
+	{
+		int current = body;
+		do
+		{
+			awake[current] = true;
+			sleepTimes[current] = 0;
+			final int next = sleepRings[current];
+			sleepRings[current] = current;
+			current = next;
+		}
+		while (current != body);
+	}
+
+	/**
+	 * @return The type of the body as defined in {@link ShapeType}.
+	 */
+	public int getShapeType(final int body)
+	{
+		return shapeTypes[body];
+	}
+
+	public float getX(final int body)
+	{
+		return positionX[body];
+	}
+
+	public float getY(final int body)
+	{
+		return positionY[body];
+	}
+
+	/**
+	 * @return The rotation of the body in radians.
+	 */
+	public float getAngle(final int body)
+	{
+		return GMath.atan2(sines[body], cosines[body]);
+	}
+
+	/**
+	 * Moves the body and wakes it. Moving a static body wakes the sleeping islands, that touch it
+	 * at its old or new position, with the next step.
+	 */
+	public void setPosition(final int body, final float x, final float y)
+	{
+		positionX[body] = x;
+		positionY[body] = y;
+		wake(body);
+		if (inverseMass[body] == 0 && !movedStatics[body])
+		{
+			movedStatics[body] = true;
+			movedStaticCount++;
+		}
+	}
+
+	public float getVelocityX(final int body)
+	{
+		return velocityX[body];
+	}
+
+	public float getVelocityY(final int body)
+	{
+		return velocityY[body];
+	}
+
+	public void setVelocity(final int body, final float x, final float y)
+	{
+		velocityX[body] = x;
+		velocityY[body] = y;
+		wake(body);
+	}
+
+	public float getAngularVelocity(final int body)
+	{
+		return angularVelocity[body];
+	}
+
+	public void setAngularVelocity(final int body, final float velocity)
+	{
+		angularVelocity[body] = velocity;
+		wake(body);
+	}
+
+	/**
+	 * @return True, if the body has infinite mass.
+	 */
+	public boolean isStatic(final int body)
+	{
+		return inverseMass[body] == 0;
+	}
+
+	/**
+	 * Sets the friction coefficient of the body, the coefficients of two bodies are combined by
+	 * their geometric mean.
+	 */
+	public void setFriction(final int body, final float value)
+	{
+		friction[body] = value;
+	}
+
+	/**
+	 * Sets the restitution of the body, the larger restitution of two bodies is used.
+	 */
+	public void setRestitution(final int body, final float value)
+	{
+		restitution[body] = value;
+	}
+
+	/**
+	 * Advances the simulation.
+	 *
+	 * @param deltaTime
+	 *            The time step in seconds.
+	 */
+	public void step(final float deltaTime)
+	{
+		if (deltaTime <= 0)
+		{
+			throw new IllegalArgumentException("Tried to step with time " + deltaTime);
+		}
+		integrateVelocities(deltaTime);
+		if (movedStaticCount > 0)
+		{
+			// The pairs of the last step still hold the old positions of the moved static bodies
+			wakeMovedStaticPairs();
+		}
+		updateBounds();
+		if (pool == null)
+		{
+			pairFinder.findPairs(bounds, bodyCount);
+		}
+		else
+		{
+			pairFinder.findPairs(bounds, bodyCount, pool);
+		}
+		if (movedStaticCount > 0)
+		{
+			wakeMovedStaticPairs();
+			Arrays.fill(movedStatics, 0, bodyCount, false);
+			movedStaticCount = 0;
+		}
+		wakeOverlapping();
+		cache.beginFrame();
+		createContacts(deltaTime);
+		buildIslands();
+		if (pool == null || islandCount < 2 || contactCount < PARALLEL_THRESHOLD)
+		{
+			solveIslands(0, islandCount);
+		}
+		else
+		{
+			pool.invoke(new SolveIslands(0, islandCount));
+		}
+		storeImpulses();
+		cache.removeStale();
+		integratePositions(deltaTime);
+		if (sleepingEnabled)
+		{
+			updateSleep(deltaTime);
+		}
+	}
+
+	/**
+	 * @return True, if the body is dynamic and awake.
+	 */
+	private boolean isActive(final int body)
+	{
+		return inverseMass[body] != 0 && awake[body];
+	}
+
+	private void integrateVelocities(final float deltaTime)
+	{
+		final float dvX = gravityX * deltaTime;
+		final float dvY = gravityY * deltaTime;
+		for (int body = 0; body < bodyCount; body++)
+		{
+			if (isActive(body))
+			{
+				velocityX[body] += dvX;
+				velocityY[body] += dvY;
+			}
+		}
+	}
+
+	private void updateBounds()
+	{
+		for (int body = 0; body < bodyCount; body++)
+		{
+			final float cos = GMath.abs(cosines[body]);
+			final float sin = GMath.abs(sines[body]);
+			final float extentX = cos * halfWidth[body] + sin * halfHeight[body];
+			final float extentY = sin * halfWidth[body] + cos * halfHeight[body];
+			final int offset = body * ParallelPairFinder.STRIDE;
+			bounds[offset] = positionX[body] - extentX;
+			bounds[offset + 1] = positionY[body] - extentY;
+			bounds[offset + 2] = extentX * 2;
+			bounds[offset + 3] = extentY * 2;
+		}
+	}
+
+	private void integratePositions(final float deltaTime)
+	{
+		for (int body = 0; body < bodyCount; body++)
+		{
+			if (!isActive(body))
+			{
+				continue;
+			}
+			positionX[body] += velocityX[body] * deltaTime;
+			positionY[body] += velocityY[body] * deltaTime;
+			final float rotation = angularVelocity[body] * deltaTime;
+			if (rotation != 0)
+			{
+				final float cos = cosines[body] - sines[body] * rotation;
+				final float sin = sines[body] + cosines[body] * rotation;
+				final float length = VectorUtils.length(cos, sin);
+				cosines[body] = cos / length;
+				sines[body] = sin / length;
+			}
+		}
+	}
+
+	/**
+	 * Wakes all sleeping islands, whose bounds overlap an awake body, until no more islands wake.
+	 */
+	private void wakeOverlapping()
+	{
+		final long[] pairs = pairFinder.getPairs();
+		final int pairCount = pairFinder.getPairCount();
+		boolean woken = true;
+		while (woken)
+		{
+			woken = false;
+			for (int i = 0; i < pairCount; i++)
+			{
+				final int bodyA = ParallelPairFinder.getFirst(pairs[i]);
+				final int bodyB = ParallelPairFinder.getSecond(pairs[i]);
+				if (awake[bodyA] != awake[bodyB] && (isActive(bodyA) || isActive(bodyB)))
+				{
+					wake(awake[bodyA] ? bodyB : bodyA);
+					woken = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Wakes all sleeping islands, whose bounds overlap a moved static body in the current pairs.
+	 */
+	private void wakeMovedStaticPairs()
+	{
+		final long[] pairs = pairFinder.getPairs();
+		final int pairCount = pairFinder.getPairCount();
+		for (int i = 0; i < pairCount; i++)
+		{
+			final int bodyA = ParallelPairFinder.getFirst(pairs[i]);
+			final int bodyB = ParallelPairFinder.getSecond(pairs[i]);
+			if (movedStatics[bodyA] && !awake[bodyB])
+			{
+				wake(bodyB);
+			}
+			else if (movedStatics[bodyB] && !awake[bodyA])
+			{
+				wake(bodyA);
+			}
+		}
+	}
+
+	/**
+	 * Creates the contact constraints of all touching pairs with at least one active body. The
+	 * cached impulses of sleeping pairs are kept for the time they wake up.
+	 */
+	private void createContacts(final float deltaTime)
+	{
+		contactCount = 0;
+		final long[] pairs = pairFinder.getPairs();
+		final int pairCount = pairFinder.getPairCount();
+		for (int i = 0; i < pairCount; i++)
+		{
+			final long key = pairs[i];
+			final int bodyA = ParallelPairFinder.getFirst(key);
+			final int bodyB = ParallelPairFinder.getSecond(key);
+			if (!isActive(bodyA) && !isActive(bodyB))
+			{
+				if (inverseMass[bodyA] != 0 || inverseMass[bodyB] != 0)
+				{
+					cache.keep(key);
+				}
+				continue;
+			}
+			if (!collide(bodyA, bodyB))
+			{
+				continue;
+			}
+			cache.warmStart(key, manifold);
+			addContact(key, bodyA, bodyB, deltaTime);
+		}
+	}
+
+	private boolean collide(final int bodyA, final int bodyB)
+	{
+		final boolean circleA = shapeTypes[bodyA] == ShapeType.CIRCLE;
+		final boolean circleB = shapeTypes[bodyB] == ShapeType.CIRCLE;
+		if (circleA && circleB)
+		{
+			return generator.collideCircles(
+					positionX[bodyA],
+					positionY[bodyA],
+					halfWidth[bodyA],
+					positionX[bodyB],
+					positionY[bodyB],
+					halfWidth[bodyB],
+					manifold);
+		}
+		if (circleA || circleB)
+		{
+			final int box = circleA ? bodyB : bodyA;
+			final int circle = circleA ? bodyA : bodyB;
+			setCorners(box, cornersA);
+			final boolean hit = generator.collideBoxCircle(
+					cornersA[0],
+					cornersA[1],
+					cornersA[2],
+					cornersA[3],
+					cornersA[4],
+					cornersA[5],
+					positionX[circle],
+					positionY[circle],
+					halfWidth[circle],
+					manifold);
+			if (circleA)
+			{
+				manifold.flip();
+			}
+			return hit;
+		}
+		setCorners(bodyA, cornersA);
+		setCorners(bodyB, cornersB);
+		return generator.collideBoxes(
+				cornersA[0],
+				cornersA[1],
+				cornersA[2],
+				cornersA[3],
+				cornersA[4],
+				cornersA[5],
+				cornersB[0],
+				cornersB[1],
+				cornersB[2],
+				cornersB[3],
+				cornersB[4],
+				cornersB[5],
+				manifold);
+	}
+
+	/**
+	 * Writes the lower left, upper left and lower right corner of the box into the array.
+	 */
+	private void setCorners(final int body, final float[] corners)
+	{
+		final float axisXX = cosines[body] * halfWidth[body];
+		final float axisXY = sines[body] * halfWidth[body];
+		final float axisYX = -sines[body] * halfHeight[body];
+		final float axisYY = cosines[body] * halfHeight[body];
+		corners[0] = positionX[body] - axisXX - axisYX;
+		corners[1] = positionY[body] - axisXY - axisYY;
+		corners[2] = corners[0] + axisYX * 2;
+		corners[3] = corners[1] + axisYY * 2;
+		corners[4] = corners[0] + axisXX * 2;
+		corners[5] = corners[1] + axisXY * 2;
+	}
+
+	/**
+	 * Copies the manifold into the contact arrays and precomputes the effective masses and the
+	 * velocity bias of its points.
+	 */
+	private void addContact(final long key, final int bodyA, final int bodyB, final float deltaTime)
+	{
+		if (contactCount == contactKeys.length)
+		{
+			growContacts(GMath.max(contactCount * 2, 64));
+		}
+		final int contact = contactCount++;
+		final float normalX = manifold.getNormalX();
+		final float normalY = manifold.getNormalY();
+		final float tangentX = normalY;
+		final float tangentY = -normalX;
+		final float inverseMassA = inverseMass[bodyA];
+		final float inverseMassB = inverseMass[bodyB];
+		final float inverseInertiaA = inverseInertia[bodyA];
+		final float inverseInertiaB = inverseInertia[bodyB];
+		final float combinedRestitution = GMath.max(restitution[bodyA], restitution[bodyB]);
+		contactKeys[contact] = key;
+		contactBodyA[contact] = bodyA;
+		contactBodyB[contact] = bodyB;
+		contactPointCounts[contact] = manifold.getPointCount();
+		contactNormalX[contact] = normalX;
+		contactNormalY[contact] = normalY;
+		contactFriction[contact] = GMath.sqrt(friction[bodyA] * friction[bodyB]);
+		for (int i = 0; i < manifold.getPointCount(); i++)
+		{
+			final int point = contact * POINTS + i;
+			final float relativeAX = manifold.getPointX(i) - positionX[bodyA];
+			final float relativeAY = manifold.getPointY(i) - positionY[bodyA];
+			final float relativeBX = manifold.getPointX(i) - positionX[bodyB];
+			final float relativeBY = manifold.getPointY(i) - positionY[bodyB];
+			pointFeatureIds[point] = manifold.getFeatureId(i);
+			pointRelativeAX[point] = relativeAX;
+			pointRelativeAY[point] = relativeAY;
+			pointRelativeBX[point] = relativeBX;
+			pointRelativeBY[point] = relativeBY;
+
+			final float normalA = VectorUtils.pseudoCross(relativeAX, relativeAY, normalX, normalY);
+			final float normalB = VectorUtils.pseudoCross(relativeBX, relativeBY, normalX, normalY);
+			final float normalMass = inverseMassA + inverseMassB
+					+ inverseInertiaA * normalA * normalA + inverseInertiaB * normalB * normalB;
+			pointNormalMass[point] = normalMass > 0 ? 1 / normalMass : 0;
+			final float tangentA = VectorUtils.pseudoCross(
+					relativeAX,
+					relativeAY,
+					tangentX,
+					tangentY);
+			final float tangentB = VectorUtils.pseudoCross(
+					relativeBX,
+					relativeBY,
+					tangentX,
+					tangentY);
+			final float tangentMass = inverseMassA + inverseMassB
+					+ inverseInertiaA * tangentA * tangentA + inverseInertiaB * tangentB * tangentB;
+			pointTangentMass[point] = tangentMass > 0 ? 1 / tangentMass : 0;
+
+			final float penetrationBias = BAUMGARTE / deltaTime
+					* GMath.max(manifold.getPenetration(i) - LINEAR_SLOP, 0);
+			final float normalVelocity = getRelativeVelocity(
+					bodyA,
+					bodyB,
+					relativeAX,
+					relativeAY,
+					relativeBX,
+					relativeBY,
+					normalX,
+					normalY);
+			final float restitutionBias = normalVelocity < -RESTITUTION_THRESHOLD
+					? -combinedRestitution * normalVelocity : 0;
+			pointBias[point] = GMath.max(penetrationBias, restitutionBias);
+			pointNormalImpulse[point] = manifold.getNormalImpulse(i);
+			pointTangentImpulse[point] = manifold.getTangentImpulse(i);
+		}
+	}
+
+	private void growContacts(final int capacity)
+	{
+		contactKeys = Arrays.copyOf(contactKeys, capacity);
+		contactBodyA = Arrays.copyOf(contactBodyA, capacity);
+		contactBodyB = Arrays.copyOf(contactBodyB, capacity);
+		contactPointCounts = Arrays.copyOf(contactPointCounts, capacity);
+		contactNormalX = Arrays.copyOf(contactNormalX, capacity);
+		contactNormalY = Arrays.copyOf(contactNormalY, capacity);
+		contactFriction = Arrays.copyOf(contactFriction, capacity);
+		final int points = capacity * POINTS;
+		pointFeatureIds = Arrays.copyOf(pointFeatureIds, points);
+		pointRelativeAX = Arrays.copyOf(pointRelativeAX, points);
+		pointRelativeAY = Arrays.copyOf(pointRelativeAY, points);
+		pointRelativeBX = Arrays.copyOf(pointRelativeBX, points);
+		pointRelativeBY = Arrays.copyOf(pointRelativeBY, points);
+		pointNormalMass = Arrays.copyOf(pointNormalMass, points);
+		pointTangentMass = Arrays.copyOf(pointTangentMass, points);
+		pointBias = Arrays.copyOf(pointBias, points);
+		pointNormalImpulse = Arrays.copyOf(pointNormalImpulse, points);
+		pointTangentImpulse = Arrays.copyOf(pointTangentImpulse, points);
+	}
+
+	/**
+	 * @return The velocity of the contact point on the second body relative to the first one along
+	 *         the given direction.
+	 */
+	private float getRelativeVelocity(
+			final int bodyA,
+			final int bodyB,
+			final float relativeAX,
+			final float relativeAY,
+			final float relativeBX,
+			final float relativeBY,
+			final float directionX,
+			final float directionY)
+	{
+		final float velocityDifX = velocityX[bodyB] - angularVelocity[bodyB] * relativeBY
+				- velocityX[bodyA] + angularVelocity[bodyA] * relativeAY;
+		final float velocityDifY = velocityY[bodyB] + angularVelocity[bodyB] * relativeBX
+				- velocityY[bodyA] - angularVelocity[bodyA] * relativeAX;
+		return VectorUtils.dot(velocityDifX, velocityDifY, directionX, directionY);
+	}
+
+	/**
+	 * Groups the active bodies and the contacts into islands. Bodies are merged by the contacts,
+	 * which connect two dynamic bodies, and sorted by island with a counting sort, so do the
+	 * contacts.
+	 */
+	private void buildIslands()
+	{
+		islandSets.reset(bodyCount);
+		for (int contact = 0; contact < contactCount; contact++)
+		{
+			final int bodyA = contactBodyA[contact];
+			final int bodyB = contactBodyB[contact];
+			if (inverseMass[bodyA] != 0 && inverseMass[bodyB] != 0)
+			{
+				islandSets.union(bodyA, bodyB);
+			}
+		}
+		Arrays.fill(rootIslands, 0, bodyCount, -1);
+		islandCount = 0;
+		for (int body = 0; body < bodyCount; body++)
+		{
+			if (!isActive(body))
+			{
+				bodyIslands[body] = -1;
+				continue;
+			}
+			final int root = islandSets.find(body);
+			if (rootIslands[root] < 0)
+			{
+				rootIslands[root] = islandCount++;
+			}
+			bodyIslands[body] = rootIslands[root];
+		}
+		if (islandBodyStarts.length < islandCount + 1)
+		{
+			islandBodyStarts = new int[GMath.max(islandCount + 1, islandBodyStarts.length * 2)];
+			islandContactStarts = new int[islandBodyStarts.length];
+		}
+		if (islandContacts.length < contactCount)
+		{
+			islandContacts = new int[contactKeys.length];
+		}
+		Arrays.fill(islandBodyStarts, 0, islandCount + 1, 0);
+		Arrays.fill(islandContactStarts, 0, islandCount + 1, 0);
+		for (int body = 0; body < bodyCount; body++)
+		{
+			if (bodyIslands[body] >= 0)
+			{
+				islandBodyStarts[bodyIslands[body] + 1]++;
+			}
+		}
+		for (int contact = 0; contact < contactCount; contact++)
+		{
+			islandContactStarts[getIsland(contact) + 1]++;
+		}
+		for (int island = 0; island < islandCount; island++)
+		{
+			islandBodyStarts[island + 1] += islandBodyStarts[island];
+			islandContactStarts[island + 1] += islandContactStarts[island];
+		}
+		for (int body = 0; body < bodyCount; body++)
+		{
+			if (bodyIslands[body] >= 0)
+			{
+				islandBodies[islandBodyStarts[bodyIslands[body]]++] = body;
+			}
+		}
+		for (int contact = 0; contact < contactCount; contact++)
+		{
+			islandContacts[islandContactStarts[getIsland(contact)]++] = contact;
+		}
+		for (int island = islandCount; island > 0; island--)
+		{
+			islandBodyStarts[island] = islandBodyStarts[island - 1];
+			islandContactStarts[island] = islandContactStarts[island - 1];
+		}
+		islandBodyStarts[0] = 0;
+		islandContactStarts[0] = 0;
+	}
+
+	/**
+	 * @return The island of the active body of the contact.
+	 */
+	private int getIsland(final int contact)
+	{
+		final int bodyA = contactBodyA[contact];
+		return bodyIslands[bodyA] >= 0 ? bodyIslands[bodyA] : bodyIslands[contactBodyB[contact]];
+	}
+
+	/**
+	 * Warm starts and solves the contacts of the islands of the range.
+	 */
+	private void solveIslands(final int fromIsland, final int toIsland)
+	{
+		for (int island = fromIsland; island < toIsland; island++)
+		{
+			final int from = islandContactStarts[island];
+			final int to = islandContactStarts[island + 1];
+			if (from == to)
+			{
+				continue;
+			}
+			warmStart(from, to);
+			for (int i = 0; i < iterations; i++)
+			{
+				solveVelocities(from, to);
+			}
+		}
+	}
+
+	/**
+	 * Puts islands to sleep, whose bodies were all at rest for {@link #TIME_TO_SLEEP} seconds.
+	 * The bodies of a sleeping island are linked to a ring, so waking one of them wakes all.
+	 */
+	private void updateSleep(final float deltaTime)
+	{
+		final float linearTolerance = LINEAR_SLEEP_TOLERANCE * LINEAR_SLEEP_TOLERANCE;
+		final float angularTolerance = ANGULAR_SLEEP_TOLERANCE * ANGULAR_SLEEP_TOLERANCE;
+		for (int island = 0; island < islandCount; island++)
+		{
+			final int from = islandBodyStarts[island];
+			final int to = islandBodyStarts[island + 1];
+			float minSleepTime = Float.MAX_VALUE;
+			for (int i = from; i < to; i++)
+			{
+				final int body = islandBodies[i];
+				final float angular = angularVelocity[body];
+				if (VectorUtils.squaredLength(velocityX[body], velocityY[body]) > linearTolerance
+						|| angular * angular > angularTolerance)
+				{
+					sleepTimes[body] = 0;
+				}
+				else
+				{
+					sleepTimes[body] += deltaTime;
+				}
+				minSleepTime = GMath.min(minSleepTime, sleepTimes[body]);
+			}
+			if (minSleepTime < TIME_TO_SLEEP)
+			{
+				continue;
+			}
+			for (int i = from; i < to; i++)
+			{
+				final int body = islandBodies[i];
+				awake[body] = false;
+				sleepRings[body] = islandBodies[i + 1 < to ? i + 1 : from];
+				velocityX[body] = 0;
+				velocityY[body] = 0;
+				angularVelocity[body] = 0;
+			}
+		}
+	}
+
+	/**
+	 * Applies the impulse to the first body negated and to the second body as is.
+	 */
+	private void applyImpulse(
+			final int bodyA,
+			final int bodyB,
+			final int point,
+			final float impulseX,
+			final float impulseY)
+	{
+		// Static bodies are shared by islands, which may be solved in parallel
+		if (inverseMass[bodyA] != 0)
+		{
+			velocityX[bodyA] -= inverseMass[bodyA] * impulseX;
+			velocityY[bodyA] -= inverseMass[bodyA] * impulseY;
+			angularVelocity[bodyA] -= inverseInertia[bodyA] * VectorUtils.pseudoCross(
+					pointRelativeAX[point],
+					pointRelativeAY[point],
+					impulseX,
+					impulseY);
+		}
+		if (inverseMass[bodyB] != 0)
+		{
+			velocityX[bodyB] += inverseMass[bodyB] * impulseX;
+			velocityY[bodyB] += inverseMass[bodyB] * impulseY;
+			angularVelocity[bodyB] += inverseInertia[bodyB] * VectorUtils.pseudoCross(
+					pointRelativeBX[point],
+					pointRelativeBY[point],
+					impulseX,
+					impulseY);
+		}
+	}
+
+	/**
+	 * Applies the impulses accumulated in the previous step to the contacts of the range of the
+	 * contacts sorted by island.
+	 */
+	private void warmStart(final int from, final int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			final int contact = islandContacts[i];
+			final int bodyA = contactBodyA[contact];
+			final int bodyB = contactBodyB[contact];
+			final float normalX = contactNormalX[contact];
+			final float normalY = contactNormalY[contact];
+			for (int j = 0; j < contactPointCounts[contact]; j++)
+			{
+				final int point = contact * POINTS + j;
+				final float normalImpulse = pointNormalImpulse[point];
+				final float tangentImpulse = pointTangentImpulse[point];
+				applyImpulse(
+						bodyA,
+						bodyB,
+						point,
+						normalX * normalImpulse + normalY * tangentImpulse,
+						normalY * normalImpulse - normalX * tangentImpulse);
+			}
+		}
+	}
+
+	/**
+	 * Runs one iteration of sequential impulses over the range of the contacts sorted by island.
+	 */
+	private void solveVelocities(final int from, final int to)
+	{
+		for (int i = from; i < to; i++)
+		{
+			final int contact = islandContacts[i];
+			final int bodyA = contactBodyA[contact];
+			final int bodyB = contactBodyB[contact];
+			final float normalX = contactNormalX[contact];
+			final float normalY = contactNormalY[contact];
+			final float tangentX = normalY;
+			final float tangentY = -normalX;
+			for (int j = 0; j < contactPointCounts[contact]; j++)
+			{
+				final int point = contact * POINTS + j;
+				final float relativeAX = pointRelativeAX[point];
+				final float relativeAY = pointRelativeAY[point];
+				final float relativeBX = pointRelativeBX[point];
+				final float relativeBY = pointRelativeBY[point];
+
+				final float normalVelocity = getRelativeVelocity(
+						bodyA,
+						bodyB,
+						relativeAX,
+						relativeAY,
+						relativeBX,
+						relativeBY,
+						normalX,
+						normalY);
+				final float oldNormalImpulse = pointNormalImpulse[point];
+				final float normalImpulse = GMath.max(
+						oldNormalImpulse
+								+ pointNormalMass[point] * (pointBias[point] - normalVelocity),
+						0);
+				pointNormalImpulse[point] = normalImpulse;
+				final float normalDelta = normalImpulse - oldNormalImpulse;
+				applyImpulse(bodyA, bodyB, point, normalX * normalDelta, normalY * normalDelta);
+
+				final float tangentVelocity = getRelativeVelocity(
+						bodyA,
+						bodyB,
+						relativeAX,
+						relativeAY,
+						relativeBX,
+						relativeBY,
+						tangentX,
+						tangentY);
+				final float maxFriction = contactFriction[contact] * normalImpulse;
+				final float oldTangentImpulse = pointTangentImpulse[point];
+				final float tangentImpulse = GMath.clamp(
+						oldTangentImpulse - pointTangentMass[point] * tangentVelocity,
+						-maxFriction,
+						maxFriction);
+				pointTangentImpulse[point] = tangentImpulse;
+				final float tangentDelta = tangentImpulse - oldTangentImpulse;
+				applyImpulse(bodyA, bodyB, point, tangentX * tangentDelta, tangentY * tangentDelta);
+			}
+		}
+	}
+
+	/**
+	 * Stores the accumulated impulses of all contacts in the cache for the next step.
+	 */
+	private void storeImpulses()
+	{
+		for (int contact = 0; contact < contactCount; contact++)
+		{
+			manifold.clear();
+			for (int i = 0; i < contactPointCounts[contact]; i++)
+			{
+				final int point = contact * POINTS + i;
+				manifold.addPoint(0, 0, 0, pointFeatureIds[point]);
+				manifold.setNormalImpulse(i, pointNormalImpulse[point]);
+				manifold.setTangentImpulse(i, pointTangentImpulse[point]);
+			}
+			cache.store(contactKeys[contact], manifold);
+		}
+	}
+
+	/**
+	 * Splits a range of islands at the middle contact, until it has few contacts or one island.
+	 */
+	private final class SolveIslands extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= 4630541367307291856L;
+		private final int			fromIsland;
+		private final int			toIsland;
+
+
+		SolveIslands(final int fromIsland, final int toIsland)
+		{
+			this.fromIsland = fromIsland;
+			this.toIsland = toIsland;
+		}
+
+		@Override
+		protected void compute()
+		{
+			final int fromContact = islandContactStarts[fromIsland];
+			final int toContact = islandContactStarts[toIsland];
+			if (toIsland - fromIsland < 2 || toContact - fromContact < PARALLEL_THRESHOLD)
+			{
+				solveIslands(fromIsland, toIsland);
+				return;
+			}
+			final int middleContact = fromContact + toContact >>> 1;
+			int middle = fromIsland + 1;
+			while (middle < toIsland - 1 && islandContactStarts[middle + 1] <= middleContact)
+			{
+				middle++;
+			}
+			invokeAll(new SolveIslands(fromIsland, middle), new SolveIslands(middle, toIsland));
+		}
+	}
+}
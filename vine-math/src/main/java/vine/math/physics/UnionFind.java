@@ -0,0 +1,95 @@
+package vine.math.physics;
+
+
+import java.util.Arrays;
+
+import vine.math.GMath;
+
+
+/**
+ * Disjoint sets of the integers from zero to the size of the sets, stored in int arrays.
+ * <p>
+ * Sets are merged by size and paths are halved while searching, so both operations take nearly
+ * constant time.
+ * </p>
+ */
+public final class UnionFind
+{
+
+	private int[]	parents	= new int[0];
+	private int[]	sizes	= new int[0];
+	private int		size;
+
+
+	/**
+	 * Puts each element from zero to size - 1 into its own set.
+	 */
+	public void reset(final int size)
+	{
+		if (parents.length < size)
+		{
+			parents = new int[GMath.max(size, parents.length * 2)];
+			sizes = new int[parents.length];
+		}
+		for (int i = 0; i < size; i++)
+		{
+			parents[i] = i;
+		}
+		Arrays.fill(sizes, 0, size, 1);
+		this.size = size;
+	}
+
+	/**
+	 * @return The number of elements.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @return The representative element of the set, that contains the element.
+	 */
+	public int find(final int element)
+	{
+		int current = element;
+		while (parents[current] != current)
+		{
+			parents[current] = parents[parents[current]];
+			current = parents[current];
+		}
+		return current;
+	}
+
+	/**
+	 * Merges the sets of both elements.
+	 *
+	 * @return The representative of the merged set.
+	 */
+	public int union(final int a, final int b)
+	{
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA == rootB)
+		{
+			return rootA;
+		}
+		if (sizes[rootA] < sizes[rootB])
+		{
+			final int swap = rootA;
+			rootA = rootB;
+			rootB = swap;
+		}
+		parents[rootB] = rootA;
+		sizes[rootA] += sizes[rootB];
+		return rootA;
+	}
+
+	/**
+	 * @return The number of elements in the set of the element.
+	 */
+	public int getSetSize(final int element)
+	{
+		return sizes[find(element)];
+	}
+}
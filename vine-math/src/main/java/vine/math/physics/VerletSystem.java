@@ -0,0 +1,772 @@
+package vine.math.physics;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vine.math.GMath;
+import vine.math.HitData;
+import vine.math.Intersection;
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.vector.VectorUtils;
+
+
+/**
+ * Particles, that are integrated with position based Verlet integration and connected by distance,
+ * angle and pin constraints, e.g. for ropes, cloth and debris.
+ * <p>
+ * The current and previous positions of all particles are packed into float arrays as x and y
+ * pairs, the velocity is implicitly given by their difference. The constraints are solved by
+ * Gauss-Seidel iterations, which move the particles directly. Distance and angle constraints are
+ * colored, so no two constraints of one color share a particle. The constraints of one color are
+ * solved in parallel, if a pool is set. Particles collide with {@link Aabb} and {@link Circle}
+ * colliders through the tests of {@link Intersection}.
+ * </p>
+ */
+public class VerletSystem
+{
+
+	/**
+	 * Number of colors, that can be solved in parallel. Constraints, that do not fit into them, are
+	 * solved on the calling thread.
+	 */
+	private static final int	COLORS					= 64;
+	/**
+	 * Number of constraints of one color, below which they are solved on the calling thread.
+	 */
+	private static final int	PARALLEL_THRESHOLD		= 4096;
+
+	private final HitData		hitData					= new HitData();
+	private float				gravityX;
+	private float				gravityY				= -9.81f;
+	private float				damping					= 0.99f;
+	private int					iterations				= 4;
+	private float				particleRadius;
+	private ForkJoinPool		pool;
+
+	private int					particleCount;
+	private float[]				positions;
+	private float[]				previousPositions;
+	private float[]				inverseMasses;
+
+	private int					distanceCount;
+	private int[]				distanceParticles		= new int[0];
+	private float[]				restLengths				= new float[0];
+	private float[]				distanceStiffness		= new float[0];
+	private int[]				distanceColorStarts		= new int[COLORS + 2];
+
+	private int					angleCount;
+	private int[]				angleParticles			= new int[0];
+	private float[]				restAngles				= new float[0];
+	private float[]				angleStiffness			= new float[0];
+	private int[]				angleColorStarts		= new int[COLORS + 2];
+
+	private int					pinCount;
+	private int[]				pinParticles			= new int[0];
+	private float[]				pinPositions			= new float[0];
+
+	private int					aabbCount;
+	private Aabb[]				aabbs					= new Aabb[0];
+	private int					circleCount;
+	private Circle[]			circles					= new Circle[0];
+
+	/**
+	 * True, if constraints were added since they were colored.
+	 */
+	private boolean				dirty;
+
+
+	/**
+	 * Creates a new system.
+	 *
+	 * @param expectedParticles
+	 *            The number of particles, the system can hold without growing.
+	 */
+	public VerletSystem(final int expectedParticles)
+	{
+		final int capacity = GMath.max(expectedParticles, 16);
+		positions = new float[capacity * 2];
+		previousPositions = new float[capacity * 2];
+		inverseMasses = new float[capacity];
+	}
+
+	/**
+	 * Sets the acceleration applied to all particles.
+	 */
+	public void setGravity(final float x, final float y)
+	{
+		gravityX = x;
+		gravityY = y;
+	}
+
+	/**
+	 * Sets the fraction of the velocity, that is kept in each step.
+	 */
+	public void setDamping(final float damping)
+	{
+		if (damping < 0 || damping > 1)
+		{
+			throw new IllegalArgumentException("Tried to set damping to " + damping);
+		}
+		this.damping = damping;
+	}
+
+	/**
+	 * Sets the number of Gauss-Seidel iterations of each step.
+	 */
+	public void setIterations(final int iterations)
+	{
+		if (iterations < 1)
+		{
+			throw new IllegalArgumentException("Tried to set iterations to " + iterations);
+		}
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Sets the radius of all particles, which is used for collisions.
+	 */
+	public void setParticleRadius(final float radius)
+	{
+		if (radius < 0)
+		{
+			throw new IllegalArgumentException("Tried to set a negative particle radius");
+		}
+		particleRadius = radius;
+	}
+
+	/**
+	 * Sets the pool, that solves the constraints of each color in parallel, or null to solve on
+	 * the calling thread.
+	 */
+	public void setPool(final ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Adds a particle at rest.
+	 *
+	 * @param mass
+	 *            The mass of the particle, zero creates a particle, that is never moved.
+	 * @return The id of the particle.
+	 */
+	public int addParticle(final float x, final float y, final float mass)
+	{
+		if (mass < 0)
+		{
+			throw new IllegalArgumentException("Tried to add a particle with negative mass");
+		}
+		if (particleCount == inverseMasses.length)
+		{
+			final int capacity = particleCount * 2;
+			positions = Arrays.copyOf(positions, capacity * 2);
+			previousPositions = Arrays.copyOf(previousPositions, capacity * 2);
+			inverseMasses = Arrays.copyOf(inverseMasses, capacity);
+		}
+		final int particle = particleCount++;
+		positions[particle * 2] = x;
+		positions[particle * 2 + 1] = y;
+		previousPositions[particle * 2] = x;
+		previousPositions[particle * 2 + 1] = y;
+		inverseMasses[particle] = mass == 0 ? 0 : 1 / mass;
+		return particle;
+	}
+
+	/**
+	 * @return The number of particles.
+	 */
+	public int getParticleCount()
+	{
+		return particleCount;
+	}
+
+	public float getX(final int particle)
+	{
+		return positions[particle * 2];
+	}
+
+	public float getY(final int particle)
+	{
+		return positions[particle * 2 + 1];
+	}
+
+	/**
+	 * Moves the particle and stops it.
+	 */
+	public void setPosition(final int particle, final float x, final float y)
+	{
+		positions[particle * 2] = x;
+		positions[particle * 2 + 1] = y;
+		previousPositions[particle * 2] = x;
+		previousPositions[particle * 2 + 1] = y;
+	}
+
+	/**
+	 * Sets the velocity of the particle for the given time step by moving its previous position.
+	 */
+	public void setVelocity(
+			final int particle,
+			final float x,
+			final float y,
+			final float deltaTime)
+	{
+		previousPositions[particle * 2] = positions[particle * 2] - x * deltaTime;
+		previousPositions[particle * 2 + 1] = positions[particle * 2 + 1] - y * deltaTime;
+	}
+
+	/**
+	 * @return The packed x and y coordinates of all particles, which must not be changed.
+	 */
+	public float[] getPositions()
+	{
+		return positions;
+	}
+
+	/**
+	 * Adds a constraint, which keeps the two particles at their current distance.
+	 *
+	 * @param stiffness
+	 *            Fraction of the error, that is corrected in each iteration, from zero to one.
+	 */
+	public void addDistanceConstraint(
+			final int particleA,
+			final int particleB,
+			final float stiffness)
+	{
+		checkParticle(particleA);
+		checkParticle(particleB);
+		if (particleA == particleB)
+		{
+			throw new IllegalArgumentException("Tried to connect a particle with itself");
+		}
+		if (distanceCount == restLengths.length)
+		{
+			final int capacity = GMath.max(distanceCount * 2, 16);
+			distanceParticles = Arrays.copyOf(distanceParticles, capacity * 2);
+			restLengths = Arrays.copyOf(restLengths, capacity);
+			distanceStiffness = Arrays.copyOf(distanceStiffness, capacity);
+		}
+		final int constraint = distanceCount++;
+		distanceParticles[constraint * 2] = particleA;
+		distanceParticles[constraint * 2 + 1] = particleB;
+		restLengths[constraint] = VectorUtils.length(
+				positions[particleB * 2] - positions[particleA * 2],
+				positions[particleB * 2 + 1] - positions[particleA * 2 + 1]);
+		distanceStiffness[constraint] = GMath.clamp(stiffness, 0, 1);
+		dirty = true;
+	}
+
+	/**
+	 * @return The number of distance constraints.
+	 */
+	public int getDistanceConstraintCount()
+	{
+		return distanceCount;
+	}
+
+	/**
+	 * Adds a constraint, which keeps the current angle between the particles a and c at the
+	 * center particle. The constraint rotates a and c around the center, which itself is not
+	 * moved, so it should be combined with distance constraints.
+	 *
+	 * @param stiffness
+	 *            Fraction of the error, that is corrected in each iteration, from zero to one.
+	 */
+	public void addAngleConstraint(
+			final int particleA,
+			final int center,
+			final int particleC,
+			final float stiffness)
+	{
+		checkParticle(particleA);
+		checkParticle(center);
+		checkParticle(particleC);
+		if (angleCount == restAngles.length)
+		{
+			final int capacity = GMath.max(angleCount * 2, 16);
+			angleParticles = Arrays.copyOf(angleParticles, capacity * 3);
+			restAngles = Arrays.copyOf(restAngles, capacity);
+			angleStiffness = Arrays.copyOf(angleStiffness, capacity);
+		}
+		final int constraint = angleCount++;
+		angleParticles[constraint * 3] = particleA;
+		angleParticles[constraint * 3 + 1] = center;
+		angleParticles[constraint * 3 + 2] = particleC;
+		restAngles[constraint] = getAngle(particleA, center, particleC);
+		angleStiffness[constraint] = GMath.clamp(stiffness, 0, 1);
+		dirty = true;
+	}
+
+	/**
+	 * Pins the particle to the given position, it keeps until it is unpinned.
+	 */
+	public void pin(final int particle, final float x, final float y)
+	{
+		checkParticle(particle);
+		for (int i = 0; i < pinCount; i++)
+		{
+			if (pinParticles[i] == particle)
+			{
+				pinPositions[i * 2] = x;
+				pinPositions[i * 2 + 1] = y;
+				return;
+			}
+		}
+		if (pinCount == pinParticles.length)
+		{
+			final int capacity = GMath.max(pinCount * 2, 4);
+			pinParticles = Arrays.copyOf(pinParticles, capacity);
+			pinPositions = Arrays.copyOf(pinPositions, capacity * 2);
+		}
+		pinParticles[pinCount] = particle;
+		pinPositions[pinCount * 2] = x;
+		pinPositions[pinCount * 2 + 1] = y;
+		pinCount++;
+	}
+
+	/**
+	 * Releases the particle from its pin.
+	 *
+	 * @return True, if the particle was pinned.
+	 */
+	public boolean unpin(final int particle)
+	{
+		for (int i = 0; i < pinCount; i++)
+		{
+			if (pinParticles[i] == particle)
+			{
+				pinCount--;
+				pinParticles[i] = pinParticles[pinCount];
+				pinPositions[i * 2] = pinPositions[pinCount * 2];
+				pinPositions[i * 2 + 1] = pinPositions[pinCount * 2 + 1];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds an immovable Aabb, the particles collide with. Changes of the Aabb take effect in the
+	 * next step.
+	 */
+	public void addCollider(final Aabb aabb)
+	{
+		if (aabbCount == aabbs.length)
+		{
+			aabbs = Arrays.copyOf(aabbs, GMath.max(aabbCount * 2, 4));
+		}
+		aabbs[aabbCount++] = aabb;
+	}
+
+	/**
+	 * Adds an immovable circle, the particles collide with. Changes of the circle take effect in
+	 * the next step.
+	 */
+	public void addCollider(final Circle circle)
+	{
+		if (circleCount == circles.length)
+		{
+			circles = Arrays.copyOf(circles, GMath.max(circleCount * 2, 4));
+		}
+		circles[circleCount++] = circle;
+	}
+
+	/**
+	 * Advances the simulation.
+	 *
+	 * @param deltaTime
+	 *            The time step in seconds, which should be constant, as the velocities are given
+	 *            by the positions of the previous step.
+	 */
+	public void step(final float deltaTime)
+	{
+		if (deltaTime <= 0)
+		{
+			throw new IllegalArgumentException("Tried to step with time " + deltaTime);
+		}
+		if (dirty)
+		{
+			colorConstraints();
+		}
+		integrate(deltaTime);
+		for (int i = 0; i < iterations; i++)
+		{
+			for (int color = 0; color <= COLORS; color++)
+			{
+				solveColor(distanceColorStarts, color, false);
+			}
+			for (int color = 0; color <= COLORS; color++)
+			{
+				solveColor(angleColorStarts, color, true);
+			}
+			solvePins();
+			solveCollisions();
+		}
+	}
+
+	private void checkParticle(final int particle)
+	{
+		if (particle < 0 || particle >= particleCount)
+		{
+			throw new IllegalArgumentException("Tried to constrain invalid particle " + particle);
+		}
+	}
+
+	private void integrate(final float deltaTime)
+	{
+		final float accelerationX = gravityX * deltaTime * deltaTime;
+		final float accelerationY = gravityY * deltaTime * deltaTime;
+		for (int particle = 0; particle < particleCount; particle++)
+		{
+			if (inverseMasses[particle] == 0)
+			{
+				continue;
+			}
+			final int x = particle * 2;
+			final int y = x + 1;
+			final float currentX = positions[x];
+			final float currentY = positions[y];
+			positions[x] += (currentX - previousPositions[x]) * damping + accelerationX;
+			positions[y] += (currentY - previousPositions[y]) * damping + accelerationY;
+			previousPositions[x] = currentX;
+			previousPositions[y] = currentY;
+		}
+	}
+
+	/**
+	 * Solves the constraints of one color, the last color holds the constraints, that did not fit
+	 * into the others, and is always solved on the calling thread.
+	 */
+	private void solveColor(final int[] colorStarts, final int color, final boolean angles)
+	{
+		final int from = colorStarts[color];
+		final int to = colorStarts[color + 1];
+		if (from == to)
+		{
+			return;
+		}
+		if (pool == null || color == COLORS || to - from < PARALLEL_THRESHOLD)
+		{
+			solve(from, to, angles);
+		}
+		else
+		{
+			pool.invoke(new Solve(from, to, angles));
+		}
+	}
+
+	private void solve(final int from, final int to, final boolean angles)
+	{
+		if (angles)
+		{
+			solveAngles(from, to);
+		}
+		else
+		{
+			solveDistances(from, to);
+		}
+	}
+
+	private void solveDistances(final int from, final int to)
+	{
+		for (int constraint = from; constraint < to; constraint++)
+		{
+			final int a = distanceParticles[constraint * 2];
+			final int b = distanceParticles[constraint * 2 + 1];
+			final float inverseMassA = inverseMasses[a];
+			final float inverseMassB = inverseMasses[b];
+			final float inverseMassSum = inverseMassA + inverseMassB;
+			if (inverseMassSum == 0)
+			{
+				continue;
+			}
+			final float deltaX = positions[b * 2] - positions[a * 2];
+			final float deltaY = positions[b * 2 + 1] - positions[a * 2 + 1];
+			final float length = VectorUtils.length(deltaX, deltaY);
+			if (length == 0)
+			{
+				continue;
+			}
+			final float correction = (length - restLengths[constraint])
+					/ (length * inverseMassSum) * distanceStiffness[constraint];
+			positions[a * 2] += deltaX * inverseMassA * correction;
+			positions[a * 2 + 1] += deltaY * inverseMassA * correction;
+			positions[b * 2] -= deltaX * inverseMassB * correction;
+			positions[b * 2 + 1] -= deltaY * inverseMassB * correction;
+		}
+	}
+
+	private void solveAngles(final int from, final int to)
+	{
+		for (int constraint = from; constraint < to; constraint++)
+		{
+			final int a = angleParticles[constraint * 3];
+			final int center = angleParticles[constraint * 3 + 1];
+			final int c = angleParticles[constraint * 3 + 2];
+			final float inverseMassA = inverseMasses[a];
+			final float inverseMassC = inverseMasses[c];
+			final float inverseMassSum = inverseMassA + inverseMassC;
+			if (inverseMassSum == 0)
+			{
+				continue;
+			}
+			float error = getAngle(a, center, c) - restAngles[constraint];
+			if (error > GMath.PIF)
+			{
+				error -= GMath.TWO_PIF;
+			}
+			else if (error < -GMath.PIF)
+			{
+				error += GMath.TWO_PIF;
+			}
+			error *= angleStiffness[constraint] / inverseMassSum;
+			// Rotating a towards c and c towards a closes the angle
+			rotate(a, center, error * inverseMassA);
+			rotate(c, center, -error * inverseMassC);
+		}
+	}
+
+	/**
+	 * @return The signed angle from the direction center to a to the direction center to c.
+	 */
+	private float getAngle(final int a, final int center, final int c)
+	{
+		final float centerX = positions[center * 2];
+		final float centerY = positions[center * 2 + 1];
+		final float aX = positions[a * 2] - centerX;
+		final float aY = positions[a * 2 + 1] - centerY;
+		final float cX = positions[c * 2] - centerX;
+		final float cY = positions[c * 2 + 1] - centerY;
+		final float sin = VectorUtils.pseudoCross(aX, aY, cX, cY);
+		return GMath.atan2(sin, VectorUtils.dot(aX, aY, cX, cY));
+	}
+
+	/**
+	 * Rotates the particle by the small angle around the center, keeping its distance.
+	 */
+	private void rotate(final int particle, final int center, final float angle)
+	{
+		if (angle == 0)
+		{
+			return;
+		}
+		final float centerX = positions[center * 2];
+		final float centerY = positions[center * 2 + 1];
+		final float x = positions[particle * 2] - centerX;
+		final float y = positions[particle * 2 + 1] - centerY;
+		final float length = VectorUtils.length(x, y);
+		final float rotatedX = x - y * angle;
+		final float rotatedY = y + x * angle;
+		final float scale = length / VectorUtils.length(rotatedX, rotatedY);
+		positions[particle * 2] = centerX + rotatedX * scale;
+		positions[particle * 2 + 1] = centerY + rotatedY * scale;
+	}
+
+	private void solvePins()
+	{
+		for (int i = 0; i < pinCount; i++)
+		{
+			final int particle = pinParticles[i];
+			positions[particle * 2] = pinPositions[i * 2];
+			positions[particle * 2 + 1] = pinPositions[i * 2 + 1];
+		}
+	}
+
+	/**
+	 * Pushes all particles out of the colliders along the normal of the intersection.
+	 */
+	private void solveCollisions()
+	{
+		for (int collider = 0; collider < aabbCount; collider++)
+		{
+			final Aabb aabb = aabbs[collider];
+			final float minX = aabb.getX() - particleRadius;
+			final float minY = aabb.getY() - particleRadius;
+			final float maxX = aabb.getX() + aabb.getWidth() + particleRadius;
+			final float maxY = aabb.getY() + aabb.getHeight() + particleRadius;
+			for (int particle = 0; particle < particleCount; particle++)
+			{
+				final float x = positions[particle * 2];
+				final float y = positions[particle * 2 + 1];
+				if (x < minX || x > maxX || y < minY || y > maxY || inverseMasses[particle] == 0)
+				{
+					continue;
+				}
+				if (Intersection.intersectObbCircle(
+						aabb.getX(),
+						aabb.getY(),
+						aabb.getX(),
+						aabb.getY() + aabb.getHeight(),
+						aabb.getX() + aabb.getWidth(),
+						aabb.getY(),
+						x,
+						y,
+						particleRadius,
+						hitData))
+				{
+					pushOut(particle);
+				}
+			}
+		}
+		for (int collider = 0; collider < circleCount; collider++)
+		{
+			final Circle circle = circles[collider];
+			final float radius = circle.getRadius() + particleRadius;
+			for (int particle = 0; particle < particleCount; particle++)
+			{
+				final float x = positions[particle * 2];
+				final float y = positions[particle * 2 + 1];
+				if (inverseMasses[particle] == 0
+						|| VectorUtils.squaredLength(x - circle.getX(), y - circle.getY())
+								>= radius * radius
+						|| x == circle.getX() && y == circle.getY())
+				{
+					continue;
+				}
+				Intersection.intersectCircleCircle(
+						circle.getX(),
+						circle.getY(),
+						x,
+						y,
+						circle.getRadius(),
+						particleRadius,
+						hitData);
+				pushOut(particle);
+			}
+		}
+	}
+
+	private void pushOut(final int particle)
+	{
+		final float penetration = hitData.getPenetration();
+		positions[particle * 2] += hitData.getNormal().getX() * penetration;
+		positions[particle * 2 + 1] += hitData.getNormal().getY() * penetration;
+	}
+
+	/**
+	 * Colors the distance and angle constraints greedily, so no two constraints of one color share
+	 * a particle, and sorts them by color.
+	 */
+	private void colorConstraints()
+	{
+		final long[] usedColors = new long[particleCount];
+		final int[] colors = new int[GMath.max(distanceCount, angleCount)];
+		final int[] starts = distanceColorStarts;
+		colorConstraints(distanceParticles, 2, distanceCount, usedColors, colors, starts);
+		distanceParticles = sortByColor(distanceParticles, 2, distanceCount, colors, starts);
+		restLengths = sortByColor(restLengths, distanceCount, colors, starts);
+		distanceStiffness = sortByColor(distanceStiffness, distanceCount, colors, starts);
+		Arrays.fill(usedColors, 0);
+		colorConstraints(angleParticles, 3, angleCount, usedColors, colors, angleColorStarts);
+		angleParticles = sortByColor(angleParticles, 3, angleCount, colors, angleColorStarts);
+		restAngles = sortByColor(restAngles, angleCount, colors, angleColorStarts);
+		angleStiffness = sortByColor(angleStiffness, angleCount, colors, angleColorStarts);
+		dirty = false;
+	}
+
+	/**
+	 * Assigns each constraint the lowest color, none of its particles is used by yet.
+	 *
+	 * @param colorStarts
+	 *            Receives the start of each color in the sorted constraints.
+	 */
+	private static void colorConstraints(
+			final int[] particles,
+			final int stride,
+			final int count,
+			final long[] usedColors,
+			final int[] colors,
+			final int[] colorStarts)
+	{
+		Arrays.fill(colorStarts, 0);
+		for (int constraint = 0; constraint < count; constraint++)
+		{
+			long used = 0;
+			for (int i = 0; i < stride; i++)
+			{
+				used |= usedColors[particles[constraint * stride + i]];
+			}
+			final int color = Long.numberOfTrailingZeros(~used);
+			colors[constraint] = color;
+			colorStarts[color + 1]++;
+			if (color < COLORS)
+			{
+				for (int i = 0; i < stride; i++)
+				{
+					usedColors[particles[constraint * stride + i]] |= 1L << color;
+				}
+			}
+		}
+		for (int color = 0; color <= COLORS; color++)
+		{
+			colorStarts[color + 1] += colorStarts[color];
+		}
+	}
+
+	private static int[] sortByColor(
+			final int[] values,
+			final int stride,
+			final int count,
+			final int[] colors,
+			final int[] colorStarts)
+	{
+		final int[] sorted = new int[values.length];
+		final int[] next = Arrays.copyOf(colorStarts, colorStarts.length);
+		for (int constraint = 0; constraint < count; constraint++)
+		{
+			final int target = next[colors[constraint]]++;
+			System.arraycopy(values, constraint * stride, sorted, target * stride, stride);
+		}
+		return sorted;
+	}
+
+	private static float[] sortByColor(
+			final float[] values,
+			final int count,
+			final int[] colors,
+			final int[] colorStarts)
+	{
+		final float[] sorted = new float[values.length];
+		final int[] next = Arrays.copyOf(colorStarts, colorStarts.length);
+		for (int constraint = 0; constraint < count; constraint++)
+		{
+			sorted[next[colors[constraint]]++] = values[constraint];
+		}
+		return sorted;
+	}
+
+	/**
+	 * Splits a range of constraints of one color, until it is small enough.
+	 */
+	private final class Solve extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= -2201458946519813067L;
+		private final int			from;
+		private final int			to;
+		private final boolean		angles;
+
+
+		Solve(final int from, final int to, final boolean angles)
+		{
+			this.from = from;
+			this.to = to;
+			this.angles = angles;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from < PARALLEL_THRESHOLD)
+			{
+				solve(from, to, angles);
+				return;
+			}
+			final int middle = from + to >>> 1;
+			invokeAll(new Solve(from, middle, angles), new Solve(middle, to, angles));
+		}
+	}
+}
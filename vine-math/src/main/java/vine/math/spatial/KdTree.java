@@ -0,0 +1,449 @@
+package vine.math.spatial;
+
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vine.math.GMath;
+
+
+/**
+ * Immutable 2d tree over a static set of points for nearest neighbour and radius queries.
+ * <p>
+ * The tree is implicit: the points are reordered, so that the median of each range on the split
+ * axis is at the middle index of the range, with the smaller points before and the larger points
+ * after it. The split axis alternates between x and y with the depth, ranges with at most
+ * {@value #LEAF_SIZE} points are leaves and are searched linearly. Besides the reordered points and
+ * their original indices no nodes are stored.
+ * </p>
+ * <p>
+ * Queries don't allocate and may be executed from several threads at once.
+ * </p>
+ */
+public final class KdTree
+{
+
+	/**
+	 * Maximum number of points in a leaf.
+	 */
+	private static final int	LEAF_SIZE			= 8;
+	/**
+	 * Minimum number of points a parallel build task partitions.
+	 */
+	private static final int	PARALLEL_THRESHOLD	= 1 << 16;
+	private static final int	NONE				= -1;
+
+	/**
+	 * Interleaved x,y coordinates in tree order.
+	 */
+	private final float[]		points;
+	/**
+	 * The index of each point in the array the tree was built from.
+	 */
+	private final int[]			indices;
+	private final int			size;
+
+
+	private KdTree(final float[] xy)
+	{
+		if (xy == null || GMath.isOdd(xy.length))
+		{
+			throw new IllegalArgumentException("Tried to build a kd tree from invalid points");
+		}
+		points = xy.clone();
+		size = xy.length / 2;
+		indices = new int[size];
+		for (int i = 0; i < size; i++)
+		{
+			indices[i] = i;
+		}
+	}
+
+	/**
+	 * Builds a tree on the calling thread.
+	 *
+	 * @param xy
+	 *            Interleaved x,y coordinates of the points. The array is copied.
+	 * @return The new tree.
+	 */
+	public static KdTree build(final float[] xy)
+	{
+		final KdTree tree = new KdTree(xy);
+		tree.build(0, tree.size, 0);
+		return tree;
+	}
+
+	/**
+	 * Builds a tree, large inputs are partitioned in parallel on the given pool. The result is the
+	 * same as the one of {@link #build(float[])}.
+	 *
+	 * @param xy
+	 *            Interleaved x,y coordinates of the points. The array is copied.
+	 * @param pool
+	 *            The pool, that executes the build.
+	 * @return The new tree.
+	 */
+	public static KdTree build(final float[] xy, final ForkJoinPool pool)
+	{
+		final KdTree tree = new KdTree(xy);
+		if (tree.size < PARALLEL_THRESHOLD)
+		{
+			tree.build(0, tree.size, 0);
+		}
+		else
+		{
+			pool.invoke(tree.new Build(0, tree.size, 0));
+		}
+		return tree;
+	}
+
+	/**
+	 * @return The number of points in the tree.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Finds the point nearest to the given position.
+	 *
+	 * @return The original index of the nearest point or -1, if the tree is empty.
+	 */
+	public int nearest(final float x, final float y)
+	{
+		if (size == 0)
+		{
+			return NONE;
+		}
+		return indices[nearest(0, size, 0, x, y, NONE)];
+	}
+
+	/**
+	 * Finds the points nearest to the given position.
+	 *
+	 * @param x
+	 *            The x coordinate of the position.
+	 * @param y
+	 *            The y coordinate of the position.
+	 * @param result
+	 *            Array, that receives the original indices of the nearest points, ordered by
+	 *            distance. Its length is the number of searched points.
+	 * @param squaredDistances
+	 *            Array, that receives the squared distances of the found points. Must be at least
+	 *            as long as the result.
+	 * @return The number of found points, which is only smaller than the length of the result, if
+	 *         the tree contains less points.
+	 */
+	public int nearest(
+			final float x,
+			final float y,
+			final int[] result,
+			final float[] squaredDistances)
+	{
+		if (result.length == 0)
+		{
+			return 0;
+		}
+		final int found = nearest(0, size, 0, x, y, result, squaredDistances, 0);
+		for (int i = 0; i < found; i++)
+		{
+			result[i] = indices[result[i]];
+		}
+		return found;
+	}
+
+	/**
+	 * Finds all points within the given radius around a position.
+	 *
+	 * @param result
+	 *            Array, that receives the original indices of the found points in no particular
+	 *            order. If it is too small, the remaining points are only counted.
+	 * @return The number of found points.
+	 */
+	public int withinRadius(final float x, final float y, final float radius, final int[] result)
+	{
+		return withinRadius(0, size, 0, x, y, radius * radius, result, 0);
+	}
+
+	private int nearest(
+			final int lo,
+			final int hi,
+			final int depth,
+			final float x,
+			final float y,
+			final int currentBest)
+	{
+		int best = currentBest;
+		if (hi - lo <= LEAF_SIZE)
+		{
+			for (int i = lo; i < hi; i++)
+			{
+				if (best == NONE || squaredDistance(i, x, y) < squaredDistance(best, x, y))
+				{
+					best = i;
+				}
+			}
+			return best;
+		}
+		final int middle = lo + hi >>> 1;
+		if (best == NONE || squaredDistance(middle, x, y) < squaredDistance(best, x, y))
+		{
+			best = middle;
+		}
+		final float delta = (depth & 1) == 0 ? x - points[middle * 2] : y - points[middle * 2 + 1];
+		if (delta < 0)
+		{
+			best = nearest(lo, middle, depth + 1, x, y, best);
+			if (delta * delta < squaredDistance(best, x, y))
+			{
+				best = nearest(middle + 1, hi, depth + 1, x, y, best);
+			}
+		}
+		else
+		{
+			best = nearest(middle + 1, hi, depth + 1, x, y, best);
+			if (delta * delta < squaredDistance(best, x, y))
+			{
+				best = nearest(lo, middle, depth + 1, x, y, best);
+			}
+		}
+		return best;
+	}
+
+	private int nearest(
+			final int lo,
+			final int hi,
+			final int depth,
+			final float x,
+			final float y,
+			final int[] result,
+			final float[] distances,
+			final int currentFound)
+	{
+		int found = currentFound;
+		if (hi - lo <= LEAF_SIZE)
+		{
+			for (int i = lo; i < hi; i++)
+			{
+				found = offer(result, distances, found, i, squaredDistance(i, x, y));
+			}
+			return found;
+		}
+		final int middle = lo + hi >>> 1;
+		found = offer(result, distances, found, middle, squaredDistance(middle, x, y));
+		final float delta = (depth & 1) == 0 ? x - points[middle * 2] : y - points[middle * 2 + 1];
+		final int k = result.length;
+		if (delta < 0)
+		{
+			found = nearest(lo, middle, depth + 1, x, y, result, distances, found);
+			if (found < k || delta * delta < distances[k - 1])
+			{
+				found = nearest(middle + 1, hi, depth + 1, x, y, result, distances, found);
+			}
+		}
+		else
+		{
+			found = nearest(middle + 1, hi, depth + 1, x, y, result, distances, found);
+			if (found < k || delta * delta < distances[k - 1])
+			{
+				found = nearest(lo, middle, depth + 1, x, y, result, distances, found);
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Inserts the point into the sorted result, if it is nearer than the farthest found point.
+	 */
+	private static int offer(
+			final int[] result,
+			final float[] distances,
+			final int found,
+			final int point,
+			final float distance)
+	{
+		final int k = result.length;
+		if (found == k && distance >= distances[k - 1])
+		{
+			return found;
+		}
+		int i = GMath.min(found, k - 1);
+		while (i > 0 && distances[i - 1] > distance)
+		{
+			result[i] = result[i - 1];
+			distances[i] = distances[i - 1];
+			i--;
+		}
+		result[i] = point;
+		distances[i] = distance;
+		return GMath.min(found + 1, k);
+	}
+
+	private int withinRadius(
+			final int lo,
+			final int hi,
+			final int depth,
+			final float x,
+			final float y,
+			final float squaredRadius,
+			final int[] result,
+			final int currentFound)
+	{
+		int found = currentFound;
+		if (hi - lo <= LEAF_SIZE)
+		{
+			for (int i = lo; i < hi; i++)
+			{
+				if (squaredDistance(i, x, y) <= squaredRadius)
+				{
+					found = collect(result, found, indices[i]);
+				}
+			}
+			return found;
+		}
+		final int middle = lo + hi >>> 1;
+		if (squaredDistance(middle, x, y) <= squaredRadius)
+		{
+			found = collect(result, found, indices[middle]);
+		}
+		final float delta = (depth & 1) == 0 ? x - points[middle * 2] : y - points[middle * 2 + 1];
+		if (delta <= 0 || delta * delta <= squaredRadius)
+		{
+			found = withinRadius(lo, middle, depth + 1, x, y, squaredRadius, result, found);
+		}
+		if (delta >= 0 || delta * delta <= squaredRadius)
+		{
+			found = withinRadius(middle + 1, hi, depth + 1, x, y, squaredRadius, result, found);
+		}
+		return found;
+	}
+
+	private static int collect(final int[] result, final int found, final int point)
+	{
+		if (found < result.length)
+		{
+			result[found] = point;
+		}
+		return found + 1;
+	}
+
+	private float squaredDistance(final int point, final float x, final float y)
+	{
+		final float dx = points[point * 2] - x;
+		final float dy = points[point * 2 + 1] - y;
+		return dx * dx + dy * dy;
+	}
+
+	/**
+	 * Partitions the range around its median and recursively builds both halves.
+	 */
+	private void build(final int lo, final int hi, final int depth)
+	{
+		if (hi - lo <= LEAF_SIZE)
+		{
+			return;
+		}
+		final int middle = lo + hi >>> 1;
+		select(lo, hi, middle, depth & 1);
+		build(lo, middle, depth + 1);
+		build(middle + 1, hi, depth + 1);
+	}
+
+	/**
+	 * Reorders the range with a quickselect, so that the point at the given index is the one,
+	 * that would be there if the range was sorted on the given axis.
+	 */
+	private void select(final int from, final int to, final int nth, final int axis)
+	{
+		int lo = from;
+		int hi = to - 1;
+		while (hi > lo)
+		{
+			final float pivot = medianOfThree(lo, lo + hi >>> 1, hi, axis);
+			int i = lo;
+			int j = hi;
+			while (i <= j)
+			{
+				while (points[i * 2 + axis] < pivot)
+				{
+					i++;
+				}
+				while (points[j * 2 + axis] > pivot)
+				{
+					j--;
+				}
+				if (i <= j)
+				{
+					swap(i++, j--);
+				}
+			}
+			if (nth <= j)
+			{
+				hi = j;
+			}
+			else if (nth >= i)
+			{
+				lo = i;
+			}
+			else
+			{
+				return;
+			}
+		}
+	}
+
+	private float medianOfThree(final int a, final int b, final int c, final int axis)
+	{
+		final float valueA = points[a * 2 + axis];
+		final float valueB = points[b * 2 + axis];
+		final float valueC = points[c * 2 + axis];
+		return GMath.max(GMath.min(valueA, valueB), GMath.min(GMath.max(valueA, valueB), valueC));
+	}
+
+	private void swap(final int a, final int b)
+	{
+		final float x = points[a * 2];
+		final float y = points[a * 2 + 1];
+		points[a * 2] = points[b * 2];
+		points[a * 2 + 1] = points[b * 2 + 1];
+		points[b * 2] = x;
+		points[b * 2 + 1] = y;
+		final int index = indices[a];
+		indices[a] = indices[b];
+		indices[b] = index;
+	}
+
+	/**
+	 * Partitions a range and builds both halves in parallel, until the ranges get small.
+	 */
+	private final class Build extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= -3157807326185717316L;
+		private final int			lo;
+		private final int			hi;
+		private final int			depth;
+
+
+		Build(final int lo, final int hi, final int depth)
+		{
+			this.lo = lo;
+			this.hi = hi;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (hi - lo < PARALLEL_THRESHOLD)
+			{
+				build(lo, hi, depth);
+				return;
+			}
+			final int middle = lo + hi >>> 1;
+			select(lo, hi, middle, depth & 1);
+			invokeAll(new Build(lo, middle, depth + 1), new Build(middle + 1, hi, depth + 1));
+		}
+	}
+}
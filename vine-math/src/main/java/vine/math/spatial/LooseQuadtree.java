@@ -0,0 +1,795 @@
+package vine.math.spatial;
+
+
+import java.util.Arrays;
+
+import vine.math.GMath;
+import vine.math.Intersection;
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+
+
+/**
+ * Loose quadtree for many moving objects, which are given by their axis aligned bounds.
+ * <p>
+ * The bounds of each node are its quadrant of the parent, enlarged by half of its size on each side
+ * (looseness 2). An object is stored in the deepest node, which is at least as large as the object
+ * and whose quadrant contains the center of the object, so every object is stored in exactly one
+ * node. As long as a moved object stays inside the loose bounds of its node, an update only writes
+ * its new bounds.
+ * </p>
+ * <p>
+ * Nodes are only created for quadrants that contain objects and are released, when their subtree
+ * gets empty. Nodes and objects are stored in primitive arrays, which are reused through free
+ * lists, so inserting, moving and removing objects and all queries don't allocate once the arrays
+ * are large enough. Objects are referenced by integer handles.
+ * </p>
+ * <p>
+ * The tree is not thread safe, queries share a traversal stack.
+ * </p>
+ */
+public class LooseQuadtree
+{
+
+	private static final int	NO_OBJECT		= -1;
+	private static final int	NO_NODE			= -1;
+	private static final int	ROOT			= 0;
+	private static final int	DEFAULT_DEPTH	= 8;
+
+	private final float			worldX;
+	private final float			worldY;
+	private final float			rootSize;
+	private final int			maxDepth;
+
+	/**
+	 * Four child indices per node in the order lower left, lower right, upper left, upper right.
+	 */
+	private int[]				nodeChildren;
+	private int[]				nodeParents;
+	private int[]				nodeDepths;
+	/**
+	 * Lower left corner of the quadrant of each node, without the loose border.
+	 */
+	private float[]				nodeX;
+	private float[]				nodeY;
+	/**
+	 * First object of the linked object list of each node.
+	 */
+	private int[]				nodeFirst;
+	/**
+	 * Number of objects in the subtree of each node.
+	 */
+	private int[]				nodeCounts;
+	private int					nodeCapacity;
+	private int					usedNodes;
+	private int					nodeCount;
+	private int					freeNode		= NO_NODE;
+
+	private float[]				objectX;
+	private float[]				objectY;
+	private float[]				objectWidth;
+	private float[]				objectHeight;
+	/**
+	 * Node of each object or {@link #NO_NODE} for free handles.
+	 */
+	private int[]				objectNodes;
+	private int[]				objectNext;
+	private int[]				objectPrevious;
+	private int					objectSize;
+	private int					freeObject		= NO_OBJECT;
+	private int					count;
+
+	private int[]				stack;
+	private float[]				heapKeys;
+	private int[]				heapNodes;
+
+
+	/**
+	 * Creates a new tree with a maximum depth of 8.
+	 *
+	 * @see #LooseQuadtree(float, float, float, float, int)
+	 */
+	public LooseQuadtree(final float x, final float y, final float width, final float height)
+	{
+		this(x, y, width, height, DEFAULT_DEPTH);
+	}
+
+	/**
+	 * Creates a new empty tree.
+	 *
+	 * @param x
+	 *            The x coordinate of the lower left corner of the world.
+	 * @param y
+	 *            The y coordinate of the lower left corner of the world.
+	 * @param width
+	 *            The extend of the world in the x axis.
+	 * @param height
+	 *            The extend of the world in the y axis.
+	 * @param maxDepth
+	 *            The maximum depth of a node, the root has depth 0. Objects outside of the world
+	 *            are still found, but are stored in higher nodes.
+	 */
+	public LooseQuadtree(
+			final float x,
+			final float y,
+			final float width,
+			final float height,
+			final int maxDepth)
+	{
+		if (width <= 0 || height <= 0 || maxDepth < 0 || maxDepth > 30)
+		{
+			throw new IllegalArgumentException(
+					"Tried to create a quadtree with invalid dimensions");
+		}
+		worldX = x;
+		worldY = y;
+		rootSize = GMath.max(width, height);
+		this.maxDepth = maxDepth;
+		nodeCapacity = 64;
+		nodeChildren = new int[nodeCapacity * 4];
+		nodeParents = new int[nodeCapacity];
+		nodeDepths = new int[nodeCapacity];
+		nodeX = new float[nodeCapacity];
+		nodeY = new float[nodeCapacity];
+		nodeFirst = new int[nodeCapacity];
+		nodeCounts = new int[nodeCapacity];
+		final int objectCapacity = 64;
+		objectX = new float[objectCapacity];
+		objectY = new float[objectCapacity];
+		objectWidth = new float[objectCapacity];
+		objectHeight = new float[objectCapacity];
+		objectNodes = new int[objectCapacity];
+		objectNext = new int[objectCapacity];
+		objectPrevious = new int[objectCapacity];
+		stack = new int[3 * maxDepth + 4];
+		heapKeys = new float[nodeCapacity];
+		heapNodes = new int[nodeCapacity];
+		createNode(NO_NODE, 0, x, y);
+	}
+
+	/**
+	 * @return The number of objects in the tree.
+	 */
+	public int size()
+	{
+		return count;
+	}
+
+	/**
+	 * @return The number of nodes, that currently exist.
+	 */
+	public int getNodeCount()
+	{
+		return nodeCount;
+	}
+
+	/**
+	 * Inserts a new object.
+	 *
+	 * @return The handle of the object.
+	 */
+	public int insert(final Aabb bounds)
+	{
+		return insert(bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+	}
+
+	/**
+	 * Inserts a new object.
+	 *
+	 * @param x
+	 *            The x coordinate of the lower left corner of the object.
+	 * @param y
+	 *            The y coordinate of the lower left corner of the object.
+	 * @param width
+	 *            The extend of the object in the x axis.
+	 * @param height
+	 *            The extend of the object in the y axis.
+	 * @return The handle of the object, which stays valid until it is removed.
+	 */
+	public int insert(final float x, final float y, final float width, final float height)
+	{
+		final int object = allocateObject();
+		setBounds(object, x, y, width, height);
+		link(object, findNode(x, y, width, height));
+		count++;
+		return object;
+	}
+
+	/**
+	 * Moves an object to new bounds.
+	 *
+	 * @see #update(int, float, float, float, float)
+	 */
+	public void update(final int object, final Aabb bounds)
+	{
+		update(object, bounds.getX(), bounds.getY(), bounds.getWidth(), bounds.getHeight());
+	}
+
+	/**
+	 * Moves an object to new bounds. If the new bounds are inside of the loose bounds of the node
+	 * of the object, only the bounds are written, otherwise the object is moved to another node.
+	 *
+	 * @param object
+	 *            The handle of the object.
+	 */
+	public void update(
+			final int object,
+			final float x,
+			final float y,
+			final float width,
+			final float height)
+	{
+		checkObject(object);
+		setBounds(object, x, y, width, height);
+		final int node = objectNodes[object];
+		if (node != ROOT && fitsLoose(node, x, y, width, height)
+				&& GMath.max(width, height) <= getNodeSize(node))
+		{
+			return;
+		}
+		unlink(object);
+		link(object, findNode(x, y, width, height));
+	}
+
+	/**
+	 * Removes an object, its handle may be reused by later insertions.
+	 *
+	 * @param object
+	 *            The handle of the object.
+	 */
+	public void remove(final int object)
+	{
+		checkObject(object);
+		unlink(object);
+		objectNodes[object] = NO_NODE;
+		objectNext[object] = freeObject;
+		freeObject = object;
+		count--;
+	}
+
+	/**
+	 * Removes all objects.
+	 */
+	public void clear()
+	{
+		Arrays.fill(nodeChildren, NO_NODE);
+		nodeFirst[ROOT] = NO_OBJECT;
+		nodeCounts[ROOT] = 0;
+		usedNodes = 1;
+		nodeCount = 1;
+		freeNode = NO_NODE;
+		objectSize = 0;
+		freeObject = NO_OBJECT;
+		count = 0;
+	}
+
+	/**
+	 * @return The x coordinate of the lower left corner of the object.
+	 */
+	public float getX(final int object)
+	{
+		return objectX[object];
+	}
+
+	/**
+	 * @return The y coordinate of the lower left corner of the object.
+	 */
+	public float getY(final int object)
+	{
+		return objectY[object];
+	}
+
+	/**
+	 * @return The extend of the object in the x axis.
+	 */
+	public float getWidth(final int object)
+	{
+		return objectWidth[object];
+	}
+
+	/**
+	 * @return The extend of the object in the y axis.
+	 */
+	public float getHeight(final int object)
+	{
+		return objectHeight[object];
+	}
+
+	/**
+	 * Finds all objects, whose bounds overlap with the given Aabb.
+	 *
+	 * @see #queryAabb(float, float, float, float, int[])
+	 */
+	public int queryAabb(final Aabb aabb, final int[] result)
+	{
+		return queryAabb(aabb.getX(), aabb.getY(), aabb.getWidth(), aabb.getHeight(), result);
+	}
+
+	/**
+	 * Finds all objects, whose bounds overlap with the given Aabb.
+	 *
+	 * @param result
+	 *            Array, that receives the handles of the found objects. If it is too small, the
+	 *            remaining objects are only counted.
+	 * @return The number of found objects.
+	 */
+	public int queryAabb(
+			final float x,
+			final float y,
+			final float width,
+			final float height,
+			final int[] result)
+	{
+		final float maxX = x + width;
+		final float maxY = y + height;
+		int found = 0;
+		int top = 0;
+		stack[top++] = ROOT;
+		while (top > 0)
+		{
+			final int node = stack[--top];
+			for (int object = nodeFirst[node]; object != NO_OBJECT; object = objectNext[object])
+			{
+				if (objectX[object] <= maxX && x <= objectX[object] + objectWidth[object]
+						&& objectY[object] <= maxY && y <= objectY[object] + objectHeight[object])
+				{
+					found = collect(result, found, object);
+				}
+			}
+			final float half = getNodeSize(node) / 4;
+			for (int i = node * 4; i < node * 4 + 4; i++)
+			{
+				final int child = nodeChildren[i];
+				if (child != NO_NODE && nodeX[child] - half <= maxX
+						&& x <= nodeX[child] + 3 * half && nodeY[child] - half <= maxY
+						&& y <= nodeY[child] + 3 * half)
+				{
+					stack[top++] = child;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Finds all objects, whose bounds overlap with the given circle.
+	 *
+	 * @see #queryCircle(float, float, float, int[])
+	 */
+	public int queryCircle(final Circle circle, final int[] result)
+	{
+		return queryCircle(circle.getX(), circle.getY(), circle.getRadius(), result);
+	}
+
+	/**
+	 * Finds all objects, whose bounds overlap with the given circle.
+	 *
+	 * @param result
+	 *            Array, that receives the handles of the found objects. If it is too small, the
+	 *            remaining objects are only counted.
+	 * @return The number of found objects.
+	 */
+	public int queryCircle(final float x, final float y, final float radius, final int[] result)
+	{
+		int found = 0;
+		int top = 0;
+		stack[top++] = ROOT;
+		while (top > 0)
+		{
+			final int node = stack[--top];
+			for (int object = nodeFirst[node]; object != NO_OBJECT; object = objectNext[object])
+			{
+				if (Intersection.intersectAabbCircle(
+						objectX[object],
+						objectY[object],
+						objectWidth[object],
+						objectHeight[object],
+						x,
+						y,
+						radius,
+						null))
+				{
+					found = collect(result, found, object);
+				}
+			}
+			final float half = getNodeSize(node) / 4;
+			for (int i = node * 4; i < node * 4 + 4; i++)
+			{
+				final int child = nodeChildren[i];
+				if (child != NO_NODE && Intersection.intersectAabbCircle(
+						nodeX[child] - half,
+						nodeY[child] - half,
+						4 * half,
+						4 * half,
+						x,
+						y,
+						radius,
+						null))
+				{
+					stack[top++] = child;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the objects, whose bounds are nearest to the given point. The distance of an object is
+	 * the distance of the point to its bounds, which is zero for bounds that contain the point.
+	 *
+	 * @param x
+	 *            The x coordinate of the point.
+	 * @param y
+	 *            The y coordinate of the point.
+	 * @param result
+	 *            Array, that receives the handles of the nearest objects, ordered by distance. Its
+	 *            length is the number of searched objects.
+	 * @param squaredDistances
+	 *            Array, that receives the squared distances of the found objects. Must be at least
+	 *            as long as the result.
+	 * @return The number of found objects, which is only smaller than the length of the result, if
+	 *         the tree contains less objects.
+	 */
+	public int queryNearest(
+			final float x,
+			final float y,
+			final int[] result,
+			final float[] squaredDistances)
+	{
+		final int k = result.length;
+		if (k == 0)
+		{
+			return 0;
+		}
+		int found = 0;
+		int heapSize = 0;
+		heapSize = pushNode(heapSize, ROOT, 0);
+		while (heapSize > 0)
+		{
+			final float nodeDistance = heapKeys[0];
+			final int node = heapNodes[0];
+			heapSize = popNode(heapSize);
+			if (found == k && nodeDistance >= squaredDistances[k - 1])
+			{
+				break;
+			}
+			for (int object = nodeFirst[node]; object != NO_OBJECT; object = objectNext[object])
+			{
+				final float distance = squaredDistance(
+						x,
+						y,
+						objectX[object],
+						objectY[object],
+						objectWidth[object],
+						objectHeight[object]);
+				if (found < k || distance < squaredDistances[k - 1])
+				{
+					found = insertSorted(result, squaredDistances, found, object, distance);
+				}
+			}
+			final float half = getNodeSize(node) / 4;
+			for (int i = node * 4; i < node * 4 + 4; i++)
+			{
+				final int child = nodeChildren[i];
+				if (child == NO_NODE)
+				{
+					continue;
+				}
+				final float distance = squaredDistance(
+						x,
+						y,
+						nodeX[child] - half,
+						nodeY[child] - half,
+						4 * half,
+						4 * half);
+				if (found < k || distance < squaredDistances[k - 1])
+				{
+					heapSize = pushNode(heapSize, child, distance);
+				}
+			}
+		}
+		return found;
+	}
+
+	private static int collect(final int[] result, final int found, final int object)
+	{
+		if (found < result.length)
+		{
+			result[found] = object;
+		}
+		return found + 1;
+	}
+
+	private static int insertSorted(
+			final int[] result,
+			final float[] distances,
+			final int found,
+			final int object,
+			final float distance)
+	{
+		int i = GMath.min(found, result.length - 1);
+		while (i > 0 && distances[i - 1] > distance)
+		{
+			result[i] = result[i - 1];
+			distances[i] = distances[i - 1];
+			i--;
+		}
+		result[i] = object;
+		distances[i] = distance;
+		return GMath.min(found + 1, result.length);
+	}
+
+	private static float squaredDistance(
+			final float pointX,
+			final float pointY,
+			final float x,
+			final float y,
+			final float width,
+			final float height)
+	{
+		final float dx = GMath.max(GMath.max(x - pointX, pointX - x - width), 0);
+		final float dy = GMath.max(GMath.max(y - pointY, pointY - y - height), 0);
+		return dx * dx + dy * dy;
+	}
+
+	private int pushNode(final int heapSize, final int node, final float key)
+	{
+		if (heapSize == heapKeys.length)
+		{
+			heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+			heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+		}
+		int i = heapSize;
+		while (i > 0)
+		{
+			final int parent = i - 1 >> 1;
+			if (heapKeys[parent] <= key)
+			{
+				break;
+			}
+			heapKeys[i] = heapKeys[parent];
+			heapNodes[i] = heapNodes[parent];
+			i = parent;
+		}
+		heapKeys[i] = key;
+		heapNodes[i] = node;
+		return heapSize + 1;
+	}
+
+	private int popNode(final int heapSize)
+	{
+		final int size = heapSize - 1;
+		final float key = heapKeys[size];
+		final int node = heapNodes[size];
+		int i = 0;
+		while (true)
+		{
+			int child = 2 * i + 1;
+			if (child >= size)
+			{
+				break;
+			}
+			if (child + 1 < size && heapKeys[child + 1] < heapKeys[child])
+			{
+				child++;
+			}
+			if (key <= heapKeys[child])
+			{
+				break;
+			}
+			heapKeys[i] = heapKeys[child];
+			heapNodes[i] = heapNodes[child];
+			i = child;
+		}
+		heapKeys[i] = key;
+		heapNodes[i] = node;
+		return size;
+	}
+
+	private float getNodeSize(final int node)
+	{
+		return rootSize / (1 << nodeDepths[node]);
+	}
+
+	private boolean fitsLoose(
+			final int node,
+			final float x,
+			final float y,
+			final float width,
+			final float height)
+	{
+		final float size = getNodeSize(node);
+		final float half = size / 2;
+		return nodeX[node] - half <= x && x + width <= nodeX[node] + size + half
+				&& nodeY[node] - half <= y && y + height <= nodeY[node] + size + half;
+	}
+
+	/**
+	 * Finds the node for the given bounds and creates the nodes on the path to it.
+	 */
+	private int findNode(final float x, final float y, final float width, final float height)
+	{
+		final float extend = GMath.max(width, height);
+		int depth = 0;
+		while (depth < maxDepth && extend <= rootSize / (2 << depth))
+		{
+			depth++;
+		}
+		final float centerX = x + width / 2;
+		final float centerY = y + height / 2;
+		int cellX = 0;
+		int cellY = 0;
+		for (; depth > 0; depth--)
+		{
+			final int cells = 1 << depth;
+			final float cellSize = rootSize / cells;
+			cellX = GMath.clamp((int) ((centerX - worldX) / cellSize), 0, cells - 1);
+			cellY = GMath.clamp((int) ((centerY - worldY) / cellSize), 0, cells - 1);
+			final float half = cellSize / 2;
+			final float minX = worldX + cellX * cellSize - half;
+			final float minY = worldY + cellY * cellSize - half;
+			if (minX <= x && x + width <= minX + 2 * cellSize && minY <= y
+					&& y + height <= minY + 2 * cellSize)
+			{
+				break;
+			}
+		}
+		int node = ROOT;
+		for (int level = depth - 1; level >= 0; level--)
+		{
+			final int quadrant = (cellX >> level & 1) | (cellY >> level & 1) << 1;
+			int child = nodeChildren[node * 4 + quadrant];
+			if (child == NO_NODE)
+			{
+				final float childSize = getNodeSize(node) / 2;
+				child = createNode(
+						node,
+						nodeDepths[node] + 1,
+						nodeX[node] + (quadrant & 1) * childSize,
+						nodeY[node] + (quadrant >> 1) * childSize);
+				nodeChildren[node * 4 + quadrant] = child;
+			}
+			node = child;
+		}
+		return node;
+	}
+
+	private int createNode(final int parent, final int depth, final float x, final float y)
+	{
+		final int node;
+		if (freeNode != NO_NODE)
+		{
+			node = freeNode;
+			freeNode = nodeParents[node];
+		}
+		else
+		{
+			if (usedNodes == nodeCapacity)
+			{
+				growNodes();
+			}
+			node = usedNodes++;
+		}
+		nodeCount++;
+		nodeParents[node] = parent;
+		nodeDepths[node] = depth;
+		nodeX[node] = x;
+		nodeY[node] = y;
+		nodeFirst[node] = NO_OBJECT;
+		nodeCounts[node] = 0;
+		Arrays.fill(nodeChildren, node * 4, node * 4 + 4, NO_NODE);
+		return node;
+	}
+
+	private void growNodes()
+	{
+		nodeCapacity *= 2;
+		nodeChildren = Arrays.copyOf(nodeChildren, nodeCapacity * 4);
+		nodeParents = Arrays.copyOf(nodeParents, nodeCapacity);
+		nodeDepths = Arrays.copyOf(nodeDepths, nodeCapacity);
+		nodeX = Arrays.copyOf(nodeX, nodeCapacity);
+		nodeY = Arrays.copyOf(nodeY, nodeCapacity);
+		nodeFirst = Arrays.copyOf(nodeFirst, nodeCapacity);
+		nodeCounts = Arrays.copyOf(nodeCounts, nodeCapacity);
+	}
+
+	private int allocateObject()
+	{
+		if (freeObject != NO_OBJECT)
+		{
+			final int object = freeObject;
+			freeObject = objectNext[object];
+			return object;
+		}
+		if (objectSize == objectNodes.length)
+		{
+			final int capacity = objectSize * 2;
+			objectX = Arrays.copyOf(objectX, capacity);
+			objectY = Arrays.copyOf(objectY, capacity);
+			objectWidth = Arrays.copyOf(objectWidth, capacity);
+			objectHeight = Arrays.copyOf(objectHeight, capacity);
+			objectNodes = Arrays.copyOf(objectNodes, capacity);
+			objectNext = Arrays.copyOf(objectNext, capacity);
+			objectPrevious = Arrays.copyOf(objectPrevious, capacity);
+		}
+		return objectSize++;
+	}
+
+	private void checkObject(final int object)
+	{
+		if (object < 0 || object >= objectSize || objectNodes[object] == NO_NODE)
+		{
+			throw new IllegalArgumentException("Tried to access invalid object handle " + object);
+		}
+	}
+
+	private void setBounds(
+			final int object,
+			final float x,
+			final float y,
+			final float width,
+			final float height)
+	{
+		objectX[object] = x;
+		objectY[object] = y;
+		objectWidth[object] = width;
+		objectHeight[object] = height;
+	}
+
+	private void link(final int object, final int node)
+	{
+		objectNodes[object] = node;
+		objectPrevious[object] = NO_OBJECT;
+		objectNext[object] = nodeFirst[node];
+		if (nodeFirst[node] != NO_OBJECT)
+		{
+			objectPrevious[nodeFirst[node]] = object;
+		}
+		nodeFirst[node] = object;
+		for (int i = node; i != NO_NODE; i = nodeParents[i])
+		{
+			nodeCounts[i]++;
+		}
+	}
+
+	/**
+	 * Removes the object from the list of its node and releases all nodes, that got empty.
+	 */
+	private void unlink(final int object)
+	{
+		final int node = objectNodes[object];
+		final int previous = objectPrevious[object];
+		final int next = objectNext[object];
+		if (previous == NO_OBJECT)
+		{
+			nodeFirst[node] = next;
+		}
+		else
+		{
+			objectNext[previous] = next;
+		}
+		if (next != NO_OBJECT)
+		{
+			objectPrevious[next] = previous;
+		}
+		for (int i = node; i != NO_NODE;)
+		{
+			final int parent = nodeParents[i];
+			if (--nodeCounts[i] == 0 && i != ROOT)
+			{
+				final int offset = parent * 4;
+				for (int quadrant = 0; quadrant < 4; quadrant++)
+				{
+					if (nodeChildren[offset + quadrant] == i)
+					{
+						nodeChildren[offset + quadrant] = NO_NODE;
+					}
+				}
+				nodeParents[i] = freeNode;
+				freeNode = i;
+				nodeCount--;
+			}
+			i = parent;
+		}
+	}
+}
@@ -0,0 +1,374 @@
+package vine.math.spatial;
+
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import vine.math.GMath;
+
+
+/**
+ * Broadphase, that finds all pairs of overlapping axis aligned bounds with a uniform grid.
+ * <p>
+ * Each body is added to all cells it overlaps. The rows of the grid are split into strips, which
+ * are searched for pairs independently, either on the calling thread or in parallel on a
+ * {@link ForkJoinPool}, each strip writing into its own pair buffer. A pair, whose bodies share
+ * several cells, is only reported by the cell that contains the lower left corner of the
+ * intersection of both bounds, so no pair is found twice across cell or strip boundaries. The
+ * buffers are concatenated in row order, so the pairs are ordered by the cell, that reported them,
+ * and by body index within a cell, regardless of the number of threads.
+ * </p>
+ * <p>
+ * Pairs are encoded as a long with the smaller body index in the upper and the larger one in the
+ * lower 32 bits, see {@link #getFirst(long)} and {@link #getSecond(long)}. All buffers are reused,
+ * so finding pairs only allocates, while the buffers grow.
+ * </p>
+ */
+public final class ParallelPairFinder
+{
+
+	/**
+	 * Number of floats per body in the bounds array: x, y, width and height.
+	 */
+	public static final int		STRIDE				= 4;
+	/**
+	 * Number of work units per thread, so the strips can be balanced.
+	 */
+	private static final int	UNITS_PER_THREAD	= 4;
+
+	private final float			cellSize;
+	private float				gridX;
+	private float				gridY;
+	private float				gridCellSize;
+	private int					columns;
+	private int					rows;
+	/**
+	 * Start of the entries of each cell in {@link #cellEntries}, one more than cells.
+	 */
+	private int[]				cellStarts			= new int[1];
+	private int[]				cellEntries			= new int[0];
+	/**
+	 * Minimum and maximum corner of the body of each entry, so the search reads the bounds in
+	 * cell order instead of jumping through the bounds array.
+	 */
+	private float[]				entryBounds			= new float[0];
+
+	private long[][]			unitPairs			= new long[0][];
+	private int[]				unitCounts			= new int[0];
+	private long[]				pairs				= new long[16];
+	private int					pairCount;
+
+
+	/**
+	 * Creates a new pair finder.
+	 *
+	 * @param cellSize
+	 *            The size of the grid cells, which should be about the size of the typical body.
+	 *            It is enlarged, if the bodies are spread too far for the grid to have fewer cells
+	 *            than four times the number of bodies.
+	 */
+	public ParallelPairFinder(final float cellSize)
+	{
+		if (cellSize <= 0)
+		{
+			throw new IllegalArgumentException("Tried to create a grid with invalid cell size");
+		}
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * @return The body with the smaller index of the given pair.
+	 */
+	public static int getFirst(final long pair)
+	{
+		return (int) (pair >>> 32);
+	}
+
+	/**
+	 * @return The body with the larger index of the given pair.
+	 */
+	public static int getSecond(final long pair)
+	{
+		return (int) pair;
+	}
+
+	/**
+	 * @return The pair of the two bodies, in the encoding used by the finder.
+	 */
+	public static long toPair(final int first, final int second)
+	{
+		return (long) GMath.min(first, second) << 32 | GMath.max(first, second);
+	}
+
+	/**
+	 * Finds all overlapping pairs on the calling thread.
+	 *
+	 * @see #findPairs(float[], int, ForkJoinPool)
+	 */
+	public int findPairs(final float[] bounds, final int count)
+	{
+		buildGrid(bounds, count);
+		prepareUnits(1);
+		findPairs(0, 0, rows);
+		return mergePairs(1);
+	}
+
+	/**
+	 * Finds all overlapping pairs, the strips of the grid are searched in parallel.
+	 *
+	 * @param bounds
+	 *            The bounds of the bodies as x, y, width and height, {@link #STRIDE} floats per
+	 *            body.
+	 * @param count
+	 *            The number of bodies.
+	 * @param pool
+	 *            The pool, that searches the strips.
+	 * @return The number of pairs, which are stored in {@link #getPairs()}.
+	 */
+	public int findPairs(final float[] bounds, final int count, final ForkJoinPool pool)
+	{
+		buildGrid(bounds, count);
+		final int units = GMath.max(GMath.min(rows, pool.getParallelism() * UNITS_PER_THREAD), 1);
+		prepareUnits(units);
+		if (units == 1)
+		{
+			findPairs(0, 0, rows);
+		}
+		else
+		{
+			pool.invoke(new Search(0, units, units));
+		}
+		return mergePairs(units);
+	}
+
+	/**
+	 * @return The pairs found by the last search, only the first {@link #getPairCount()} values
+	 *         are valid.
+	 */
+	public long[] getPairs()
+	{
+		return pairs;
+	}
+
+	/**
+	 * @return The number of pairs found by the last search.
+	 */
+	public int getPairCount()
+	{
+		return pairCount;
+	}
+
+	/**
+	 * Adds all bodies to the cells they overlap with a counting sort, so the entries of each cell
+	 * are sorted by body index.
+	 */
+	private void buildGrid(final float[] bounds, final int count)
+	{
+		if (count == 0)
+		{
+			columns = 0;
+			rows = 0;
+			return;
+		}
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < count * STRIDE; i += STRIDE)
+		{
+			minX = GMath.min(minX, bounds[i]);
+			minY = GMath.min(minY, bounds[i + 1]);
+			maxX = GMath.max(maxX, bounds[i] + bounds[i + 2]);
+			maxY = GMath.max(maxY, bounds[i + 1] + bounds[i + 3]);
+		}
+		gridX = minX;
+		gridY = minY;
+		gridCellSize = cellSize;
+		final long maxCells = 4L * count + 16;
+		while (((double) (maxX - minX) / gridCellSize + 1) * ((maxY - minY) / gridCellSize + 1)
+				> maxCells)
+		{
+			gridCellSize *= 2;
+		}
+		columns = (int) ((maxX - minX) / gridCellSize) + 1;
+		rows = (int) ((maxY - minY) / gridCellSize) + 1;
+		final int cells = columns * rows;
+		if (cellStarts.length < cells + 1)
+		{
+			cellStarts = new int[cells + 1];
+		}
+		Arrays.fill(cellStarts, 0, cells + 1, 0);
+		for (int i = 0; i < count; i++)
+		{
+			final int offset = i * STRIDE;
+			final int left = toColumn(bounds[offset]);
+			final int right = toColumn(bounds[offset] + bounds[offset + 2]);
+			final int bottom = toRow(bounds[offset + 1]);
+			final int top = toRow(bounds[offset + 1] + bounds[offset + 3]);
+			for (int row = bottom; row <= top; row++)
+			{
+				for (int column = left; column <= right; column++)
+				{
+					cellStarts[row * columns + column + 1]++;
+				}
+			}
+		}
+		for (int cell = 0; cell < cells; cell++)
+		{
+			cellStarts[cell + 1] += cellStarts[cell];
+		}
+		if (cellEntries.length < cellStarts[cells])
+		{
+			cellEntries = new int[cellStarts[cells]];
+			entryBounds = new float[cellStarts[cells] * STRIDE];
+		}
+		for (int i = 0; i < count; i++)
+		{
+			final int offset = i * STRIDE;
+			final int left = toColumn(bounds[offset]);
+			final int right = toColumn(bounds[offset] + bounds[offset + 2]);
+			final int bottom = toRow(bounds[offset + 1]);
+			final int top = toRow(bounds[offset + 1] + bounds[offset + 3]);
+			for (int row = bottom; row <= top; row++)
+			{
+				for (int column = left; column <= right; column++)
+				{
+					final int entry = cellStarts[row * columns + column]++;
+					cellEntries[entry] = i;
+					entryBounds[entry * STRIDE] = bounds[offset];
+					entryBounds[entry * STRIDE + 1] = bounds[offset + 1];
+					entryBounds[entry * STRIDE + 2] = bounds[offset] + bounds[offset + 2];
+					entryBounds[entry * STRIDE + 3] = bounds[offset + 1] + bounds[offset + 3];
+				}
+			}
+		}
+		for (int cell = cells; cell > 0; cell--)
+		{
+			cellStarts[cell] = cellStarts[cell - 1];
+		}
+		cellStarts[0] = 0;
+	}
+
+	private int toColumn(final float x)
+	{
+		return GMath.clamp((int) ((x - gridX) / gridCellSize), 0, columns - 1);
+	}
+
+	private int toRow(final float y)
+	{
+		return GMath.clamp((int) ((y - gridY) / gridCellSize), 0, rows - 1);
+	}
+
+	private void prepareUnits(final int units)
+	{
+		if (unitPairs.length < units)
+		{
+			final int oldLength = unitPairs.length;
+			unitPairs = Arrays.copyOf(unitPairs, units);
+			unitCounts = Arrays.copyOf(unitCounts, units);
+			for (int unit = oldLength; unit < units; unit++)
+			{
+				unitPairs[unit] = new long[16];
+			}
+		}
+		Arrays.fill(unitCounts, 0, units, 0);
+	}
+
+	/**
+	 * Searches the given rows for pairs and adds them to the buffer of the unit.
+	 */
+	private void findPairs(final int unit, final int firstRow, final int endRow)
+	{
+		long[] buffer = unitPairs[unit];
+		int found = 0;
+		for (int cell = firstRow * columns; cell < endRow * columns; cell++)
+		{
+			final int end = cellStarts[cell + 1];
+			for (int i = cellStarts[cell]; i < end; i++)
+			{
+				final float minXA = entryBounds[i * STRIDE];
+				final float minYA = entryBounds[i * STRIDE + 1];
+				final float maxXA = entryBounds[i * STRIDE + 2];
+				final float maxYA = entryBounds[i * STRIDE + 3];
+				for (int j = i + 1; j < end; j++)
+				{
+					final float minXB = entryBounds[j * STRIDE];
+					final float minYB = entryBounds[j * STRIDE + 1];
+					if (minXB > maxXA || minXA > entryBounds[j * STRIDE + 2] || minYB > maxYA
+							|| minYA > entryBounds[j * STRIDE + 3])
+					{
+						continue;
+					}
+					final int ownerColumn = toColumn(GMath.max(minXA, minXB));
+					final int ownerRow = toRow(GMath.max(minYA, minYB));
+					if (ownerRow * columns + ownerColumn != cell)
+					{
+						continue;
+					}
+					if (found == buffer.length)
+					{
+						buffer = Arrays.copyOf(buffer, found * 2);
+						unitPairs[unit] = buffer;
+					}
+					buffer[found++] = (long) cellEntries[i] << 32 | cellEntries[j];
+				}
+			}
+		}
+		unitCounts[unit] = found;
+	}
+
+	private int mergePairs(final int units)
+	{
+		int total = 0;
+		for (int unit = 0; unit < units; unit++)
+		{
+			total += unitCounts[unit];
+		}
+		if (pairs.length < total)
+		{
+			pairs = new long[GMath.max(total, pairs.length * 2)];
+		}
+		int offset = 0;
+		for (int unit = 0; unit < units; unit++)
+		{
+			System.arraycopy(unitPairs[unit], 0, pairs, offset, unitCounts[unit]);
+			offset += unitCounts[unit];
+		}
+		pairCount = total;
+		return total;
+	}
+
+	/**
+	 * Searches a range of work units, splitting it until a single unit is left.
+	 */
+	private final class Search extends RecursiveAction
+	{
+
+		private static final long	serialVersionUID	= 4726154170432850785L;
+		private final int			from;
+		private final int			to;
+		private final int			units;
+
+
+		Search(final int from, final int to, final int units)
+		{
+			this.from = from;
+			this.to = to;
+			this.units = units;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (to - from == 1)
+			{
+				final int firstRow = (int) ((long) rows * from / units);
+				findPairs(from, firstRow, (int) ((long) rows * to / units));
+				return;
+			}
+			final int middle = from + to >>> 1;
+			invokeAll(new Search(from, middle, units), new Search(middle, to, units));
+		}
+	}
+}
@@ -0,0 +1,938 @@
+package vine.math.spatial;
+
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+import vine.math.GMath;
+
+
+/**
+ * Finds all intersections among a set of segments with the sweep line algorithm of Bentley and
+ * Ottmann in O((n + k) log n) for n segments and k intersections.
+ * <p>
+ * The sweep line moves over the endpoints and crossings in lexicographic order of x and y, so
+ * vertical segments need no special case. The segments, that cross the sweep line, are kept in a
+ * treap ordered from bottom to top, only neighbours in it are tested for crossings. Each event
+ * point reports all pairs of segments, that start, end or pass through it, so shared endpoints,
+ * T-junctions and several segments crossing in one point are found like proper crossings.
+ * Collinear overlapping segments are reported once, at the start of their overlap.
+ * </p>
+ * <p>
+ * All decisions of the sweep are made by exact predicates: the orientation of a point to a
+ * segment, the order of two event points and the order of two directions. Each predicate is first
+ * evaluated in double precision with an error bound and only recomputed exactly, if the sign is
+ * not certain. Orientations of endpoints are sums of products of floats, which are summed without
+ * rounding errors in an expansion of doubles, so collinear endpoints stay cheap. Crossing points
+ * are kept exactly as the crossing pair and only compared with {@link BigDecimal}s, which is rare
+ * except for degenerated input. The reported points are rounded to floats.
+ * </p>
+ * <p>
+ * Pairs are encoded like the pairs of {@link ParallelPairFinder}. All buffers are reused, so
+ * finding intersections only allocates, while the buffers grow.
+ * </p>
+ */
+public final class SegmentSweep
+{
+
+	/**
+	 * Number of floats per segment in the segment array: the x and y coordinate of both
+	 * endpoints.
+	 */
+	public static final int		STRIDE		= 4;
+	private static final int	NONE		= -1;
+	private static final int	LEFT		= 0;
+	private static final int	RIGHT		= 1;
+	private static final int	CROSSING	= 2;
+	/**
+	 * Bound of the relative rounding error of the double evaluations of the predicates, which is
+	 * generous on purpose, because a too large bound only costs an exact evaluation.
+	 */
+	private static final double	ERROR		= 8 * Math.ulp(1.0);
+
+	/**
+	 * The segments with the lexicographically smaller endpoint first.
+	 */
+	private float[]				lines		= new float[0];
+	private int[]				leftEvents	= new int[0];
+	private int[]				rightEvents	= new int[0];
+
+	private int[]				eventKinds	= new int[16];
+	private int[]				eventA		= new int[16];
+	private int[]				eventB		= new int[16];
+	/**
+	 * Approximated coordinates of the event points, which are exact for endpoints.
+	 */
+	private double[]			eventX		= new double[16];
+	private double[]			eventY		= new double[16];
+	/**
+	 * Bounds of the error of the approximated coordinates, infinite, if the crossing is too badly
+	 * conditioned to be approximated.
+	 */
+	private double[]			errorX		= new double[16];
+	private double[]			errorY		= new double[16];
+	private int					eventCount;
+	private int[]				heap		= new int[16];
+	private int					heapSize;
+
+	private int[]				left		= new int[0];
+	private int[]				right		= new int[0];
+	private int[]				parent		= new int[0];
+	private int[]				priority	= new int[0];
+	private int					root;
+	private int					seed;
+
+	/**
+	 * The stamp of the last event point, at which each segment starts or ends.
+	 */
+	private int[]				startStamps	= new int[0];
+	private int[]				endStamps	= new int[0];
+	private int					stamp;
+	private int[]				starting	= new int[16];
+	private int[]				found		= new int[16];
+	private int[]				inserted	= new int[16];
+
+	private final double[]		expansion	= new double[8];
+	private long[]				pairs		= new long[16];
+	private float[]				points		= new float[32];
+	private int					pairCount;
+
+
+	/**
+	 * @return The intersecting pairs of segments of the last search, their number is returned by
+	 *         the search. The array is reused by the next search.
+	 */
+	public long[] getPairs()
+	{
+		return pairs;
+	}
+
+	/**
+	 * @return The interleaved x,y coordinates of the intersection point of each pair at the same
+	 *         index as in the pairs, for collinear overlapping segments the start of the overlap.
+	 *         The array is reused by the next search.
+	 */
+	public float[] getPoints()
+	{
+		return points;
+	}
+
+	/**
+	 * Finds all pairs of intersecting segments, touching segments intersect.
+	 *
+	 * @param segments
+	 *            The segments with {@link #STRIDE} floats each, the x and y coordinates of the
+	 *            first and the second endpoint.
+	 * @param count
+	 *            The number of segments.
+	 * @return The number of intersecting pairs, which are stored in {@link #getPairs()} and
+	 *         {@link #getPoints()}.
+	 */
+	public int findIntersections(final float[] segments, final int count)
+	{
+		if (segments == null || count < 0 || segments.length < count * STRIDE)
+		{
+			throw new IllegalArgumentException("Tried to sweep invalid segments");
+		}
+		prepare(count);
+		for (int segment = 0; segment < count; segment++)
+		{
+			final int offset = segment * STRIDE;
+			final boolean swap = segments[offset] > segments[offset + 2]
+					|| segments[offset] == segments[offset + 2]
+							&& segments[offset + 1] > segments[offset + 3];
+			lines[offset] = segments[swap ? offset + 2 : offset];
+			lines[offset + 1] = segments[swap ? offset + 3 : offset + 1];
+			lines[offset + 2] = segments[swap ? offset : offset + 2];
+			lines[offset + 3] = segments[swap ? offset + 1 : offset + 3];
+			leftEvents[segment] = addEndpoint(LEFT, segment, lines[offset], lines[offset + 1]);
+			rightEvents[segment] = addEndpoint(
+					RIGHT,
+					segment,
+					lines[offset + 2],
+					lines[offset + 3]);
+			push(leftEvents[segment]);
+			push(rightEvents[segment]);
+		}
+		while (heapSize > 0)
+		{
+			final int event = pop();
+			stamp++;
+			int startCount = 0;
+			int current = event;
+			// Endpoints are preferred over equal crossings, because their points are exact
+			int point = event;
+			while (true)
+			{
+				if (eventKinds[current] != CROSSING)
+				{
+					point = current;
+				}
+				if (eventKinds[current] == LEFT)
+				{
+					starting = ensure(starting, startCount + 1);
+					starting[startCount++] = eventA[current];
+					startStamps[eventA[current]] = stamp;
+				}
+				else if (eventKinds[current] == RIGHT)
+				{
+					endStamps[eventA[current]] = stamp;
+				}
+				if (heapSize == 0 || compare(heap[0], event) != 0)
+				{
+					break;
+				}
+				current = pop();
+			}
+			handle(point, startCount);
+		}
+		return pairCount;
+	}
+
+	private void prepare(final int count)
+	{
+		if (leftEvents.length < count)
+		{
+			lines = new float[count * STRIDE];
+			leftEvents = new int[count];
+			rightEvents = new int[count];
+			left = new int[count];
+			right = new int[count];
+			parent = new int[count];
+			priority = new int[count];
+			startStamps = new int[count];
+			endStamps = new int[count];
+		}
+		Arrays.fill(left, 0, count, NONE);
+		Arrays.fill(right, 0, count, NONE);
+		Arrays.fill(parent, 0, count, NONE);
+		Arrays.fill(startStamps, 0, count, 0);
+		Arrays.fill(endStamps, 0, count, 0);
+		root = NONE;
+		seed = 0x2545F491;
+		stamp = 0;
+		eventCount = 0;
+		heapSize = 0;
+		pairCount = 0;
+	}
+
+	/**
+	 * Handles all segments, that start, end or pass through the event point.
+	 */
+	private void handle(final int event, final int startCount)
+	{
+		// The segments through the point are a run in the tree, above all segments below it
+		int foundCount = 0;
+		for (int node = firstNotBelow(event); node != NONE && side(node, event) == 0;
+				node = successor(node))
+		{
+			found = ensure(found, foundCount + 1);
+			found[foundCount++] = node;
+		}
+		report(event, startCount, foundCount);
+		for (int i = 0; i < foundCount; i++)
+		{
+			remove(found[i]);
+		}
+		// Segments, that start or pass through the point, are inserted in the order of their
+		// directions, which is their order right of the point
+		int insertCount = 0;
+		inserted = ensure(inserted, startCount + foundCount);
+		for (int i = 0; i < startCount + foundCount; i++)
+		{
+			final int segment = i < startCount ? starting[i] : found[i - startCount];
+			if (endStamps[segment] == stamp)
+			{
+				continue;
+			}
+			int j = insertCount++;
+			while (j > 0 && compareDirections(inserted[j - 1], segment) > 0)
+			{
+				inserted[j] = inserted[j - 1];
+				j--;
+			}
+			inserted[j] = segment;
+		}
+		final int above = firstNotBelow(event);
+		if (insertCount == 0)
+		{
+			final int below = above == NONE ? last() : predecessor(above);
+			checkCrossing(below, above, event);
+			return;
+		}
+		insertBefore(above, inserted[0]);
+		for (int i = 1; i < insertCount; i++)
+		{
+			insertAfter(inserted[i - 1], inserted[i]);
+		}
+		checkCrossing(predecessor(inserted[0]), inserted[0], event);
+		checkCrossing(inserted[insertCount - 1], above, event);
+	}
+
+	/**
+	 * Reports each pair of the segments, that start at or contain the point, collinear pairs only
+	 * at the start of their overlap.
+	 */
+	private void report(final int event, final int startCount, final int foundCount)
+	{
+		final int total = startCount + foundCount;
+		for (int i = 0; i < total; i++)
+		{
+			final int a = i < startCount ? starting[i] : found[i - startCount];
+			for (int j = i + 1; j < total; j++)
+			{
+				final int b = j < startCount ? starting[j] : found[j - startCount];
+				if (startStamps[a] != stamp && startStamps[b] != stamp && isCollinear(a, b))
+				{
+					continue;
+				}
+				if (pairCount == pairs.length)
+				{
+					pairs = Arrays.copyOf(pairs, pairCount * 2);
+					points = Arrays.copyOf(points, pairCount * 4);
+				}
+				pairs[pairCount] = ParallelPairFinder.toPair(a, b);
+				points[pairCount * 2] = (float) eventX[event];
+				points[pairCount * 2 + 1] = (float) eventY[event];
+				pairCount++;
+			}
+		}
+	}
+
+	private boolean isCollinear(final int a, final int b)
+	{
+		return side(a, leftEvents[b]) == 0 && side(a, rightEvents[b]) == 0;
+	}
+
+	/**
+	 * Adds the crossing of the two neighbouring segments as event, if it is right of the current
+	 * event point. Segments touching at an endpoint are skipped, because the endpoint is an event
+	 * of its own, which finds all segments through it. Collinear segments are skipped as well,
+	 * their overlap starts at an endpoint.
+	 */
+	private void checkCrossing(final int below, final int above, final int event)
+	{
+		if (below == NONE || above == NONE)
+		{
+			return;
+		}
+		final int side1 = side(below, leftEvents[above]);
+		final int side2 = side(below, rightEvents[above]);
+		if (side1 * side2 >= 0)
+		{
+			return;
+		}
+		final int side3 = side(above, leftEvents[below]);
+		final int side4 = side(above, rightEvents[below]);
+		if (side3 * side4 >= 0)
+		{
+			return;
+		}
+		final int crossing = addCrossing(below, above);
+		if (compare(crossing, event) > 0)
+		{
+			push(crossing);
+		}
+		else
+		{
+			eventCount--;
+		}
+	}
+
+	private int addEndpoint(final int kind, final int segment, final float x, final float y)
+	{
+		final int event = addEvent(kind, segment, NONE);
+		eventX[event] = x;
+		eventY[event] = y;
+		errorX[event] = 0;
+		errorY[event] = 0;
+		return event;
+	}
+
+	/**
+	 * Adds the crossing of two segments, that are not parallel, with its approximated point and
+	 * error bounds.
+	 */
+	private int addCrossing(final int a, final int b)
+	{
+		final int event = addEvent(CROSSING, a, b);
+		final int offsetA = a * STRIDE;
+		final int offsetB = b * STRIDE;
+		final double startX = lines[offsetA];
+		final double startY = lines[offsetA + 1];
+		final double directionAX = (double) lines[offsetA + 2] - lines[offsetA];
+		final double directionAY = (double) lines[offsetA + 3] - lines[offsetA + 1];
+		final double directionBX = (double) lines[offsetB + 2] - lines[offsetB];
+		final double directionBY = (double) lines[offsetB + 3] - lines[offsetB + 1];
+		final double toBX = lines[offsetB] - startX;
+		final double toBY = lines[offsetB + 1] - startY;
+		// The crossing is at the fraction numerator / denominator of segment a
+		final double denominator = directionAX * directionBY - directionAY * directionBX;
+		final double denominatorError = ERROR
+				* (Math.abs(directionAX * directionBY) + Math.abs(directionAY * directionBX));
+		final double numerator = toBX * directionBY - toBY * directionBX;
+		final double numeratorError = ERROR
+				* (Math.abs(toBX * directionBY) + Math.abs(toBY * directionBX));
+		final double fraction = Math.min(Math.max(numerator / denominator, 0), 1);
+		eventX[event] = startX + fraction * directionAX;
+		eventY[event] = startY + fraction * directionAY;
+		if (Math.abs(denominator) <= denominatorError)
+		{
+			errorX[event] = Double.POSITIVE_INFINITY;
+			errorY[event] = Double.POSITIVE_INFINITY;
+			return event;
+		}
+		final double fractionError = (numeratorError + fraction * denominatorError)
+				/ (Math.abs(denominator) - denominatorError) + ERROR * fraction;
+		errorX[event] = Math.abs(directionAX) * fractionError
+				+ ERROR * (Math.abs(startX) + Math.abs(fraction * directionAX));
+		errorY[event] = Math.abs(directionAY) * fractionError
+				+ ERROR * (Math.abs(startY) + Math.abs(fraction * directionAY));
+		return event;
+	}
+
+	private int addEvent(final int kind, final int a, final int b)
+	{
+		if (eventCount == eventKinds.length)
+		{
+			final int capacity = eventCount * 2;
+			eventKinds = Arrays.copyOf(eventKinds, capacity);
+			eventA = Arrays.copyOf(eventA, capacity);
+			eventB = Arrays.copyOf(eventB, capacity);
+			eventX = Arrays.copyOf(eventX, capacity);
+			eventY = Arrays.copyOf(eventY, capacity);
+			errorX = Arrays.copyOf(errorX, capacity);
+			errorY = Arrays.copyOf(errorY, capacity);
+		}
+		eventKinds[eventCount] = kind;
+		eventA[eventCount] = a;
+		eventB[eventCount] = b;
+		return eventCount++;
+	}
+
+	// Predicates
+
+	/**
+	 * @return The sign of the orientation of the event point to the segment directed from its
+	 *         left to its right endpoint: 1, if the point is above, -1, if it is below, and 0, if
+	 *         it is on the line of the segment.
+	 */
+	private int side(final int segment, final int event)
+	{
+		if (eventA[event] == segment || eventB[event] == segment)
+		{
+			// Endpoints and crossings are on their own segments
+			return 0;
+		}
+		final int offset = segment * STRIDE;
+		if (eventKinds[event] != CROSSING
+				&& (eventX[event] == lines[offset] && eventY[event] == lines[offset + 1]
+						|| eventX[event] == lines[offset + 2]
+								&& eventY[event] == lines[offset + 3]))
+		{
+			// Shared endpoints are common and would always need the exact evaluation
+			return 0;
+		}
+		final double directionX = (double) lines[offset + 2] - lines[offset];
+		final double directionY = (double) lines[offset + 3] - lines[offset + 1];
+		final double toPointX = eventX[event] - lines[offset];
+		final double toPointY = eventY[event] - lines[offset + 1];
+		final double value = directionX * toPointY - directionY * toPointX;
+		final double error = (Math.abs(directionX) * errorY[event]
+				+ Math.abs(directionY) * errorX[event]) * (1 + ERROR)
+				+ ERROR * (Math.abs(directionX * toPointY) + Math.abs(directionY * toPointX));
+		if (Math.abs(value) > error)
+		{
+			return value > 0 ? 1 : -1;
+		}
+		if (error == 0)
+		{
+			return 0;
+		}
+		if (eventKinds[event] != CROSSING)
+		{
+			return crossSign(
+					lines[offset],
+					lines[offset + 1],
+					lines[offset + 2],
+					lines[offset + 3],
+					lines[offset],
+					lines[offset + 1],
+					(float) eventX[event],
+					(float) eventY[event]);
+		}
+		final BigDecimal[] point = exactPoint(event);
+		final BigDecimal startX = exact(lines[offset]);
+		final BigDecimal startY = exact(lines[offset + 1]);
+		final BigDecimal exactDirectionX = exact(lines[offset + 2]).subtract(startX);
+		final BigDecimal exactDirectionY = exact(lines[offset + 3]).subtract(startY);
+		// The orientation of the homogeneous point x / w, y / w scaled by w
+		final BigDecimal scaled = exactDirectionX
+				.multiply(point[1].subtract(startY.multiply(point[2])))
+				.subtract(exactDirectionY.multiply(point[0].subtract(startX.multiply(point[2]))));
+		return scaled.signum() * point[2].signum();
+	}
+
+	/**
+	 * @return The lexicographic order of the two event points by x and y.
+	 */
+	private int compare(final int a, final int b)
+	{
+		if (eventKinds[a] == CROSSING && eventKinds[b] == CROSSING && eventA[a] == eventA[b]
+				&& eventB[a] == eventB[b])
+		{
+			// The same pair is added again, when its segments become neighbours again
+			return 0;
+		}
+		final int order = compare(
+				eventX[a] - eventX[b],
+				errorX[a] + errorX[b],
+				a,
+				b,
+				0);
+		return order != 0 ? order : compare(eventY[a] - eventY[b], errorY[a] + errorY[b], a, b, 1);
+	}
+
+	/**
+	 * Compares one coordinate of two event points. The sign of a rounded difference is the sign
+	 * of the exact difference of the approximations, so it is certain, if it exceeds the errors.
+	 */
+	private int compare(
+			final double difference,
+			final double error,
+			final int a,
+			final int b,
+			final int coordinate)
+	{
+		if (error == 0 || Math.abs(difference) > error * (1 + ERROR))
+		{
+			return difference > 0 ? 1 : difference < 0 ? -1 : 0;
+		}
+		final BigDecimal[] pointA = exactPoint(a);
+		final BigDecimal[] pointB = exactPoint(b);
+		return pointA[coordinate]
+				.multiply(pointB[2])
+				.subtract(pointB[coordinate].multiply(pointA[2]))
+				.signum() * pointA[2].signum() * pointB[2].signum();
+	}
+
+	/**
+	 * @return The order of two segments right of a common point, which is the order of their
+	 *         directions from bottom to top, collinear segments are ordered by index.
+	 */
+	private int compareDirections(final int a, final int b)
+	{
+		final int offsetA = a * STRIDE;
+		final int offsetB = b * STRIDE;
+		final double directionAX = (double) lines[offsetA + 2] - lines[offsetA];
+		final double directionAY = (double) lines[offsetA + 3] - lines[offsetA + 1];
+		final double directionBX = (double) lines[offsetB + 2] - lines[offsetB];
+		final double directionBY = (double) lines[offsetB + 3] - lines[offsetB + 1];
+		final double cross = directionAX * directionBY - directionAY * directionBX;
+		final double error = ERROR
+				* (Math.abs(directionAX * directionBY) + Math.abs(directionAY * directionBX));
+		int sign;
+		if (Math.abs(cross) > error)
+		{
+			sign = cross > 0 ? 1 : -1;
+		}
+		else if (error == 0)
+		{
+			sign = 0;
+		}
+		else
+		{
+			sign = crossSign(
+					lines[offsetA],
+					lines[offsetA + 1],
+					lines[offsetA + 2],
+					lines[offsetA + 3],
+					lines[offsetB],
+					lines[offsetB + 1],
+					lines[offsetB + 2],
+					lines[offsetB + 3]);
+		}
+		// A counterclockwise turn from a to b means, that b is above a
+		return sign != 0 ? -sign : Integer.compare(a, b);
+	}
+
+	/**
+	 * @return The exact homogeneous coordinates x, y and w of the event point.
+	 */
+	private BigDecimal[] exactPoint(final int event)
+	{
+		if (eventKinds[event] != CROSSING)
+		{
+			return new BigDecimal[] {
+					exact((float) eventX[event]),
+					exact((float) eventY[event]),
+					BigDecimal.ONE };
+		}
+		final int offsetA = eventA[event] * STRIDE;
+		final int offsetB = eventB[event] * STRIDE;
+		final BigDecimal startX = exact(lines[offsetA]);
+		final BigDecimal startY = exact(lines[offsetA + 1]);
+		final BigDecimal directionAX = exact(lines[offsetA + 2]).subtract(startX);
+		final BigDecimal directionAY = exact(lines[offsetA + 3]).subtract(startY);
+		final BigDecimal directionBX = exact(lines[offsetB + 2]).subtract(exact(lines[offsetB]));
+		final BigDecimal directionBY = exact(lines[offsetB + 3])
+				.subtract(exact(lines[offsetB + 1]));
+		final BigDecimal toBX = exact(lines[offsetB]).subtract(startX);
+		final BigDecimal toBY = exact(lines[offsetB + 1]).subtract(startY);
+		final BigDecimal denominator = directionAX
+				.multiply(directionBY)
+				.subtract(directionAY.multiply(directionBX));
+		final BigDecimal numerator = toBX
+				.multiply(directionBY)
+				.subtract(toBY.multiply(directionBX));
+		return new BigDecimal[] {
+				startX.multiply(denominator).add(numerator.multiply(directionAX)),
+				startY.multiply(denominator).add(numerator.multiply(directionAY)),
+				denominator };
+	}
+
+	private static BigDecimal exact(final float value)
+	{
+		return new BigDecimal(value);
+	}
+
+	/**
+	 * @return The exact sign of the cross product of the directions from a to b and from c to d.
+	 *         The product expands into eight products of floats, which are exact doubles.
+	 */
+	private int crossSign(
+			final float ax,
+			final float ay,
+			final float bx,
+			final float by,
+			final float cx,
+			final float cy,
+			final float dx,
+			final float dy)
+	{
+		int length = 0;
+		length = grow(length, (double) bx * dy);
+		length = grow(length, -((double) bx * cy));
+		length = grow(length, -((double) ax * dy));
+		length = grow(length, (double) ax * cy);
+		length = grow(length, -((double) by * dx));
+		length = grow(length, (double) by * cx);
+		length = grow(length, (double) ay * dx);
+		length = grow(length, -((double) ay * cx));
+		// The components increase in magnitude and don't overlap, so the largest has the sign
+		return length == 0 ? 0 : expansion[length - 1] > 0 ? 1 : -1;
+	}
+
+	/**
+	 * Adds a value to the expansion without rounding errors, as described by Shewchuk in
+	 * "Adaptive Precision Floating-Point Arithmetic and Fast Robust Geometric Predicates".
+	 *
+	 * @return The new length of the expansion, zero components are dropped.
+	 */
+	private int grow(final int length, final double value)
+	{
+		double sum = value;
+		int count = 0;
+		for (int i = 0; i < length; i++)
+		{
+			final double component = expansion[i];
+			final double next = sum + component;
+			final double virtual = next - sum;
+			final double error = sum - (next - virtual) + (component - virtual);
+			sum = next;
+			if (error != 0)
+			{
+				expansion[count++] = error;
+			}
+		}
+		if (sum != 0)
+		{
+			expansion[count++] = sum;
+		}
+		return count;
+	}
+
+	// Event queue
+
+	private void push(final int event)
+	{
+		heap = ensure(heap, heapSize + 1);
+		int index = heapSize++;
+		while (index > 0)
+		{
+			final int parentIndex = (index - 1) / 2;
+			if (compare(heap[parentIndex], event) <= 0)
+			{
+				break;
+			}
+			heap[index] = heap[parentIndex];
+			index = parentIndex;
+		}
+		heap[index] = event;
+	}
+
+	private int pop()
+	{
+		final int first = heap[0];
+		final int event = heap[--heapSize];
+		int index = 0;
+		while (true)
+		{
+			int child = index * 2 + 1;
+			if (child >= heapSize)
+			{
+				break;
+			}
+			if (child + 1 < heapSize && compare(heap[child + 1], heap[child]) < 0)
+			{
+				child++;
+			}
+			if (compare(event, heap[child]) <= 0)
+			{
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = event;
+		return first;
+	}
+
+	// Status treap, ordered from bottom to top
+
+	/**
+	 * @return The lowest segment, that the event point is not above, or -1.
+	 */
+	private int firstNotBelow(final int event)
+	{
+		int result = NONE;
+		int node = root;
+		while (node != NONE)
+		{
+			if (side(node, event) > 0)
+			{
+				node = right[node];
+			}
+			else
+			{
+				result = node;
+				node = left[node];
+			}
+		}
+		return result;
+	}
+
+	private int last()
+	{
+		int node = root;
+		while (node != NONE && right[node] != NONE)
+		{
+			node = right[node];
+		}
+		return node;
+	}
+
+	private int successor(final int node)
+	{
+		if (right[node] != NONE)
+		{
+			int child = right[node];
+			while (left[child] != NONE)
+			{
+				child = left[child];
+			}
+			return child;
+		}
+		int child = node;
+		int ancestor = parent[node];
+		while (ancestor != NONE && right[ancestor] == child)
+		{
+			child = ancestor;
+			ancestor = parent[ancestor];
+		}
+		return ancestor;
+	}
+
+	private int predecessor(final int node)
+	{
+		if (left[node] != NONE)
+		{
+			int child = left[node];
+			while (right[child] != NONE)
+			{
+				child = right[child];
+			}
+			return child;
+		}
+		int child = node;
+		int ancestor = parent[node];
+		while (ancestor != NONE && left[ancestor] == child)
+		{
+			child = ancestor;
+			ancestor = parent[ancestor];
+		}
+		return ancestor;
+	}
+
+	/**
+	 * Inserts the node directly before the given node or at the end, if it is -1.
+	 */
+	private void insertBefore(final int next, final int node)
+	{
+		if (next == NONE)
+		{
+			final int previous = last();
+			if (previous == NONE)
+			{
+				root = node;
+				parent[node] = NONE;
+				priority[node] = nextPriority();
+			}
+			else
+			{
+				attach(previous, node, false);
+			}
+		}
+		else if (left[next] == NONE)
+		{
+			attach(next, node, true);
+		}
+		else
+		{
+			attach(predecessor(next), node, false);
+		}
+	}
+
+	/**
+	 * Inserts the node directly after the given node.
+	 */
+	private void insertAfter(final int previous, final int node)
+	{
+		if (right[previous] == NONE)
+		{
+			attach(previous, node, false);
+		}
+		else
+		{
+			attach(successor(previous), node, true);
+		}
+	}
+
+	/**
+	 * Attaches the node as a leaf and rotates it up to restore the heap order of the priorities.
+	 */
+	private void attach(final int leaf, final int node, final boolean asLeft)
+	{
+		if (asLeft)
+		{
+			left[leaf] = node;
+		}
+		else
+		{
+			right[leaf] = node;
+		}
+		parent[node] = leaf;
+		left[node] = NONE;
+		right[node] = NONE;
+		priority[node] = nextPriority();
+		while (parent[node] != NONE && priority[parent[node]] < priority[node])
+		{
+			rotateUp(node);
+		}
+	}
+
+	private void remove(final int node)
+	{
+		while (left[node] != NONE || right[node] != NONE)
+		{
+			final int child;
+			if (left[node] == NONE)
+			{
+				child = right[node];
+			}
+			else if (right[node] == NONE)
+			{
+				child = left[node];
+			}
+			else
+			{
+				child = priority[left[node]] > priority[right[node]] ? left[node] : right[node];
+			}
+			rotateUp(child);
+		}
+		final int ancestor = parent[node];
+		if (ancestor == NONE)
+		{
+			root = NONE;
+		}
+		else if (left[ancestor] == node)
+		{
+			left[ancestor] = NONE;
+		}
+		else
+		{
+			right[ancestor] = NONE;
+		}
+		parent[node] = NONE;
+	}
+
+	/**
+	 * Rotates the node above its parent.
+	 */
+	private void rotateUp(final int node)
+	{
+		final int above = parent[node];
+		final int grandparent = parent[above];
+		if (left[above] == node)
+		{
+			left[above] = right[node];
+			if (right[node] != NONE)
+			{
+				parent[right[node]] = above;
+			}
+			right[node] = above;
+		}
+		else
+		{
+			right[above] = left[node];
+			if (left[node] != NONE)
+			{
+				parent[left[node]] = above;
+			}
+			left[node] = above;
+		}
+		parent[above] = node;
+		parent[node] = grandparent;
+		if (grandparent == NONE)
+		{
+			root = node;
+		}
+		else if (left[grandparent] == above)
+		{
+			left[grandparent] = node;
+		}
+		else
+		{
+			right[grandparent] = node;
+		}
+	}
+
+	/**
+	 * @return A pseudo random priority from a xorshift generator, that is reset by each search, so
+	 *         the results don't depend on previous searches.
+	 */
+	private int nextPriority()
+	{
+		seed ^= seed << 13;
+		seed ^= seed >>> 17;
+		seed ^= seed << 5;
+		return seed;
+	}
+
+	private static int[] ensure(final int[] array, final int length)
+	{
+		return array.length >= length
+				? array
+				: Arrays.copyOf(array, GMath.max(length, array.length * 2));
+	}
+}
@@ -0,0 +1,303 @@
+package vine.math.spatial;
+
+
+import vine.math.GMath;
+import vine.math.vector.VectorUtils;
+
+
+/**
+ * Immutable point location structure over an indexed triangle mesh, e.g. a navigation mesh.
+ * <p>
+ * Each triangle is stored as its three precomputed edge functions a * x + b * y + c, which are
+ * normalized and oriented, so that they are the distance to the edge and positive inside of the
+ * triangle. A point is inside, if the minimum of the three functions is not negative, which takes
+ * six multiplications and no square root. Points, whose distance is within {@value #TOLERANCE}
+ * times the size of the mesh, count as inside, so points on shared edges don't fall through cracks
+ * caused by rounding.
+ * </p>
+ * <p>
+ * A uniform grid with about one cell per triangle lists the triangles, whose bounds overlap each
+ * cell. The lists of all cells are stored in one array, that is indexed by the start of each cell.
+ * </p>
+ * <p>
+ * Queries don't allocate and may be executed from several threads at once.
+ * </p>
+ */
+public final class TriangleMeshLocator
+{
+
+	/**
+	 * Floats of the three edge functions of a triangle.
+	 */
+	private static final int	EDGE_FLOATS		= 9;
+	/**
+	 * Maximum number of grid cells along each axis.
+	 */
+	private static final int	MAX_CELLS		= 1024;
+	private static final float	TOLERANCE		= 0.000001f;
+	private static final int	NONE			= -1;
+
+	private final float[]		edges;
+	private final int			triangleCount;
+	private final float			tolerance;
+	private final float			minX;
+	private final float			minY;
+	private final float			maxX;
+	private final float			maxY;
+	private final int			columns;
+	private final int			rows;
+	private final float			inversedCellWidth;
+	private final float			inversedCellHeight;
+	/**
+	 * Start of the triangle list of each cell in the cell triangles, with one extra entry for the
+	 * end of the last cell.
+	 */
+	private final int[]			cellStarts;
+	private final int[]			cellTriangles;
+
+
+	/**
+	 * Creates the locator for the given mesh. The arrays are not referenced afterwards.
+	 *
+	 * @param vertices
+	 *            Interleaved x,y coordinates of the vertices.
+	 * @param indices
+	 *            Three vertex indices per triangle, each triangle may be in clockwise or
+	 *            counterclockwise order.
+	 * @param triangleCount
+	 *            The number of triangles.
+	 */
+	public TriangleMeshLocator(final float[] vertices, final int[] indices, final int triangleCount)
+	{
+		if (vertices == null || GMath.isOdd(vertices.length) || indices == null
+				|| triangleCount < 0 || indices.length < triangleCount * 3)
+		{
+			throw new IllegalArgumentException("Tried to locate points in an invalid mesh");
+		}
+		this.triangleCount = triangleCount;
+		edges = new float[triangleCount * EDGE_FLOATS];
+		float lowX = Float.MAX_VALUE;
+		float lowY = Float.MAX_VALUE;
+		float highX = -Float.MAX_VALUE;
+		float highY = -Float.MAX_VALUE;
+		for (int i = 0; i < triangleCount * 3; i++)
+		{
+			final int vertex = indices[i];
+			if (vertex < 0 || vertex * 2 >= vertices.length)
+			{
+				throw new IllegalArgumentException(
+						"Tried to locate points in a mesh with the invalid vertex index " + vertex);
+			}
+			lowX = GMath.min(lowX, vertices[vertex * 2]);
+			lowY = GMath.min(lowY, vertices[vertex * 2 + 1]);
+			highX = GMath.max(highX, vertices[vertex * 2]);
+			highY = GMath.max(highY, vertices[vertex * 2 + 1]);
+		}
+		if (triangleCount == 0)
+		{
+			lowX = 0;
+			lowY = 0;
+			highX = 0;
+			highY = 0;
+		}
+		minX = lowX;
+		minY = lowY;
+		maxX = highX;
+		maxY = highY;
+		final float width = maxX - minX;
+		final float height = maxY - minY;
+		tolerance = GMath.max(width, height) * TOLERANCE;
+		for (int triangle = 0; triangle < triangleCount; triangle++)
+		{
+			setEdges(vertices, indices, triangle);
+		}
+		// About one cell per triangle
+		final float cellSize = GMath.max(
+				GMath.sqrt(width * height / GMath.max(triangleCount, 1)),
+				GMath.max(width, height) / MAX_CELLS);
+		columns = cellSize == 0 ? 1 : GMath.clamp((int) Math.ceil(width / cellSize), 1, MAX_CELLS);
+		rows = cellSize == 0 ? 1 : GMath.clamp((int) Math.ceil(height / cellSize), 1, MAX_CELLS);
+		inversedCellWidth = width == 0 ? 0 : columns / width;
+		inversedCellHeight = height == 0 ? 0 : rows / height;
+		cellStarts = new int[columns * rows + 1];
+		for (int triangle = 0; triangle < triangleCount; triangle++)
+		{
+			forEachCell(vertices, indices, triangle, null);
+		}
+		final int cellCount = columns * rows;
+		for (int cell = 1; cell < cellCount; cell++)
+		{
+			cellStarts[cell] += cellStarts[cell - 1];
+		}
+		cellStarts[cellCount] = cellStarts[cellCount - 1];
+		cellTriangles = new int[cellStarts[cellCount]];
+		// Each cell holds the end of its list, which is filled backwards, so it ends at the start
+		for (int triangle = triangleCount - 1; triangle >= 0; triangle--)
+		{
+			forEachCell(vertices, indices, triangle, cellTriangles);
+		}
+	}
+
+	/**
+	 * Calculates the edge functions of the triangle, a degenerated triangle contains no points.
+	 */
+	private void setEdges(final float[] vertices, final int[] indices, final int triangle)
+	{
+		final int offset = triangle * EDGE_FLOATS;
+		final float x1 = vertices[indices[triangle * 3] * 2];
+		final float y1 = vertices[indices[triangle * 3] * 2 + 1];
+		final float x2 = vertices[indices[triangle * 3 + 1] * 2];
+		final float y2 = vertices[indices[triangle * 3 + 1] * 2 + 1];
+		final float x3 = vertices[indices[triangle * 3 + 2] * 2];
+		final float y3 = vertices[indices[triangle * 3 + 2] * 2 + 1];
+		final float area = VectorUtils.pseudoCross(x2 - x1, y2 - y1, x3 - x1, y3 - y1);
+		for (int edge = 0; edge < 3; edge++)
+		{
+			final float startX = edge == 0 ? x1 : edge == 1 ? x2 : x3;
+			final float startY = edge == 0 ? y1 : edge == 1 ? y2 : y3;
+			final float endX = edge == 0 ? x2 : edge == 1 ? x3 : x1;
+			final float endY = edge == 0 ? y2 : edge == 1 ? y3 : y1;
+			final float length = VectorUtils.length(endX - startX, endY - startY);
+			if (area == 0 || length == 0)
+			{
+				edges[offset + edge * 3] = 0;
+				edges[offset + edge * 3 + 1] = 0;
+				edges[offset + edge * 3 + 2] = -Float.MAX_VALUE;
+				continue;
+			}
+			// The inner normal of counterclockwise triangles, flipped for clockwise ones
+			final float sign = area > 0 ? 1 : -1;
+			final float a = -(endY - startY) / length * sign;
+			final float b = (endX - startX) / length * sign;
+			edges[offset + edge * 3] = a;
+			edges[offset + edge * 3 + 1] = b;
+			edges[offset + edge * 3 + 2] = -(a * startX + b * startY);
+		}
+	}
+
+	/**
+	 * Counts the triangle in each cell its bounds overlap or, if the triangles are given, writes it
+	 * before the current end of the list of each cell.
+	 */
+	private void forEachCell(
+			final float[] vertices,
+			final int[] indices,
+			final int triangle,
+			final int[] triangles)
+	{
+		float lowX = Float.MAX_VALUE;
+		float lowY = Float.MAX_VALUE;
+		float highX = -Float.MAX_VALUE;
+		float highY = -Float.MAX_VALUE;
+		for (int i = triangle * 3; i < triangle * 3 + 3; i++)
+		{
+			lowX = GMath.min(lowX, vertices[indices[i] * 2]);
+			lowY = GMath.min(lowY, vertices[indices[i] * 2 + 1]);
+			highX = GMath.max(highX, vertices[indices[i] * 2]);
+			highY = GMath.max(highY, vertices[indices[i] * 2 + 1]);
+		}
+		final int lowColumn = getColumn(lowX - tolerance);
+		final int highColumn = getColumn(highX + tolerance);
+		final int lowRow = getRow(lowY - tolerance);
+		final int highRow = getRow(highY + tolerance);
+		for (int row = lowRow; row <= highRow; row++)
+		{
+			for (int column = lowColumn; column <= highColumn; column++)
+			{
+				final int cell = row * columns + column;
+				if (triangles == null)
+				{
+					cellStarts[cell]++;
+				}
+				else
+				{
+					triangles[--cellStarts[cell]] = triangle;
+				}
+			}
+		}
+	}
+
+	private int getColumn(final float x)
+	{
+		return GMath.clamp((int) ((x - minX) * inversedCellWidth), 0, columns - 1);
+	}
+
+	private int getRow(final float y)
+	{
+		return GMath.clamp((int) ((y - minY) * inversedCellHeight), 0, rows - 1);
+	}
+
+	/**
+	 * @return The number of triangles of the mesh.
+	 */
+	public int getTriangleCount()
+	{
+		return triangleCount;
+	}
+
+	/**
+	 * Checks, if the triangle with the given index contains the point.
+	 */
+	public boolean contains(final int triangle, final float x, final float y)
+	{
+		final float[] functions = edges;
+		final int offset = triangle * EDGE_FLOATS;
+		return GMath.min(
+				functions[offset] * x + functions[offset + 1] * y + functions[offset + 2],
+				functions[offset + 3] * x + functions[offset + 4] * y + functions[offset + 5],
+				functions[offset + 6] * x + functions[offset + 7] * y + functions[offset + 8])
+				>= -tolerance;
+	}
+
+	/**
+	 * Finds the triangle, that contains the point. A point on an edge shared by several triangles
+	 * belongs to one of them.
+	 *
+	 * @return The index of the triangle or -1, if no triangle contains the point.
+	 */
+	public int locate(final float x, final float y)
+	{
+		if (!(x >= minX - tolerance && x <= maxX + tolerance && y >= minY - tolerance
+				&& y <= maxY + tolerance))
+		{
+			return NONE;
+		}
+		final int cell = getRow(y) * columns + getColumn(x);
+		for (int i = cellStarts[cell]; i < cellStarts[cell + 1]; i++)
+		{
+			final int triangle = cellTriangles[i];
+			if (contains(triangle, x, y))
+			{
+				return triangle;
+			}
+		}
+		return NONE;
+	}
+
+	/**
+	 * Finds the triangles, that contain the points. The triangle of the previous point is tested
+	 * first, so points, that follow paths or are sorted spatially, mostly skip the grid.
+	 *
+	 * @param points
+	 *            Interleaved x,y coordinates of the points.
+	 * @param count
+	 *            The number of points.
+	 * @param triangles
+	 *            Array, that receives the triangle index of each point or -1, if no triangle
+	 *            contains it.
+	 */
+	public void locate(final float[] points, final int count, final int[] triangles)
+	{
+		int previous = NONE;
+		for (int i = 0; i < count; i++)
+		{
+			final float x = points[i * 2];
+			final float y = points[i * 2 + 1];
+			if (previous == NONE || !contains(previous, x, y))
+			{
+				previous = locate(x, y);
+			}
+			triangles[i] = previous;
+		}
+	}
+}
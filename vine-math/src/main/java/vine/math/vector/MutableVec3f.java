@@ -48,6 +48,24 @@ public class MutableVec3f extends Vec3f
 		invalidate();
 	}
 
+	/**
+	 * Sets the elements of this vector.
+	 *
+	 * @param x
+	 *            The new x element value
+	 * @param y
+	 *            The new y element value
+	 * @param z
+	 *            The new z element value
+	 */
+	public void set(final float x, final float y, final float z)
+	{
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		invalidate();
+	}
+
 	/**
 	 * Adds the given values to the corresponding elements of this Vector3f.
 	 *
@@ -0,0 +1,69 @@
+package vine.math.vector;
+
+/**
+ * Read access to a 2d vector. Implemented by {@link Vec2f} and by the flyweight cursors of
+ * {@link Vec2fBuffer}, so code that only reads vectors can work on both.
+ */
+public interface ReadableVec2f
+{
+
+	/**
+	 * @return the float value of the x element.
+	 */
+	float getX();
+
+	/**
+	 * @return the float value of the y element.
+	 */
+	float getY();
+
+	/**
+	 * @return the length of the vector.
+	 */
+	float length();
+
+	/**
+	 * @return the squared length of the vector.
+	 */
+	float squaredLength();
+
+	/**
+	 * @return the dot product of this vector and the given one.
+	 */
+	float dot(float x, float y);
+
+	/**
+	 * @return the squared distance of the point defined by this vector to the given point.
+	 */
+	float squaredDistance(float x, float y);
+
+	/**
+	 * @return the distance of the point defined by this vector to the given point.
+	 */
+	float distance(float x, float y);
+
+	/**
+	 * @return the inner angle between this and the given vector.
+	 */
+	float getAngle(float x, float y);
+
+	/**
+	 * @return the slope of this vector, interpreted as a direction in space.
+	 */
+	float getSlope();
+
+	/**
+	 * @return True, if the vector is of length 1 (with error tolerance).
+	 */
+	boolean isNormalized();
+
+	/**
+	 * @return True, if the vector is of length 0 (with error tolerance).
+	 */
+	boolean isNearlyZero();
+
+	/**
+	 * @return True, if the given vector is equal to this vector (with error tolerance).
+	 */
+	boolean nearlyEquals(float x, float y);
+}
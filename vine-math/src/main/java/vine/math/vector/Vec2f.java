@@ -15,7 +15,7 @@ import vine.math.GMath;
  * @author Steffen
  *
  */
-public class Vec2f implements Serializable
+public class Vec2f implements ReadableVec2f, Serializable
 {
 
 	private static final long	serialVersionUID	= -48013626869712862L;
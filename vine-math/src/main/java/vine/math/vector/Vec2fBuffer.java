@@ -0,0 +1,367 @@
+package vine.math.vector;
+
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+import vine.math.GMath;
+import vine.math.Interpolation;
+
+
+/**
+ * Compact storage of many 2d vectors as interleaved x,y pairs of floats.
+ * <p>
+ * A {@link Vec2f} needs about 28 bytes (object header, the cached length and the reference to it)
+ * for 8 bytes of payload. The buffer stores exactly 8 bytes per vector, either off-heap in a
+ * direct buffer ({@link #allocateDirect(int)}) or in a heap {@code float[]} ({@link #allocate(int)}
+ * ). Bulk operations work on index ranges {@code [from,to)} and {@link Cursor}s give read access
+ * through the {@link ReadableVec2f} interface without creating a vector per element.
+ * </p>
+ */
+public final class Vec2fBuffer
+{
+
+	private final FloatBuffer	buffer;
+	private final int			capacity;
+
+
+	private Vec2fBuffer(final FloatBuffer buffer)
+	{
+		this.buffer = buffer;
+		capacity = buffer.capacity() / 2;
+	}
+
+	/**
+	 * Creates a buffer, which stores the vectors off-heap in a direct buffer with native byte
+	 * order.
+	 *
+	 * @param capacity
+	 *            The number of vectors of the buffer.
+	 * @return A new zero initialized buffer.
+	 */
+	public static Vec2fBuffer allocateDirect(final int capacity)
+	{
+		final ByteBuffer bytes = ByteBuffer.allocateDirect(capacity * 2 * Float.BYTES);
+		return new Vec2fBuffer(bytes.order(ByteOrder.nativeOrder()).asFloatBuffer());
+	}
+
+	/**
+	 * Creates a buffer, which stores the vectors in a {@code float[]} on the heap.
+	 *
+	 * @param capacity
+	 *            The number of vectors of the buffer.
+	 * @return A new zero initialized buffer.
+	 */
+	public static Vec2fBuffer allocate(final int capacity)
+	{
+		return new Vec2fBuffer(FloatBuffer.allocate(capacity * 2));
+	}
+
+	/**
+	 * Creates a buffer, that uses the given array as storage.
+	 *
+	 * @param values
+	 *            Interleaved x,y values. Changes of the array are visible in the buffer and vice
+	 *            versa.
+	 * @return A new buffer backed by the given array.
+	 */
+	public static Vec2fBuffer wrap(final float[] values)
+	{
+		if (values == null || GMath.isOdd(values.length))
+		{
+			throw new IllegalArgumentException("Tried to wrap an invalid value array");
+		}
+		return new Vec2fBuffer(FloatBuffer.wrap(values));
+	}
+
+	/**
+	 * @return The number of vectors in this buffer.
+	 */
+	public int capacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * @return True, if the vectors are stored off-heap.
+	 */
+	public boolean isDirect()
+	{
+		return buffer.isDirect();
+	}
+
+	/**
+	 * @return The storage of this buffer, with interleaved x,y values.
+	 */
+	public FloatBuffer getBuffer()
+	{
+		return buffer;
+	}
+
+	/**
+	 * @return The x element of the vector at the given index.
+	 */
+	public float getX(final int index)
+	{
+		return buffer.get(index * 2);
+	}
+
+	/**
+	 * @return The y element of the vector at the given index.
+	 */
+	public float getY(final int index)
+	{
+		return buffer.get(index * 2 + 1);
+	}
+
+	/**
+	 * Copies the vector at the given index into the given vector.
+	 */
+	public void get(final int index, final MutableVec2f dest)
+	{
+		dest.set(buffer.get(index * 2), buffer.get(index * 2 + 1));
+	}
+
+	/**
+	 * Sets the vector at the given index.
+	 */
+	public void set(final int index, final float x, final float y)
+	{
+		buffer.put(index * 2, x);
+		buffer.put(index * 2 + 1, y);
+	}
+
+	/**
+	 * Sets the vector at the given index to the given vector.
+	 */
+	public void set(final int index, final ReadableVec2f vector)
+	{
+		set(index, vector.getX(), vector.getY());
+	}
+
+	/**
+	 * Adds the given vector to each vector in the range.
+	 *
+	 * @param from
+	 *            Index of the first vector of the range.
+	 * @param to
+	 *            Index after the last vector of the range.
+	 * @param x
+	 *            x Value added to each vector.
+	 * @param y
+	 *            y Value added to each vector.
+	 */
+	public void add(final int from, final int to, final float x, final float y)
+	{
+		for (int i = from * 2; i < to * 2; i += 2)
+		{
+			buffer.put(i, buffer.get(i) + x);
+			buffer.put(i + 1, buffer.get(i + 1) + y);
+		}
+	}
+
+	/**
+	 * Adds the vectors of the other buffer multiplied with the given factor to the vectors of the
+	 * range, e.g. to integrate positions by velocities.
+	 *
+	 * @param from
+	 *            Index of the first vector of the range.
+	 * @param to
+	 *            Index after the last vector of the range.
+	 * @param scale
+	 *            The factor with which the added vectors are scaled.
+	 * @param other
+	 *            Buffer with the added vectors, which is read at the same indices.
+	 */
+	public void addScaled(final int from, final int to, final float scale, final Vec2fBuffer other)
+	{
+		final FloatBuffer source = other.buffer;
+		for (int i = from * 2; i < to * 2; i++)
+		{
+			buffer.put(i, buffer.get(i) + source.get(i) * scale);
+		}
+	}
+
+	/**
+	 * Multiplies each vector of the range with the given factor.
+	 */
+	public void scale(final int from, final int to, final float factor)
+	{
+		for (int i = from * 2; i < to * 2; i++)
+		{
+			buffer.put(i, buffer.get(i) * factor);
+		}
+	}
+
+	/**
+	 * Interpolates each vector of the range linear to the vector of the other buffer at the same
+	 * index.
+	 *
+	 * @param from
+	 *            Index of the first vector of the range.
+	 * @param to
+	 *            Index after the last vector of the range.
+	 * @param target
+	 *            Buffer with the target vectors.
+	 * @param alpha
+	 *            The interpolation value in [0,1].
+	 */
+	public void lerp(final int from, final int to, final Vec2fBuffer target, final float alpha)
+	{
+		final FloatBuffer source = target.buffer;
+		for (int i = from * 2; i < to * 2; i++)
+		{
+			buffer.put(i, Interpolation.lerp(buffer.get(i), source.get(i), alpha));
+		}
+	}
+
+	/**
+	 * Normalizes each vector of the range. Vectors of nearly zero length are not changed.
+	 */
+	public void normalize(final int from, final int to)
+	{
+		for (int i = from * 2; i < to * 2; i += 2)
+		{
+			final float x = buffer.get(i);
+			final float y = buffer.get(i + 1);
+			final float squaredLength = VectorUtils.squaredLength(x, y);
+			if (GMath.isNearlyZero(squaredLength))
+			{
+				continue;
+			}
+			final float inversedLength = 1 / GMath.sqrt(squaredLength);
+			buffer.put(i, x * inversedLength);
+			buffer.put(i + 1, y * inversedLength);
+		}
+	}
+
+	/**
+	 * Creates a new cursor, which is positioned at the first vector of this buffer. Cursors should
+	 * be created once and moved, so iterating doesn't allocate.
+	 */
+	public Cursor cursor()
+	{
+		return new Cursor();
+	}
+
+	/**
+	 * Flyweight view on one vector of the buffer.
+	 */
+	public final class Cursor implements ReadableVec2f
+	{
+
+		private int index;
+
+
+		Cursor()
+		{
+			// Created by the buffer
+		}
+
+		/**
+		 * Moves the cursor to the vector at the given index.
+		 *
+		 * @return this
+		 */
+		public Cursor moveTo(final int index)
+		{
+			this.index = index;
+			return this;
+		}
+
+		/**
+		 * @return The index of the vector the cursor is positioned at.
+		 */
+		public int getIndex()
+		{
+			return index;
+		}
+
+		/**
+		 * Sets the vector the cursor is positioned at.
+		 */
+		public void set(final float x, final float y)
+		{
+			Vec2fBuffer.this.set(index, x, y);
+		}
+
+		@Override
+		public float getX()
+		{
+			return buffer.get(index * 2);
+		}
+
+		@Override
+		public float getY()
+		{
+			return buffer.get(index * 2 + 1);
+		}
+
+		@Override
+		public float length()
+		{
+			return VectorUtils.length(getX(), getY());
+		}
+
+		@Override
+		public float squaredLength()
+		{
+			return VectorUtils.squaredLength(getX(), getY());
+		}
+
+		@Override
+		public float dot(final float x, final float y)
+		{
+			return VectorUtils.dot(getX(), getY(), x, y);
+		}
+
+		@Override
+		public float squaredDistance(final float x, final float y)
+		{
+			return VectorUtils.squaredLength(getX() - x, getY() - y);
+		}
+
+		@Override
+		public float distance(final float x, final float y)
+		{
+			return GMath.sqrt(squaredDistance(x, y));
+		}
+
+		@Override
+		public float getAngle(final float x, final float y)
+		{
+			return VectorUtils.getAngle(getX(), getY(), x, y);
+		}
+
+		@Override
+		public float getSlope()
+		{
+			return VectorUtils.getSlope(getX(), getY());
+		}
+
+		@Override
+		public boolean isNormalized()
+		{
+			return GMath.isNearlyZero(squaredLength() - 1, GMath.EPSILON);
+		}
+
+		@Override
+		public boolean isNearlyZero()
+		{
+			return GMath.isNearlyZero(getX()) && GMath.isNearlyZero(getY());
+		}
+
+		@Override
+		public boolean nearlyEquals(final float x, final float y)
+		{
+			return GMath.isNearlyEqual(x, getX()) && GMath.isNearlyEqual(y, getY());
+		}
+
+		@Override
+		public String toString()
+		{
+			return "Vec2fBuffer.Cursor(" + index + ":" + getX() + "," + getY() + ")";
+		}
+	}
+}
@@ -1,20 +1,83 @@
 package geometry.shape.test;
 
+import static org.junit.Assert.assertTrue;
+
 import org.junit.Test;
 
+import vine.math.GMath;
+import vine.math.geometry.shape.MutableRectangle;
+import vine.math.geometry.shape.Rectangle;
+
 public class RectangleTest
 {
 
     @Test
     public void testPerimeter()
     {
-
+        final Rectangle rectangle = new Rectangle(0, 0, 3, 4, -4, 3);
+        assertTrue(GMath.isNearlyEqual(rectangle.getCircumference(), 20));
     }
 
     @Test
     public void testArea()
     {
+        final Rectangle rectangle = new Rectangle(0, 0, 3, 4, -4, 3);
+        assertTrue(GMath.isNearlyEqual(rectangle.getArea(), 25));
+        assertTrue(rectangle.contains(-0.5f, 3.5f));
+        assertTrue(!rectangle.contains(3, 0));
+        assertTrue(GMath.isNearlyEqual(rectangle.getCenterX(), -0.5f));
+        assertTrue(GMath.isNearlyEqual(rectangle.getCenterY(), 3.5f));
+    }
 
+    @Test
+    public void testTransform()
+    {
+        final MutableRectangle rectangle = new MutableRectangle(0, 0, 2, 0, 0, 1);
+        rectangle.rotate(90);
+        assertTrue(GMath.isNearlyEqual(rectangle.getLowerRightX(), 0, 0.001f));
+        assertTrue(GMath.isNearlyEqual(rectangle.getLowerRightY(), 2, 0.001f));
+        assertTrue(GMath.isNearlyEqual(rectangle.getUpperLeftX(), -1, 0.001f));
+        assertTrue(rectangle.contains(-0.5f, 1.5f));
+        assertTrue(!rectangle.contains(1.5f, 0.5f));
+        rectangle.scale(2, 3);
+        assertTrue(GMath.isNearlyEqual(rectangle.getWidth(), 4));
+        assertTrue(GMath.isNearlyEqual(rectangle.getHeight(), 3));
+        assertTrue(GMath.isNearlyEqual(rectangle.getUpperLeftX(), -3, 0.001f));
+        rectangle.setX(1);
+        assertTrue(GMath.isNearlyEqual(rectangle.getLowerLeftX(), 1));
+        assertTrue(GMath.isNearlyEqual(rectangle.getCenterX(), -0.5f, 0.001f));
+        assertTrue(GMath.isNearlyEqual(rectangle.getCenterY(), 2, 0.001f));
+        for (int i = 0; i < 8; i++)
+        {
+            rectangle.rotate(45);
+        }
+        assertTrue(GMath.isNearlyEqual(rectangle.getLowerRightX(), 1, 0.001f));
+        assertTrue(GMath.isNearlyEqual(rectangle.getLowerRightY(), 4, 0.001f));
+        for (int i = 0; i < 10000; i++)
+        {
+            rectangle.rotate(0.7f);
+        }
+        // Many small rotations keep the axis at unit length
+        assertTrue(GMath.isNearlyEqual(rectangle.getCos() * rectangle.getCos()
+                + rectangle.getSin() * rectangle.getSin(), 1, 0.0001f));
+        assertTrue(GMath.isNearlyEqual(rectangle.getWidth(), 4));
     }
 
+    @Test
+    public void testAccumulatedRotation()
+    {
+        final float[] steps = { 0.05f, 0.9f, 0.04f, 0.01f, 7.3f };
+        for (final float step : steps)
+        {
+            final MutableRectangle rectangle = new MutableRectangle(0, 0, 1, 0, 0, 1);
+            final int count = Math.round(45 / step);
+            for (int i = 0; i < count; i++)
+            {
+                rectangle.rotate(step);
+            }
+            final double angle = Math.toDegrees(Math.atan2(rectangle.getSin(),
+                    rectangle.getCos()));
+            assertTrue(Math.abs(angle - count * (double) step) < 0.01);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package vector.test;
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.vector.MutableVec2f;
+import vine.math.vector.ReadableVec2f;
+import vine.math.vector.Vec2f;
+import vine.math.vector.Vec2fBuffer;
+
+public class Vec2fBufferTest
+{
+    @Test
+    public void testDirectAndHeapStorage()
+    {
+        final Vec2fBuffer direct = Vec2fBuffer.allocateDirect(4);
+        final Vec2fBuffer heap = Vec2fBuffer.allocate(4);
+        assertTrue(direct.isDirect());
+        assertTrue(!heap.isDirect());
+        direct.set(3, 1, 2);
+        heap.set(3, new Vec2f(1, 2));
+        assertTrue(direct.getX(3) == heap.getX(3) && direct.getY(3) == heap.getY(3));
+        final MutableVec2f vector = new MutableVec2f();
+        direct.get(3, vector);
+        assertTrue(vector.nearlyEquals(1, 2));
+    }
+
+    @Test
+    public void testBulkOperations()
+    {
+        final Vec2fBuffer positions = Vec2fBuffer.wrap(new float[] { 0, 0, 1, 1, 3, 4 });
+        final Vec2fBuffer velocities = Vec2fBuffer.wrap(new float[] { 1, 0, 0, 1, 2, 2 });
+        positions.addScaled(0, 3, 0.5f, velocities);
+        assertTrue(positions.getX(0) == 0.5f && positions.getY(1) == 1.5f);
+        positions.add(1, 3, 1, -1);
+        assertTrue(positions.getX(0) == 0.5f && positions.getX(1) == 2 && positions.getY(2) == 4);
+        positions.scale(2, 3, 2);
+        assertTrue(positions.getX(2) == 10 && positions.getY(2) == 8);
+        positions.lerp(0, 1, velocities, 1);
+        assertTrue(positions.getX(0) == 1 && positions.getY(0) == 0);
+        positions.normalize(2, 3);
+        assertTrue(positions.cursor().moveTo(2).isNormalized());
+    }
+
+    @Test
+    public void testCursorReadsLikeVec2f()
+    {
+        final Vec2fBuffer buffer = Vec2fBuffer.allocateDirect(2);
+        buffer.set(1, 3, 4);
+        final Vec2f vector = new Vec2f(3, 4);
+        final ReadableVec2f cursor = buffer.cursor().moveTo(1);
+        assertTrue(cursor.length() == vector.length());
+        assertTrue(cursor.dot(1, 2) == vector.dot(1, 2));
+        assertTrue(cursor.distance(0, 0) == vector.distance(0, 0));
+        assertTrue(cursor.getSlope() == vector.getSlope());
+        assertTrue(cursor.nearlyEquals(3, 4));
+    }
+}
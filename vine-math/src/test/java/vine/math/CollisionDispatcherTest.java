@@ -0,0 +1,267 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.geometry.shape.Ellipsoid;
+import vine.math.geometry.shape.Polygon;
+import vine.math.geometry.shape.Rectangle;
+import vine.math.geometry.shape.Shape;
+import vine.math.geometry.shape.ShapeType;
+import vine.math.geometry.shape.Triangle;
+
+
+public class CollisionDispatcherTest
+{
+
+	@Test
+	public void testTypeIds()
+	{
+		assertTrue(new Circle(0, 0, 1).getTypeId() == ShapeType.CIRCLE);
+		assertTrue(new Aabb(0, 0, 1, 1).getTypeId() == ShapeType.AABB);
+		assertTrue(new Rectangle(0, 0, 1, 0, 0, 1).getTypeId() == ShapeType.RECTANGLE);
+	}
+
+	@Test
+	public void testSwappedPairFlipsNormal()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Aabb aabb = new Aabb(0, 0, 2, 2);
+		final Circle circle = new Circle(3, 1, 1.5f);
+		final HitData data = new HitData();
+		final HitData swappedData = new HitData();
+		assertTrue(dispatcher.intersect(aabb, circle, data));
+		assertTrue(dispatcher.intersect(circle, aabb, swappedData));
+		assertTrue(data.getNormal().nearlyEquals(1, 0));
+		assertTrue(swappedData.getNormal().nearlyEquals(-1, 0));
+		assertTrue(data.getPenetration() == swappedData.getPenetration());
+		assertTrue(!dispatcher.intersect(new Circle(6, 1, 1), aabb, null));
+	}
+
+	@Test
+	public void testAabbBelowAndLeft()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Aabb aabb = new Aabb(0, 0, 2, 2);
+		final HitData data = new HitData();
+		assertTrue(dispatcher.intersect(aabb, new Aabb(0.2f, -1.5f, 2, 2), data));
+		assertTrue(data.getNormal().nearlyEquals(0, -1));
+		assertTrue(GMath.isNearlyEqual(data.getPenetration(), 0.5f));
+		assertTrue(dispatcher.intersect(aabb, new Aabb(-1.5f, 0.2f, 2, 2), data));
+		assertTrue(data.getNormal().nearlyEquals(-1, 0));
+		assertTrue(GMath.isNearlyEqual(data.getPenetration(), 0.5f));
+		assertTrue(dispatcher.intersect(aabb, new Aabb(0.2f, 1.5f, 2, 2), data));
+		assertTrue(data.getNormal().nearlyEquals(0, 1));
+		assertTrue(GMath.isNearlyEqual(data.getPenetration(), 0.5f));
+		// A smaller Aabb inside the left half is pushed out to the left
+		assertTrue(dispatcher.intersect(aabb, new Aabb(0.2f, 0.5f, 0.5f, 1), data));
+		assertTrue(data.getNormal().nearlyEquals(-1, 0));
+		assertTrue(GMath.isNearlyEqual(data.getPenetration(), 0.7f));
+		assertTrue(dispatcher.intersect(new Aabb(0.2f, 0.5f, 0.5f, 1), aabb, data));
+		assertTrue(data.getNormal().nearlyEquals(1, 0));
+		assertTrue(GMath.isNearlyEqual(data.getPenetration(), 0.7f));
+	}
+
+	@Test
+	public void testRotatedRectangles()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Rectangle diamond = new Rectangle(0, -1, 1, 0, -1, 0);
+		final Aabb aabb = new Aabb(0.6f, 0.6f, 1, 1);
+		assertTrue(!dispatcher.intersect(diamond, aabb, null));
+		assertTrue(!dispatcher.intersect(aabb, diamond, null));
+		final Rectangle shifted = new Rectangle(0.1f, -0.9f, 1.1f, 0.1f, -0.9f, 0.1f);
+		assertTrue(dispatcher.intersect(aabb, shifted, null));
+		final HitData data = new HitData();
+		assertTrue(dispatcher.intersect(diamond, new Circle(1, 1, 0.8f), data));
+		assertTrue(GMath.isNearlyEqual(data.getNormal().getX(), data.getNormal().getY()));
+		assertTrue(!dispatcher.intersect(diamond, new Circle(1, 1, 0.6f), null));
+		final Rectangle other = new Rectangle(0.9f, 0, 2, 0, 0.9f, 1);
+		assertTrue(dispatcher.intersect(diamond, other, data));
+		assertTrue(data.getNormal().getX() > 0);
+	}
+
+	@Test
+	public void testCastNearest()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Shape[] shapes = new Shape[] {
+				new Circle(12, 0, 1),
+				new Polygon(new float[] { 8, -1, 9, 0, 8, 1 }),
+				new Triangle(6, -1, 7, 0, 6, 1),
+				new Aabb(4, -1, 1, 2),
+				new Rectangle(10, -1, 10, 1, 9, -1),
+				new Ellipsoid(3, 0, 0.5f, 0.25f) };
+		final HitData data = new HitData();
+		assertTrue(dispatcher.castNearest(shapes, shapes.length, 0, 0, 1, 0, 100, data) == 5);
+		assertTrue(GMath.isNearlyEqual(data.getFraction(), 2.5f));
+		assertTrue(dispatcher.castNearest(shapes, shapes.length - 1, 0, 0, 1, 0, 100, data) == 3);
+		assertTrue(GMath.isNearlyEqual(data.getFraction(), 4));
+		assertTrue(dispatcher.castNearest(shapes, shapes.length, 0, 0, 1, 0, 2, null) == -1);
+		// Each shape is the nearest one for a ray, that starts in front of it
+		final float[] fronts = new float[] { 11, 8, 6, 4, 9, 2.5f };
+		for (int i = 0; i < shapes.length; i++)
+		{
+			assertTrue(dispatcher.cast(shapes[i], fronts[i] - 0.5f, 0, 1, 0, 0.6f, data));
+			assertTrue(GMath.isNearlyEqual(data.getFraction(), 0.5f, 0.0001f));
+			assertTrue(GMath.isNearlyEqual(data.getNormal().getX(), -1, 0.0001f));
+			assertTrue(!dispatcher.cast(shapes[i], fronts[i] - 0.5f, 0, 1, 0, 0.4f, null));
+		}
+	}
+
+	@Test
+	public void testAllPairs()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		for (int typeA = 0; typeA < ShapeType.COUNT; typeA++)
+		{
+			for (int typeB = 0; typeB < ShapeType.COUNT; typeB++)
+			{
+				assertTrue(dispatcher.isSupported(typeA, typeB));
+			}
+		}
+		// Shapes of each type around the origin and far away from it
+		final Shape[] shapes = new Shape[] {
+				new Circle(0.5f, 0, 1),
+				new Aabb(-1, -0.5f, 1.5f, 1),
+				new Rectangle(0, -1, 1, 0, -1, 0),
+				new Ellipsoid(0, 0.5f, 1, 0.5f),
+				new Triangle(-1, -1, 1, -1, 0, 1),
+				new Polygon(new float[] { -1, -1, 1, -1, 1, 1, 0, 0, -1, 1 }),
+				new Circle(10.5f, 0, 1),
+				new Aabb(9, -0.5f, 1.5f, 1),
+				new Rectangle(10, -1, 11, 0, 9, 0),
+				new Ellipsoid(10, 0.5f, 1, 0.5f),
+				new Triangle(9, -1, 11, -1, 10, 1),
+				new Polygon(new float[] { 9, -1, 11, -1, 11, 1, 10, 0, 9, 1 }) };
+		final HitData data = new HitData();
+		final HitData swappedData = new HitData();
+		for (int a = 0; a < shapes.length; a++)
+		{
+			for (int b = 0; b < shapes.length; b++)
+			{
+				final boolean near = a < 6 == b < 6;
+				assertTrue(dispatcher.intersect(shapes[a], shapes[b], data) == near);
+				assertTrue(dispatcher.intersect(shapes[b], shapes[a], swappedData) == near);
+				if (near && a != b)
+				{
+					assertTrue(data.getNormal().nearlyEquals(
+							-swappedData.getNormal().getX(),
+							-swappedData.getNormal().getY()));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConcavePolygon()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Polygon notched = new Polygon(new float[] { 0, 0, 3, 0, 3, 3, 2, 3, 2, 1, 1, 1, 1,
+				3, 0, 3 });
+		assertTrue(!dispatcher.intersect(notched, new Aabb(1.2f, 1.5f, 0.6f, 1), null));
+		assertTrue(!dispatcher.intersect(new Ellipsoid(1.5f, 2, 0.4f, 0.8f), notched, null));
+		final Triangle inNotch = new Triangle(1.2f, 2, 1.8f, 2, 1.5f, 2.8f);
+		assertTrue(!dispatcher.intersect(notched, inNotch, null));
+		assertTrue(dispatcher.intersect(new Ellipsoid(1.5f, 2, 0.6f, 0.8f), notched, null));
+		final HitData data = new HitData();
+		assertTrue(dispatcher.intersect(new Circle(1.4f, 2, 0.45f), notched, data));
+		assertTrue(data.getNormal().nearlyEquals(-1, 0));
+	}
+
+	@Test
+	public void testBatchSortedByType()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Shape[] shapes = {
+				new Circle(0, 0, 1),
+				new Aabb(0.5f, 0.5f, 2, 2),
+				new Circle(1.5f, 0, 1),
+				new Aabb(10, 10, 1, 1) };
+		final long[] pairs = {
+				(long) 0 << 32 | 1,
+				(long) 0 << 32 | 2,
+				(long) 1 << 32 | 2,
+				(long) 1 << 32 | 3,
+				(long) 2 << 32 | 3 };
+		final long[] hits = new long[pairs.length];
+		final int count = dispatcher.intersect(shapes, pairs, pairs.length, hits, null);
+		final int type = CollisionDispatcher.getPairType(ShapeType.CIRCLE, ShapeType.CIRCLE);
+		assertTrue(pairs[dispatcher.getTypeStart(type)] == ((long) 0 << 32 | 2));
+		for (int i = 1; i < pairs.length; i++)
+		{
+			final int previous = CollisionDispatcher.getPairType(
+					shapes[(int) (pairs[i - 1] >>> 32)].getTypeId(),
+					shapes[(int) pairs[i - 1]].getTypeId());
+			final int current = CollisionDispatcher.getPairType(
+					shapes[(int) (pairs[i] >>> 32)].getTypeId(),
+					shapes[(int) pairs[i]].getTypeId());
+			assertTrue(previous <= current);
+		}
+		assertTrue(count == 3);
+	}
+
+	@Test
+	public void testBatchMatchesSingleTests()
+	{
+		final CollisionDispatcher dispatcher = new CollisionDispatcher();
+		final Shape[] shapes = new Shape[] {
+				new Circle(0.5f, 0, 1),
+				new Aabb(-1, -0.5f, 1.5f, 1),
+				new Rectangle(0, -1, 1, 0, -1, 0),
+				new Ellipsoid(0, 0.5f, 1, 0.5f),
+				new Triangle(-1, -1, 1, -1, 0, 1),
+				new Polygon(new float[] { -1, -1, 1, -1, 1, 1, 0, 0, -1, 1 }),
+				new Circle(10.5f, 0, 1) };
+		final long[] pairs = new long[shapes.length * (shapes.length - 1)];
+		int count = 0;
+		for (int a = 0; a < shapes.length; a++)
+		{
+			for (int b = 0; b < shapes.length; b++)
+			{
+				if (a != b)
+				{
+					pairs[count++] = (long) a << 32 | b;
+				}
+			}
+		}
+		final long[] hits = new long[count];
+		final HitData[] data = new HitData[count];
+		for (int i = 0; i < count; i++)
+		{
+			data[i] = new HitData();
+		}
+		final int hitCount = dispatcher.intersect(shapes, pairs, count, hits, data);
+		// The swapped batches leave the pairs and hits in their original orientation
+		final HitData single = new HitData();
+		int expectedHits = 0;
+		for (int i = 0; i < count; i++)
+		{
+			final int a = (int) (pairs[i] >>> 32);
+			final int b = (int) pairs[i];
+			assertTrue(a != b && a < shapes.length && b < shapes.length);
+			if (dispatcher.intersect(shapes[a], shapes[b], null))
+			{
+				expectedHits++;
+			}
+		}
+		assertTrue(hitCount == expectedHits);
+		for (int i = 0; i < hitCount; i++)
+		{
+			final Shape a = shapes[(int) (hits[i] >>> 32)];
+			final Shape b = shapes[(int) hits[i]];
+			assertTrue(dispatcher.intersect(a, b, single));
+			assertTrue(data[i].getNormal().nearlyEquals(
+					single.getNormal().getX(),
+					single.getNormal().getY()));
+			assertTrue(GMath.isNearlyEqual(
+					data[i].getPenetration(),
+					single.getPenetration(),
+					0.0001f));
+		}
+	}
+}
@@ -0,0 +1,174 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.geometry.shape.Rectangle;
+import vine.math.physics.ContactCache;
+import vine.math.physics.ContactManifold;
+import vine.math.physics.ManifoldGenerator;
+
+
+public class ContactManifoldTest
+{
+
+	@Test
+	public void testRestingBoxHasTwoPoints()
+	{
+		final ManifoldGenerator generator = new ManifoldGenerator();
+		final ContactManifold manifold = new ContactManifold();
+		final Aabb ground = new Aabb(0, 0, 10, 1);
+		final Aabb box = new Aabb(2, 0.9f, 1, 1);
+		assertTrue(generator.collide(ground, box, manifold));
+		assertTrue(manifold.getPointCount() == 2);
+		assertTrue(GMath.isNearlyEqual(manifold.getNormalX(), 0));
+		assertTrue(GMath.isNearlyEqual(manifold.getNormalY(), 1));
+		for (int i = 0; i < 2; i++)
+		{
+			assertTrue(GMath.isNearlyEqual(manifold.getPenetration(i), 0.1f));
+			assertTrue(manifold.getPointX(i) >= 2 && manifold.getPointX(i) <= 3);
+		}
+		assertTrue(manifold.getFeatureId(0) != manifold.getFeatureId(1));
+		assertTrue(!generator.collide(ground, new Aabb(2, 1.5f, 1, 1), manifold));
+		assertTrue(manifold.getPointCount() == 0);
+	}
+
+	@Test
+	public void testSwappedBoxesFlipNormal()
+	{
+		final ManifoldGenerator generator = new ManifoldGenerator();
+		final ContactManifold manifold = new ContactManifold();
+		final ContactManifold swapped = new ContactManifold();
+		final Aabb ground = new Aabb(0, 0, 10, 1);
+		final Aabb box = new Aabb(2, 0.9f, 1, 1);
+		assertTrue(generator.collide(box, ground, swapped));
+		assertTrue(generator.collide(ground, box, manifold));
+		assertTrue(swapped.getPointCount() == 2);
+		assertTrue(GMath.isNearlyEqual(swapped.getNormalX(), -manifold.getNormalX()));
+		assertTrue(GMath.isNearlyEqual(swapped.getNormalY(), -manifold.getNormalY()));
+	}
+
+	@Test
+	public void testRotatedCornerHasOnePoint()
+	{
+		final ManifoldGenerator generator = new ManifoldGenerator();
+		final ContactManifold manifold = new ContactManifold();
+		final Aabb ground = new Aabb(-5, -1, 10, 1);
+		final Rectangle diamond = new Rectangle(0, -0.1f, 1, 0.9f, -1, 0.9f);
+		assertTrue(generator.collide(ground, diamond, manifold));
+		assertTrue(manifold.getPointCount() == 1);
+		assertTrue(GMath.isNearlyEqual(manifold.getPointX(0), 0));
+		assertTrue(GMath.isNearlyEqual(manifold.getPenetration(0), 0.1f));
+		assertTrue(GMath.isNearlyEqual(manifold.getNormalY(), 1));
+	}
+
+	@Test
+	public void testCircles()
+	{
+		final ManifoldGenerator generator = new ManifoldGenerator();
+		final ContactManifold manifold = new ContactManifold();
+		assertTrue(generator.collide(new Circle(0, 0, 1), new Circle(1.5f, 0, 1), manifold));
+		assertTrue(manifold.getPointCount() == 1);
+		assertTrue(GMath.isNearlyEqual(manifold.getPointX(0), 0.75f));
+		assertTrue(GMath.isNearlyEqual(manifold.getPenetration(0), 0.5f));
+		assertTrue(!generator.collide(new Circle(0, 0, 1), new Circle(3, 0, 1), manifold));
+	}
+
+	@Test
+	public void testWarmStartMatchesFeatures()
+	{
+		final ManifoldGenerator generator = new ManifoldGenerator();
+		final ContactCache cache = new ContactCache(4);
+		final ContactManifold manifold = new ContactManifold();
+		final Aabb ground = new Aabb(0, 0, 10, 1);
+		final long key = (long) 3 << 32 | 7;
+		generator.collide(ground, new Aabb(2, 0.9f, 1, 1), manifold);
+		assertTrue(cache.warmStart(key, manifold) == 0);
+		manifold.setNormalImpulse(0, 1.5f);
+		manifold.setNormalImpulse(1, 2.5f);
+		manifold.setTangentImpulse(1, -0.5f);
+		cache.store(key, manifold);
+		assertTrue(cache.size() == 1);
+
+		cache.beginFrame();
+		generator.collide(ground, new Aabb(2.01f, 0.91f, 1, 1), manifold);
+		assertTrue(cache.warmStart(key, manifold) == 2);
+		assertTrue(manifold.getNormalImpulse(0) == 1.5f);
+		assertTrue(manifold.getNormalImpulse(1) == 2.5f);
+		assertTrue(manifold.getTangentImpulse(1) == -0.5f);
+		assertTrue(cache.removeStale() == 0);
+
+		cache.beginFrame();
+		assertTrue(cache.removeStale() == 1);
+		assertTrue(!cache.contains(key));
+	}
+
+	@Test
+	public void testCacheGrowAndRemoveStale()
+	{
+		final ContactCache cache = new ContactCache(1);
+		final ContactManifold manifold = new ContactManifold();
+		manifold.addPoint(0, 0, 0.1f, 5);
+		final int count = 1000;
+		for (int i = 0; i < count; i++)
+		{
+			manifold.setNormalImpulse(0, i);
+			cache.store((long) i << 32 | i + 1, manifold);
+		}
+		assertTrue(cache.size() == count);
+		cache.beginFrame();
+		for (int i = 0; i < count; i += 2)
+		{
+			assertTrue(cache.warmStart((long) i << 32 | i + 1, manifold) == 1);
+			assertTrue(manifold.getNormalImpulse(0) == i);
+		}
+		assertTrue(cache.removeStale() == count / 2);
+		assertTrue(cache.size() == count / 2);
+		for (int i = 0; i < count; i++)
+		{
+			assertTrue(cache.contains((long) i << 32 | i + 1) == (i % 2 == 0));
+		}
+		assertTrue(cache.remove((long) 0 << 32 | 1));
+		assertTrue(!cache.remove((long) 0 << 32 | 1));
+	}
+
+	@Test
+	public void testRemoveStaleWrappedClusters()
+	{
+		// Small tables, in which probe sequences often wrap around the end of the slots
+		final ContactManifold manifold = new ContactManifold();
+		manifold.addPoint(0, 0, 0.1f, 5);
+		final long[] keys = new long[12];
+		final boolean[] used = new boolean[keys.length];
+		for (int trial = 0; trial < 2000; trial++)
+		{
+			final ContactCache cache = new ContactCache(keys.length);
+			for (int i = 0; i < keys.length; i++)
+			{
+				keys[i] = (long) GMath.randomInteger(0, 20) << 32 | i;
+				cache.store(keys[i], manifold);
+			}
+			cache.beginFrame();
+			int usedCount = 0;
+			for (int i = 0; i < keys.length; i++)
+			{
+				used[i] = GMath.randomBoolean();
+				if (used[i])
+				{
+					assertTrue(cache.keep(keys[i]));
+					usedCount++;
+				}
+			}
+			assertTrue(cache.removeStale() == keys.length - usedCount);
+			assertTrue(cache.size() == usedCount);
+			for (int i = 0; i < keys.length; i++)
+			{
+				assertTrue(cache.contains(keys[i]) == used[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.fixed.Fix2;
+import vine.math.fixed.FixedHitData;
+import vine.math.fixed.FixedIntersection;
+import vine.math.fixed.FixedMath;
+
+
+public class FixedMathTest
+{
+
+	private static final float TOLERANCE = 0.001f;
+
+
+	@Test
+	public void testConversionAndArithmetic()
+	{
+		assertTrue(FixedMath.fromInt(3) == 3 * FixedMath.ONE);
+		assertTrue(FixedMath.fromFloat(1.5f) == FixedMath.ONE + FixedMath.HALF);
+		assertTrue(FixedMath.toFloat(FixedMath.fromFloat(-2.25f)) == -2.25f);
+		assertTrue(FixedMath.floor(FixedMath.fromFloat(-1.5f)) == -2);
+		assertTrue(FixedMath.round(FixedMath.fromFloat(2.5f)) == 3);
+		final int a = FixedMath.fromFloat(2.5f);
+		final int b = FixedMath.fromFloat(-4);
+		assertTrue(FixedMath.mul(a, b) == FixedMath.fromInt(-10));
+		assertTrue(FixedMath.div(b, a) == FixedMath.fromFloat(-1.6f) + 1);
+		assertTrue(FixedMath.lerp(0, FixedMath.ONE * 4, FixedMath.HALF) == FixedMath.ONE * 2);
+	}
+
+	@Test
+	public void testSqrt()
+	{
+		assertTrue(FixedMath.sqrt(FixedMath.fromInt(16)) == FixedMath.fromInt(4));
+		assertTrue(FixedMath.sqrt(0) == 0);
+		for (int i = 0; i < 1000; i++)
+		{
+			final float value = GMath.randomFloat(0, 30000);
+			final float root = FixedMath.toFloat(FixedMath.sqrt(FixedMath.fromFloat(value)));
+			assertTrue(GMath.abs(root - (float) Math.sqrt(value)) < TOLERANCE);
+		}
+		assertTrue(FixedMath.sqrtWide(Long.MAX_VALUE) == Integer.MAX_VALUE);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testSqrtOfNegative()
+	{
+		FixedMath.sqrt(-1);
+	}
+
+	@Test
+	public void testTrigonometry()
+	{
+		for (int i = 0; i < 1000; i++)
+		{
+			final float angle = GMath.randomFloat(-20, 20);
+			final int fixedAngle = FixedMath.fromFloat(angle);
+			final double exactAngle = FixedMath.toDouble(fixedAngle);
+			final double sin = FixedMath.toDouble(FixedMath.sin(fixedAngle));
+			final double cos = FixedMath.toDouble(FixedMath.cos(fixedAngle));
+			assertTrue(Math.abs(sin - Math.sin(exactAngle)) < TOLERANCE);
+			assertTrue(Math.abs(cos - Math.cos(exactAngle)) < TOLERANCE);
+			final int x = FixedMath.fromFloat(GMath.randomFloat(-100, 100));
+			final int y = FixedMath.fromFloat(GMath.randomFloat(-100, 100));
+			final double exact = Math.atan2(FixedMath.toDouble(y), FixedMath.toDouble(x));
+			assertTrue(Math.abs(FixedMath.toDouble(FixedMath.atan2(y, x)) - exact) < TOLERANCE);
+			assertTrue(Math.abs(GMath.atan2(FixedMath.toFloat(y), FixedMath.toFloat(x)) - exact)
+					< TOLERANCE);
+		}
+		assertTrue(FixedMath.atan2(0, -FixedMath.ONE) == FixedMath.PI);
+		assertTrue(FixedMath.atan2(-FixedMath.ONE, 0) == -FixedMath.HALF_PI);
+	}
+
+	@Test
+	public void testVector()
+	{
+		final Fix2 vector = new Fix2(FixedMath.fromInt(3), FixedMath.fromInt(4));
+		assertTrue(vector.length() == FixedMath.fromInt(5));
+		vector.normalize();
+		assertTrue(GMath.abs(FixedMath.toFloat(vector.getX()) - 0.6f) < TOLERANCE);
+		assertTrue(GMath.abs(FixedMath.toFloat(vector.length()) - 1) < TOLERANCE);
+		final Fix2 other = new Fix2(FixedMath.ONE, 0);
+		other.rotate(FixedMath.HALF_PI);
+		assertTrue(GMath.abs(other.getX()) < 8 && GMath.abs(other.getY() - FixedMath.ONE) < 8);
+		other.set(FixedMath.ONE, 0);
+		assertTrue(other.cross(new Fix2(0, FixedMath.ONE)) == FixedMath.ONE);
+		assertTrue(other.dot(new Fix2(FixedMath.fromInt(2), 5)) == FixedMath.fromInt(2));
+		final Fix2 large = new Fix2(FixedMath.fromInt(20000), FixedMath.fromInt(20000));
+		assertTrue(GMath.abs(FixedMath.toFloat(large.length()) - 28284.271f) < 0.01f);
+	}
+
+	@Test
+	public void testIntersections()
+	{
+		final int one = FixedMath.ONE;
+		final FixedHitData data = new FixedHitData();
+		assertTrue(FixedIntersection
+				.intersectAabbAabb(0, 0, 2 * one, 2 * one, one + one / 2, one / 2, one, one, data));
+		assertTrue(data.getNormal().getX() == one && data.getPenetration() == one / 2);
+		assertTrue(!FixedIntersection
+				.intersectAabbAabb(0, 0, one, one, 2 * one, 0, one, one, null));
+
+		assertTrue(FixedIntersection.intersectCircleCircle(0, 0, one, one, 0, one, data));
+		assertTrue(data.getNormal().getX() == one && data.getPenetration() == one);
+		assertTrue(!FixedIntersection.intersectCircleCircle(0, 0, one, 3 * one, 0, one, data));
+
+		assertTrue(FixedIntersection
+				.intersectAabbCircle(0, 0, 2 * one, 2 * one, 3 * one, one, one + one / 2, data));
+		assertTrue(data.getNormal().getX() == one && data.getPenetration() == one / 2);
+		assertTrue(FixedIntersection
+				.intersectAabbCircle(0, 0, 2 * one, 2 * one, one, one / 4, one / 2, data));
+		assertTrue(data.getNormal().getY() == -one && data.getPenetration() == one * 3 / 4);
+
+		final Fix2 point = new Fix2();
+		assertTrue(FixedIntersection
+				.intersectSegmentSegment(0, 0, 2 * one, 2 * one, 0, 2 * one, 2 * one, 0, point));
+		assertTrue(point.equals(new Fix2(one, one)));
+		assertTrue(!FixedIntersection
+				.intersectSegmentSegment(0, 0, one, one, 0, one, one, 2 * one, point));
+		assertTrue(FixedIntersection
+				.intersectSegmentSegment(0, 0, 2 * one, 0, one, 0, 3 * one, 0, null));
+		assertTrue(FixedIntersection
+				.intersectSegmentSegment(0, 0, 2 * one, 0, 2 * one, 0, 2 * one, one, point));
+	}
+}
@@ -4,6 +4,12 @@ import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
+import vine.math.geometry.shape.Circle;
+import vine.math.geometry.shape.MutableEllipsoid;
+import vine.math.geometry.shape.MutableRectangle;
+import vine.math.geometry.shape.Rectangle;
+import vine.math.geometry.shape.ShapeUtil;
+import vine.math.geometry.shape.Triangle;
 import vine.math.vector.MutableVec2f;
 
 public class IntersectionTests
@@ -76,4 +82,626 @@ public class IntersectionTests
         extend.set(1, 1);
         assertTrue(Intersection.intersectAabbObb(position, extend, origin, upperLeft, lowerRight));
     }
+
+    @Test
+    public void testEllipsoidCircle()
+    {
+        final HitData hit = new HitData();
+        assertTrue(Intersection.intersectEllipsoidCircle(0, 0, 2, 1, 0, 2.5f, 0, 0.6f, hit));
+        assertTrue(GMath.abs(hit.getPenetration() - 0.1f) < 0.001f);
+        assertTrue(GMath.abs(hit.getNormal().getX() - 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPoint().getX() - 2) < 0.001f);
+        assertTrue(!Intersection.intersectEllipsoidCircle(0, 0, 2, 1, 0, 0, 1.5f, 0.4f, null));
+        // Rotated by 90 degrees the long axis points upwards
+        assertTrue(Intersection.intersectEllipsoidCircle(0, 0, 2, 1, GMath.HALF_PIF, 0, 2.3f, 0.4f,
+                hit));
+        assertTrue(GMath.abs(hit.getNormal().getY() - 1) < 0.01f);
+        assertTrue(Intersection.intersectEllipsoidCircle(0, 0, 2, 1, 0, 0.5f, 0.2f, 0.1f, hit));
+        assertTrue(hit.getPenetration() > 0.1f);
+        for (int i = 0; i < 1000; i++)
+        {
+            final float rotation = GMath.randomFloat(-GMath.PIF, GMath.PIF);
+            final float x = GMath.randomFloat(-5, 5);
+            final float y = GMath.randomFloat(-5, 5);
+            final float radius = GMath.randomFloat(0.1f, 2);
+            final float distance = distanceToEllipsoid(1, -1, 3, 1.2f, rotation, x, y);
+            if (GMath.abs(distance - radius) > 0.01f)
+            {
+                assertTrue(Intersection.intersectEllipsoidCircle(1, -1, 3, 1.2f, rotation, x, y,
+                        radius, hit) == distance < radius);
+            }
+        }
+    }
+
+    @Test
+    public void testEllipsoidEllipsoid()
+    {
+        final HitData hit = new HitData();
+        // Two circles behave like the circle test
+        assertTrue(Intersection.intersectEllipsoidEllipsoid(0, 0, 1, 1, 0, 1.5f, 0, 1, 1, 2, hit));
+        assertTrue(GMath.abs(hit.getPenetration() - 0.5f) < 0.001f);
+        assertTrue(GMath.abs(hit.getNormal().getX() - 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPoint().getX() - 0.5f) < 0.001f);
+        // Crossing ellipsoids, whose centers are outside of each other
+        assertTrue(Intersection.intersectEllipsoidEllipsoid(0, 0, 3, 0.5f, 0, 2, 0, 3, 0.5f,
+                GMath.HALF_PIF, hit));
+        assertTrue(!Intersection.intersectEllipsoidEllipsoid(0, 0, 3, 0.5f, 0, 0, 1.2f, 3, 0.5f, 0,
+                null));
+        for (int i = 0; i < 1000; i++)
+        {
+            final float x = GMath.randomFloat(-6, 6);
+            final float y = GMath.randomFloat(-6, 6);
+            final float radiusX = GMath.randomFloat(0.2f, 3);
+            final float radiusY = GMath.randomFloat(0.2f, 3);
+            final float rotation1 = GMath.randomFloat(-GMath.PIF, GMath.PIF);
+            final float rotation2 = GMath.randomFloat(-GMath.PIF, GMath.PIF);
+            final boolean smaller = overlapsEllipsoids(0.98f, 2, 1, rotation1, x, y, radiusX,
+                    radiusY, rotation2);
+            final boolean larger = overlapsEllipsoids(1.02f, 2, 1, rotation1, x, y, radiusX,
+                    radiusY, rotation2);
+            if (smaller == larger)
+            {
+                assertTrue(Intersection.intersectEllipsoidEllipsoid(0, 0, 2, 1, rotation1, x, y,
+                        radiusX, radiusY, rotation2, null) == smaller);
+            }
+        }
+    }
+
+    @Test
+    public void testRayEllipsoid()
+    {
+        final HitData hit = new HitData();
+        assertTrue(Intersection.intersectRayEllipsoid(-5, 0, 1, 0, 0, 0, 2, 1, 0, hit));
+        assertTrue(GMath.abs(hit.getFraction() - 3) < 0.001f);
+        assertTrue(GMath.abs(hit.getPoint().getX() + 2) < 0.001f);
+        assertTrue(GMath.abs(hit.getNormal().getX() + 1) < 0.001f);
+        assertTrue(Intersection.intersectRayEllipsoid(-5, 0, 1, 0, 0, 0, 2, 1, GMath.HALF_PIF,
+                hit));
+        assertTrue(GMath.abs(hit.getPoint().getX() + 1) < 0.01f);
+        assertTrue(!Intersection.intersectRayEllipsoid(-5, 0, -1, 0, 0, 0, 2, 1, 0, null));
+        assertTrue(!Intersection.intersectRayEllipsoid(-5, 1.1f, 1, 0, 0, 0, 2, 1, 0, null));
+        assertTrue(Intersection.intersectRayEllipsoid(1, 0, 1, 0, 0, 0, 2, 1, 0, hit));
+        assertTrue(hit.getFraction() == 0);
+        assertTrue(Intersection.intersectSegmentEllipsoid(-5, 0, -1, 0, 0, 0, 2, 1, 0, hit));
+        assertTrue(GMath.abs(hit.getFraction() - 0.75f) < 0.001f);
+        assertTrue(!Intersection.intersectSegmentEllipsoid(-5, 0, -3, 0, 0, 0, 2, 1, 0, null));
+    }
+
+    @Test
+    public void testEllipsoidBatches()
+    {
+        final int count = 200;
+        final float[] ellipsoids = new float[count * Intersection.ELLIPSOID_STRIDE];
+        final float[] circles = new float[count * Intersection.CIRCLE_STRIDE];
+        for (int i = 0; i < count; i++)
+        {
+            final int offset = i * Intersection.ELLIPSOID_STRIDE;
+            ellipsoids[offset] = GMath.randomFloat(-10, 10);
+            ellipsoids[offset + 1] = GMath.randomFloat(-10, 10);
+            ellipsoids[offset + 2] = GMath.randomFloat(0.5f, 3);
+            ellipsoids[offset + 3] = GMath.randomFloat(0.5f, 3);
+            ellipsoids[offset + 4] = GMath.randomFloat(-GMath.PIF, GMath.PIF);
+            circles[i * Intersection.CIRCLE_STRIDE] = GMath.randomFloat(-10, 10);
+            circles[i * Intersection.CIRCLE_STRIDE + 1] = GMath.randomFloat(-10, 10);
+            circles[i * Intersection.CIRCLE_STRIDE + 2] = GMath.randomFloat(0.1f, 2);
+        }
+        final int[] hits = new int[count];
+        final float[] fractions = new float[count];
+        int hitCount = Intersection.intersectEllipsoidCircles(1, 2, 4, 1, 0.3f, circles, count,
+                hits);
+        for (int i = 0, hitIndex = 0; i < count; i++)
+        {
+            final int offset = i * Intersection.CIRCLE_STRIDE;
+            if (Intersection.intersectEllipsoidCircle(1, 2, 4, 1, 0.3f, circles[offset],
+                    circles[offset + 1], circles[offset + 2], null))
+            {
+                assertTrue(hits[hitIndex++] == i);
+            }
+            assertTrue(i < count - 1 || hitIndex == hitCount);
+        }
+        hitCount = Intersection.intersectEllipsoidsCircle(ellipsoids, count, 1, 2, 1.5f, hits);
+        assertTrue(hitCount == countEllipsoids(ellipsoids, count, 1, 2, 1.5f));
+        hitCount = Intersection.intersectRayEllipsoids(-10, -10, 1, 1, ellipsoids, count, hits,
+                fractions);
+        for (int i = 0; i < hitCount; i++)
+        {
+            final int offset = hits[i] * Intersection.ELLIPSOID_STRIDE;
+            final HitData hit = new HitData();
+            assertTrue(Intersection.intersectRayEllipsoid(-10, -10, 1, 1, ellipsoids[offset],
+                    ellipsoids[offset + 1], ellipsoids[offset + 2], ellipsoids[offset + 3],
+                    ellipsoids[offset + 4], hit));
+            assertTrue(hit.getFraction() == fractions[i]);
+        }
+        final int segmentHits = Intersection.intersectSegmentEllipsoids(-10, -10, 0, 0, ellipsoids,
+                count, hits, null);
+        assertTrue(segmentHits <= hitCount);
+    }
+
+    @Test
+    public void testEllipsoidShapes()
+    {
+        final MutableEllipsoid ellipsoid = new MutableEllipsoid(0, 0, 2, 1);
+        assertTrue(ellipsoid.contains(1.9f, 0));
+        assertTrue(!ellipsoid.contains(0, 1.1f));
+        ellipsoid.rotate(90);
+        assertTrue(!ellipsoid.contains(1.9f, 0));
+        assertTrue(ellipsoid.contains(0, 1.9f));
+        final CollisionDispatcher dispatcher = new CollisionDispatcher();
+        final HitData hit = new HitData();
+        assertTrue(dispatcher.intersect(new Circle(0, 2.3f, 0.4f), ellipsoid, hit));
+        assertTrue(GMath.abs(hit.getNormal().getY() + 1) < 0.01f);
+        assertTrue(!dispatcher.intersect(ellipsoid, new MutableEllipsoid(2.5f, 0, 1, 1), null));
+    }
+
+    @Test
+    public void testTriangleShape()
+    {
+        final Triangle triangle = new Triangle(0, 0, 4, 0, 0, 3);
+        assertTrue(GMath.isNearlyEqual(triangle.getArea(), 6));
+        assertTrue(GMath.isNearlyEqual(triangle.getCircumference(), 12));
+        assertTrue(triangle.contains(1, 1));
+        assertTrue(triangle.contains(2, 0));
+        assertTrue(!triangle.contains(3, 2));
+        final Triangle clockwise = new Triangle(0, 0, 0, 3, 4, 0);
+        assertTrue(clockwise.contains(1, 1));
+        assertTrue(!clockwise.contains(-0.1f, 1));
+        assertTrue(!new Triangle().contains(0, 0));
+    }
+
+    @Test
+    public void testTriangleAabb()
+    {
+        final HitData hit = new HitData();
+        assertTrue(Intersection.intersectTriangleAabb(0, 0, 4, 0, 0, 4, 1.5f, 1.5f, 2, 2, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), hit.getNormal().getY(), 0.001f));
+        assertTrue(hit.getNormal().getX() > 0);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.5f * GMath.sqrt(2)) < 0.001f);
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1.5f));
+        assertTrue(!Intersection.intersectTriangleAabb(0, 0, 4, 0, 0, 4, 2.1f, 2.1f, 2, 2, null));
+        assertTrue(Intersection.intersectTriangleAabb(0, 0, 4, 0, 0, 4, -1, -1, 10, 10, null));
+    }
+
+    @Test
+    public void testTriangleCircle()
+    {
+        final HitData hit = new HitData();
+        assertTrue(Intersection.intersectTriangleCircle(0, 0, 4, 0, 0, 4, 1, -0.5f, 1, hit));
+        assertTrue(GMath.abs(hit.getNormal().getY() + 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.5f) < 0.001f);
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1));
+        // The center inside leaves through the nearest edge, also for clockwise triangles
+        assertTrue(Intersection.intersectTriangleCircle(0, 0, 0, 4, 4, 0, 1, 0.25f, 0.5f, hit));
+        assertTrue(GMath.abs(hit.getNormal().getY() + 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.75f) < 0.001f);
+        assertTrue(!Intersection.intersectTriangleCircle(0, 0, 4, 0, 0, 4, 3, 3, 0.5f, null));
+        assertTrue(Intersection.intersectTriangleCircle(0, 0, 4, 0, 0, 4, 2.5f, 2.5f, 0.8f, null));
+    }
+
+    @Test
+    public void testTriangleTriangle()
+    {
+        final HitData hit = new HitData();
+        assertTrue(Intersection.intersectTriangleTriangle(0, 0, 2, 0, 0, 2, 1.5f, 0, 3, 0, 1.5f,
+                2, hit));
+        // The hypotenuse overlaps less than the x axis
+        assertTrue(GMath.abs(hit.getPenetration() - 0.25f * GMath.sqrt(2)) < 0.001f);
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), hit.getNormal().getY(), 0.001f));
+        assertTrue(hit.getNormal().getX() > 0);
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1.5f));
+        assertTrue(!Intersection.intersectTriangleTriangle(0, 0, 2, 0, 0, 2, 1.1f, 1.1f, 3, 1.1f,
+                1.1f, 3, null));
+        for (int i = 0; i < 1000; i++)
+        {
+            final float[] points = new float[12];
+            for (int j = 0; j < points.length; j++)
+            {
+                points[j] = GMath.randomFloat(0, 4) + (j < 6 ? 0 : 2);
+            }
+            assertTrue(Intersection.intersectTriangleTriangle(points[0], points[1], points[2],
+                    points[3], points[4], points[5], points[6], points[7], points[8], points[9],
+                    points[10], points[11], null) == overlapsTriangles(points));
+        }
+    }
+
+    @Test
+    public void testPolygonPolygon()
+    {
+        final HitData hit = new HitData();
+        final float[] notched = { 0, 0, 3, 0, 3, 3, 2, 3, 2, 1, 1, 1, 1, 3, 0, 3 };
+        // Inside the notch the convex hulls overlap, but the polygons don't
+        final float[] square = { 1.2f, 1.5f, 1.8f, 1.5f, 1.8f, 2.5f, 1.2f, 2.5f };
+        assertTrue(!Intersection.intersectPolygonPolygon(notched, 16, square, 8, hit));
+        final float[] arm = { 2.5f, 2, 4, 2, 4, 2.5f, 2.5f, 2.5f };
+        assertTrue(Intersection.intersectPolygonPolygon(notched, 16, arm, 8, null));
+        final float[] contained = { 0.5f, 0.2f, 0.6f, 0.2f, 0.6f, 0.4f };
+        assertTrue(Intersection.intersectPolygonPolygon(notched, 16, contained, 6, null));
+        assertTrue(Intersection.intersectPolygonPolygon(contained, 6, notched, 16, null));
+        final float[] box = { 0, 0, 2, 0, 2, 2, 0, 2 };
+        final float[] shifted = { 1.5f, 0.5f, 3.5f, 0.5f, 3.5f, 2.5f, 1.5f, 2.5f };
+        assertTrue(Intersection.intersectPolygonPolygon(box, 8, shifted, 8, hit));
+        assertTrue(GMath.abs(hit.getNormal().getX() - 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.5f) < 0.001f);
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1.5f));
+        for (int i = 0; i < 1000; i++)
+        {
+            final float[] points = new float[12];
+            for (int j = 0; j < points.length; j++)
+            {
+                points[j] = GMath.randomFloat(0, 4) + (j < 6 ? 0 : 2);
+            }
+            final float[] triangle1 = { points[0], points[1], points[2], points[3], points[4],
+                    points[5] };
+            final float[] triangle2 = { points[6], points[7], points[8], points[9], points[10],
+                    points[11] };
+            assertTrue(Intersection.intersectPolygonPolygon(triangle1, 6, triangle2, 6, null)
+                    == overlapsTriangles(points));
+        }
+    }
+
+    @Test
+    public void testPolygonCircle()
+    {
+        final HitData hit = new HitData();
+        final float[] notched = { 0, 0, 3, 0, 3, 3, 2, 3, 2, 1, 1, 1, 1, 3, 0, 3 };
+        assertTrue(!Intersection.intersectPolygonCircle(notched, 16, 1.5f, 2, 0.4f, null));
+        assertTrue(Intersection.intersectPolygonCircle(notched, 16, 1.4f, 2, 0.45f, hit));
+        assertTrue(GMath.abs(hit.getNormal().getX() - 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.05f) < 0.001f);
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1));
+        // The center inside leaves through the nearest edge, also for clockwise polygons
+        final float[] clockwise = new float[notched.length];
+        for (int i = 0; i < notched.length; i += 2)
+        {
+            clockwise[i] = notched[notched.length - 2 - i];
+            clockwise[i + 1] = notched[notched.length - 1 - i];
+        }
+        for (final float[] polygon : new float[][] { notched, clockwise })
+        {
+            assertTrue(Intersection.intersectPolygonCircle(polygon, 16, 1.5f, 0.25f, 0.1f, hit));
+            assertTrue(GMath.abs(hit.getNormal().getY() + 1) < 0.001f);
+            assertTrue(GMath.abs(hit.getPenetration() - 0.35f) < 0.001f);
+        }
+    }
+
+    @Test
+    public void testEllipsoidPolygon()
+    {
+        final HitData hit = new HitData();
+        final float[] square = { 1.5f, -0.25f, 2.5f, -0.25f, 2.5f, 0.25f, 1.5f, 0.25f };
+        assertTrue(Intersection.intersectEllipsoidPolygon(0, 0, 2, 0.5f, 0, square, 8, hit));
+        assertTrue(GMath.abs(hit.getNormal().getX() - 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.5f) < 0.001f);
+        assertTrue(GMath.abs(hit.getPoint().getX() - 1.5f) < 0.001f);
+        // Rotated by 90 degrees the long axis points upwards
+        assertTrue(!Intersection.intersectEllipsoidPolygon(0, 0, 2, 0.5f, GMath.HALF_PIF, square,
+                8, null));
+        final float[] above = { -0.25f, 1.5f, 0.25f, 1.5f, 0.25f, 2.5f, -0.25f, 2.5f };
+        assertTrue(Intersection.intersectEllipsoidPolygon(0, 0, 2, 0.5f, GMath.HALF_PIF, above, 8,
+                hit));
+        assertTrue(GMath.abs(hit.getNormal().getY() - 1) < 0.001f);
+        assertTrue(GMath.abs(hit.getPenetration() - 0.5f) < 0.001f);
+        // An ellipsoid with equal radii behaves like a circle for any rotation
+        for (int i = 0; i < 1000; i++)
+        {
+            final float[] triangle = new float[6];
+            for (int j = 0; j < triangle.length; j++)
+            {
+                triangle[j] = GMath.randomFloat(-3, 3);
+            }
+            final float radius = GMath.randomFloat(0.1f, 2);
+            final float rotation = GMath.randomFloat(-GMath.PIF, GMath.PIF);
+            final HitData circleHit = new HitData();
+            final boolean expected = Intersection.intersectTriangleCircle(triangle[0], triangle[1],
+                    triangle[2], triangle[3], triangle[4], triangle[5], 0, 0, radius, circleHit);
+            assertTrue(Intersection.intersectEllipsoidPolygon(0, 0, radius, radius, rotation,
+                    triangle, 6, hit) == expected);
+            if (expected)
+            {
+                assertTrue(GMath.abs(hit.getPenetration() - circleHit.getPenetration()) < 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testCenteredObbObb()
+    {
+        final HitData hit = new HitData();
+        final Rectangle box = new Rectangle(0, 0, 2, 0, 0, 1);
+        final MutableRectangle diamond = new MutableRectangle(2.5f, -0.5f, 3.5f, 0.5f, 1.5f, 0.5f);
+        assertTrue(centeredObbObb(box, diamond, hit));
+        // The corner of the diamond at (1.5, 0.5) is 0.5 inside of the right face
+        assertTrue(GMath.isNearlyEqual(hit.getPenetration(), 0.5f, 0.0001f));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), 1, 0.0001f));
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1.5f, 0.0001f));
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getY(), 0.5f, 0.0001f));
+        diamond.translate(1.1f, 0);
+        assertTrue(!centeredObbObb(box, diamond, null));
+        final HitData cornerHit = new HitData();
+        for (int i = 0; i < 1000; i++)
+        {
+            final Rectangle a = randomRectangle();
+            final Rectangle b = randomRectangle();
+            final boolean centered = centeredObbObb(a, b, hit);
+            assertTrue(centered == Intersection.intersectObbObb(a.getLowerLeftX(),
+                    a.getLowerLeftY(), a.getUpperLeftX(), a.getUpperLeftY(), a.getLowerRightX(),
+                    a.getLowerRightY(), b.getLowerLeftX(), b.getLowerLeftY(), b.getUpperLeftX(),
+                    b.getUpperLeftY(), b.getLowerRightX(), b.getLowerRightY(), cornerHit));
+            if (centered)
+            {
+                assertTrue(GMath.abs(hit.getPenetration() - cornerHit.getPenetration()) < 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testCastCircle()
+    {
+        final HitData hit = new HitData();
+        final float inf = Float.POSITIVE_INFINITY;
+        assertTrue(Intersection.castCircle(-5, 0, 1, 0, inf, 0, 0, 1, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 4));
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), -1));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), -1));
+        assertTrue(!Intersection.castCircle(-5, 0, 1, 0, 3.9f, 0, 0, 1, null));
+        assertTrue(!Intersection.castCircle(-5, 0, -1, 0, inf, 0, 0, 1, null));
+        assertTrue(!Intersection.castCircle(-5, 1.1f, 1, 0, inf, 0, 0, 1, null));
+        assertTrue(Intersection.castCircle(0.5f, 0, 0, 2, inf, 0, 0, 1, hit));
+        assertTrue(hit.getFraction() == 0);
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getY(), -1));
+        assertTrue(Intersection.intersectRayCircle(new MutableVec2f(-5, 0),
+                new MutableVec2f(0.5f, 0), new MutableVec2f(0, 0), 1, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 8));
+    }
+
+    @Test
+    public void testCastBoxes()
+    {
+        final HitData hit = new HitData();
+        final float inf = Float.POSITIVE_INFINITY;
+        assertTrue(Intersection.castAabb(-2, 0.5f, 1, 0, inf, 0, 0, 1, 1, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 2));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), -1));
+        assertTrue(Intersection.castAabb(0.5f, -3, 0, 2, inf, 0, 0, 1, 1, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 1.5f));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getY(), -1));
+        assertTrue(!Intersection.castAabb(0.5f, -3, 0, 2, 1.4f, 0, 0, 1, 1, null));
+        assertTrue(!Intersection.castAabb(1.5f, -3, 0, 2, inf, 0, 0, 1, 1, null));
+        assertTrue(!Intersection.castAabb(-2, 0.5f, 1, 2, inf, 0, 0, 1, 1, null));
+        assertTrue(Intersection.intersectRayAabb(new MutableVec2f(2, 3), new MutableVec2f(0, -1),
+                new MutableVec2f(0, 0), new MutableVec2f(4, 1), hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 2));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getY(), 1));
+        // The square rotated by 45 degrees is the diamond |x| + |y| <= sqrt(2)
+        final float axis = (float) Math.sqrt(0.5);
+        assertTrue(Intersection.castObb(-5, 0.2f, 1, 0, inf, 0, 0, 1, 1, axis, axis, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 5 - GMath.sqrt(2) + 0.2f, 0.0001f));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), -axis, 0.0001f));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getY(), axis, 0.0001f));
+        assertTrue(!Intersection.castObb(-5, 1.5f, 1, 0, inf, 0, 0, 1, 1, axis, axis, null));
+        for (int i = 0; i < 1000; i++)
+        {
+            final float originX = GMath.randomFloat(-5, 5);
+            final float originY = GMath.randomFloat(-5, 5);
+            final float directionX = GMath.randomFloat(-1, 1);
+            final float directionY = GMath.randomFloat(-1, 1);
+            final boolean aabbHit = Intersection.castAabb(originX, originY, directionX,
+                    directionY, inf, -1, -1, 2, 2, hit);
+            final float fraction = hit.getFraction();
+            assertTrue(aabbHit == Intersection.castPolygon(originX, originY, directionX,
+                    directionY, inf, new float[] { -1, -1, 1, -1, 1, 1, -1, 1 }, 8, hit));
+            assertTrue(!aabbHit || GMath.isNearlyEqual(fraction, hit.getFraction(), 0.001f));
+        }
+    }
+
+    @Test
+    public void testCastTriangle()
+    {
+        final HitData hit = new HitData();
+        final float inf = Float.POSITIVE_INFINITY;
+        assertTrue(Intersection.castTriangle(-1, 0.5f, 1, 0, inf, 0, 0, 2, 0, 0, 2, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 1));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), -1));
+        assertTrue(Intersection.castTriangle(3, 0.5f, -1, 0, inf, 0, 0, 0, 2, 2, 0, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 1.5f));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), hit.getNormal().getY()));
+        assertTrue(hit.getNormal().getX() > 0);
+        assertTrue(!Intersection.castTriangle(3, 0.5f, -1, 0, 1.4f, 0, 0, 2, 0, 0, 2, null));
+        assertTrue(Intersection.castTriangle(0.5f, 0.5f, 1, 0, 0, 0, 0, 2, 0, 0, 2, hit));
+        assertTrue(hit.getFraction() == 0);
+    }
+
+    @Test
+    public void testCastPolygon()
+    {
+        final HitData hit = new HitData();
+        final float inf = Float.POSITIVE_INFINITY;
+        // A U shape with a notch from x 1 to 2 down to y 1
+        final float[] polygon = new float[] { 0, 0, 3, 0, 3, 3, 2, 3, 2, 1, 1, 1, 1, 3, 0, 3 };
+        assertTrue(Intersection.castPolygon(1.5f, 5, 0, -1, inf, polygon, 16, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 4));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getY(), 1));
+        assertTrue(Intersection.castPolygon(-1, 2, 1, 0, inf, polygon, 16, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 1));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), -1));
+        assertTrue(Intersection.castPolygon(1.5f, 2, 1, 0, inf, polygon, 16, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 2));
+        assertTrue(GMath.isNearlyEqual(hit.getNormal().getX(), -1));
+        assertTrue(!Intersection.castPolygon(1.5f, 5, 0, -1, 3.9f, polygon, 16, null));
+        assertTrue(!Intersection.castPolygon(1.5f, 5, 0, 1, inf, polygon, 16, null));
+    }
+
+    @Test
+    public void testSegmentSegment()
+    {
+        final HitData hit = new HitData();
+        assertTrue(Intersection.intersectSegmentSegment(0, 0, 2, 2, 0, 2, 2, 0, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 0.5f));
+        assertTrue(GMath.isNearlyEqual(hit.getPoint().getX(), 1));
+        assertTrue(hit.getNormal().getX() < 0 && hit.getNormal().getY() < 0);
+        assertTrue(!Intersection.intersectSegmentSegment(0, 0, 2, 0, 0, 1, 2, 1, null));
+        assertTrue(!Intersection.intersectSegmentSegment(0, 0, 1, 1, 0, 2, 2, 0.1f, null));
+        assertTrue(Intersection.intersectSegmentSegment(0, 0, 1, 1, 1, 1, 2, 0, null));
+        assertTrue(Intersection.intersectSegmentSegment(0, 0, 2, 0, 1, 0, 3, 0, hit));
+        assertTrue(GMath.isNearlyEqual(hit.getFraction(), 0.5f));
+        assertTrue(!Intersection.intersectSegmentSegment(0, 0, 1, 0, 2, 0, 3, 0, null));
+    }
+
+    private static boolean centeredObbObb(final Rectangle a, final Rectangle b, final HitData data)
+    {
+        return Intersection.intersectCenteredObbObb(a.getCenterX(), a.getCenterY(),
+                a.getHalfWidth(), a.getHalfHeight(), a.getCos(), a.getSin(), b.getCenterX(),
+                b.getCenterY(), b.getHalfWidth(), b.getHalfHeight(), b.getCos(), b.getSin(), data);
+    }
+
+    private static Rectangle randomRectangle()
+    {
+        final float x = GMath.randomFloat(0, 4);
+        final float y = GMath.randomFloat(0, 4);
+        final float width = GMath.randomFloat(0.1f, 2);
+        final float height = GMath.randomFloat(0.1f, 2);
+        final double angle = GMath.randomFloat(0, GMath.TWO_PIF);
+        final float cos = (float) Math.cos(angle);
+        final float sin = (float) Math.sin(angle);
+        return new Rectangle(x, y, x + cos * width, y + sin * width, x - sin * height,
+                y + cos * height);
+    }
+
+    /**
+     * Triangles overlap, if an edge of one crosses an edge of the other or one contains a point
+     * of the other.
+     */
+    private static boolean overlapsTriangles(final float[] points)
+    {
+        for (int i = 0; i < 3; i++)
+        {
+            final int a = i * 2;
+            final int b = (i + 1) % 3 * 2;
+            for (int j = 0; j < 3; j++)
+            {
+                final int c = 6 + j * 2;
+                final int d = 6 + (j + 1) % 3 * 2;
+                if (crosses(points, a, b, c, d))
+                {
+                    return true;
+                }
+            }
+        }
+        return ShapeUtil.triangleContainsPoint(points[0], points[1], points[2], points[3],
+                points[4], points[5], points[6], points[7])
+                || ShapeUtil.triangleContainsPoint(points[6], points[7], points[8], points[9],
+                        points[10], points[11], points[0], points[1]);
+    }
+
+    private static boolean crosses(final float[] points, final int a, final int b, final int c,
+            final int d)
+    {
+        return orientation(points, a, b, c) * orientation(points, a, b, d) <= 0
+                && orientation(points, c, d, a) * orientation(points, c, d, b) <= 0;
+    }
+
+    private static double orientation(final float[] points, final int a, final int b, final int c)
+    {
+        final double abX = (double) points[b] - points[a];
+        final double abY = (double) points[b + 1] - points[a + 1];
+        return Math.signum(abX * (points[c + 1] - points[a + 1]) - abY * (points[c] - points[a]));
+    }
+
+    private static int countEllipsoids(
+            final float[] ellipsoids,
+            final int count,
+            final float x,
+            final float y,
+            final float radius)
+    {
+        int hitCount = 0;
+        for (int offset = 0; offset < count * Intersection.ELLIPSOID_STRIDE;
+                offset += Intersection.ELLIPSOID_STRIDE)
+        {
+            if (Intersection.intersectEllipsoidCircle(ellipsoids[offset], ellipsoids[offset + 1],
+                    ellipsoids[offset + 2], ellipsoids[offset + 3], ellipsoids[offset + 4], x, y,
+                    radius, null))
+            {
+                hitCount++;
+            }
+        }
+        return hitCount;
+    }
+
+    /**
+     * @return The signed distance to the sampled border, which is negative inside.
+     */
+    private static float distanceToEllipsoid(
+            final float x,
+            final float y,
+            final float radiusX,
+            final float radiusY,
+            final float rotation,
+            final float pointX,
+            final float pointY)
+    {
+        final double cos = Math.cos(rotation);
+        final double sin = Math.sin(rotation);
+        final double localX = cos * (pointX - x) + sin * (pointY - y);
+        final double localY = cos * (pointY - y) - sin * (pointX - x);
+        double distance = Double.MAX_VALUE;
+        for (int i = 0; i < 4000; i++)
+        {
+            final double angle = i * Math.PI * 2 / 4000;
+            distance = Math.min(distance, Math.hypot(localX - radiusX * Math.cos(angle),
+                    localY - radiusY * Math.sin(angle)));
+        }
+        final double scaledX = localX / radiusX;
+        final double scaledY = localY / radiusY;
+        return (float) (scaledX * scaledX + scaledY * scaledY <= 1 ? -distance : distance);
+    }
+
+    /**
+     * Samples the border of the second ellipsoid, scaled by the factor, and checks, whether it
+     * touches the first ellipsoid, which is centered at the origin, or contains it.
+     */
+    private static boolean overlapsEllipsoids(
+            final float factor,
+            final float radiusX1,
+            final float radiusY1,
+            final float rotation1,
+            final float x2,
+            final float y2,
+            final float radiusX2,
+            final float radiusY2,
+            final float rotation2)
+    {
+        if (isInsideEllipsoid(x2, y2, radiusX2 * factor, radiusY2 * factor, rotation2, 0, 0))
+        {
+            return true;
+        }
+        for (int i = 0; i < 2000; i++)
+        {
+            final double angle = i * Math.PI * 2 / 2000;
+            final double localX = radiusX2 * factor * Math.cos(angle);
+            final double localY = radiusY2 * factor * Math.sin(angle);
+            final double pointX = x2 + Math.cos(rotation2) * localX - Math.sin(rotation2) * localY;
+            final double pointY = y2 + Math.sin(rotation2) * localX + Math.cos(rotation2) * localY;
+            if (isInsideEllipsoid(0, 0, radiusX1, radiusY1, rotation1, pointX, pointY))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInsideEllipsoid(
+            final double x,
+            final double y,
+            final double radiusX,
+            final double radiusY,
+            final double rotation,
+            final double pointX,
+            final double pointY)
+    {
+        final double cos = Math.cos(rotation);
+        final double sin = Math.sin(rotation);
+        final double scaledX = (cos * (pointX - x) + sin * (pointY - y)) / radiusX;
+        final double scaledY = (cos * (pointY - y) - sin * (pointX - x)) / radiusY;
+        return scaledX * scaledX + scaledY * scaledY <= 1;
+    }
 }
@@ -0,0 +1,131 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.spatial.KdTree;
+
+
+public class KdTreeTest
+{
+
+	private static float[] createPoints(final int count)
+	{
+		final float[] points = new float[count * 2];
+		for (int i = 0; i < points.length; i++)
+		{
+			points[i] = GMath.randomFloat(-100, 100);
+		}
+		return points;
+	}
+
+	private static float squaredDistance(
+			final float[] points,
+			final int i,
+			final float x,
+			final float y)
+	{
+		final float dx = points[i * 2] - x;
+		final float dy = points[i * 2 + 1] - y;
+		return dx * dx + dy * dy;
+	}
+
+	@Test
+	public void testEmpty()
+	{
+		final KdTree tree = KdTree.build(new float[0]);
+		assertTrue(tree.nearest(0, 0) == -1);
+		assertTrue(tree.nearest(0, 0, new int[3], new float[3]) == 0);
+		assertTrue(tree.withinRadius(0, 0, 10, new int[3]) == 0);
+	}
+
+	@Test
+	public void testNearestMatchesBruteForce()
+	{
+		final float[] points = createPoints(5000);
+		final KdTree tree = KdTree.build(points);
+		for (int query = 0; query < 200; query++)
+		{
+			final float x = GMath.randomFloat(-120, 120);
+			final float y = GMath.randomFloat(-120, 120);
+			float best = Float.MAX_VALUE;
+			for (int i = 0; i < 5000; i++)
+			{
+				best = GMath.min(best, squaredDistance(points, i, x, y));
+			}
+			assertTrue(squaredDistance(points, tree.nearest(x, y), x, y) == best);
+		}
+	}
+
+	@Test
+	public void testKNearestMatchesBruteForce()
+	{
+		final float[] points = createPoints(5000);
+		final KdTree tree = KdTree.build(points);
+		final int[] result = new int[10];
+		final float[] distances = new float[10];
+		final float[] expected = new float[5000];
+		for (int query = 0; query < 50; query++)
+		{
+			final float x = GMath.randomFloat(-100, 100);
+			final float y = GMath.randomFloat(-100, 100);
+			for (int i = 0; i < 5000; i++)
+			{
+				expected[i] = squaredDistance(points, i, x, y);
+			}
+			Arrays.sort(expected);
+			assertTrue(tree.nearest(x, y, result, distances) == 10);
+			for (int i = 0; i < 10; i++)
+			{
+				assertTrue(distances[i] == expected[i]);
+				assertTrue(squaredDistance(points, result[i], x, y) == distances[i]);
+			}
+		}
+	}
+
+	@Test
+	public void testWithinRadius()
+	{
+		final float[] points = createPoints(5000);
+		final KdTree tree = KdTree.build(points);
+		final int[] result = new int[5000];
+		final int found = tree.withinRadius(10, -20, 15, result);
+		int expected = 0;
+		for (int i = 0; i < 5000; i++)
+		{
+			if (squaredDistance(points, i, 10, -20) <= 15 * 15)
+			{
+				expected++;
+			}
+		}
+		assertTrue(found == expected);
+		for (int i = 0; i < found; i++)
+		{
+			assertTrue(squaredDistance(points, result[i], 10, -20) <= 15 * 15);
+		}
+	}
+
+	@Test
+	public void testParallelBuildEqualsSequential()
+	{
+		final float[] points = createPoints(200000);
+		final KdTree sequential = KdTree.build(points);
+		final KdTree parallel = KdTree.build(points, ForkJoinPool.commonPool());
+		final int[] expected = new int[8];
+		final int[] actual = new int[8];
+		final float[] distances = new float[8];
+		for (int query = 0; query < 100; query++)
+		{
+			final float x = GMath.randomFloat(-100, 100);
+			final float y = GMath.randomFloat(-100, 100);
+			sequential.nearest(x, y, expected, distances);
+			parallel.nearest(x, y, actual, distances);
+			assertTrue(Arrays.equals(expected, actual));
+		}
+	}
+}
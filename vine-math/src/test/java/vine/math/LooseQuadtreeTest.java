@@ -0,0 +1,197 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import vine.math.spatial.LooseQuadtree;
+
+
+public class LooseQuadtreeTest
+{
+
+	private static final int	COUNT	= 2000;
+	private static final float	WORLD	= 1000;
+
+
+	private static void fill(final LooseQuadtree tree, final float[] bounds, final boolean clustered)
+	{
+		for (int i = 0; i < COUNT; i++)
+		{
+			final float x;
+			final float y;
+			if (clustered)
+			{
+				final float cluster = i % 4 * 200 + 50;
+				x = cluster + GMath.randomFloat(0, 40);
+				y = cluster + GMath.randomFloat(0, 40);
+			}
+			else
+			{
+				x = GMath.randomFloat(0, WORLD);
+				y = GMath.randomFloat(0, WORLD);
+			}
+			setBounds(bounds, i, x, y, GMath.randomFloat(0.5f, 20), GMath.randomFloat(0.5f, 20));
+			assertTrue(tree.insert(x, y, bounds[i * 4 + 2], bounds[i * 4 + 3]) == i);
+		}
+	}
+
+	private static void setBounds(
+			final float[] bounds,
+			final int i,
+			final float x,
+			final float y,
+			final float width,
+			final float height)
+	{
+		bounds[i * 4] = x;
+		bounds[i * 4 + 1] = y;
+		bounds[i * 4 + 2] = width;
+		bounds[i * 4 + 3] = height;
+	}
+
+	private static int[] bruteForceAabb(
+			final float[] bounds,
+			final float x,
+			final float y,
+			final float width,
+			final float height)
+	{
+		int[] result = new int[0];
+		for (int i = 0; i < COUNT; i++)
+		{
+			if (bounds[i * 4] < 0)
+			{
+				continue;
+			}
+			if (Intersection.intersectAabbAabb(
+					bounds[i * 4 + 2],
+					bounds[i * 4 + 3],
+					x - bounds[i * 4],
+					y - bounds[i * 4 + 1],
+					width,
+					height,
+					null))
+			{
+				result = Arrays.copyOf(result, result.length + 1);
+				result[result.length - 1] = i;
+			}
+		}
+		return result;
+	}
+
+	private static void assertSameAabbQuery(final LooseQuadtree tree, final float[] bounds)
+	{
+		final int[] result = new int[COUNT];
+		for (int query = 0; query < 50; query++)
+		{
+			final float x = GMath.randomFloat(-50, WORLD);
+			final float y = GMath.randomFloat(-50, WORLD);
+			final int found = tree.queryAabb(x, y, 80, 60, result);
+			final int[] actual = Arrays.copyOf(result, found);
+			Arrays.sort(actual);
+			assertTrue(Arrays.equals(bruteForceAabb(bounds, x, y, 80, 60), actual));
+		}
+	}
+
+	@Test
+	public void testAabbQueryUniform()
+	{
+		final LooseQuadtree tree = new LooseQuadtree(0, 0, WORLD, WORLD);
+		final float[] bounds = new float[COUNT * 4];
+		fill(tree, bounds, false);
+		assertSameAabbQuery(tree, bounds);
+	}
+
+	@Test
+	public void testAabbQueryClusteredAfterMoves()
+	{
+		final LooseQuadtree tree = new LooseQuadtree(0, 0, WORLD, WORLD);
+		final float[] bounds = new float[COUNT * 4];
+		fill(tree, bounds, true);
+		for (int i = 0; i < COUNT; i++)
+		{
+			final float x = bounds[i * 4] + GMath.randomFloat(-30, 30);
+			final float y = bounds[i * 4 + 1] + GMath.randomFloat(-30, 30);
+			setBounds(bounds, i, x, y, bounds[i * 4 + 2], bounds[i * 4 + 3]);
+			tree.update(i, x, y, bounds[i * 4 + 2], bounds[i * 4 + 3]);
+		}
+		assertSameAabbQuery(tree, bounds);
+	}
+
+	@Test
+	public void testRemoveReleasesNodes()
+	{
+		final LooseQuadtree tree = new LooseQuadtree(0, 0, WORLD, WORLD);
+		final float[] bounds = new float[COUNT * 4];
+		fill(tree, bounds, false);
+		assertTrue(tree.getNodeCount() > 1);
+		for (int i = 0; i < COUNT; i += 2)
+		{
+			tree.remove(i);
+			bounds[i * 4] = -1;
+		}
+		assertTrue(tree.size() == COUNT / 2);
+		assertSameAabbQuery(tree, bounds);
+		for (int i = 1; i < COUNT; i += 2)
+		{
+			tree.remove(i);
+		}
+		assertTrue(tree.size() == 0 && tree.getNodeCount() == 1);
+	}
+
+	@Test
+	public void testCircleQuery()
+	{
+		final LooseQuadtree tree = new LooseQuadtree(0, 0, WORLD, WORLD);
+		final float[] bounds = new float[COUNT * 4];
+		fill(tree, bounds, false);
+		final int[] result = new int[COUNT];
+		final int found = tree.queryCircle(500, 500, 100, result);
+		int expected = 0;
+		for (int i = 0; i < COUNT; i++)
+		{
+			if (Intersection.intersectAabbCircle(
+					bounds[i * 4],
+					bounds[i * 4 + 1],
+					bounds[i * 4 + 2],
+					bounds[i * 4 + 3],
+					500,
+					500,
+					100,
+					null))
+			{
+				expected++;
+			}
+		}
+		assertTrue(found == expected);
+	}
+
+	@Test
+	public void testNearest()
+	{
+		final LooseQuadtree tree = new LooseQuadtree(0, 0, WORLD, WORLD);
+		final float[] bounds = new float[COUNT * 4];
+		fill(tree, bounds, true);
+		final int[] result = new int[5];
+		final float[] distances = new float[5];
+		final float[] expected = new float[COUNT];
+		for (int i = 0; i < COUNT; i++)
+		{
+			final float dx = GMath.max(GMath.max(bounds[i * 4] - 700, 700 - bounds[i * 4]
+					- bounds[i * 4 + 2]), 0);
+			final float dy = GMath.max(GMath.max(bounds[i * 4 + 1] - 30, 30 - bounds[i * 4 + 1]
+					- bounds[i * 4 + 3]), 0);
+			expected[i] = dx * dx + dy * dy;
+		}
+		Arrays.sort(expected);
+		assertTrue(tree.queryNearest(700, 30, result, distances) == 5);
+		for (int i = 0; i < 5; i++)
+		{
+			assertTrue(distances[i] == expected[i]);
+		}
+	}
+}
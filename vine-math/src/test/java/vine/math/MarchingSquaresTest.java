@@ -0,0 +1,184 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.ShapeUtil;
+import vine.math.vector.VectorUtils;
+
+
+public class MarchingSquaresTest
+{
+
+	/**
+	 * Fills the grid with the distance to the circle, positive inside of it.
+	 */
+	private static void addCircle(
+			final float[] values,
+			final int width,
+			final float x,
+			final float y,
+			final float radius)
+	{
+		for (int i = 0; i < values.length; i++)
+		{
+			final float dx = i % width - x;
+			final float dy = i / width - y;
+			values[i] = GMath.max(values[i], radius - (float) Math.sqrt(dx * dx + dy * dy));
+		}
+	}
+
+	private static float[] createNoise(final int width, final int height)
+	{
+		final float[] values = new float[width * height];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = GMath.randomFloat(-1, 1);
+		}
+		return values;
+	}
+
+	private static double signedArea(final MarchingSquares squares, final int contour)
+	{
+		final float[] vertices = squares.getVertices();
+		final int start = squares.getContourStarts()[contour];
+		final int end = squares.getContourStarts()[contour + 1];
+		double area = 0;
+		for (int i = start, j = end - 1; i < end; j = i++)
+		{
+			area += ((double) vertices[j * 2] - vertices[i * 2])
+					* ((double) vertices[i * 2 + 1] + vertices[j * 2 + 1]) * 0.5;
+		}
+		return area;
+	}
+
+	private static double totalArea(final MarchingSquares squares)
+	{
+		double area = 0;
+		for (int contour = 0; contour < squares.getContourCount(); contour++)
+		{
+			area += signedArea(squares, contour);
+		}
+		return area;
+	}
+
+	private static boolean sameContours(final MarchingSquares a, final MarchingSquares b)
+	{
+		final int count = a.getContourCount();
+		final int length = a.getContourStarts()[count] * 2;
+		return count == b.getContourCount()
+				&& Arrays.equals(
+						Arrays.copyOf(a.getContourStarts(), count + 1),
+						Arrays.copyOf(b.getContourStarts(), count + 1))
+				&& Arrays.equals(
+						Arrays.copyOf(a.getVertices(), length),
+						Arrays.copyOf(b.getVertices(), length));
+	}
+
+	@Test
+	public void testCircle()
+	{
+		final float[] values = new float[40 * 30];
+		Arrays.fill(values, -100);
+		addCircle(values, 40, 20, 15, 10);
+		final MarchingSquares squares = new MarchingSquares(40, 30, 8);
+		assertTrue(squares.extract(values, 0) == 1);
+		assertTrue(signedArea(squares, 0) > 0);
+		final float[] contour = squares.getContour(0);
+		assertTrue(GMath.isNearlyEqual(ShapeUtil.polygonArea(contour), GMath.PIF * 100, 1));
+		assertTrue(ShapeUtil.polygonContainsPoint(contour, contour.length, 20, 15));
+		assertTrue(!ShapeUtil.polygonContainsPoint(contour, contour.length, 20, 26));
+		for (int i = 0; i < contour.length; i += 2)
+		{
+			final float distance = VectorUtils.length(contour[i] - 20, contour[i + 1] - 15);
+			assertTrue(GMath.isNearlyEqual(distance, 10, 1e-2f));
+		}
+	}
+
+	@Test
+	public void testHolesAndBorder()
+	{
+		// A solid grid with a hole is closed at the border of the grid
+		final float[] values = new float[20 * 20];
+		Arrays.fill(values, 1);
+		values[5 + 5 * 20] = -1;
+		final MarchingSquares squares = new MarchingSquares(20, 20, 4);
+		assertTrue(squares.extract(values, 0) == 2);
+		assertTrue(signedArea(squares, 0) * signedArea(squares, 1) < 0);
+		assertTrue(GMath.isNearlyEqual(totalArea(squares), 19 * 19 - 0.5, 1e-4));
+		final float[] polygon = new float[squares.getContourStarts()[2] * 2];
+		for (int contour = 0; contour < 2; contour++)
+		{
+			final int length = squares.getContour(contour, polygon);
+			assertTrue(ShapeUtil.polygonContainsPoint(polygon, length, 5, 5));
+			assertTrue(ShapeUtil.polygonContainsPoint(polygon, length, 10, 10) == (length > 8));
+		}
+		// Samples equal to the threshold don't produce empty contours
+		Arrays.fill(values, 0);
+		values[3 + 3 * 20] = 1;
+		assertTrue(squares.extract(values, 1) == 0);
+	}
+
+	@Test
+	public void testChunks()
+	{
+		final float[] values = createNoise(50, 37);
+		final MarchingSquares whole = new MarchingSquares(50, 37, 64);
+		final MarchingSquares chunked = new MarchingSquares(50, 37, 3);
+		final MarchingSquares parallel = new MarchingSquares(50, 37, 5);
+		whole.extract(values, 0.1f);
+		chunked.extract(values, 0.1f);
+		parallel.extract(values, 0.1f, ForkJoinPool.commonPool());
+		assertTrue(chunked.getContourCount() == whole.getContourCount());
+		assertTrue(parallel.getContourCount() == whole.getContourCount());
+		assertTrue(GMath.isNearlyEqual(totalArea(chunked), totalArea(whole), 1e-3));
+		assertTrue(GMath.isNearlyEqual(totalArea(parallel), totalArea(whole), 1e-3));
+		final MarchingSquares sequential = new MarchingSquares(50, 37, 5);
+		sequential.extract(values, 0.1f);
+		assertTrue(sameContours(sequential, parallel));
+	}
+
+	@Test
+	public void testDirtyChunks()
+	{
+		final float[] values = createNoise(60, 60);
+		final MarchingSquares squares = new MarchingSquares(60, 60, 7);
+		squares.extract(values, 0);
+		for (int i = 0; i < 20; i++)
+		{
+			final int x = GMath.randomInteger(-5, 60);
+			final int y = GMath.randomInteger(-5, 60);
+			final int w = GMath.randomInteger(1, 10);
+			final int h = GMath.randomInteger(1, 10);
+			for (int row = GMath.max(y, 0); row < GMath.min(y + h, 60); row++)
+			{
+				for (int column = GMath.max(x, 0); column < GMath.min(x + w, 60); column++)
+				{
+					values[column + row * 60] = GMath.randomFloat(-1, 1);
+				}
+			}
+			squares.markDirty(x, y, w, h);
+			squares.extract(values, 0, ForkJoinPool.commonPool());
+			final MarchingSquares fresh = new MarchingSquares(60, 60, 7);
+			fresh.extract(values, 0);
+			assertTrue(sameContours(squares, fresh));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidGrid()
+	{
+		new MarchingSquares(10, 10).extract(new float[99], 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidContour()
+	{
+		new MarchingSquares(10, 10).getContour(0);
+	}
+}
@@ -0,0 +1,70 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.FloatBuffer;
+
+import org.junit.Test;
+
+import vine.math.matrix.Mat4f;
+import vine.math.matrix.Mat4fBatch;
+import vine.math.vector.Vec3f;
+
+
+public class Matrix4fTest
+{
+
+	private static Mat4f createTransform()
+	{
+		return Mat4f.translate(new Vec3f(1, 2, 3)).multiply(Mat4f.rotate(30));
+	}
+
+	@Test
+	public void testMultiplyIntoDestination()
+	{
+		final Mat4f left = createTransform();
+		final Mat4f right = Mat4f.orthographic(0, 10, 0, 5, -1, 1);
+		final Mat4f expected = left.multiply(right);
+		final Mat4f dest = new Mat4f();
+		Mat4f.multiply(left, right, dest);
+		for (int i = 0; i < Mat4f.SIZE; i++)
+		{
+			assertTrue(expected.getElements()[i] == dest.getElements()[i]);
+		}
+	}
+
+	@Test
+	public void testMultiplyAliasedDestination()
+	{
+		final Mat4f left = createTransform();
+		final Mat4f right = Mat4f.orthographic(0, 10, 0, 5, -1, 1);
+		final Mat4f expected = left.multiply(right);
+		Mat4f.multiply(left, right, left);
+		for (int i = 0; i < Mat4f.SIZE; i++)
+		{
+			assertTrue(expected.getElements()[i] == left.getElements()[i]);
+		}
+	}
+
+	@Test
+	public void testBatch()
+	{
+		final Mat4f left = createTransform();
+		final Mat4f right = Mat4f.rotate(45);
+		final Mat4f expected = left.multiply(right);
+		final Mat4fBatch batch = new Mat4fBatch(2);
+		batch.add(left);
+		batch.addProduct(left, right);
+		final FloatBuffer buffer = batch.getFloatBuffer();
+		assertTrue(buffer.remaining() == 2 * Mat4f.SIZE);
+		for (int i = 0; i < Mat4f.SIZE; i++)
+		{
+			assertTrue(buffer.get(i) == left.getElements()[i]);
+			assertTrue(batch.get(1, i) == expected.getElements()[i]);
+		}
+		batch.clear();
+		batch.add(right);
+		assertTrue(batch.getByteBuffer().remaining() == Mat4f.SIZE * 4);
+	}
+}
@@ -0,0 +1,69 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.matrix.AffineMatrixStack;
+import vine.math.matrix.Mat4f;
+import vine.math.matrix.MatrixStack;
+import vine.math.vector.MutableVec2f;
+import vine.math.vector.Vec3f;
+
+
+public class MatrixStackTest
+{
+
+	@Test
+	public void testTransformationsMatchMatrixProduct()
+	{
+		final MatrixStack stack = new MatrixStack(4);
+		stack.translate(1, 2, 3);
+		stack.push();
+		stack.rotate(30);
+		final Mat4f expected = Mat4f.translate(new Vec3f(1, 2, 3)).multiply(Mat4f.rotate(30));
+		final Mat4f top = new Mat4f();
+		stack.getTop(top);
+		for (int i = 0; i < Mat4f.SIZE; i++)
+		{
+			assertTrue(GMath.isNearlyEqual(expected.getElements()[i], top.getElements()[i]));
+		}
+		assertTrue(stack.depth() == 2);
+		stack.pop();
+		assertTrue(stack.getElements()[stack.getTopOffset() + 12] == 1);
+		assertTrue(stack.getElements()[stack.getTopOffset() + 1] == 0);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnderflow()
+	{
+		new MatrixStack(2).pop();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testOverflow()
+	{
+		final MatrixStack stack = new MatrixStack(2);
+		stack.push();
+		stack.push();
+	}
+
+	@Test
+	public void testAffineTransformPoint()
+	{
+		final AffineMatrixStack stack = new AffineMatrixStack(4);
+		stack.translate(10, 0);
+		stack.push();
+		stack.rotate(90);
+		stack.scale(2, 2);
+		final MutableVec2f point = new MutableVec2f(1, 0);
+		stack.transform(point);
+		assertTrue(GMath.isNearlyEqual(point.getX(), 10, 0.01f));
+		assertTrue(GMath.isNearlyEqual(point.getY(), 2, 0.01f));
+		stack.pop();
+		point.set(1, 0);
+		stack.transform(point);
+		assertTrue(point.nearlyEquals(11, 0));
+	}
+}
@@ -0,0 +1,114 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.spatial.ParallelPairFinder;
+
+
+public class ParallelPairFinderTest
+{
+
+	private static float[] createBounds(final int count, final float worldSize)
+	{
+		final float[] bounds = new float[count * ParallelPairFinder.STRIDE];
+		for (int i = 0; i < bounds.length; i += ParallelPairFinder.STRIDE)
+		{
+			bounds[i] = GMath.randomFloat(0, worldSize);
+			bounds[i + 1] = GMath.randomFloat(0, worldSize);
+			bounds[i + 2] = GMath.randomFloat(0.1f, 3);
+			bounds[i + 3] = GMath.randomFloat(0.1f, 3);
+		}
+		return bounds;
+	}
+
+	private static long[] bruteForce(final float[] bounds, final int count)
+	{
+		long[] pairs = new long[0];
+		for (int a = 0; a < count; a++)
+		{
+			for (int b = a + 1; b < count; b++)
+			{
+				final int offsetA = a * ParallelPairFinder.STRIDE;
+				final int offsetB = b * ParallelPairFinder.STRIDE;
+				if (Intersection.intersectAabbAabb(
+						bounds[offsetA + 2],
+						bounds[offsetA + 3],
+						bounds[offsetB] - bounds[offsetA],
+						bounds[offsetB + 1] - bounds[offsetA + 1],
+						bounds[offsetB + 2],
+						bounds[offsetB + 3],
+						null))
+				{
+					pairs = Arrays.copyOf(pairs, pairs.length + 1);
+					pairs[pairs.length - 1] = ParallelPairFinder.toPair(b, a);
+				}
+			}
+		}
+		return pairs;
+	}
+
+	@Test
+	public void testMatchesBruteForce()
+	{
+		final float[] bounds = createBounds(2000, 100);
+		final ParallelPairFinder finder = new ParallelPairFinder(2);
+		final int count = finder.findPairs(bounds, 2000);
+		final long[] actual = Arrays.copyOf(finder.getPairs(), count);
+		Arrays.sort(actual);
+		assertTrue(Arrays.equals(bruteForce(bounds, 2000), actual));
+	}
+
+	@Test
+	public void testLargeBodiesAcrossCells()
+	{
+		final float[] bounds = createBounds(500, 50);
+		for (int i = 0; i < 20; i++)
+		{
+			bounds[i * ParallelPairFinder.STRIDE + 2] = 20;
+			bounds[i * ParallelPairFinder.STRIDE + 3] = 15;
+		}
+		final ParallelPairFinder finder = new ParallelPairFinder(1);
+		final int count = finder.findPairs(bounds, 500, ForkJoinPool.commonPool());
+		final long[] actual = Arrays.copyOf(finder.getPairs(), count);
+		Arrays.sort(actual);
+		assertTrue(Arrays.equals(bruteForce(bounds, 500), actual));
+	}
+
+	@Test
+	public void testDeterministicForAnyParallelism()
+	{
+		final float[] bounds = createBounds(50000, 1000);
+		final ParallelPairFinder finder = new ParallelPairFinder(3);
+		final int count = finder.findPairs(bounds, 50000);
+		final long[] expected = Arrays.copyOf(finder.getPairs(), count);
+		for (int parallelism = 1; parallelism <= 8; parallelism *= 2)
+		{
+			final ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try
+			{
+				final int parallelCount = finder.findPairs(bounds, 50000, pool);
+				final long[] actual = Arrays.copyOf(finder.getPairs(), parallelCount);
+				assertTrue(Arrays.equals(expected, actual));
+			}
+			finally
+			{
+				pool.shutdown();
+			}
+		}
+	}
+
+	@Test
+	public void testEncoding()
+	{
+		final long pair = ParallelPairFinder.toPair(70000, 3);
+		assertTrue(ParallelPairFinder.getFirst(pair) == 3);
+		assertTrue(ParallelPairFinder.getSecond(pair) == 70000);
+		assertTrue(new ParallelPairFinder(1).findPairs(new float[0], 0) == 0);
+	}
+}
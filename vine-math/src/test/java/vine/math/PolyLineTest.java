@@ -0,0 +1,121 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.geometry.PolyLine;
+import vine.math.vector.MutableVec2f;
+
+
+public class PolyLineTest
+{
+
+	private static final float[] CORNER = { 0, 0, 4, 0, 4, 3 };
+
+
+	/**
+	 * Creates a random walk, that mostly moves to the right.
+	 */
+	private static PolyLine createWalk(final int vertexCount)
+	{
+		final float[] vertices = new float[vertexCount * 2];
+		for (int i = 1; i < vertexCount; i++)
+		{
+			vertices[i * 2] = vertices[i * 2 - 2] + GMath.randomFloat(0, 1);
+			vertices[i * 2 + 1] = vertices[i * 2 - 1] + GMath.randomFloat(-0.5f, 0.5f);
+		}
+		return new PolyLine(vertices);
+	}
+
+	@Test
+	public void testPointAt()
+	{
+		final PolyLine line = new PolyLine(CORNER);
+		assertTrue(line.getLength() == 7);
+		assertTrue(line.getBounds().getWidth() == 4 && line.getBounds().getHeight() == 3);
+		final MutableVec2f point = new MutableVec2f();
+		line.getPointAt(2, point);
+		assertTrue(point.nearlyEquals(2, 0));
+		line.getPointAt(5.5f, point);
+		assertTrue(point.nearlyEquals(4, 1.5f));
+		// Distances outside of the path are clamped
+		line.getPointAt(-1, point);
+		assertTrue(point.nearlyEquals(0, 0));
+		line.getPointAt(10, point);
+		assertTrue(point.nearlyEquals(4, 3));
+		line.getDirectionAt(6, point);
+		assertTrue(point.nearlyEquals(0, 1));
+	}
+
+	@Test
+	public void testHintedSearch()
+	{
+		final PolyLine line = createWalk(1000);
+		final MutableVec2f hinted = new MutableVec2f();
+		final MutableVec2f searched = new MutableVec2f();
+		int segment = 0;
+		final float[] distances = new float[200];
+		for (int i = 0; i < 200; i++)
+		{
+			final float distance = line.getLength() * i / 199;
+			distances[i] = distance;
+			segment = line.getPointAt(distance, segment, hinted);
+			line.getPointAt(distance, searched);
+			assertTrue(segment == line.findSegment(distance));
+			assertTrue(hinted.equals(searched));
+			// A far hint falls back to the binary search
+			assertTrue(line.findSegment(distance, 999 - segment) == segment);
+		}
+		final float[] points = new float[400];
+		line.getPointsAt(distances, 200, points);
+		for (int i = 0; i < 200; i++)
+		{
+			line.getPointAt(distances[i], searched);
+			assertTrue(searched.getX() == points[i * 2] && searched.getY() == points[i * 2 + 1]);
+		}
+	}
+
+	@Test
+	public void testDouglasPeucker()
+	{
+		// Noise below the tolerance is removed, the corner is kept
+		final float[] vertices = new float[202];
+		for (int i = 0; i <= 100; i++)
+		{
+			vertices[i * 2] = i <= 50 ? i : 50;
+			vertices[i * 2 + 1] = (i <= 50 ? 0 : i - 50) + GMath.randomFloat(-0.1f, 0.1f);
+		}
+		final PolyLine simplified = new PolyLine(vertices).simplifyDouglasPeucker(0.5f);
+		assertTrue(simplified.getVertexCount() == 3);
+		assertTrue(simplified.getX(1) == 50 && simplified.getY(0) == vertices[1]);
+		final PolyLine walk = createWalk(2000);
+		final PolyLine reduced = walk.simplifyDouglasPeucker(1);
+		assertTrue(reduced.getVertexCount() < walk.getVertexCount());
+		assertTrue(reduced.getLength() <= walk.getLength());
+		assertTrue(walk.simplifyDouglasPeucker(0).getVertexCount() <= walk.getVertexCount());
+	}
+
+	@Test
+	public void testVisvalingamWhyatt()
+	{
+		// Only the collinear vertices have no area
+		final float[] vertices = { 0, 0, 1, 0, 2, 0, 3, 1, 4, 2, 5, 0 };
+		final PolyLine line = new PolyLine(vertices);
+		assertTrue(line.simplifyVisvalingamWhyatt(0).getVertexCount() == 6);
+		assertTrue(line.simplifyVisvalingamWhyatt(1e-3f).getVertexCount() == 4);
+		assertTrue(line.simplifyVisvalingamWhyatt(100).getVertexCount() == 2);
+		final PolyLine walk = createWalk(2000);
+		final PolyLine reduced = walk.simplifyVisvalingamWhyatt(0.5f);
+		assertTrue(reduced.getVertexCount() < walk.getVertexCount());
+		assertTrue(reduced.getX(0) == walk.getX(0));
+		assertTrue(reduced.getX(reduced.getVertexCount() - 1) == walk.getX(1999));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidVertices()
+	{
+		new PolyLine(new float[] { 0, 0, 1 });
+	}
+}
@@ -0,0 +1,218 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+
+
+public class PolygonClipperTest
+{
+
+	private static final float[]	SQUARE		= { 0, 0, 2, 0, 2, 2, 0, 2 };
+	private static final float[]	SHIFTED		= { 1, 1, 3, 1, 3, 3, 1, 3 };
+	private static final int[]		ONE_RING	= { 0, 4 };
+	private static final int[]		NO_RING		= { 0 };
+
+
+	/**
+	 * Sums the areas of the rings of the result and checks, that outer rings are
+	 * counterclockwise and holes clockwise.
+	 */
+	private static double resultArea(final PolygonClipper clipper)
+	{
+		final float[] vertices = clipper.getVertices();
+		final int[] ringStarts = clipper.getRingStarts();
+		final int[] polygonStarts = clipper.getPolygonStarts();
+		assertTrue(polygonStarts[clipper.getPolygonCount()] == clipper.getRingCount());
+		double area = 0;
+		for (int polygon = 0; polygon < clipper.getPolygonCount(); polygon++)
+		{
+			for (int ring = polygonStarts[polygon]; ring < polygonStarts[polygon + 1]; ring++)
+			{
+				final int end = ringStarts[ring + 1];
+				double ringArea = 0;
+				for (int i = ringStarts[ring], j = end - 1; i < end; j = i++)
+				{
+					ringArea += ((double) vertices[j * 2] - vertices[i * 2])
+							* ((double) vertices[i * 2 + 1] + vertices[j * 2 + 1]) * 0.5;
+				}
+				assertTrue(ring == polygonStarts[polygon] ? ringArea > 0 : ringArea < 0);
+				area += ringArea;
+			}
+		}
+		return area;
+	}
+
+	/**
+	 * Creates the polygon, that approximates the circle in the clipper.
+	 */
+	private static float[] createCircle(final Circle circle, final int segments)
+	{
+		final float[] polygon = new float[segments * 2];
+		for (int i = 0; i < segments; i++)
+		{
+			final float angle = i * GMath.TWO_PIF / segments;
+			polygon[i * 2] = circle.getX() + circle.getRadius() * GMath.cos(angle);
+			polygon[i * 2 + 1] = circle.getY() + circle.getRadius() * GMath.sin(angle);
+		}
+		return polygon;
+	}
+
+	@Test
+	public void testSquares()
+	{
+		final PolygonClipper clipper = new PolygonClipper();
+		final int[] polygonCounts = { 1, 1, 1, 2 };
+		final double[] areas = { 7, 1, 3, 6 };
+		for (int operation = PolygonClipper.UNION; operation <= PolygonClipper.XOR; operation++)
+		{
+			final int count = clipper.clip(operation, SQUARE, ONE_RING, 1, SHIFTED, ONE_RING, 1);
+			assertTrue(count == polygonCounts[operation]);
+			assertTrue(GMath.isNearlyEqual(resultArea(clipper), areas[operation]));
+		}
+		// Touching squares are merged, equal squares cancel
+		final float[] touching = { 2, 0, 4, 0, 4, 2, 2, 2 };
+		assertTrue(clipper.clip(PolygonClipper.UNION, SQUARE, ONE_RING, 1, touching, ONE_RING, 1)
+				== 1);
+		assertTrue(clipper.getRingStarts()[clipper.getRingCount()] == 4);
+		assertTrue(clipper.clip(PolygonClipper.XOR, SQUARE, ONE_RING, 1, SQUARE, ONE_RING, 1)
+				== 0);
+	}
+
+	@Test
+	public void testHoles()
+	{
+		// A square with a hole, the rings are filled by the even-odd rule
+		final float[] subject = { 0, 0, 4, 0, 4, 4, 0, 4, 1, 1, 3, 1, 3, 3, 1, 3 };
+		final int[] subjectRings = { 0, 4, 8 };
+		final float[] clip = { 2, -1, 6, -1, 6, 5, 2, 5 };
+		final PolygonClipper clipper = new PolygonClipper();
+		final double[] areas = { 30, 6, 6, 24 };
+		for (int operation = PolygonClipper.UNION; operation <= PolygonClipper.XOR; operation++)
+		{
+			clipper.clip(operation, subject, subjectRings, 2, clip, ONE_RING, 1);
+			assertTrue(GMath.isNearlyEqual(resultArea(clipper), areas[operation]));
+		}
+		// Filling the hole leaves a single ring
+		clipper.clip(PolygonClipper.UNION, subject, subjectRings, 2, SHIFTED, ONE_RING, 1);
+		assertTrue(clipper.getRingCount() == 1);
+		assertTrue(GMath.isNearlyEqual(resultArea(clipper), 16));
+		// Two holes and an island in one of them
+		final float[] big = { 0, 0, 10, 0, 10, 10, 0, 10 };
+		final float[] holes = {
+				1, 1, 4, 1, 4, 4, 1, 4, 6, 6, 9, 6, 9, 9, 6, 9, 2, 2, 3, 2, 3, 3, 2, 3 };
+		final int[] holeRings = { 0, 4, 8, 12 };
+		assertTrue(clipper.clip(PolygonClipper.DIFFERENCE, big, ONE_RING, 1, holes, holeRings, 3)
+				== 2);
+		assertTrue(clipper.getRingCount() == 4);
+		assertTrue(GMath.isNearlyEqual(resultArea(clipper), 100 - 9 - 9 + 1));
+	}
+
+	@Test
+	public void testFastPaths()
+	{
+		final PolygonClipper clipper = new PolygonClipper();
+		final float[] star = new float[400];
+		for (int i = 0; i < 200; i++)
+		{
+			final float angle = i * GMath.TWO_PIF / 200;
+			final float distance = GMath.randomFloat(5, 10);
+			star[i * 2] = distance * GMath.cos(angle);
+			star[i * 2 + 1] = distance * GMath.sin(angle);
+		}
+		// Orients the star like a result
+		clipper.clip(PolygonClipper.UNION, star, new int[] { 0, 200 }, 1, star, NO_RING, 0);
+		final float[] subject = clipper.getVertices().clone();
+		final int[] subjectRings = clipper.getRingStarts().clone();
+		final int subjectRingCount = clipper.getRingCount();
+		final Circle circle = new Circle(3, 2, 4);
+		final float[] circlePolygon = createCircle(circle, 24);
+		final Aabb aabb = new Aabb(-2, 1, 5, 20);
+		final float[] box = { -2, 1, 3, 1, 3, 21, -2, 21 };
+		for (int operation = PolygonClipper.UNION; operation <= PolygonClipper.XOR; operation++)
+		{
+			clipper.clip(operation, subject, subjectRings, subjectRingCount, circle, 24);
+			final double circleArea = resultArea(clipper);
+			clipper.clip(
+					operation,
+					subject,
+					subjectRings,
+					subjectRingCount,
+					circlePolygon,
+					new int[] { 0, 24 },
+					1);
+			assertTrue(GMath.isNearlyEqual(circleArea, resultArea(clipper), 1e-3));
+			clipper.clip(operation, subject, subjectRings, subjectRingCount, aabb);
+			final double aabbArea = resultArea(clipper);
+			clipper.clip(operation, subject, subjectRings, subjectRingCount, box, ONE_RING, 1);
+			assertTrue(GMath.isNearlyEqual(aabbArea, resultArea(clipper), 1e-3));
+		}
+	}
+
+	@Test
+	public void testRepeatedCarving()
+	{
+		final PolygonClipper clipper = new PolygonClipper();
+		final PolygonClipper carved = new PolygonClipper();
+		final float[] land = { -50, -50, 50, -50, 50, 50, -50, 50 };
+		carved.clip(PolygonClipper.UNION, land, ONE_RING, 1, land, NO_RING, 0);
+		double area = resultArea(carved);
+		for (int i = 0; i < 100; i++)
+		{
+			final Circle circle = new Circle(
+					GMath.randomFloat(-60, 60),
+					GMath.randomFloat(-60, 60),
+					GMath.randomFloat(1, 8));
+			clipper.clip(
+					PolygonClipper.INTERSECTION,
+					carved.getVertices(),
+					carved.getRingStarts(),
+					carved.getRingCount(),
+					circle,
+					16);
+			final double removed = resultArea(clipper);
+			// The previous result is passed as input
+			carved.clip(
+					PolygonClipper.DIFFERENCE,
+					carved.getVertices(),
+					carved.getRingStarts(),
+					carved.getRingCount(),
+					circle,
+					16);
+			final double remaining = resultArea(carved);
+			assertTrue(GMath.isNearlyEqual(area - removed, remaining, 1e-2));
+			area = remaining;
+		}
+		assertTrue(area > 0 && area < 100 * 100);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidOperation()
+	{
+		new PolygonClipper().clip(4, SQUARE, ONE_RING, 1, SHIFTED, ONE_RING, 1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidRings()
+	{
+		new PolygonClipper().clip(
+				PolygonClipper.UNION,
+				SQUARE,
+				new int[] { 0, 5 },
+				1,
+				SHIFTED,
+				ONE_RING,
+				1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidCircle()
+	{
+		new PolygonClipper()
+				.clip(PolygonClipper.UNION, SQUARE, ONE_RING, 1, new Circle(0, 0, 1), 2);
+	}
+}
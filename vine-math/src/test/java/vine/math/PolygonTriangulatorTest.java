@@ -0,0 +1,128 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.ShapeUtil;
+
+
+public class PolygonTriangulatorTest
+{
+
+	/**
+	 * Sums the areas of the triangles and checks, that all are counterclockwise.
+	 */
+	private static float triangleArea(
+			final float[] polygon,
+			final int[] triangles,
+			final int triangleCount)
+	{
+		float area = 0;
+		for (int i = 0; i < triangleCount * 3; i += 3)
+		{
+			final float ax = polygon[triangles[i] * 2];
+			final float ay = polygon[triangles[i] * 2 + 1];
+			final float bx = polygon[triangles[i + 1] * 2];
+			final float by = polygon[triangles[i + 1] * 2 + 1];
+			final float cx = polygon[triangles[i + 2] * 2];
+			final float cy = polygon[triangles[i + 2] * 2 + 1];
+			final float doubleArea = (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+			assertTrue(doubleArea >= 0);
+			area += doubleArea * 0.5f;
+		}
+		return area;
+	}
+
+	/**
+	 * Creates a star shaped polygon with random radii around the center.
+	 */
+	private static float[] createStar(
+			final int vertexCount,
+			final float centerX,
+			final float centerY,
+			final float radius,
+			final boolean clockwise)
+	{
+		final float[] polygon = new float[vertexCount * 2];
+		for (int i = 0; i < vertexCount; i++)
+		{
+			final float angle = (clockwise ? -i : i) * GMath.TWO_PIF / vertexCount;
+			final float distance = radius * GMath.randomFloat(0.5f, 1);
+			polygon[i * 2] = centerX + distance * (float) Math.cos(angle);
+			polygon[i * 2 + 1] = centerY + distance * (float) Math.sin(angle);
+		}
+		return polygon;
+	}
+
+	@Test
+	public void testSquare()
+	{
+		final float[] polygon = { 0, 0, 0, 2, 2, 2, 2, 0 };
+		final int[] triangles = new int[PolygonTriangulator.getMaxIndexCount(4, 0)];
+		final int count = new PolygonTriangulator().triangulate(polygon, 8, triangles);
+		assertTrue(count == 2);
+		assertTrue(GMath.isNearlyEqual(triangleArea(polygon, triangles, count), 4));
+	}
+
+	@Test
+	public void testStar()
+	{
+		final PolygonTriangulator triangulator = new PolygonTriangulator();
+		for (int i = 0; i < 2; i++)
+		{
+			final float[] polygon = createStar(1000, 5, -3, 10, i == 1);
+			final int[] triangles = new int[PolygonTriangulator.getMaxIndexCount(1000, 0)];
+			final int count = triangulator.triangulate(polygon, 2000, triangles);
+			assertTrue(count == 998);
+			final float area = ShapeUtil.polygonArea(polygon);
+			final float triangulatedArea = triangleArea(polygon, triangles, count);
+			assertTrue(GMath.isNearlyEqual(triangulatedArea, area, area * 1e-4f));
+		}
+	}
+
+	@Test
+	public void testHoles()
+	{
+		final float[] outer = createStar(200, 0, 0, 100, false);
+		final float[] hole1 = createStar(50, -20, 0, 10, false);
+		final float[] hole2 = createStar(60, 20, 0, 10, true);
+		final float[] polygon = new float[outer.length + hole1.length + hole2.length];
+		System.arraycopy(outer, 0, polygon, 0, outer.length);
+		System.arraycopy(hole1, 0, polygon, outer.length, hole1.length);
+		System.arraycopy(hole2, 0, polygon, outer.length + hole1.length, hole2.length);
+		final int[] holeStarts = { 200, 250 };
+		final int[] triangles = new int[PolygonTriangulator.getMaxIndexCount(310, 2)];
+		final int count = new PolygonTriangulator().triangulate(
+				polygon,
+				polygon.length,
+				holeStarts,
+				2,
+				triangles);
+		assertTrue(count == 310 + 2 * 2 - 2);
+		final float area = ShapeUtil.polygonArea(outer) - ShapeUtil.polygonArea(hole1)
+				- ShapeUtil.polygonArea(hole2);
+		final float triangulatedArea = triangleArea(polygon, triangles, count);
+		assertTrue(GMath.isNearlyEqual(triangulatedArea, area, area * 1e-4f));
+	}
+
+	@Test
+	public void testDegenerated()
+	{
+		// A duplicate vertex, a collinear vertex and a comb with touching teeth
+		final float[] polygon = {
+				0, 0, 4, 0, 4, 0, 8, 0, 8, 4, 6, 4, 6, 1, 4, 4, 2, 1, 2, 4, 0, 4 };
+		final int[] triangles = new int[PolygonTriangulator.getMaxIndexCount(11, 0)];
+		final int count = new PolygonTriangulator().triangulate(polygon, 22, triangles);
+		final float area = ShapeUtil.polygonArea(polygon);
+		assertTrue(GMath.isNearlyEqual(triangleArea(polygon, triangles, count), area, 1e-4f));
+		assertTrue(new PolygonTriangulator().triangulate(polygon, 4, triangles) == 0);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testTooSmallIndexArray()
+	{
+		new PolygonTriangulator().triangulate(new float[] { 0, 0, 1, 0, 0, 1 }, 6, new int[2]);
+	}
+}
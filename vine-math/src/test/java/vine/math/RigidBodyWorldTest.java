@@ -0,0 +1,234 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.physics.RigidBodyWorld;
+
+
+public class RigidBodyWorldTest
+{
+
+	private static final float DELTA_TIME = 1 / 60f;
+
+
+	@Test
+	public void testBoxComesToRest()
+	{
+		final RigidBodyWorld world = new RigidBodyWorld(2, 1);
+		world.addBox(0, -0.5f, 20, 0.5f, 0, 0);
+		final int box = world.addBox(0, 3, 0.5f, 0.5f, 0, 1);
+		for (int i = 0; i < 240; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		assertTrue(GMath.abs(world.getY(box) - 0.5f) < 0.05f);
+		assertTrue(GMath.abs(world.getVelocityY(box)) < 0.01f);
+		assertTrue(GMath.abs(world.getAngle(box)) < 0.01f);
+		assertTrue(!world.isAwake(box));
+		assertTrue(world.getContactCount() == 0);
+	}
+
+	@Test
+	public void testPyramidIsStable()
+	{
+		final RigidBodyWorld world = new RigidBodyWorld(64, 1);
+		world.addBox(0, -0.5f, 50, 0.5f, 0, 0);
+		final int rows = 10;
+		final int top = buildPyramid(world, rows);
+		final float startY = world.getY(top);
+		for (int i = 0; i < 300; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		assertTrue(GMath.abs(world.getY(top) - startY) < 0.1f);
+		assertTrue(GMath.abs(world.getX(top)) < 0.1f);
+		for (int body = 1; body < world.getBodyCount(); body++)
+		{
+			assertTrue(GMath.abs(world.getVelocityX(body)) < 0.05f);
+			assertTrue(GMath.abs(world.getVelocityY(body)) < 0.05f);
+		}
+	}
+
+	@Test
+	public void testCircleRollsAndBounces()
+	{
+		final RigidBodyWorld world = new RigidBodyWorld(4, 1);
+		world.addBox(0, -0.5f, 20, 0.5f, 0, 0);
+		final int ball = world.addCircle(0, 5, 0.5f, 1);
+		world.setRestitution(ball, 0.8f);
+		float maxHeightAfterBounce = 0;
+		boolean bounced = false;
+		for (int i = 0; i < 120; i++)
+		{
+			world.step(DELTA_TIME);
+			if (world.getVelocityY(ball) > 0)
+			{
+				bounced = true;
+			}
+			if (bounced)
+			{
+				maxHeightAfterBounce = GMath.max(maxHeightAfterBounce, world.getY(ball));
+			}
+		}
+		assertTrue(bounced);
+		assertTrue(maxHeightAfterBounce > 2 && maxHeightAfterBounce < 5);
+
+		final int wheel = world.addCircle(0, 0.5f, 0.5f, 1);
+		world.setVelocity(wheel, 2, 0);
+		world.setPosition(ball, 100, 100);
+		for (int i = 0; i < 60; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		assertTrue(world.getAngularVelocity(wheel) < 0);
+		assertTrue(world.getX(wheel) > 0.5f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidBox()
+	{
+		new RigidBodyWorld(1, 1).addBox(0, 0, 0, 1, 0, 1);
+	}
+
+	/**
+	 * @return The top box of the pyramid.
+	 */
+	static int buildPyramid(final RigidBodyWorld world, final int rows)
+	{
+		int top = -1;
+		for (int row = 0; row < rows; row++)
+		{
+			final int boxes = rows - row;
+			for (int i = 0; i < boxes; i++)
+			{
+				final float x = (i - (boxes - 1) * 0.5f) * 1.05f;
+				top = world.addBox(x, 0.5f + row, 0.5f, 0.5f, 0, 1);
+			}
+		}
+		return top;
+	}
+
+	@Test
+	public void testIslands()
+	{
+		final RigidBodyWorld world = new RigidBodyWorld(16, 1);
+		world.setSleepingEnabled(false);
+		world.addBox(0, -0.5f, 50, 0.5f, 0, 0);
+		final int bottom = world.addBox(-5, 0.5f, 0.5f, 0.5f, 0, 1);
+		final int top = world.addBox(-5, 1.5f, 0.5f, 0.5f, 0, 1);
+		final int single = world.addBox(5, 0.5f, 0.5f, 0.5f, 0, 1);
+		final int falling = world.addCircle(0, 10, 0.5f, 1);
+		world.step(DELTA_TIME);
+		assertTrue(world.getIslandCount() == 3);
+		assertTrue(world.getContactCount() == 3);
+		assertTrue(world.isAwake(bottom) && world.isAwake(top) && world.isAwake(single));
+		assertTrue(world.getY(falling) < 10);
+	}
+
+	@Test
+	public void testSleepingAndWaking()
+	{
+		final RigidBodyWorld world = new RigidBodyWorld(64, 1);
+		world.addBox(0, -0.5f, 50, 0.5f, 0, 0);
+		final int top = buildPyramid(world, 5);
+		final int other = world.addBox(20, 0.5f, 0.5f, 0.5f, 0, 1);
+		for (int i = 0; i < 300; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		for (int body = 1; body < world.getBodyCount(); body++)
+		{
+			assertTrue(!world.isAwake(body));
+		}
+		final float sleepingY = world.getY(top);
+		world.step(DELTA_TIME);
+		assertTrue(world.getIslandCount() == 0);
+		assertTrue(world.getY(top) == sleepingY);
+
+		world.setVelocity(other, 0, 1);
+		world.step(DELTA_TIME);
+		assertTrue(world.isAwake(other));
+		assertTrue(!world.isAwake(top));
+
+		final int ball = world.addCircle(world.getX(top), world.getY(top) + 3, 0.5f, 1);
+		for (int i = 0; i < 40; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		assertTrue(world.isAwake(ball));
+		for (int body = 1; body < world.getBodyCount() - 2; body++)
+		{
+			assertTrue(world.isAwake(body));
+		}
+	}
+
+	@Test
+	public void testMovingStaticBodyWakesIslands()
+	{
+		final RigidBodyWorld world = new RigidBodyWorld(8, 1);
+		final int ground = world.addBox(0, -0.5f, 5, 0.5f, 0, 0);
+		final int platform = world.addBox(20, -0.5f, 2, 0.5f, 0, 0);
+		final int onGround = world.addBox(0, 0.5f, 0.5f, 0.5f, 0, 1);
+		final int onPlatform = world.addBox(20, 0.5f, 0.5f, 0.5f, 0, 1);
+		final int nearPlatform = world.addBox(30, 0.5f, 0.5f, 0.5f, 0, 1);
+		world.addBox(30, -0.5f, 2, 0.5f, 0, 0);
+		for (int i = 0; i < 120; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		assertTrue(!world.isAwake(onGround) && !world.isAwake(onPlatform));
+		assertTrue(!world.isAwake(nearPlatform));
+
+		// Pulling the ground away wakes the box resting on it, which falls
+		world.setPosition(ground, 0, -10);
+		world.step(DELTA_TIME);
+		assertTrue(world.isAwake(onGround));
+		assertTrue(!world.isAwake(onPlatform) && !world.isAwake(nearPlatform));
+		final float restingY = world.getY(onGround);
+		for (int i = 0; i < 10; i++)
+		{
+			world.step(DELTA_TIME);
+		}
+		assertTrue(world.getY(onGround) < restingY);
+
+		// Moving the platform next to a sleeping box wakes the boxes at both positions
+		world.setPosition(platform, 30, 1);
+		world.step(DELTA_TIME);
+		assertTrue(world.isAwake(onPlatform));
+		assertTrue(world.isAwake(nearPlatform));
+	}
+
+	@Test
+	public void testParallelSolveMatchesSerial()
+	{
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final RigidBodyWorld serial = new RigidBodyWorld(512, 1);
+		final RigidBodyWorld parallel = new RigidBodyWorld(512, 1);
+		parallel.setPool(pool);
+		for (final RigidBodyWorld world : new RigidBodyWorld[] { serial, parallel })
+		{
+			world.addBox(0, -0.5f, 500, 0.5f, 0, 0);
+			for (int i = 0; i < 400; i++)
+			{
+				world.addBox((i % 40) * 6, 0.5f + (i / 40) * 1.1f, 0.5f, 0.5f, 0, 1);
+			}
+		}
+		for (int i = 0; i < 60; i++)
+		{
+			serial.step(DELTA_TIME);
+			parallel.step(DELTA_TIME);
+		}
+		assertTrue(parallel.getIslandCount() == 40);
+		for (int body = 0; body < serial.getBodyCount(); body++)
+		{
+			assertTrue(serial.getX(body) == parallel.getX(body));
+			assertTrue(serial.getY(body) == parallel.getY(body));
+		}
+		pool.shutdown();
+	}
+}
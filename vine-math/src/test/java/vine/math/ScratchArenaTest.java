@@ -0,0 +1,85 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.matrix.MutableMat3f;
+import vine.math.vector.MutableVec2f;
+
+
+public class ScratchArenaTest
+{
+
+	@Test
+	public void testInstancesAreReused()
+	{
+		final ScratchArena arena = new ScratchArena();
+		final MutableVec2f vector = arena.obtainVec2f();
+		final MutableMat3f matrix = arena.obtainMat3f();
+		final HitData hit = arena.obtainHitData();
+		vector.set(1, 2);
+		hit.setPenetration(3);
+		assertTrue(arena.getUsedCount() == 3);
+		arena.reset();
+		assertTrue(arena.getUsedCount() == 0);
+		final MutableVec2f reusedVector = arena.obtainVec2f();
+		final HitData reusedHit = arena.obtainHitData();
+		assertTrue(reusedVector == vector && reusedVector.isNearlyZero());
+		assertTrue(reusedHit == hit && reusedHit.getPenetration() == 0);
+		assertTrue(arena.obtainMat3f() == matrix);
+	}
+
+	@Test
+	public void testGrows()
+	{
+		final ScratchArena arena = new ScratchArena();
+		for (int i = 0; i < 100; i++)
+		{
+			arena.obtainVec3f().set(i, i, i);
+		}
+		assertTrue(arena.getUsedCount() == 100);
+	}
+
+	@Test
+	public void testDebugPoisonsOnReset()
+	{
+		final ScratchArena arena = new ScratchArena(true);
+		final MutableVec2f vector = arena.obtainVec2f();
+		arena.reset();
+		assertTrue(Float.isNaN(vector.getX()) && Float.isNaN(vector.getY()));
+		assertTrue(arena.obtainVec2f().isNearlyZero());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDebugDetectsWriteAfterReset()
+	{
+		final ScratchArena arena = new ScratchArena(true);
+		final MutableVec2f vector = arena.obtainVec2f();
+		arena.reset();
+		vector.set(1, 1);
+		arena.obtainVec2f();
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testDebugDetectsFractionAfterReset()
+	{
+		final ScratchArena arena = new ScratchArena(true);
+		final HitData hit = arena.obtainHitData();
+		arena.reset();
+		hit.setFraction(0.5f);
+		arena.obtainHitData();
+	}
+
+	@Test
+	public void testLocalArenaPerThread() throws InterruptedException
+	{
+		final ScratchArena[] other = new ScratchArena[1];
+		final Thread thread = new Thread(() -> other[0] = ScratchArena.local());
+		thread.start();
+		thread.join();
+		assertTrue(ScratchArena.local() == ScratchArena.local());
+		assertTrue(other[0] != null && other[0] != ScratchArena.local());
+	}
+}
@@ -0,0 +1,203 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import vine.math.spatial.ParallelPairFinder;
+import vine.math.spatial.SegmentSweep;
+
+
+public class SegmentSweepTest
+{
+
+	private static long[] bruteForce(final float[] segments, final int count)
+	{
+		long[] pairs = new long[0];
+		for (int a = 0; a < count; a++)
+		{
+			for (int b = a + 1; b < count; b++)
+			{
+				final int offsetA = a * SegmentSweep.STRIDE;
+				final int offsetB = b * SegmentSweep.STRIDE;
+				if (Intersection.intersectSegmentSegment(
+						segments[offsetA],
+						segments[offsetA + 1],
+						segments[offsetA + 2],
+						segments[offsetA + 3],
+						segments[offsetB],
+						segments[offsetB + 1],
+						segments[offsetB + 2],
+						segments[offsetB + 3],
+						null))
+				{
+					pairs = Arrays.copyOf(pairs, pairs.length + 1);
+					pairs[pairs.length - 1] = ParallelPairFinder.toPair(a, b);
+				}
+			}
+		}
+		return pairs;
+	}
+
+	private static long[] sweep(final SegmentSweep sweep, final float[] segments, final int count)
+	{
+		final int pairCount = sweep.findIntersections(segments, count);
+		final long[] pairs = Arrays.copyOf(sweep.getPairs(), pairCount);
+		Arrays.sort(pairs);
+		return pairs;
+	}
+
+	@Test
+	public void testMatchesBruteForce()
+	{
+		final float[] segments = new float[1000 * SegmentSweep.STRIDE];
+		for (int i = 0; i < segments.length; i += SegmentSweep.STRIDE)
+		{
+			segments[i] = GMath.randomFloat(0, 100);
+			segments[i + 1] = GMath.randomFloat(0, 100);
+			segments[i + 2] = segments[i] + GMath.randomFloat(-10, 10);
+			segments[i + 3] = segments[i + 1] + GMath.randomFloat(-10, 10);
+		}
+		final SegmentSweep sweep = new SegmentSweep();
+		final long[] expected = bruteForce(segments, 1000);
+		assertTrue(expected.length > 100);
+		assertTrue(Arrays.equals(expected, sweep(sweep, segments, 1000)));
+		// The buffers are reused
+		assertTrue(Arrays.equals(expected, sweep(sweep, segments, 1000)));
+		final float[] points = sweep.getPoints();
+		for (int i = 0; i < expected.length; i++)
+		{
+			final int segment = ParallelPairFinder.getFirst(sweep.getPairs()[i]);
+			final int offset = segment * SegmentSweep.STRIDE;
+			final float x = points[i * 2];
+			final float y = points[i * 2 + 1];
+			final float directionX = segments[offset + 2] - segments[offset];
+			final float directionY = segments[offset + 3] - segments[offset + 1];
+			final float cross = directionX * (y - segments[offset + 1])
+					- directionY * (x - segments[offset]);
+			assertTrue(GMath.abs(cross) < 0.001f);
+		}
+	}
+
+	@Test
+	public void testDegeneratedGrid()
+	{
+		// Horizontal, vertical and diagonal segments on integer coordinates with shared endpoints,
+		// T-junctions, collinear overlaps and many segments through the same points
+		final float[] segments = new float[600 * SegmentSweep.STRIDE];
+		for (int i = 0; i < segments.length; i += SegmentSweep.STRIDE)
+		{
+			final int x = GMath.randomInteger(0, 20);
+			final int y = GMath.randomInteger(0, 20);
+			final int length = GMath.randomInteger(1, 6);
+			final int direction = GMath.randomInteger(0, 4);
+			segments[i] = x;
+			segments[i + 1] = y;
+			segments[i + 2] = x + (direction == 1 ? 0 : length);
+			segments[i + 3] = y + (direction == 0 ? 0 : direction == 3 ? -length : length);
+		}
+		final long[] expected = bruteForce(segments, 600);
+		assertTrue(Arrays.equals(expected, sweep(new SegmentSweep(), segments, 600)));
+	}
+
+	@Test
+	public void testStar()
+	{
+		final float[] segments = new float[16 * SegmentSweep.STRIDE];
+		for (int i = 0; i < 16; i++)
+		{
+			final float angle = i * GMath.PIF / 16;
+			segments[i * 4] = 3 + 2 * GMath.cos(angle);
+			segments[i * 4 + 1] = 4 + 2 * GMath.sin(angle);
+			segments[i * 4 + 2] = 3 - 2 * GMath.cos(angle);
+			segments[i * 4 + 3] = 4 - 2 * GMath.sin(angle);
+		}
+		final SegmentSweep sweep = new SegmentSweep();
+		final int count = sweep.findIntersections(segments, 16);
+		assertTrue(count == 16 * 15 / 2);
+		for (int i = 0; i < count; i++)
+		{
+			assertTrue(GMath.isNearlyEqual(sweep.getPoints()[i * 2], 3, 0.0001f));
+			assertTrue(GMath.isNearlyEqual(sweep.getPoints()[i * 2 + 1], 4, 0.0001f));
+		}
+	}
+
+	@Test
+	public void testTouchingAndOverlapping()
+	{
+		final float[] segments = {
+				// Collinear overlap, reported once at the start of the overlap
+				0, 0, 4, 4,
+				6, 6, 2, 2,
+				// Touches the end of the first segment
+				4, 4, 8, 0,
+				// A point on the second segment
+				5, 5, 5, 5,
+				// Parallel to the first segment
+				1, 0, 3, 2 };
+		final SegmentSweep sweep = new SegmentSweep();
+		final int count = sweep.findIntersections(segments, 5);
+		final long[] pairs = Arrays.copyOf(sweep.getPairs(), count);
+		Arrays.sort(pairs);
+		assertTrue(Arrays.equals(
+				new long[] {
+						ParallelPairFinder.toPair(0, 1),
+						ParallelPairFinder.toPair(0, 2),
+						ParallelPairFinder.toPair(1, 2),
+						ParallelPairFinder.toPair(1, 3) },
+				pairs));
+		for (int i = 0; i < count; i++)
+		{
+			if (sweep.getPairs()[i] == ParallelPairFinder.toPair(0, 1))
+			{
+				assertTrue(sweep.getPoints()[i * 2] == 2 && sweep.getPoints()[i * 2 + 1] == 2);
+			}
+		}
+		assertTrue(sweep.findIntersections(segments, 0) == 0);
+	}
+
+	@Test
+	public void testPolylineEndpoints()
+	{
+		// A random walk, which segments share endpoints with their neighbours and cross each other
+		final int count = 2000;
+		final float[] segments = new float[count * SegmentSweep.STRIDE];
+		float x = 50;
+		float y = 50;
+		for (int i = 0; i < segments.length; i += SegmentSweep.STRIDE)
+		{
+			segments[i] = x;
+			segments[i + 1] = y;
+			x += GMath.randomFloat(-3, 3);
+			y += GMath.randomFloat(-3, 3);
+			segments[i + 2] = x;
+			segments[i + 3] = y;
+		}
+		final SegmentSweep sweep = new SegmentSweep();
+		final long[] expected = bruteForce(segments, count);
+		final long[] pairs = sweep(sweep, segments, count);
+		assertTrue(Arrays.equals(expected, pairs));
+		// Each shared endpoint is reported exactly, even if other segments cross it
+		for (int i = 0; i < pairs.length; i++)
+		{
+			final long pair = sweep.getPairs()[i];
+			final int first = ParallelPairFinder.getFirst(pair);
+			final int second = ParallelPairFinder.getSecond(pair);
+			if (GMath.abs(first - second) == 1)
+			{
+				final int end = GMath.min(first, second) * SegmentSweep.STRIDE + 2;
+				assertTrue(sweep.getPoints()[i * 2] == segments[end]);
+				assertTrue(sweep.getPoints()[i * 2 + 1] == segments[end + 1]);
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidSegments()
+	{
+		new SegmentSweep().findIntersections(new float[7], 2);
+	}
+}
@@ -0,0 +1,184 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.vector.MutableVec2f;
+import vine.math.vector.ReadableVec2f;
+import vine.math.vector.VectorUtils;
+
+
+public class SignedDistanceFieldTest
+{
+
+	/**
+	 * Checks the angle to the normal of the slope of the sampling test, the steps of the grid
+	 * bend normals near the surface.
+	 */
+	private static boolean isSlopeNormal(final ReadableVec2f normal, final float minCosine)
+	{
+		return normal.getX() * 0.4472136f + normal.getY() * 0.8944272f > minCosine;
+	}
+
+	private static boolean[] createBlobs(final int width, final int height)
+	{
+		final boolean[] solid = new boolean[width * height];
+		for (int blob = 0; blob < 4; blob++)
+		{
+			final float x = GMath.randomFloat(width);
+			final float y = GMath.randomFloat(height);
+			final float radius = GMath.randomFloat(1, 1 + width / 4f);
+			for (int i = 0; i < solid.length; i++)
+			{
+				final float dx = i % width - x;
+				final float dy = i / width - y;
+				solid[i] |= dx * dx + dy * dy < radius * radius;
+			}
+		}
+		// Noise
+		for (int i = 0; i < 20; i++)
+		{
+			solid[GMath.randomInteger(0, solid.length - 1)] ^= true;
+		}
+		return solid;
+	}
+
+	/**
+	 * Calculates the distance of a sample by testing all other samples.
+	 */
+	private static float bruteForce(
+			final boolean[] solid,
+			final int width,
+			final int x,
+			final int y)
+	{
+		final boolean isSolid = solid[x + y * width];
+		float nearest = Float.POSITIVE_INFINITY;
+		for (int i = 0; i < solid.length; i++)
+		{
+			if (solid[i] != isSolid)
+			{
+				final float dx = i % width - x;
+				final float dy = i / width - y;
+				nearest = GMath.min(nearest, (float) Math.sqrt(dx * dx + dy * dy));
+			}
+		}
+		return isSolid ? 0.5f - nearest : nearest - 0.5f;
+	}
+
+	@Test
+	public void testExactDistances()
+	{
+		for (int i = 0; i < 10; i++)
+		{
+			final int width = GMath.randomInteger(1, 40);
+			final int height = GMath.randomInteger(1, 40);
+			final boolean[] solid = createBlobs(width, height);
+			final SignedDistanceField field = new SignedDistanceField(width, height);
+			final SignedDistanceField parallel = new SignedDistanceField(width, height);
+			field.generate(solid);
+			parallel.generate(solid, ForkJoinPool.commonPool());
+			for (int y = 0; y < height; y++)
+			{
+				for (int x = 0; x < width; x++)
+				{
+					final float expected = bruteForce(solid, width, x, y);
+					if (Float.isInfinite(expected))
+					{
+						// Without samples of the other kind the distance is the diagonal
+						assertTrue(GMath.abs(field.getDistance(x, y))
+								== VectorUtils.length(width, height));
+					}
+					else
+					{
+						assertTrue(GMath.isNearlyEqual(field.getDistance(x, y), expected, 1e-4f));
+					}
+					assertTrue(field.getDistance(x, y) == parallel.getDistance(x, y));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testJumpFlooding()
+	{
+		final boolean[] solid = createBlobs(150, 130);
+		final SignedDistanceField exact = new SignedDistanceField(150, 130);
+		final SignedDistanceField flooded = new SignedDistanceField(150, 130);
+		exact.generate(solid);
+		flooded.generateJumpFlooding(solid, ForkJoinPool.commonPool());
+		double error = 0;
+		for (int i = 0; i < solid.length; i++)
+		{
+			final float difference = flooded.getDistances()[i] - exact.getDistances()[i];
+			// Jump flooding only overestimates the distances
+			assertTrue(solid[i] ? difference <= 1e-4f : difference >= -1e-4f);
+			assertTrue(GMath.abs(difference) < 1);
+			error += GMath.abs(difference);
+		}
+		assertTrue(error / solid.length < 1e-2);
+	}
+
+	@Test
+	public void testSampling()
+	{
+		// Solid below the line y = 9.5 - x * 0.5 and a threshold from a float grid
+		final float[] values = new float[30 * 20];
+		for (int i = 0; i < values.length; i++)
+		{
+			values[i] = 9.5f - i % 30 * 0.5f - i / 30;
+		}
+		final SignedDistanceField field = new SignedDistanceField(30, 20);
+		field.generate(values, 0, null);
+		final MutableVec2f gradient = new MutableVec2f();
+		field.sampleGradient(12.3f, 8.6f, gradient);
+		gradient.normalize();
+		assertTrue(isSlopeNormal(gradient, 0.99f));
+		assertTrue(field.sample(12.3f, 8.6f) > 4 && field.sample(12.3f, 8.6f) < 6);
+		assertTrue(field.sample(3, 2) < 0);
+		// Clamped outside of the grid
+		assertTrue(field.sample(-5, 19) == field.getDistance(0, 19));
+		final HitData hit = new HitData();
+		assertTrue(!field.collide(12.3f, 8.6f, 1, hit));
+		assertTrue(field.collide(8.4f, 5.4f, 1, hit));
+		assertTrue(hit.getPenetration() > 0 && hit.getPenetration() < 2);
+		assertTrue(isSlopeNormal(hit.getNormal(), 0.85f));
+		assertTrue(GMath.isNearlyEqual(hit.getNormal().length(), 1));
+		assertTrue(GMath.isNearlyEqual(field.sample(
+				hit.getPoint().getX(),
+				hit.getPoint().getY()), 0, 0.1f));
+	}
+
+	@Test
+	public void testCollideWithoutGradient()
+	{
+		// In the middle of a solid 2x2 blob all four samples are equal
+		final boolean[] solid = new boolean[10 * 10];
+		solid[4 + 4 * 10] = true;
+		solid[5 + 4 * 10] = true;
+		solid[4 + 5 * 10] = true;
+		solid[5 + 5 * 10] = true;
+		final SignedDistanceField field = new SignedDistanceField(10, 10);
+		field.generate(solid);
+		assertTrue(field.collide(4.5f, 4.5f, 0, null));
+		assertTrue(!field.collide(1, 1, 0.5f, null));
+		final HitData hit = new HitData();
+		assertTrue(field.collide(4.5f, 4.5f, 0.5f, hit));
+		assertTrue(GMath.isNearlyEqual(hit.getNormal().length(), 1));
+		assertTrue(GMath.isNearlyEqual(hit.getPenetration(), 1));
+		assertTrue(!Float.isNaN(hit.getPoint().getX()) && !Float.isNaN(hit.getPoint().getY()));
+		// Off the middle the central differences point away from the blob
+		assertTrue(field.collide(4.5f, 4.6f, 0, hit));
+		assertTrue(hit.getNormal().getY() > 0.9f);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidGrid()
+	{
+		new SignedDistanceField(10, 10).generate(new boolean[99]);
+	}
+}
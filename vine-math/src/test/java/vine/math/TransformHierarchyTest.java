@@ -0,0 +1,148 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.geometry.TransformHierarchy;
+import vine.math.matrix.MutableMat3f;
+
+
+public class TransformHierarchyTest
+{
+
+	@Test
+	public void testChainTranslation()
+	{
+		final TransformHierarchy hierarchy = new TransformHierarchy(4);
+		final int root = hierarchy.addNode(TransformHierarchy.NO_PARENT);
+		final int child = hierarchy.addNode(root);
+		final int grandChild = hierarchy.addNode(child);
+		hierarchy.translateLocal(root, 1, 2);
+		hierarchy.translateLocal(child, 3, 4);
+		hierarchy.setLocal(grandChild, 5, 6, 0, 2, 2);
+		hierarchy.update();
+		final float[] world = hierarchy.getWorldElements();
+		final int offset = grandChild * TransformHierarchy.STRIDE;
+		assertTrue(GMath.isNearlyEqual(world[offset], 2, 0.001f));
+		assertTrue(GMath.isNearlyEqual(world[offset + 4], 2, 0.001f));
+		assertTrue(world[offset + 2] == 9 && world[offset + 5] == 12);
+	}
+
+	@Test
+	public void testMatchesMatrixMultiplication()
+	{
+		final TransformHierarchy hierarchy = new TransformHierarchy(2);
+		final int root = hierarchy.addNode(TransformHierarchy.NO_PARENT);
+		final int child = hierarchy.addNode(root);
+		final MutableMat3f parentMatrix = new MutableMat3f(1, 2, 3, 4, 5, 6, 0, 0, 1);
+		final MutableMat3f childMatrix = new MutableMat3f(-1, 0.5f, 2, 3, 1, -4, 0, 0, 1);
+		hierarchy.setLocal(root, parentMatrix);
+		hierarchy.setLocal(child, childMatrix);
+		hierarchy.update();
+		final MutableMat3f expected = new MutableMat3f();
+		expected.multiply(parentMatrix, childMatrix);
+		final MutableMat3f world = new MutableMat3f();
+		hierarchy.getWorld(child, world);
+		assertTrue(expected.equals(world));
+	}
+
+	@Test
+	public void testOnlyDirtySubtreesChange()
+	{
+		final TransformHierarchy hierarchy = new TransformHierarchy(8);
+		final int root = hierarchy.addNode(TransformHierarchy.NO_PARENT);
+		final int left = hierarchy.addNode(root);
+		final int right = hierarchy.addNode(root);
+		final int leftChild = hierarchy.addNode(left);
+		hierarchy.update();
+		hierarchy.translateLocal(left, 1, 0);
+		hierarchy.update();
+		assertTrue(!hierarchy.isChanged(root));
+		assertTrue(hierarchy.isChanged(left));
+		assertTrue(hierarchy.isChanged(leftChild));
+		assertTrue(!hierarchy.isChanged(right));
+		hierarchy.update();
+		assertTrue(!hierarchy.isChanged(left));
+	}
+
+	@Test
+	public void testParallelUpdateEqualsSequential()
+	{
+		final int count = 50000;
+		final TransformHierarchy sequential = new TransformHierarchy(count);
+		final TransformHierarchy parallel = new TransformHierarchy(count);
+		for (int i = 0; i < count; i++)
+		{
+			final int parent = i < 8 ? TransformHierarchy.NO_PARENT : GMath.randomInteger(0, i);
+			sequential.addNode(parent);
+			parallel.addNode(parent);
+			final float x = GMath.randomFloat(-1, 1);
+			final float y = GMath.randomFloat(-1, 1);
+			final float angle = GMath.randomFloat(GMath.PIF);
+			sequential.setLocal(i, x, y, angle, 1, 1);
+			parallel.setLocal(i, x, y, angle, 1, 1);
+		}
+		sequential.update();
+		parallel.update(ForkJoinPool.commonPool());
+		final float[] expected = sequential.getWorldElements();
+		final float[] actual = parallel.getWorldElements();
+		for (int i = count * TransformHierarchy.STRIDE - 1; i >= 0; i--)
+		{
+			assertTrue(expected[i] == actual[i]);
+		}
+	}
+
+	@Test
+	public void testPartialUpdates()
+	{
+		final int count = 20000;
+		final TransformHierarchy sequential = new TransformHierarchy(16);
+		final TransformHierarchy parallel = new TransformHierarchy(16);
+		final TransformHierarchy full = new TransformHierarchy(16);
+		for (int round = 0; round < 6; round++)
+		{
+			// Deep chains in half of the rounds, bushy trees in the others
+			for (int i = 0; i < count / 6; i++)
+			{
+				final int size = sequential.size();
+				final int parent = size == 0 ? TransformHierarchy.NO_PARENT
+						: round % 2 == 0 ? size - 1 : GMath.randomInteger(0, size - 1);
+				sequential.addNode(parent);
+				parallel.addNode(parent);
+				full.addNode(parent);
+			}
+			for (int i = 0; i < count / 50; i++)
+			{
+				final int node = GMath.randomInteger(0, sequential.size() - 1);
+				final float x = GMath.randomFloat(-1, 1);
+				final float angle = GMath.randomFloat(GMath.PIF);
+				sequential.setLocal(node, x, 0, angle, 1, 1);
+				parallel.setLocal(node, x, 0, angle, 1, 1);
+				full.setLocal(node, x, 0, angle, 1, 1);
+			}
+			for (int node = 0; node < full.size(); node++)
+			{
+				full.markDirty(node);
+			}
+			sequential.update();
+			parallel.update(ForkJoinPool.commonPool());
+			full.update();
+			final float[] expected = full.getWorldElements();
+			for (int i = full.size() * TransformHierarchy.STRIDE - 1; i >= 0; i--)
+			{
+				assertTrue(sequential.getWorldElements()[i] == expected[i]);
+				assertTrue(parallel.getWorldElements()[i] == expected[i]);
+			}
+		}
+		// Nothing dirty, nothing changed
+		parallel.update(ForkJoinPool.commonPool());
+		for (int node = 0; node < parallel.size(); node++)
+		{
+			assertTrue(!parallel.isChanged(node));
+		}
+	}
+}
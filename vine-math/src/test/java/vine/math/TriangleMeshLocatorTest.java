@@ -0,0 +1,177 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.ShapeUtil;
+import vine.math.spatial.TriangleMeshLocator;
+
+
+public class TriangleMeshLocatorTest
+{
+
+	private static final int	SIZE	= 20;
+
+
+	@Test
+	public void testLocate()
+	{
+		final float[] vertices = createGridVertices();
+		final int[] indices = createGridIndices();
+		final TriangleMeshLocator locator = new TriangleMeshLocator(vertices, indices,
+				indices.length / 3);
+		assertTrue(locator.getTriangleCount() == SIZE * SIZE * 2);
+		for (int i = 0; i < 10000; i++)
+		{
+			final float x = GMath.randomFloat(-2, SIZE + 2);
+			final float y = GMath.randomFloat(-2, SIZE + 2);
+			if (isNearEdge(x) || isNearEdge(y) || isNearEdge(x - y) || isNearEdge(x + y))
+			{
+				// Within the tolerance the point may belong to the neighbour
+				continue;
+			}
+			final int triangle = locator.locate(x, y);
+			final int expected = findTriangle(vertices, indices, x, y);
+			if (triangle == -1)
+			{
+				assertTrue(expected == -1);
+			}
+			else
+			{
+				assertTrue(containsPoint(vertices, indices, triangle, x, y));
+			}
+		}
+		// Points on shared edges and vertices belong to one of the triangles
+		for (int i = 0; i <= SIZE; i++)
+		{
+			assertTrue(locator.locate(i, i) != -1);
+			assertTrue(locator.locate(i, 0.5f) != -1);
+		}
+		assertTrue(locator.locate(SIZE + 0.01f, 1) == -1);
+	}
+
+	@Test
+	public void testLocateBatch()
+	{
+		final int[] indices = createGridIndices();
+		final TriangleMeshLocator locator = new TriangleMeshLocator(createGridVertices(), indices,
+				indices.length / 3);
+		final int count = 5000;
+		final float[] points = new float[count * 2];
+		for (int i = 0; i < count; i++)
+		{
+			// A path with a few jumps
+			points[i * 2] = i % 1000 == 0 ? GMath.randomFloat(-1, SIZE + 1) : i * 0.004f;
+			points[i * 2 + 1] = GMath.randomFloat(-1, SIZE + 1);
+		}
+		final int[] triangles = new int[count];
+		locator.locate(points, count, triangles);
+		for (int i = 0; i < count; i++)
+		{
+			final int triangle = locator.locate(points[i * 2], points[i * 2 + 1]);
+			assertTrue(triangles[i] == triangle || triangles[i] != -1
+					&& locator.contains(triangles[i], points[i * 2], points[i * 2 + 1]));
+		}
+	}
+
+	@Test
+	public void testDegeneratedMesh()
+	{
+		final float[] vertices = { 0, 0, 1, 0, 2, 0, 0, 1 };
+		final TriangleMeshLocator locator = new TriangleMeshLocator(vertices,
+				new int[] { 0, 1, 2, 0, 1, 3 }, 2);
+		assertTrue(locator.locate(1.5f, 0) == -1);
+		assertTrue(locator.locate(0.2f, 0.2f) == 1);
+		assertTrue(new TriangleMeshLocator(vertices, new int[0], 0).locate(0, 0) == -1);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidIndex()
+	{
+		new TriangleMeshLocator(new float[] { 0, 0, 1, 0, 0, 1 }, new int[] { 0, 1, 3 }, 1);
+	}
+
+	/**
+	 * @return Vertices of a grid of SIZE x SIZE unit squares.
+	 */
+	private static float[] createGridVertices()
+	{
+		final float[] vertices = new float[(SIZE + 1) * (SIZE + 1) * 2];
+		for (int y = 0; y <= SIZE; y++)
+		{
+			for (int x = 0; x <= SIZE; x++)
+			{
+				vertices[(y * (SIZE + 1) + x) * 2] = x;
+				vertices[(y * (SIZE + 1) + x) * 2 + 1] = y;
+			}
+		}
+		return vertices;
+	}
+
+	/**
+	 * @return Two triangles per square, every other one in clockwise order.
+	 */
+	private static int[] createGridIndices()
+	{
+		final int[] indices = new int[SIZE * SIZE * 6];
+		int index = 0;
+		for (int y = 0; y < SIZE; y++)
+		{
+			for (int x = 0; x < SIZE; x++)
+			{
+				final int lowerLeft = y * (SIZE + 1) + x;
+				final int upperLeft = lowerLeft + SIZE + 1;
+				indices[index++] = lowerLeft;
+				indices[index++] = lowerLeft + 1;
+				indices[index++] = upperLeft + 1;
+				indices[index++] = lowerLeft;
+				indices[index++] = upperLeft + 1;
+				indices[index++] = upperLeft;
+				if (GMath.isOdd(x + y))
+				{
+					final int swap = indices[index - 1];
+					indices[index - 1] = indices[index - 2];
+					indices[index - 2] = swap;
+				}
+			}
+		}
+		return indices;
+	}
+
+	private static boolean isNearEdge(final float value)
+	{
+		return GMath.abs(value - Math.round(value)) < 0.001f;
+	}
+
+	private static int findTriangle(
+			final float[] vertices,
+			final int[] indices,
+			final float x,
+			final float y)
+	{
+		for (int triangle = 0; triangle < indices.length / 3; triangle++)
+		{
+			if (containsPoint(vertices, indices, triangle, x, y))
+			{
+				return triangle;
+			}
+		}
+		return -1;
+	}
+
+	private static boolean containsPoint(
+			final float[] vertices,
+			final int[] indices,
+			final int triangle,
+			final float x,
+			final float y)
+	{
+		final int a = indices[triangle * 3] * 2;
+		final int b = indices[triangle * 3 + 1] * 2;
+		final int c = indices[triangle * 3 + 2] * 2;
+		return ShapeUtil.triangleContainsPoint(vertices[a], vertices[a + 1], vertices[b],
+				vertices[b + 1], vertices[c], vertices[c + 1], x, y);
+	}
+}
@@ -34,10 +34,69 @@ public class UtilTest
         assertTrue(ShapeUtil.polygonArea(polygon, polygon.length - 2) - 0.5f <= 0.00000001);
     }
 
+    @Test
+    public void testPolygonContainsPoint()
+    {
+        final float[] polygon = new float[] { 0, 0, 3, 0, 3, 3, 2, 3, 2, 1, 1, 1, 1, 3, 0, 3 };
+        assertTrue(ShapeUtil.polygonContainsPoint(polygon, polygon.length, 0.5f, 2));
+        assertTrue(ShapeUtil.polygonContainsPoint(polygon, polygon.length, 1.5f, 0.5f));
+        assertTrue(!ShapeUtil.polygonContainsPoint(polygon, polygon.length, 1.5f, 2));
+        assertTrue(!ShapeUtil.polygonContainsPoint(polygon, polygon.length, 4, 1));
+        // The ray of the point passes through the vertices at y 1
+        assertTrue(!ShapeUtil.polygonContainsPoint(polygon, polygon.length, -1, 1));
+        assertTrue(ShapeUtil.polygonContainsPoint(polygon, polygon.length, 2.5f, 1));
+    }
+
     @Test
     public void testPolygonPerimeter()
     {
         final float[] polygon = new float[] { 0, 0, 1, 0, 1, 1, 0, 1 };
-        assertTrue(ShapeUtil.polygonCircumference(polygon, polygon.length) - 4 <= 0.00000001);
+        assertTrue(GMath.isNearlyEqual(ShapeUtil.polygonCircumference(polygon), 4));
+        // The closing edge of the first three vertices is the diagonal
+        assertTrue(GMath.isNearlyEqual(ShapeUtil.polygonCircumference(polygon, 6),
+                2 + GMath.sqrt(2)));
+    }
+
+    @Test
+    public void testMathModes()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            final float x = GMath.randomFloat(-10, 10);
+            final float y = GMath.randomFloat(-10, 10);
+            assertTrue(GMath.abs(GMath.sqrt(x * x) - GMath.abs(x)) < 0.0001f);
+            assertTrue(GMath.abs(GMath.sin(x) - (float) Math.sin(x)) < 0.002f);
+            assertTrue(GMath.abs(GMath.cos(x) - (float) Math.cos(x)) < 0.002f);
+            assertTrue(GMath.abs(GMath.atan2(y, x) - (float) Math.atan2(y, x)) < 0.001f);
+            // The public methods run the mode chosen at startup
+            assertEquals(GMath.sin(x, GMath.STRICT), GMath.sin(x), 0);
+            assertEquals(GMath.atan2(y, x, GMath.STRICT), GMath.atan2(y, x), 0);
+        }
+    }
+
+    @Test
+    public void testStrictMode()
+    {
+        for (int i = 0; i < 1000; i++)
+        {
+            final float x = GMath.randomFloat(-10, 10);
+            final float y = GMath.randomFloat(-10, 10);
+            final float base = GMath.abs(x);
+            assertEquals((float) StrictMath.sqrt(base), GMath.sqrt(base, true), 0);
+            assertEquals((float) StrictMath.pow(base, y), GMath.pow(base, y, true), 0);
+            assertEquals((float) StrictMath.exp(x), GMath.exp(x, true), 0);
+            assertEquals((float) StrictMath.log(base), GMath.ln(base, true), 0);
+            assertEquals((float) StrictMath.log10(base), GMath.log(base, true), 0);
+            assertEquals((float) StrictMath.cos(x), GMath.cos(x, true), 0);
+            assertEquals((float) StrictMath.sin(x), GMath.sin(x, true), 0);
+            assertEquals((float) StrictMath.acos(x / 10), GMath.acos(x / 10, true), 0);
+            assertEquals((float) StrictMath.asin(x / 10), GMath.asin(x / 10, true), 0);
+            assertEquals((float) StrictMath.atan2(y, x), GMath.atan2(y, x, true), 0);
+            final float log = (float) StrictMath.log(base) / (float) StrictMath.log(3);
+            assertEquals(log, GMath.log(3, base, true), 0);
+            // The fast mode stays close to the strict one
+            assertEquals(GMath.sin(x, true), GMath.sin(x, false), 0.002f);
+            assertEquals(GMath.atan2(y, x, true), GMath.atan2(y, x, false), 0.001f);
+        }
     }
 }
@@ -0,0 +1,156 @@
+package vine.math;
+
+
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import vine.math.geometry.shape.Aabb;
+import vine.math.geometry.shape.Circle;
+import vine.math.physics.VerletSystem;
+import vine.math.vector.VectorUtils;
+
+
+public class VerletSystemTest
+{
+
+	private static final float DELTA_TIME = 1 / 60f;
+
+
+	@Test
+	public void testFallingParticle()
+	{
+		final VerletSystem system = new VerletSystem(1);
+		system.setDamping(1);
+		final int particle = system.addParticle(0, 10, 1);
+		system.step(DELTA_TIME);
+		system.step(DELTA_TIME);
+		assertTrue(system.getY(particle) < 10);
+		assertTrue(system.getX(particle) == 0);
+	}
+
+	@Test
+	public void testPinnedRopeKeepsLength()
+	{
+		final VerletSystem system = new VerletSystem(16);
+		system.setIterations(20);
+		final int segments = 10;
+		int previous = system.addParticle(0, 0, 1);
+		system.pin(previous, 0, 0);
+		for (int i = 1; i <= segments; i++)
+		{
+			final int particle = system.addParticle(i * 0.5f, 0, 1);
+			system.addDistanceConstraint(previous, particle, 1);
+			previous = particle;
+		}
+		for (int i = 0; i < 600; i++)
+		{
+			system.step(DELTA_TIME);
+		}
+		assertTrue(system.getX(0) == 0 && system.getY(0) == 0);
+		for (int i = 1; i <= segments; i++)
+		{
+			final float length = VectorUtils.length(
+					system.getX(i) - system.getX(i - 1),
+					system.getY(i) - system.getY(i - 1));
+			assertTrue(GMath.abs(length - 0.5f) < 0.02f);
+		}
+		assertTrue(GMath.abs(system.getX(segments)) < 0.5f);
+		assertTrue(system.getY(segments) < -4.5f);
+		assertTrue(system.unpin(0));
+		assertTrue(!system.unpin(0));
+	}
+
+	@Test
+	public void testAngleConstraintKeepsRodStraight()
+	{
+		final VerletSystem system = new VerletSystem(3);
+		system.setIterations(20);
+		final int a = system.addParticle(0, 0, 0);
+		final int center = system.addParticle(1, 0, 0);
+		final int c = system.addParticle(2, 0, 1);
+		system.addDistanceConstraint(center, c, 1);
+		system.addAngleConstraint(a, center, c, 1);
+		for (int i = 0; i < 60; i++)
+		{
+			system.step(DELTA_TIME);
+		}
+		assertTrue(GMath.abs(system.getY(c)) < 0.05f);
+		assertTrue(GMath.abs(system.getX(c) - 2) < 0.05f);
+	}
+
+	@Test
+	public void testCollisions()
+	{
+		final VerletSystem system = new VerletSystem(2);
+		system.setParticleRadius(0.1f);
+		system.addCollider(new Aabb(-5, -1, 10, 1));
+		system.addCollider(new Circle(10, 0, 1));
+		final int onBox = system.addParticle(0, 2, 1);
+		final int onCircle = system.addParticle(10, 3, 1);
+		for (int i = 0; i < 240; i++)
+		{
+			system.step(DELTA_TIME);
+		}
+		assertTrue(GMath.abs(system.getY(onBox) - 0.1f) < 0.01f);
+		assertTrue(GMath.abs(system.getY(onCircle) - 1.1f) < 0.01f);
+
+		final int inside = system.addParticle(-4.9f, -0.5f, 1);
+		system.setGravity(0, 0);
+		system.step(DELTA_TIME);
+		assertTrue(system.getX(inside) <= -5.1f + GMath.EPSILON);
+	}
+
+	@Test
+	public void testParallelClothMatchesSerial()
+	{
+		final ForkJoinPool pool = new ForkJoinPool(4);
+		final VerletSystem serial = createCloth(100);
+		final VerletSystem parallel = createCloth(100);
+		parallel.setPool(pool);
+		for (int i = 0; i < 30; i++)
+		{
+			serial.step(DELTA_TIME);
+			parallel.step(DELTA_TIME);
+		}
+		for (int particle = 0; particle < serial.getParticleCount(); particle++)
+		{
+			assertTrue(serial.getX(particle) == parallel.getX(particle));
+			assertTrue(serial.getY(particle) == parallel.getY(particle));
+		}
+		assertTrue(serial.getY(100 * 50) < 0);
+		pool.shutdown();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidConstraint()
+	{
+		final VerletSystem system = new VerletSystem(1);
+		system.addDistanceConstraint(system.addParticle(0, 0, 1), 1, 1);
+	}
+
+	static VerletSystem createCloth(final int size)
+	{
+		final VerletSystem system = new VerletSystem(size * size);
+		for (int y = 0; y < size; y++)
+		{
+			for (int x = 0; x < size; x++)
+			{
+				final int particle = system.addParticle(x * 0.1f, -y * 0.1f, 1);
+				if (x > 0)
+				{
+					system.addDistanceConstraint(particle - 1, particle, 1);
+				}
+				if (y > 0)
+				{
+					system.addDistanceConstraint(particle - size, particle, 1);
+				}
+			}
+		}
+		system.pin(0, 0, 0);
+		system.pin(size - 1, (size - 1) * 0.1f, 0);
+		return system;
+	}
+}